@@ -0,0 +1,6 @@
+-- Progress of running jobs
+ALTER TABLE oc_job ADD COLUMN progress FLOAT NULL;
+ALTER TABLE oc_job ADD COLUMN remaining_time BIGINT NULL;
+
+-- Incidents are kept when their jobs are moved to the job archive
+ALTER TABLE oc_incident DROP FOREIGN KEY IF EXISTS FK_oc_incident_jobid;
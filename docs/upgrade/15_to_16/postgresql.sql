@@ -0,0 +1,6 @@
+-- Progress of running jobs
+ALTER TABLE oc_job ADD COLUMN progress REAL;
+ALTER TABLE oc_job ADD COLUMN remaining_time BIGINT;
+
+-- Incidents are kept when their jobs are moved to the job archive
+ALTER TABLE oc_incident DROP CONSTRAINT IF EXISTS fk_oc_incident_jobid;
@@ -49,6 +49,10 @@ angular.module('adminNg.controllers')
         name:  'processingNode',
         label: 'SYSTEMS.JOBS.TABLE.NODE_NAME',
         sortable: true
+      }, {
+        name:  'progress',
+        label: 'SYSTEMS.JOBS.TABLE.PROGRESS',
+        sortable: false
       }, {
         name:  'submitted',
         label: 'SYSTEMS.JOBS.TABLE.SUBMITTED',
@@ -21,7 +21,7 @@
 'use strict';
 
 angular.module('adminNg.resources')
-.factory('JobsResource', ['$resource', 'Language', function ($resource, Language) {
+.factory('JobsResource', ['$resource', '$filter', 'Language', function ($resource, $filter, Language) {
   return $resource('/admin-ng/job/jobs.json', {}, {
     query: { method: 'GET', isArray: false, cancellable: true, transformResponse: function (json) {
       var result = [], i = 0, parse, data;
@@ -38,6 +38,12 @@ angular.module('adminNg.resources')
         row.creator = r.creator;
         row.processingHost = r.processingHost;
         row.processingNode = r.processingNode;
+        if (angular.isNumber(r.progress)) {
+          row.progress = Math.round(r.progress * 100) + '%';
+          if (angular.isNumber(r.remainingTime)) {
+            row.progress += ' (' + $filter('humanDuration')(r.remainingTime) + ')';
+          }
+        }
         return row;
       };
 
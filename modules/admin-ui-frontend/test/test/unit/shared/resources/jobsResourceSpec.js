@@ -2,6 +2,7 @@ describe('Jobs API Resource', function () {
     var JobsResource, $httpBackend;
 
     beforeEach(module('adminNg.resources'));
+    beforeEach(module('adminNg.filters'));
     beforeEach(module('adminNg.services.language'));
     beforeEach(module('pascalprecht.translate'));
     beforeEach(module('ngResource'));
@@ -55,6 +56,17 @@ describe('Jobs API Resource', function () {
             expect(data.rows[0].operation).toBe(sampleJSON.results[0].operation);
             expect(data.rows[0].name).toBe(sampleJSON.results[0].name);
             expect(data.rows[0].status).toBe(sampleJSON.results[0].status);
+            expect(data.rows[0].progress).toBeUndefined();
+        });
+
+        it('formats the progress of running jobs', function () {
+            sampleJSON.results[1].status = 'RUNNING';
+            sampleJSON.results[1].progress = 0.424;
+            sampleJSON.results[1].remainingTime = 312500;
+            $httpBackend.whenGET('/admin-ng/job/jobs.json').respond(JSON.stringify(sampleJSON));
+            var data = JobsResource.query();
+            $httpBackend.flush();
+            expect(data.rows[1].progress).toBe('42% (5:12)');
         });
     });
 });
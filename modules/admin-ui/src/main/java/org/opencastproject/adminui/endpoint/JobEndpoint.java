@@ -298,7 +298,9 @@ public class JobEndpoint {
               f("started", v(started, Jsons.BLANK)),
               f("creator", v(creator, Jsons.BLANK)),
               f("processingHost", v(processingHost, Jsons.BLANK)),
-              f("processingNode", v(processingNode, Jsons.BLANK))));
+              f("processingNode", v(processingNode, Jsons.BLANK)),
+              f("progress", v(job.getProgress(), Jsons.BLANK)),
+              f("remainingTime", v(job.getRemainingTime(), Jsons.BLANK))));
     }
 
     return jsonList;
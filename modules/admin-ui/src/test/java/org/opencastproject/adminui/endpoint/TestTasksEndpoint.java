@@ -124,6 +124,7 @@ public class TestTasksEndpoint extends TasksEndpoint {
         FileUtils.copyFile(new File(getClass().getResource("/processing-properties.xml").toURI()), tmp);
         return tmp;
       }).anyTimes();
+    expect(workspace.getChecksum(anyObject(URI.class))).andReturn(Optional.empty()).anyTimes();
 
     WorkflowService workflowService = createNiceMock(WorkflowService.class);
     expect(workflowService.listAvailableWorkflowDefinitions()).andReturn(Arrays.asList(wfD, wfD2, wfD3)).anyTimes();
@@ -35,7 +35,10 @@ public interface AssetStore extends StorageUsage {
 
   String STORE_TYPE_PROPERTY = "store.type";
 
-  /** Add the content of <code>soure</code> under the given path. */
+  /**
+   * Add the content of <code>soure</code> under the given path. Sources with {@link Source#getContent() content} are
+   * streamed into the store directly, all others are fetched from the workspace.
+   */
   void put(StoragePath path, Source source) throws AssetStoreException;
 
   /**
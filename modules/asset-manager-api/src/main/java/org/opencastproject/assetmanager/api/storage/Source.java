@@ -22,7 +22,9 @@ package org.opencastproject.assetmanager.api.storage;
 
 import org.opencastproject.util.MimeType;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.Optional;
 
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -35,11 +37,17 @@ public final class Source {
   private final URI uri;
   private final Optional<Long> size;
   private final Optional<MimeType> mimeType;
+  private final Optional<InputStream> content;
 
   public Source(URI uri, Optional<Long> size, Optional<MimeType> mimeType) {
+    this(uri, size, mimeType, Optional.empty());
+  }
+
+  private Source(URI uri, Optional<Long> size, Optional<MimeType> mimeType, Optional<InputStream> content) {
     this.uri = uri;
     this.size = size;
     this.mimeType = mimeType;
+    this.content = content;
   }
 
   /** Create a new source. */
@@ -62,6 +70,20 @@ public final class Source {
     return new Source(uri, size, mimeType);
   }
 
+  /**
+   * Create a new streaming source. The content is read from <code>content</code> instead of being fetched from the
+   * workspace. The file name is only used to name the stored resource, e.g. to derive its extension.
+   * <p>
+   * A streaming source can only be put once. The stream is not closed by the asset store.
+   */
+  public static Source mk(String fileName, InputStream content, Optional<MimeType> mimeType) {
+    try {
+      return new Source(new URI(null, null, fileName, null), Optional.empty(), mimeType, Optional.of(content));
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Invalid file name " + fileName, e);
+    }
+  }
+
   public URI getUri() {
     return uri;
   }
@@ -73,4 +95,9 @@ public final class Source {
   public Optional<MimeType> getMimeType() {
     return mimeType;
   }
+
+  /** The content of a streaming source. If empty, the content has to be fetched from {@link #getUri()}. */
+  public Optional<InputStream> getContent() {
+    return content;
+  }
 }
@@ -111,7 +111,6 @@ import com.entwinemedia.fn.fns.Booleans;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.component.ComponentContext;
@@ -123,11 +122,13 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -139,7 +140,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -1171,6 +1171,7 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
     final Version version = snap.getVersion();
     final String prettyMpId = mpId + "@v" + version;
     logger.debug("Moving assets for snapshot {} to store {}", prettyMpId, store.getStoreType());
+    final Map<String, StoragePath> moved = new HashMap<>();
     for (final MediaPackageElement e : snap.getMediaPackage().getElements()) {
       if (!MOVABLE_TYPES.contains(e.getElementType())) {
         logger.debug("Skipping {} because type is {}", e.getIdentifier(), e.getElementType());
@@ -1185,15 +1186,7 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
       }
 
       // find asset in versions & stores
-      final Optional<StoragePath> existingAssetOpt =
-          getDatabase()
-          .findAssetByChecksumAndStore(e.getChecksum().toString(), store.getStoreType())
-          .map(dto -> StoragePath.mk(
-              dto.getOrganizationId(),
-              dto.getMediaPackageId(),
-              dto.getVersion(),
-              dto.getAssetDto().getMediaPackageElementId()
-          ));
+      final Optional<StoragePath> existingAssetOpt = findStoredAsset(e.getChecksum().toString(), store, moved);
 
       if (existingAssetOpt.isPresent()) {
         final StoragePath existingAsset = existingAssetOpt.get();
@@ -1211,6 +1204,7 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
         final Optional<Long> size = e.getSize() > 0 ? Optional.of(e.getSize()) : Optional.empty();
         store.put(storagePath, Source.mk(e.getURI(), size, Optional.ofNullable(e.getMimeType())));
       }
+      moved.putIfAbsent(e.getChecksum().toString(), storagePath);
       getDatabase().setAssetStorageLocation(VersionImpl.mk(version), mpId, e.getIdentifier(), store.getStoreType());
     }
   }
@@ -1232,38 +1226,14 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
 
     // Already copied?
     if (!targetStore.contains(pathToManifest)) {
-      Optional<InputStream> inputStreamOpt;
-      InputStream inputStream = null;
-      String manifestFileName = null;
-      try {
-        inputStreamOpt = currentStore.get(pathToManifest);
-        if (inputStreamOpt.isEmpty()) { // This should never happen because it has been tested before
-          throw new NotFoundException(
-                  String.format("Unexpected error. Manifest %s not found in current asset store", manifestBaseName));
-        }
-
-        inputStream = inputStreamOpt.get();
-        manifestFileName = UUID.randomUUID() + ".xml";
-        URI manifestTmpUri = workspace.putInCollection("archive", manifestFileName, inputStream);
-        targetStore.put(pathToManifest, Source.mk(manifestTmpUri, Optional.empty(), Optional.of(MimeTypes.XML)));
-      } finally {
-        IOUtils.closeQuietly(inputStream);
-        try {
-          // Make sure to clean up the temporary file
-          workspace.deleteFromCollection("archive", manifestFileName);
-        } catch (NotFoundException e) {
-          // This is OK, we are deleting it anyway
-        } catch (IOException e) {
-          // This usually happens when the collection directory cannot be deleted
-          // because another process is running at the same time and wrote a file there
-          // after it was tested but before it was actually deleted. We will consider this ok.
-          // Does the error message mention the manifest file name?
-          if (e.getMessage().contains(manifestFileName)) {
-            logger.warn("The manifest file {} didn't get deleted from the archive collection: {}",
-                    manifestBaseName, e);
-          }
-          // Else the error is related to the file-archive collection, which is fine
-        }
+      Optional<InputStream> inputStreamOpt = currentStore.get(pathToManifest);
+      if (inputStreamOpt.isEmpty()) { // This should never happen because it has been tested before
+        throw new NotFoundException(
+                String.format("Unexpected error. Manifest %s not found in current asset store", manifestBaseName));
+      }
+      // Stream the manifest from one store into the other
+      try (InputStream inputStream = inputStreamOpt.get()) {
+        targetStore.put(pathToManifest, Source.mk(manifestBaseName + ".xml", inputStream, Optional.of(MimeTypes.XML)));
       }
     }
   }
@@ -1292,6 +1262,12 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
   void calcChecksumsForMediaPackageElements(PartialMediaPackage pmp) {
     final Fx<MediaPackageElement> addChecksum = new Fx<MediaPackageElement>() {
       @Override public void apply(MediaPackageElement mpe) {
+        // Reuse the checksum computed while the file has been stored in or downloaded to the workspace
+        final Optional<Checksum> known = workspace.getChecksum(mpe.getURI());
+        if (known.isPresent()) {
+          mpe.setChecksum(known.get());
+          return;
+        }
         File file = null;
         try {
           logger.trace("Calculate checksum for {}", mpe.getURI());
@@ -1369,17 +1345,13 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
   private void storeAssets(final PartialMediaPackage pmp, final Version version) {
     final String mpId = pmp.getMediaPackage().getIdentifier().toString();
     final String orgId = securityService.getOrganization().getId();
+    final Map<String, StoragePath> stored = new HashMap<>();
     for (final MediaPackageElement e : pmp.getElements()) {
       logger.debug("Archiving {} {} {}", e.getFlavor(), e.getMimeType(), e.getURI());
       final StoragePath storagePath = StoragePath.mk(orgId, mpId, version, e.getIdentifier());
-      // find asset in versions
-      final Optional<StoragePath> existingAssetOpt = getDatabase()
-          .findAssetByChecksumAndStore(e.getChecksum().toString(), getLocalAssetStore().getStoreType())
-          .map(dto -> StoragePath.mk(
-                  dto.getOrganizationId(),
-                  dto.getMediaPackageId(),
-                  dto.getVersion(),
-                  dto.getAssetDto().getMediaPackageElementId()));
+      // find asset in versions and in the elements already archived for this version
+      final Optional<StoragePath> existingAssetOpt = findStoredAsset(e.getChecksum().toString(),
+              getLocalAssetStore(), stored);
 
       if (existingAssetOpt.isPresent()) {
         final StoragePath existingAsset = existingAssetOpt.get();
@@ -1397,29 +1369,52 @@ public class AssetManagerImpl extends AbstractIndexProducer implements AssetMana
         final Optional<Long> size = e.getSize() > 0 ? Optional.of(e.getSize()) : Optional.empty();
         getLocalAssetStore().put(storagePath, Source.mk(e.getURI(), size, Optional.ofNullable(e.getMimeType())));
       }
+      stored.putIfAbsent(e.getChecksum().toString(), storagePath);
     }
   }
 
+  /**
+   * Find an asset with the given checksum which already lives in <code>store</code>, so that it can be linked instead
+   * of being transferred again.
+   * <p>
+   * Assets written during the current operation are not yet known to the database, so they are looked up in
+   * <code>written</code> first. This catches elements sharing the same content within a single snapshot.
+   *
+   * @param checksum
+   *          the checksum of the asset content
+   * @param store
+   *          the store to look in
+   * @param written
+   *          checksum to storage path of the assets written to <code>store</code> by the current operation
+   * @return the storage path of an asset with the same content or none
+   */
+  private Optional<StoragePath> findStoredAsset(final String checksum, final AssetStore store,
+          final Map<String, StoragePath> written) {
+    final StoragePath path = written.get(checksum);
+    if (path != null) {
+      return Optional.of(path);
+    }
+    return getDatabase()
+        .findAssetByChecksumAndStore(checksum, store.getStoreType())
+        .map(dto -> StoragePath.mk(
+            dto.getOrganizationId(),
+            dto.getMediaPackageId(),
+            dto.getVersion(),
+            dto.getAssetDto().getMediaPackageElementId()));
+  }
+
   private void storeManifest(final PartialMediaPackage pmp, final Version version) throws Exception {
     final String mpId = pmp.getMediaPackage().getIdentifier().toString();
     final String orgId = securityService.getOrganization().getId();
+    final String manifestId = manifestAssetId(pmp, "manifest");
     // store the manifest.xml
-    // TODO make use of checksums
+    // stream it into the store directly instead of taking a round trip through the workspace
     logger.debug("Archiving manifest of media package {} version {}", mpId, version);
-    // temporarily save the manifest XML into the workspace to
-    // Fix file not found exception when several snapshots are taken at the same time
-    final String manifestFileName = format("manifest_%s_%s.xml", pmp.getMediaPackage().getIdentifier(), version);
-    final URI manifestTmpUri = workspace.putInCollection(
-            "archive",
-            manifestFileName,
-            IOUtils.toInputStream(MediaPackageParser.getAsXml(pmp.getMediaPackage()), "UTF-8"));
-    try {
+    final byte[] manifest = MediaPackageParser.getAsXml(pmp.getMediaPackage()).getBytes(StandardCharsets.UTF_8);
+    try (InputStream in = new ByteArrayInputStream(manifest)) {
       getLocalAssetStore().put(
-              StoragePath.mk(orgId, mpId, version, manifestAssetId(pmp, "manifest")),
-              Source.mk(manifestTmpUri, Optional.empty(), Optional.of(MimeTypes.XML)));
-    } finally {
-      // make sure to clean up the temporary file
-      workspace.deleteFromCollection("archive", manifestFileName);
+              StoragePath.mk(orgId, mpId, version, manifestId),
+              Source.mk(manifestId + ".xml", in, Optional.of(MimeTypes.XML)));
     }
   }
 
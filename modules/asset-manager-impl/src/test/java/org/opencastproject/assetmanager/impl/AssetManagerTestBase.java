@@ -139,6 +139,7 @@ public abstract class AssetManagerTestBase {
       FileUtils.copyFile(new File(getClass().getResource("/dublincore-a.xml").toURI()), tmp);
       return tmp;
     }).anyTimes();
+    EasyMock.expect(workspace.getChecksum(EasyMock.anyObject(URI.class))).andReturn(Optional.empty()).anyTimes();
     EasyMock.replay(workspace);
 
     AssetStore localAssetStore = mkAssetStore(LOCAL_STORE_ID);
@@ -39,7 +39,9 @@ import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
@@ -168,9 +170,36 @@ public abstract class AwsAbstractArchive implements AssetStore {
    * @see AssetStore#put(StoragePath, Source)
    */
   public void put(StoragePath storagePath, Source source) throws AssetStoreException {
+    if (source.getContent().isPresent()) {
+      putContent(storagePath, source);
+      return;
+    }
     // If the workspace  to asset manager hard-linking is enabled then this is just a
     // hard-link. If not, this will be a download + hard-link
     final File origin = getFileFromWorkspace(source);
+    put(storagePath, source, origin);
+  }
+
+  /**
+   * Upload the content of a streaming source. The upload needs to know the content length in advance, so the content
+   * is buffered in a local temporary file rather than in the workspace.
+   */
+  private void putContent(StoragePath storagePath, Source source) throws AssetStoreException {
+    final String ext = FilenameUtils.getExtension(source.getUri().getPath());
+    File origin = null;
+    try {
+      origin = File.createTempFile("asset", ext.isEmpty() ? null : "." + ext);
+      FileUtils.copyInputStreamToFile(CloseShieldInputStream.wrap(source.getContent().get()), origin);
+      put(storagePath, source, origin);
+    } catch (IOException e) {
+      logger.error("Error while buffering content for {}: {}", storagePath, getMessage(e));
+      throw new AssetStoreException(e);
+    } finally {
+      FileUtils.deleteQuietly(origin);
+    }
+  }
+
+  private void put(StoragePath storagePath, Source source, File origin) throws AssetStoreException {
 
     String objectName = buildObjectName(origin, storagePath);
     String objectVersion = null;
@@ -226,9 +255,8 @@ public abstract class AwsAbstractArchive implements AssetStore {
       List<AwsAssetMapping> list = database.findMappingsByMediaPackageAndVersion(path);
       // Traverse all file mappings for that media package / version(s)
       for (AwsAssetMapping map : list) {
-        // Find all mappings that point to the same object (like hard-links)
-        List<AwsAssetMapping> links = database.findMappingsByKey(map.getObjectKey());
-        if (links.size() == 1) {
+        // Count all mappings that point to the same object (like hard-links)
+        if (database.countMappingsByKey(map.getObjectKey()) == 1) {
           // This is the only active mapping thats point to the object; thus, the object can be deleted.
           logger.debug("Deleting archive object from AWS {}: {}, version {}",
               getStoreType(), map.getObjectKey(), map.getObjectVersion());
@@ -36,6 +36,8 @@ public interface AwsAssetDatabase {
 
   List<AwsAssetMapping> findMappingsByKey(String objectKey) throws AwsAssetDatabaseException;
 
+  long countMappingsByKey(String objectKey) throws AwsAssetDatabaseException;
+
   List<AwsAssetMapping> findMappingsByMediaPackageAndVersion(StoragePath path) throws AwsAssetDatabaseException;
 
   List<AwsAssetMapping> findAllByMediaPackage(String mpId) throws AwsAssetDatabaseException;
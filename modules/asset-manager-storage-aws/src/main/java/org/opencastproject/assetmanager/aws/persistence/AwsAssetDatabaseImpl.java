@@ -128,6 +128,15 @@ public class AwsAssetDatabaseImpl implements AwsAssetDatabase {
     }
   }
 
+  @Override
+  public long countMappingsByKey(String objectKey) throws AwsAssetDatabaseException {
+    try {
+      return db.execTx(AwsAssetMappingDto.countMappingsByKeyQuery(objectKey));
+    } catch (Exception e) {
+      throw new AwsAssetDatabaseException(e);
+    }
+  }
+
   @Override
   public List<AwsAssetMapping> findMappingsByMediaPackageAndVersion(StoragePath path)
           throws AwsAssetDatabaseException {
@@ -75,6 +75,10 @@ import javax.xml.bind.annotation.XmlAttribute;
         name = "AwsAssetMapping.findAllActiveByObjectKey",
         query = "SELECT m FROM AwsAssetMapping m WHERE m.objectKey = :objectKey AND m.deletionDate IS NULL"
     ),
+    @NamedQuery(
+        name = "AwsAssetMapping.countActiveByObjectKey",
+        query = "SELECT COUNT(m) FROM AwsAssetMapping m WHERE m.objectKey = :objectKey AND m.deletionDate IS NULL"
+    ),
     @NamedQuery(
         name = "AwsAssetMapping.findAllActiveByMediaPackage",
         query = "SELECT m FROM AwsAssetMapping m WHERE m.organizationId = :organizationId AND "
@@ -190,6 +194,15 @@ public class AwsAssetMappingDto {
     );
   }
 
+  /** Count the active assets that link to the AWS S3 object passed. */
+  public static Function<EntityManager, Long> countMappingsByKeyQuery(final String objectKey) {
+    return namedQuery.find(
+        "AwsAssetMapping.countActiveByObjectKey",
+        Long.class,
+        Pair.of("objectKey", objectKey)
+    );
+  }
+
   /** Find all assets that belong to a media package and version (optional). */
   public static Function<EntityManager, List<AwsAssetMappingDto>> findMappingsByMediaPackageAndVersionQuery(
       final StoragePath path) {
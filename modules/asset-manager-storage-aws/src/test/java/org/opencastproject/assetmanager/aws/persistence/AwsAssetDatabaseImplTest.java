@@ -143,6 +143,20 @@ public class AwsAssetDatabaseImplTest {
             || (ASSET2_ID.equals(m1.getMediaPackageElementId()) && ASSET1_ID.equals(m2.getMediaPackageElementId())));
   }
 
+  @Test
+  public void testCountMappingsByKey() throws Exception {
+    StoragePath path1 = new StoragePath(ORG, MP_ID, new VersionImpl(1L), ASSET1_ID);
+    database.storeMapping(path1, "archive_path/" + ASSET1_ID, AWS_VERSION_1);
+    StoragePath path2 = new StoragePath(ORG, MP_ID, new VersionImpl(2L), ASSET1_ID);
+    database.storeMapping(path2, "archive_path/" + ASSET1_ID, AWS_VERSION_1);
+    Assert.assertEquals(2, database.countMappingsByKey("archive_path/" + ASSET1_ID));
+
+    // Deleted mappings no longer reference the object
+    database.deleteMapping(path1);
+    Assert.assertEquals(1, database.countMappingsByKey("archive_path/" + ASSET1_ID));
+    Assert.assertEquals(0, database.countMappingsByKey("archive_path/" + ASSET2_ID));
+  }
+
   @Test
   public void testFindMappingByMediaPackageAndVersion() throws Exception {
     StoragePath path = new StoragePath(ORG, MP_ID, new VersionImpl(1L), ASSET1_ID);
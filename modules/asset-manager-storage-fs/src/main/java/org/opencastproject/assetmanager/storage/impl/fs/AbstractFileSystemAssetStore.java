@@ -42,6 +42,7 @@ import com.entwinemedia.fn.data.Opt;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +70,10 @@ public abstract class AbstractFileSystemAssetStore implements AssetStore {
 
   @Override
   public void put(StoragePath storagePath, Source source) throws AssetStoreException {
+    if (source.getContent().isPresent()) {
+      putContent(storagePath, source);
+      return;
+    }
     // Retrieving the file from the workspace has the advantage that in most cases the file already exists in the local
     // working file repository. In the very few cases where the file is not in the working file repository,
     // this strategy leads to a minor overhead because the file not only gets downloaded and stored in the file system
@@ -88,6 +93,19 @@ public abstract class AbstractFileSystemAssetStore implements AssetStore {
     }
   }
 
+  /** Write the content of a streaming source into the store without going through the workspace. */
+  private void putContent(StoragePath storagePath, Source source) {
+    final File destination = createFile(storagePath, source);
+    mkParent(destination);
+    try {
+      FileUtils.copyInputStreamToFile(CloseShieldInputStream.wrap(source.getContent().get()), destination);
+    } catch (IOException e) {
+      logger.error("Error while writing file {}: {}", destination, getMessage(e));
+      FileUtils.deleteQuietly(destination);
+      throw new AssetStoreException(e);
+    }
+  }
+
   private File getUniqueFileFromWorkspace(Source source) {
     try {
       return getWorkspace().get(source.getUri(), true);
@@ -196,7 +214,7 @@ public abstract class AbstractFileSystemAssetStore implements AssetStore {
   /** Return the extension of a URI, i.e. the extension of its path. */
   private Opt<String> extension(URI uri) {
     try {
-      return trimToNone(getExtension(uri.toURL().getPath())).toOpt();
+      return trimToNone(getExtension(uri.isAbsolute() ? uri.toURL().getPath() : uri.getPath())).toOpt();
     } catch (MalformedURLException e) {
       throw new Error(e);
     }
@@ -43,6 +43,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -139,6 +140,24 @@ public class AbstractFileSystemAssetStoreTest {
     }
   }
 
+  @Test
+  public void testPutContent() throws Exception {
+    StoragePath storagePath = new StoragePath(ORG_ID, MP_ID, VERSION_1, MP_ELEM_ID);
+    byte[] bytesFromClasspath;
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream(FILE_NAME)) {
+      bytesFromClasspath = IOUtils.toByteArray(in);
+    }
+    try (InputStream in = new ByteArrayInputStream(bytesFromClasspath)) {
+      repo.put(storagePath, Source.mk(MP_ELEM_ID + XML_EXTENSTION, in, Optional.empty()));
+    }
+
+    File file = new File(PathSupport.concat(new String[] {
+        tmpRoot.toString(), ORG_ID, MP_ID, VERSION_1.toString(), MP_ELEM_ID + XML_EXTENSTION
+    }));
+    assertTrue(file + " should exist", file.isFile());
+    assertArrayEquals(bytesFromClasspath, FileUtils.readFileToByteArray(file));
+  }
+
   @Test
   public void testCopy() throws Exception {
     StoragePath from = new StoragePath(ORG_ID, MP_ID, VERSION_2, MP_ELEM_ID);
@@ -0,0 +1,129 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+import org.opencastproject.util.Checksum;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caches compiled access control lists by the URI and checksum of the XACML attachment they have been loaded from.
+ * <p>
+ * Since the checksum identifies the content of an attachment, cached entries stay valid even if the attachment is
+ * replaced at the same location. Attachments without a known checksum are not cached.
+ */
+public class AclCache implements AclCacheMXBean {
+
+  /** The compiled access control lists by attachment URI and checksum */
+  private final Cache<String, CompiledAcl> cache;
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxSize
+   *          the maximum number of cached access control lists
+   * @param expiration
+   *          the time in seconds after which cached access control lists are loaded again
+   */
+  public AclCache(long maxSize, long expiration) {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(expiration, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns the access control list of an attachment, loading it if it is not cached yet.
+   *
+   * @param uri
+   *          the URI of the attachment
+   * @param checksum
+   *          the checksum of the attachment or <code>null</code> if it is unknown
+   * @param loader
+   *          loads the access control list if it is not cached
+   * @return the access control list if it could be loaded
+   */
+  public Optional<CompiledAcl> get(URI uri, Checksum checksum, Supplier<Optional<CompiledAcl>> loader) {
+    if (checksum == null) {
+      return loader.get();
+    }
+    final String key = key(uri) + checksum;
+    final CompiledAcl cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    // Failures to load an attachment may be temporary and are not cached
+    final Optional<CompiledAcl> acl = loader.get();
+    acl.ifPresent(value -> cache.put(key, value));
+    return acl;
+  }
+
+  /**
+   * Removes all access control lists loaded from an attachment location.
+   */
+  public void invalidate(URI uri) {
+    final String prefix = key(uri);
+    cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+  /** Removes all cached access control lists. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private static String key(URI uri) {
+    return uri + "\n";
+  }
+
+  @Override
+  public long getSize() {
+    return cache.size();
+  }
+
+  @Override
+  public long getHits() {
+    return cache.stats().hitCount();
+  }
+
+  @Override
+  public long getMisses() {
+    return cache.stats().missCount();
+  }
+
+  @Override
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  @Override
+  public long getEvictions() {
+    return cache.stats().evictionCount();
+  }
+
+}
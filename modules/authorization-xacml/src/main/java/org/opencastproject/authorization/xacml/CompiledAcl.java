@@ -0,0 +1,103 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+import org.opencastproject.security.api.AccessControlEntry;
+import org.opencastproject.security.api.AccessControlList;
+import org.opencastproject.security.api.Role;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An access control list prepared for permission checks. The actions allowed and denied for each role are kept as
+ * bit sets indexed by action, so that a check only needs to look up the roles of the user.
+ */
+public final class CompiledAcl {
+
+  /** The access control list */
+  private final AccessControlList acl;
+
+  /** The index of each action in the bit sets */
+  private final Map<String, Integer> actions = new HashMap<>();
+
+  /** The actions explicitly allowed for each role */
+  private final Map<String, BitSet> allowed = new HashMap<>();
+
+  /** The actions explicitly denied for each role */
+  private final Map<String, BitSet> denied = new HashMap<>();
+
+  /**
+   * Compiles an access control list.
+   *
+   * @param acl
+   *          the access control list, which is copied
+   */
+  public CompiledAcl(AccessControlList acl) {
+    this.acl = new AccessControlList(acl.getEntries());
+    for (AccessControlEntry entry : this.acl.getEntries()) {
+      if (entry.getAction() == null || entry.getRole() == null) {
+        continue;
+      }
+      final int index = actions.computeIfAbsent(entry.getAction(), action -> actions.size());
+      final Map<String, BitSet> rules = entry.isAllow() ? allowed : denied;
+      rules.computeIfAbsent(entry.getRole(), role -> new BitSet()).set(index);
+    }
+  }
+
+  /**
+   * Returns a copy of the access control list which may be modified by the caller.
+   */
+  public AccessControlList getAcl() {
+    return new AccessControlList(acl.getEntries());
+  }
+
+  /**
+   * Checks whether any of the given roles is allowed to perform an action. A matching deny rule always takes precedence
+   * over matching allow rules.
+   *
+   * @param roles
+   *          the roles of the user
+   * @param action
+   *          the action to perform
+   * @return whether the action is allowed
+   */
+  public boolean isAllowed(Collection<? extends Role> roles, String action) {
+    final Integer index = actions.get(action);
+    if (index == null) {
+      return false;
+    }
+    boolean result = false;
+    for (Role role : roles) {
+      final BitSet deny = denied.get(role.getName());
+      if (deny != null && deny.get(index)) {
+        return false;
+      }
+      final BitSet allow = allowed.get(role.getName());
+      result |= allow != null && allow.get(index);
+    }
+    return result;
+  }
+
+}
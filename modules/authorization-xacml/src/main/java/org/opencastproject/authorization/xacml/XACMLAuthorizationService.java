@@ -35,12 +35,12 @@ import org.opencastproject.security.api.AccessControlEntry;
 import org.opencastproject.security.api.AccessControlList;
 import org.opencastproject.security.api.AclScope;
 import org.opencastproject.security.api.AuthorizationService;
-import org.opencastproject.security.api.Role;
 import org.opencastproject.security.api.SecurityService;
-import org.opencastproject.security.api.User;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.IOUtils;
@@ -48,6 +48,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -62,6 +63,7 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.Optional;
 
+import javax.management.ObjectInstance;
 import javax.xml.bind.JAXBException;
 
 /**
@@ -92,6 +94,22 @@ public class XACMLAuthorizationService implements AuthorizationService {
 
   private static final String CONFIG_MERGE_MODE = "merge.mode";
 
+  private static final String CONFIG_CACHE_SIZE = "cache.size";
+
+  private static final String CONFIG_CACHE_EXPIRATION = "cache.expiration";
+
+  private static final long DEFAULT_CACHE_SIZE = 10000;
+
+  private static final long DEFAULT_CACHE_EXPIRATION = 3600;
+
+  private static final String JMX_ACL_CACHE_TYPE = "AclCache";
+
+  /** Compiled access control lists by attachment */
+  private AclCache cache = new AclCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_EXPIRATION);
+
+  /** The registered cache statistics */
+  private ObjectInstance registeredMXBean;
+
   /** Definition of how merging of series and episode ACLs work */
   private static MergeMode mergeMode = MergeMode.OVERRIDE;
 
@@ -107,6 +125,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
     if (properties == null) {
       mergeMode = MergeMode.OVERRIDE;
       logger.debug("Merge mode set to {}", mergeMode);
+      registerCache(new AclCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_EXPIRATION));
       return;
     }
     final String mode = StringUtils.defaultIfBlank((String) properties.get(CONFIG_MERGE_MODE),
@@ -118,6 +137,38 @@ public class XACMLAuthorizationService implements AuthorizationService {
       mergeMode = MergeMode.OVERRIDE;
     }
     logger.debug("Merge mode set to {}", mergeMode);
+
+    final long cacheSize = getLong(properties.get(CONFIG_CACHE_SIZE), DEFAULT_CACHE_SIZE);
+    final long cacheExpiration = getLong(properties.get(CONFIG_CACHE_EXPIRATION), DEFAULT_CACHE_EXPIRATION);
+    logger.debug("Caching up to {} ACLs for {} seconds", cacheSize, cacheExpiration);
+    registerCache(new AclCache(cacheSize, cacheExpiration));
+  }
+
+  @Deactivate
+  public void deactivate() {
+    if (registeredMXBean != null) {
+      JmxUtil.unregisterMXBean(registeredMXBean);
+      registeredMXBean = null;
+    }
+  }
+
+  /** Replaces the cache, e.g. after the configuration changed, and exposes its statistics. */
+  private void registerCache(AclCache aclCache) {
+    deactivate();
+    cache = aclCache;
+    registeredMXBean = JmxUtil.registerMXBean(cache, JMX_ACL_CACHE_TYPE);
+  }
+
+  private static long getLong(Object value, long defaultValue) {
+    if (value == null || StringUtils.isBlank(value.toString())) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.toString().trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid value '{}' set for ACL cache, defaulting to {}", value, defaultValue);
+      return defaultValue;
+    }
   }
 
   @Reference(
@@ -144,8 +195,18 @@ public class XACMLAuthorizationService implements AuthorizationService {
 
   @Override
   public Tuple<AccessControlList, AclScope> getAcl(final MediaPackage mp, final AclScope scope) {
-    Optional<AccessControlList> episode = Optional.empty();
-    Optional<AccessControlList> series = Optional.empty();
+    final Tuple<CompiledAcl, AclScope> acl = getCompiledAcl(mp, scope);
+    return tuple(acl.getA().getAcl(), acl.getB());
+  }
+
+  /**
+   * Gets the compiled access control list of a media package.
+   *
+   * @see #getAcl(MediaPackage, AclScope)
+   */
+  private Tuple<CompiledAcl, AclScope> getCompiledAcl(final MediaPackage mp, final AclScope scope) {
+    Optional<CompiledAcl> episode = Optional.empty();
+    Optional<CompiledAcl> series = Optional.empty();
 
     // Start with the requested scope but fall back to the less specific scope if it does not exist.
     // The order is: episode -> series -> general (deprecated) -> global
@@ -161,10 +222,11 @@ public class XACMLAuthorizationService implements AuthorizationService {
       switch (mergeMode) {
         case ACTIONS:
           logger.debug("Merging ACLs based on individual actions");
-          return tuple(series.get().mergeActions(episode.get()), AclScope.Merged);
+          return tuple(new CompiledAcl(series.get().getAcl().mergeActions(episode.get().getAcl())),
+              AclScope.Merged);
         case ROLES:
           logger.debug("Merging ACLs based on roles");
-          return tuple(series.get().merge(episode.get()), AclScope.Merged);
+          return tuple(new CompiledAcl(series.get().getAcl().merge(episode.get().getAcl())), AclScope.Merged);
         default:
           logger.debug("Episode ACL overrides series ACL");
           return tuple(episode.get(), AclScope.Merged);
@@ -180,11 +242,11 @@ public class XACMLAuthorizationService implements AuthorizationService {
     }
 
     logger.debug("Falling back to global default ACL");
-    return tuple(new AccessControlList(), AclScope.Global);
+    return tuple(new CompiledAcl(new AccessControlList()), AclScope.Global);
   }
 
-  private Optional<AccessControlList> getAclByFlavor(MediaPackage mp, MediaPackageElementFlavor xacmlPolicyFlavor) {
-    Optional<AccessControlList> acl = Optional.empty();
+  private Optional<CompiledAcl> getAclByFlavor(MediaPackage mp, MediaPackageElementFlavor xacmlPolicyFlavor) {
+    Optional<CompiledAcl> acl = Optional.empty();
     for (Attachment xacml : mp.getAttachments(xacmlPolicyFlavor)) {
       URI uri = xacml.getURI();
       try {
@@ -194,7 +256,11 @@ public class XACMLAuthorizationService implements AuthorizationService {
       } catch (URISyntaxException e) {
         logger.warn("URI {} syntax error, skip decoding", uri);
       }
-      acl = loadAcl(uri);
+      final URI location = uri;
+      final Checksum checksum = xacml.getChecksum() != null
+          ? xacml.getChecksum()
+          : workspace.getChecksum(location).orElse(null);
+      acl = cache.get(location, checksum, () -> loadAcl(location));
     }
     return acl;
   }
@@ -236,6 +302,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
     attachment.setChecksum(null);
     mp.add(attachment);
 
+    cache.invalidate(uri);
     logger.debug("Saved XACML as {}", uri);
 
     // return augmented media package
@@ -281,6 +348,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
     Attachment attachment = null;
     for (Attachment a : mp.getAttachments(flavor)) {
       attachment = (Attachment) a.clone();
+      cache.invalidate(a.getURI());
       try {
         workspace.delete(a.getURI());
       } catch (Exception e) {
@@ -292,11 +360,11 @@ public class XACMLAuthorizationService implements AuthorizationService {
   }
 
   /** Load an ACL from the given URI. */
-  private Optional<AccessControlList> loadAcl(final URI uri) {
+  private Optional<CompiledAcl> loadAcl(final URI uri) {
     logger.debug("Load Acl from {}", uri);
     try (InputStream is = workspace.read(uri)) {
       AccessControlList acl = XACMLUtils.parseXacml(is);
-      return Optional.of(acl);
+      return Optional.of(new CompiledAcl(acl));
     } catch (NotFoundException e) {
       logger.debug("URI {} not found", uri);
     } catch (Exception e) {
@@ -307,30 +375,21 @@ public class XACMLAuthorizationService implements AuthorizationService {
 
   @Override
   public boolean hasPermission(final MediaPackage mp, final String action) {
-    AccessControlList acl = getActiveAcl(mp).getA();
-    boolean allowed = false;
-    final User user = securityService.getUser();
-    for (AccessControlEntry entry: acl.getEntries()) {
-      // ignore entries for other actions
-      if (!entry.getAction().equals(action)) {
-        continue;
-      }
-      for (Role role : user.getRoles()) {
-        if (entry.getRole().equals(role.getName())) {
-          // immediately abort on matching deny rules
-          // (never allow if a deny rule matches, even if another allow rule matches)
-          if (!entry.isAllow()) {
-            logger.debug("Access explicitly denied for role({}), action({})", role.getName(), action);
-            return false;
-          }
-          allowed = true;
-        }
-      }
-    }
-    logger.debug("XACML file allowed access");
+    final boolean allowed = getCompiledAcl(mp, AclScope.Episode).getA()
+        .isAllowed(securityService.getUser().getRoles(), action);
+    logger.debug("XACML file {} access for action({})", allowed ? "allowed" : "denied", action);
     return allowed;
   }
 
+  /**
+   * Gets the statistics of the ACL cache.
+   *
+   * @return the cache statistics
+   */
+  AclCacheMXBean getCacheStatistics() {
+    return cache;
+  }
+
   /**
    * Sets the workspace to use for retrieving XACML policies
    *
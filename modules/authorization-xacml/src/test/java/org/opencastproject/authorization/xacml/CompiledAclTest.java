@@ -0,0 +1,71 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+import org.opencastproject.security.api.AccessControlEntry;
+import org.opencastproject.security.api.AccessControlList;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.Role;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class CompiledAclTest {
+
+  private static Role role(String name) {
+    return new JaxbRole(name, new DefaultOrganization(), "");
+  }
+
+  @Test
+  public void testIsAllowed() {
+    CompiledAcl acl = new CompiledAcl(new AccessControlList(
+        new AccessControlEntry("ROLE_ADMIN", "read", true),
+        new AccessControlEntry("ROLE_ADMIN", "write", true),
+        new AccessControlEntry("ROLE_STUDENT", "read", true),
+        new AccessControlEntry("ROLE_BANNED", "read", false)));
+
+    Assert.assertTrue(acl.isAllowed(List.of(role("ROLE_ADMIN")), "write"));
+    Assert.assertTrue(acl.isAllowed(List.of(role("ROLE_STUDENT")), "read"));
+    Assert.assertFalse(acl.isAllowed(List.of(role("ROLE_STUDENT")), "write"));
+    Assert.assertFalse(acl.isAllowed(List.of(role("ROLE_OTHER")), "read"));
+    Assert.assertFalse(acl.isAllowed(List.of(role("ROLE_ADMIN")), "delete"));
+    Assert.assertFalse(acl.isAllowed(List.of(), "read"));
+
+    // Deny rules take precedence
+    Assert.assertFalse(acl.isAllowed(List.of(role("ROLE_STUDENT"), role("ROLE_BANNED")), "read"));
+    Assert.assertFalse(acl.isAllowed(List.of(role("ROLE_BANNED"), role("ROLE_STUDENT")), "read"));
+  }
+
+  @Test
+  public void testAclIsCopied() {
+    AccessControlList original = new AccessControlList(new AccessControlEntry("ROLE_ADMIN", "read", true));
+    CompiledAcl acl = new CompiledAcl(original);
+    original.getEntries().clear();
+    acl.getAcl().getEntries().clear();
+    Assert.assertEquals(1, acl.getAcl().getEntries().size());
+    Assert.assertTrue(acl.isAllowed(List.of(role("ROLE_ADMIN")), "read"));
+  }
+
+}
@@ -21,6 +21,7 @@
 
 package org.opencastproject.authorization.xacml;
 
+import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
 import org.opencastproject.security.api.AccessControlEntry;
@@ -31,6 +32,8 @@ import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
 import org.opencastproject.security.api.JaxbUser;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
@@ -49,7 +52,9 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.schlichtherle.io.FileOutputStream;
 
@@ -72,6 +77,9 @@ public class XACMLSecurityTest {
 
   protected XACMLAuthorizationService authzService = null;
 
+  /** The number of XACML files read from the workspace */
+  protected final AtomicInteger reads = new AtomicInteger();
+
   @Rule
   public TemporaryFolder testFolder = new TemporaryFolder();
 
@@ -110,8 +118,11 @@ public class XACMLSecurityTest {
               FileUtils.copyFile(new File(uri.getValue()), dest);
               return dest;
             }).anyTimes();
-    EasyMock.expect(workspace.read(EasyMock.capture(uri))).andAnswer(
-            () -> new FileInputStream(uri.getValue().getPath())).anyTimes();
+    EasyMock.expect(workspace.read(EasyMock.capture(uri))).andAnswer(() -> {
+      reads.incrementAndGet();
+      return new FileInputStream(uri.getValue().getPath());
+    }).anyTimes();
+    EasyMock.expect(workspace.getChecksum(EasyMock.anyObject(URI.class))).andReturn(Optional.empty()).anyTimes();
     workspace.delete(EasyMock.anyObject(URI.class));
     EasyMock.expectLastCall().anyTimes();
     EasyMock.replay(securityService, workspace);
@@ -201,4 +212,38 @@ public class XACMLSecurityTest {
     Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
     Assert.assertFalse(authzService.hasPermission(mediapackage, "comment"));
   }
+
+  @Test
+  public void testAclCache() throws Exception {
+    MediaPackage mediapackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    currentRoles.clear();
+    currentRoles.add(new JaxbRole("student", organization, ""));
+
+    AccessControlList acl = new AccessControlList(new AccessControlEntry("student", "read", true));
+    Attachment attachment = authzService.setAcl(mediapackage, AclScope.Episode, acl).getB();
+
+    // Without a checksum the attachment is loaded on every check
+    Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertEquals(2, reads.get());
+
+    attachment.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, "abc"));
+    Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "write"));
+    Assert.assertEquals(3, reads.get());
+    Assert.assertEquals(2, authzService.getCacheStatistics().getHits());
+    Assert.assertEquals(1, authzService.getCacheStatistics().getSize());
+
+    // Modifying the returned ACL does not affect the cache
+    authzService.getActiveAcl(mediapackage).getA().getEntries().add(new AccessControlEntry("student", "write", true));
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "write"));
+
+    // Writing a new policy invalidates the cached one
+    acl = new AccessControlList(new AccessControlEntry("student", "read", false));
+    attachment = authzService.setAcl(mediapackage, AclScope.Episode, acl).getB();
+    attachment.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, "abc"));
+    Assert.assertEquals(0, authzService.getCacheStatistics().getSize());
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "read"));
+  }
 }
@@ -0,0 +1,251 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.job.jpa;
+
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.api.JobImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Basic;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.OrderColumn;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+
+/**
+ * A terminated job which has been moved out of the job table.
+ * <p>
+ * Archived jobs are not related to service registrations anymore, the hosts are kept as they were when the job was
+ * archived. The payload is stored compressed.
+ */
+@Entity(name = "ArchivedJob")
+@Access(AccessType.FIELD)
+@Table(name = "oc_job_archive", indexes = {
+    @Index(name = "IX_oc_job_archive_parent", columnList = ("parent")),
+    @Index(name = "IX_oc_job_archive_root", columnList = ("root")),
+    @Index(name = "IX_oc_job_archive_date_archived", columnList = ("date_archived")) })
+@NamedQueries({
+    @NamedQuery(name = "ArchivedJob.root.children", query = "SELECT j FROM ArchivedJob j "
+        + "WHERE j.rootJobId = :id ORDER BY j.dateCreated"),
+    @NamedQuery(name = "ArchivedJob.children", query = "SELECT j FROM ArchivedJob j "
+        + "WHERE j.parentJobId = :id ORDER BY j.dateCreated"),
+    @NamedQuery(name = "ArchivedJob.parentless", query = "SELECT j.id FROM ArchivedJob j "
+        + "WHERE j.parentJobId IS NULL AND j.dateCreated < :date AND j.id > :lastId "
+        + "AND (j.operation IS NULL OR j.operation NOT IN :operations) ORDER BY j.id"),
+    @NamedQuery(name = "ArchivedJob.count", query = "SELECT COUNT(j) FROM ArchivedJob j")
+})
+public class JpaArchivedJob {
+
+  @Id
+  @Column(name = "id")
+  private long id;
+
+  @Lob
+  @Column(name = "creator", nullable = false, length = 65535)
+  private String creator;
+
+  @Column(name = "organization", nullable = false, length = 128)
+  private String organization;
+
+  @Column(name = "instance_version")
+  private long version;
+
+  @Column(name = "status")
+  private int status;
+
+  @Column(name = "job_type", length = 255)
+  private String jobType;
+
+  @Column(name = "operation", length = 128)
+  private String operation;
+
+  @Lob
+  @Column(name = "argument", length = 2147483647)
+  @OrderColumn(name = "argument_index")
+  @ElementCollection(fetch = FetchType.EAGER)
+  @CollectionTable(name = "oc_job_archive_argument",
+      joinColumns = @JoinColumn(name = "id", referencedColumnName = "id", nullable = false),
+      indexes = {
+          @Index(name = "IX_oc_job_archive_argument_id", columnList = ("id")),
+      }
+  )
+  private List<String> arguments;
+
+  @Column(name = "creator_host", length = 255)
+  private String createdHost;
+
+  @Column(name = "processor_host", length = 255)
+  private String processingHost;
+
+  @Column(name = "date_created")
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date dateCreated;
+
+  @Column(name = "date_started")
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date dateStarted;
+
+  @Column(name = "date_completed")
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date dateCompleted;
+
+  @Column(name = "date_archived")
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date dateArchived;
+
+  @Column(name = "queue_time")
+  private Long queueTime = 0L;
+
+  @Column(name = "run_time")
+  private Long runTime = 0L;
+
+  /** The gzip compressed payload */
+  @Lob
+  @Basic(fetch = FetchType.LAZY)
+  @Column(name = "payload", length = 16777215)
+  private byte[] payload;
+
+  @Column(name = "parent")
+  private Long parentJobId;
+
+  @Column(name = "root")
+  private Long rootJobId;
+
+  @Column(name = "dispatchable")
+  private boolean dispatchable;
+
+  @Column(name = "job_load", nullable = false)
+  private Float jobLoad = 1F;
+
+  @Transient
+  private URI uri;
+
+  public JpaArchivedJob() {
+  }
+
+  /**
+   * Creates the archived version of a terminated job.
+   *
+   * @param job
+   *          the job to archive
+   * @param dateArchived
+   *          the date the job is archived at
+   * @return the archived job
+   */
+  public static JpaArchivedJob from(Job job, Date dateArchived) {
+    JpaArchivedJob archived = new JpaArchivedJob();
+    archived.id = job.getId();
+    archived.creator = job.getCreator();
+    archived.organization = job.getOrganization();
+    archived.version = job.getVersion();
+    archived.status = job.getStatus().ordinal();
+    archived.jobType = job.getJobType();
+    archived.operation = job.getOperation();
+    archived.arguments = job.getArguments() == null ? null : new ArrayList<>(job.getArguments());
+    archived.createdHost = job.getCreatedHost();
+    archived.processingHost = job.getProcessingHost();
+    archived.dateCreated = job.getDateCreated();
+    archived.dateStarted = job.getDateStarted();
+    archived.dateCompleted = job.getDateCompleted();
+    archived.dateArchived = dateArchived;
+    archived.queueTime = job.getQueueTime();
+    archived.runTime = job.getRunTime();
+    archived.payload = compress(job.getPayload());
+    archived.parentJobId = job.getParentJobId();
+    archived.rootJobId = job.getRootJobId();
+    archived.dispatchable = job.isDispatchable();
+    archived.jobLoad = job.getJobLoad();
+    return archived;
+  }
+
+  public Job toJob() {
+    return new JobImpl(id, creator, organization, version, jobType, operation, arguments, Status.values()[status],
+            createdHost, processingHost, dateCreated, dateStarted, dateCompleted, queueTime, runTime,
+            decompress(payload), parentJobId, rootJobId, dispatchable, uri, jobLoad);
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public Date getDateArchived() {
+    return dateArchived;
+  }
+
+  public void setUri(URI uri) {
+    this.uri = uri;
+  }
+
+  static byte[] compress(String payload) {
+    if (payload == null) {
+      return null;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(payload.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  static String decompress(byte[] payload) {
+    if (payload == null) {
+      return null;
+    }
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Archived job {id:%d, operation:%s, status:%s}", id, operation, Status.values()[status]);
+  }
+}
@@ -94,6 +94,10 @@ import javax.persistence.Version;
         + "j.status in :statuses order by j.dateCreated"),
     @NamedQuery(name = "Job.dispatchable.status.idfilter", query = "SELECT j.id FROM Job j "
         + "WHERE j.dispatchable = true AND j.status IN :statuses AND j.id IN :jobids ORDER BY j.dateCreated"),
+    @NamedQuery(name = "Job.dispatchable.status.ids", query = "SELECT j FROM Job j "
+        + "WHERE j.dispatchable = true AND j.status IN :statuses AND j.id IN :jobids ORDER BY j.dateCreated"),
+    @NamedQuery(name = "Job.dispatch.state", query = "SELECT j.status, COUNT(j), MAX(j.id) FROM Job j "
+        + "WHERE j.status IN :statuses GROUP BY j.status"),
     @NamedQuery(name = "Job.undispatchable.status", query = "SELECT j FROM Job j where j.dispatchable = false and "
         + "j.status in :statuses order by j.dateCreated"),
     @NamedQuery(name = "Job.payload", query = "SELECT j.payload FROM Job j where j.operation = :operation "
@@ -107,6 +111,13 @@ import javax.persistence.Version;
     @NamedQuery(name = "Job.children", query = "SELECT j FROM Job j "
         + "WHERE j.parentJob.id = :id ORDER BY j.dateCreated"),
     @NamedQuery(name = "Job.withoutParent", query = "SELECT j FROM Job j WHERE j.parentJob IS NULL"),
+    @NamedQuery(name = "Job.archivable", query = "SELECT j.id, j.dateCompleted FROM Job j "
+        + "WHERE j.parentJob IS NULL AND j.status IN :statuses AND j.dateCompleted < :date "
+        + "AND (j.dateCompleted > :lastDate OR (j.dateCompleted = :lastDate AND j.id > :lastId)) "
+        + "AND NOT EXISTS (SELECT c FROM Job c WHERE c.rootJob.id = j.id AND c.status NOT IN :statuses) "
+        + "ORDER BY j.dateCompleted, j.id"),
+    @NamedQuery(name = "Job.progress", query = "UPDATE Job j SET j.progress = :progress, "
+        + "j.remainingTime = :remainingTime WHERE j.id = :id AND j.status = :status"),
     @NamedQuery(name = "Job.avgOperation", query = "SELECT j.operation, AVG(j.runTime), AVG(j.queueTime) "
         + "FROM Job j GROUP BY j.operation"),
 
@@ -217,6 +228,12 @@ public class JpaJob {
   @Column(name = "job_load", nullable = false)
   private Float jobLoad = 1F;
 
+  @Column(name = "progress")
+  private Float progress;
+
+  @Column(name = "remaining_time")
+  private Long remainingTime;
+
   @ManyToOne
   @JoinColumn(name = "creator_service")
   private ServiceRegistrationJpaImpl creatorServiceRegistration;
@@ -304,13 +321,18 @@ public class JpaJob {
     newJob.creator = job.getCreator();
     newJob.organization = job.getOrganization();
     newJob.jobLoad = job.getJobLoad();
+    newJob.progress = job.getProgress();
+    newJob.remainingTime = job.getRemainingTime();
     return newJob;
   }
 
   public Job toJob() {
-    return new JobImpl(id, creator, organization, version, jobType, operation, arguments, Status.values()[status],
-            createdHost, processingHost, dateCreated, dateStarted, dateCompleted, queueTime, runTime, payload,
-            parentJobId, rootJobId, dispatchable, uri, jobLoad);
+    Job job = new JobImpl(id, creator, organization, version, jobType, operation, arguments,
+            Status.values()[status], createdHost, processingHost, dateCreated, dateStarted, dateCompleted, queueTime,
+            runTime, payload, parentJobId, rootJobId, dispatchable, uri, jobLoad);
+    job.setProgress(progress);
+    job.setRemainingTime(remainingTime);
+    return job;
   }
 
   @PostLoad
@@ -409,6 +431,11 @@ public class JpaJob {
     this.uri = uri;
   }
 
+  public void setProgress(Float progress, Long remainingTime) {
+    this.progress = progress;
+    this.remainingTime = remainingTime;
+  }
+
   public long getId() {
     return id;
   }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl.jpa;
+
+import org.opencastproject.serviceregistry.api.JobLoadStatistics.JobLoad;
+import org.opencastproject.util.Checksum;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The resources used by a kind of job, from which the load of similar jobs is estimated.
+ */
+@Entity(name = "JobLoad")
+@Access(AccessType.FIELD)
+@Table(
+    name = "oc_job_load",
+    uniqueConstraints = @UniqueConstraint(columnNames = { "job_type", "operation", "load_key" })
+)
+@NamedQueries({
+    @NamedQuery(
+        name = "JobLoad.find",
+        query = "SELECT jl FROM JobLoad jl "
+            + "where jl.jobType = :jobType and jl.operation = :operation and jl.key = :key"
+    ),
+    @NamedQuery(
+        name = "JobLoad.findAll",
+        query = "SELECT jl FROM JobLoad jl order by jl.jobType, jl.operation, jl.key"
+    ),
+})
+public class JobLoadJpaImpl {
+
+  /** The maximum length of a key */
+  static final int KEY_LENGTH = 255;
+
+  @Id
+  @Column(name = "id")
+  @GeneratedValue
+  private Long id;
+
+  @Column(name = "job_type", nullable = false, length = 255)
+  private String jobType;
+
+  @Column(name = "operation", nullable = false, length = 128)
+  private String operation;
+
+  @Column(name = "load_key", nullable = false, length = KEY_LENGTH)
+  private String key;
+
+  @Column(name = "samples", nullable = false)
+  private long samples;
+
+  @Column(name = "cpu_time", nullable = false)
+  private long cpuTime;
+
+  @Column(name = "wall_time", nullable = false)
+  private long wallTime;
+
+  @Column(name = "peak_memory", nullable = false)
+  private long peakMemory;
+
+  @Column(name = "job_load", nullable = false)
+  private float load;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public JobLoadJpaImpl() {
+  }
+
+  public JobLoadJpaImpl(String jobType, String operation, String key) {
+    this.jobType = jobType;
+    this.operation = operation;
+    this.key = key;
+  }
+
+  /**
+   * Records the resources used by a finished job.
+   *
+   * @see JobLoad#record(long, long, long)
+   */
+  public void record(long cpuTime, long wallTime, long peakMemory) {
+    final JobLoad jobLoad = toJobLoad();
+    jobLoad.record(cpuTime, wallTime, peakMemory);
+    this.samples = jobLoad.getSamples();
+    this.cpuTime = jobLoad.getCpuTime();
+    this.wallTime = jobLoad.getWallTime();
+    this.peakMemory = jobLoad.getPeakMemory();
+    this.load = jobLoad.getLoad();
+  }
+
+  public JobLoad toJobLoad() {
+    return new JobLoad(jobType, operation, key, samples, cpuTime, wallTime, peakMemory, load);
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Returns the key under which the load of jobs with the given key is stored. Keys which do not fit into the column,
+   * e.g. of jobs encoding with many profiles at once, are shortened and made unique again by their hash.
+   *
+   * @param key
+   *          the key of the jobs, or <code>null</code>
+   * @return the stored key
+   */
+  public static String toStoredKey(String key) {
+    if (key == null) {
+      return "";
+    }
+    if (key.length() <= KEY_LENGTH) {
+      return key;
+    }
+    final String hash;
+    try {
+      hash = Checksum.convertToHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    return key.substring(0, KEY_LENGTH - hash.length() - 1) + "#" + hash;
+  }
+
+}
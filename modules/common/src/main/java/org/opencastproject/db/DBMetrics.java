@@ -0,0 +1,175 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the database queries of all {@link DBSession}s.
+ * <p>
+ * The queries of the persistence units {@link DBSession}s are created for are recorded by {@link QueryMetricsProfiler}.
+ * The statistics are kept in memory only, to be exported by a metrics endpoint.
+ */
+public final class DBMetrics {
+  private static final Logger logger = LoggerFactory.getLogger(DBMetrics.class);
+
+  /** The name native queries are recorded as, since their statements do not make for a bounded set of names */
+  public static final String NATIVE_QUERY = "native";
+
+  /** The upper bounds of the query duration buckets in seconds */
+  static final double[] DURATION_BUCKETS = { 0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+  /** The upper bounds of the result size buckets in rows */
+  static final double[] ROWS_BUCKETS = { 0, 1, 10, 100, 1000, 10000, 100000 };
+
+  /** The default duration in milliseconds from which on queries are logged */
+  public static final long DEFAULT_SLOW_QUERY_THRESHOLD = 1000;
+
+  private static final Map<String, Histogram> durations = new ConcurrentHashMap<>();
+  private static final Map<String, Histogram> rows = new ConcurrentHashMap<>();
+  private static final Map<String, LongAdder> retries = new ConcurrentHashMap<>();
+
+  private static volatile long slowQueryThresholdNanos = DEFAULT_SLOW_QUERY_THRESHOLD * 1000000L;
+
+  private DBMetrics() {
+  }
+
+  /**
+   * Record the execution of a query.
+   *
+   * @param name Name of the query.
+   * @param nanos Duration of the execution in nanoseconds.
+   * @param resultSize Number of rows returned or updated.
+   */
+  public static void recordQuery(String name, long nanos, int resultSize) {
+    durations.computeIfAbsent(name, n -> new Histogram(DURATION_BUCKETS)).observe(nanos / 1e9);
+    rows.computeIfAbsent(name, n -> new Histogram(ROWS_BUCKETS)).observe(resultSize);
+    if (slowQueryThresholdNanos > 0 && nanos >= slowQueryThresholdNanos) {
+      logger.warn("Slow query {} of {} took {} ms and yielded {} rows", name, getCallerComponent(), nanos / 1000000,
+          resultSize);
+    }
+  }
+
+  /**
+   * Record the retry of a transaction.
+   */
+  public static void recordRetry() {
+    retries.computeIfAbsent(getCallerComponent(), c -> new LongAdder()).increment();
+  }
+
+  /**
+   * Set the duration from which on queries are logged.
+   *
+   * @param millis Duration in milliseconds. Slow queries are not logged if this is not positive.
+   */
+  public static void setSlowQueryThreshold(long millis) {
+    slowQueryThresholdNanos = millis * 1000000L;
+  }
+
+  /** Returns the histograms of the query durations in seconds by query name. */
+  public static Map<String, Histogram> getDurations() {
+    return Collections.unmodifiableMap(durations);
+  }
+
+  /** Returns the histograms of the query result sizes in rows by query name. */
+  public static Map<String, Histogram> getResultSizes() {
+    return Collections.unmodifiableMap(rows);
+  }
+
+  /** Returns the number of transaction retries by component. */
+  public static Map<String, Long> getRetries() {
+    final Map<String, Long> result = new ConcurrentHashMap<>();
+    retries.forEach((component, count) -> result.put(component, count.sum()));
+    return result;
+  }
+
+  /**
+   * Determine the component executing a query, i.e. the first class on the stack outside of this package.
+   */
+  static String getCallerComponent() {
+    return StackWalker.getInstance().walk(frames -> frames
+        .map(StackWalker.StackFrame::getClassName)
+        .filter(name -> name.startsWith("org.opencastproject.") && !name.startsWith("org.opencastproject.db."))
+        .findFirst()
+        .orElse("unknown"));
+  }
+
+  /**
+   * A histogram with fixed buckets which can be updated concurrently.
+   */
+  public static final class Histogram {
+    private final double[] upperBounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] upperBounds) {
+      this.upperBounds = upperBounds;
+      this.buckets = new LongAdder[upperBounds.length];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    void observe(double value) {
+      for (int i = 0; i < upperBounds.length; i++) {
+        if (value <= upperBounds[i]) {
+          buckets[i].increment();
+          break;
+        }
+      }
+      count.increment();
+      sum.add(value);
+    }
+
+    /** Returns the upper bounds of the buckets, excluding the implicit last bucket of infinite size. */
+    public double[] getUpperBounds() {
+      return upperBounds.clone();
+    }
+
+    /** Returns the cumulative number of observations less than or equal to the upper bound of each bucket. */
+    public long[] getCumulativeCounts() {
+      final long[] result = new long[buckets.length];
+      long total = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        total += buckets[i].sum();
+        result[i] = total;
+      }
+      return result;
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public double getSum() {
+      return sum.sum();
+    }
+  }
+}
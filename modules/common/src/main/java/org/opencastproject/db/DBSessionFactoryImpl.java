@@ -45,6 +45,7 @@ public class DBSessionFactoryImpl implements DBSessionFactory {
   private int maxTransactionRetries = DEFAULT_MAX_TRANSACTION_RETRIES;
   public static final String MAX_TRANSACTION_RETRIES_PROPERTY = "transaction.retries.max";
   public static final int DEFAULT_MAX_TRANSACTION_RETRIES = 5;
+  public static final String SLOW_QUERY_THRESHOLD_PROPERTY = "query.slow.threshold";
 
   @Activate
   public void activate(ComponentContext cc) throws ComponentException {
@@ -58,6 +59,8 @@ public class DBSessionFactoryImpl implements DBSessionFactory {
 
     maxTransactionRetries = NumberUtils.toInt((String) properties.get(MAX_TRANSACTION_RETRIES_PROPERTY),
         DEFAULT_MAX_TRANSACTION_RETRIES);
+    DBMetrics.setSlowQueryThreshold(NumberUtils.toLong((String) properties.get(SLOW_QUERY_THRESHOLD_PROPERTY),
+        DBMetrics.DEFAULT_SLOW_QUERY_THRESHOLD));
   }
 
   @Override
@@ -66,6 +69,7 @@ public class DBSessionFactoryImpl implements DBSessionFactory {
   }
 
   public DBSession createSession(EntityManagerFactory emf, int maxTransactionRetries) {
+    QueryMetricsProfiler.install(emf);
     var db = new DBSessionImpl(emf);
     db.setMaxTransactionRetries(maxTransactionRetries);
     return db;
@@ -171,6 +171,8 @@ public class DBSessionImpl implements DBSession {
         entityManagerStore.remove();
       }
 
+      DBMetrics.recordRetry();
+
       // exponential backoff before next iteration
       int sleepMillis = (int) (Math.pow(2, attempt) * 100) + RAND.nextInt(100);
       try {
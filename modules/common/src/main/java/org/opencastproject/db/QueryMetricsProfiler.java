@@ -0,0 +1,134 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.db;
+
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.Record;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+
+/**
+ * Records every query EclipseLink executes for a persistence unit in {@link DBMetrics}, no matter whether it has been
+ * created through {@link Queries} or directly through the entity manager.
+ * <p>
+ * Named queries are recorded by their name, native queries together. Other queries, e.g. dynamic JPQL queries or
+ * lookups by id, are recorded by their kind and entity, like <code>ReadAllQuery SnapshotDto</code>. Queries executed
+ * while executing another query, e.g. to fetch relationships, are included in the outer query.
+ */
+final class QueryMetricsProfiler extends SessionProfilerAdapter {
+  private static final Logger logger = LoggerFactory.getLogger(QueryMetricsProfiler.class);
+
+  /** The number of queries being executed by the current thread */
+  private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+  /**
+   * Installs the profiler for the persistence unit of an entity manager factory unless it already has a profiler.
+   *
+   * @param emf The entity manager factory.
+   */
+  static void install(EntityManagerFactory emf) {
+    final Session session;
+    try {
+      session = emf.unwrap(Session.class);
+    } catch (PersistenceException e) {
+      logger.debug("Unable to record the queries of {}", emf, e);
+      return;
+    }
+    synchronized (session) {
+      if (session.getProfiler() == null) {
+        session.setProfiler(new QueryMetricsProfiler());
+      } else if (!(session.getProfiler() instanceof QueryMetricsProfiler)) {
+        logger.info("Not recording the queries of {}, which uses the profiler {}", session.getName(),
+            session.getProfiler().getClass().getName());
+      }
+    }
+  }
+
+  @Override
+  public Object profileExecutionOfQuery(DatabaseQuery query, Record row, AbstractSession session) {
+    final int[] executing = depth.get();
+    if (executing[0] > 0) {
+      return session.internalExecuteQuery(query, (AbstractRecord) row);
+    }
+    final long start = System.nanoTime();
+    int size = 0;
+    executing[0]++;
+    try {
+      final Object result = session.internalExecuteQuery(query, (AbstractRecord) row);
+      size = resultSize(query, result);
+      return result;
+    } finally {
+      executing[0]--;
+      DBMetrics.recordQuery(metricName(query), System.nanoTime() - start, size);
+    }
+  }
+
+  @Override
+  public int getProfileWeight() {
+    // Any weight other than NONE makes the session hand the execution of queries to the profiler
+    return SessionProfiler.NORMAL;
+  }
+
+  /**
+   * Name under which the execution of a query is recorded in {@link DBMetrics}.
+   */
+  static String metricName(DatabaseQuery query) {
+    final String name = query.getName();
+    if (name != null && !name.isEmpty()) {
+      return name;
+    }
+    if (query.isDataReadQuery() || query.isDataModifyQuery()) {
+      return DBMetrics.NATIVE_QUERY;
+    }
+    final Class<?> referenceClass = query.getReferenceClass();
+    return referenceClass == null
+        ? query.getClass().getSimpleName()
+        : query.getClass().getSimpleName() + " " + referenceClass.getSimpleName();
+  }
+
+  /**
+   * Number of rows a query returned or modified.
+   */
+  private static int resultSize(DatabaseQuery query, Object result) {
+    if (result == null) {
+      return 0;
+    }
+    if (result instanceof Collection) {
+      return ((Collection<?>) result).size();
+    }
+    if (query.isModifyQuery() && result instanceof Number) {
+      return ((Number) result).intValue();
+    }
+    return 1;
+  }
+}
@@ -110,6 +110,12 @@ public class JaxbJob {
   @XmlElement(name = "jobLoad")
   private Float jobLoad;
 
+  @XmlElement
+  private Float progress;
+
+  @XmlElement
+  private Long remainingTime;
+
   /** Default constructor needed by jaxb */
   public JaxbJob() {
   }
@@ -139,12 +145,17 @@ public class JaxbJob {
     this.creator = job.getCreator();
     this.organization = job.getOrganization();
     this.jobLoad = job.getJobLoad();
+    this.progress = job.getProgress();
+    this.remainingTime = job.getRemainingTime();
   }
 
   public Job toJob() {
-    return new JobImpl(id, creator, organization, version, jobType, operation, arguments, status, createdHost,
+    Job job = new JobImpl(id, creator, organization, version, jobType, operation, arguments, status, createdHost,
             processingHost, dateCreated, dateStarted, dateCompleted, queueTime, runTime, payload, parentJobId,
             rootJobId, dispatchable, uri, jobLoad);
+    job.setProgress(progress);
+    job.setRemainingTime(remainingTime);
+    return job;
   }
 
   public static Fn<Job, JaxbJob> fnFromJob() {
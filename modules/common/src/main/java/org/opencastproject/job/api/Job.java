@@ -271,4 +271,22 @@ public interface Job {
 
   void setJobLoad(Float load);
 
+  /**
+   * Gets the progress of a running job as reported by the service processing it.
+   *
+   * @return the completed fraction between 0 and 1 or <code>null</code> if unknown
+   */
+  Float getProgress();
+
+  void setProgress(Float progress);
+
+  /**
+   * Gets the number of milliseconds the service processing this job estimates it still needs to complete it.
+   *
+   * @return the estimated remaining time or <code>null</code> if unknown
+   */
+  Long getRemainingTime();
+
+  void setRemainingTime(Long remainingTime);
+
 }
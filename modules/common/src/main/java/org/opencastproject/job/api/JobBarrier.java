@@ -35,8 +35,14 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * This class is a utility implementation that will wait for all given jobs to change their status to either one of:
@@ -53,6 +59,12 @@ public final class JobBarrier {
   /** Default polling interval is 5 seconds */
   public static final long DEFAULT_POLLING_INTERVAL = 5000L;
 
+  /**
+   * Time in milliseconds between two safety polls if the service registry notifies the barrier about terminated jobs.
+   * Notifications are best effort, so the barrier still looks at the jobs once in a while.
+   */
+  public static final long NOTIFIED_POLLING_INTERVAL = 60000L;
+
   /** The service registry used to do the polling */
   private final ServiceRegistry serviceRegistry;
 
@@ -261,6 +273,12 @@ public final class JobBarrier {
     /** Maximum wait in milliseconds or 0 for unlimited waiting */
     private final long workTime;
 
+    /** Identifiers of jobs the service registry reported as terminated */
+    private final BlockingQueue<Long> terminatedJobIds = new LinkedBlockingQueue<>();
+
+    /** Listener passed to the service registry to learn about terminated jobs */
+    private final Consumer<Job> terminationListener = terminated -> terminatedJobIds.offer(terminated.getId());
+
     /**
      * Creates a new status updater that will wait for finished jobs. If <code>0</code> is passed in as the work time,
      * the updater will wait as long as it takes. Otherwise, it will stop after the indicated amount of time has passed.
@@ -274,14 +292,69 @@ public final class JobBarrier {
 
     @Override
     public void run() {
+      final boolean notified = subscribe();
+      try {
+        waitForJobs(notified);
+      } finally {
+        unsubscribe();
+      }
+    }
+
+    /**
+     * Asks the service registry to notify this updater about terminated jobs.
+     *
+     * @return <code>true</code> if the service registry will notify about all of the jobs
+     */
+    private boolean subscribe() {
+      boolean notified = true;
+      for (final Job job : jobs) {
+        notified &= serviceRegistry.addJobTerminationListener(job.getId(), terminationListener);
+      }
+      if (!notified) {
+        logger.debug("Service registry does not notify about terminated jobs, falling back to polling");
+      }
+      return notified;
+    }
+
+    /** Removes the termination listener from the service registry. */
+    private void unsubscribe() {
+      for (final Job job : jobs) {
+        serviceRegistry.removeJobTerminationListener(job.getId(), terminationListener);
+      }
+    }
+
+    /**
+     * Waits for the jobs to terminate. If the service registry notifies about terminated jobs, this only looks at the
+     * jobs which have been reported as terminated, and at all jobs once every {@link #NOTIFIED_POLLING_INTERVAL}.
+     *
+     * @param notified
+     *          whether the service registry notifies about terminated jobs
+     */
+    private void waitForJobs(boolean notified) {
       final long endTime = workTime > 0 ? System.currentTimeMillis() + workTime : 0;
       final Map<Job, Job.Status> finishedJobs = new HashMap<Job, Job.Status>();
+      boolean firstLook = true;
       while (true) {
         final long time = System.currentTimeMillis();
+        // Identifiers of the jobs to look at or null to look at all of them
+        Set<Long> candidates = null;
         // Wait a little..
         try {
-          final long timeToSleep = Math.min(pollingInterval, Math.abs(endTime - time));
-          Thread.sleep(timeToSleep);
+          if (notified) {
+            // After the first look at all jobs, rely on the notifications
+            final long interval = firstLook ? pollingInterval : Math.max(pollingInterval, NOTIFIED_POLLING_INTERVAL);
+            final long timeToSleep = Math.min(interval, Math.abs(endTime - time));
+            final Long terminatedJobId = terminatedJobIds.poll(timeToSleep, TimeUnit.MILLISECONDS);
+            if (terminatedJobId != null && !firstLook) {
+              candidates = new HashSet<>();
+              candidates.add(terminatedJobId);
+              terminatedJobIds.drainTo(candidates);
+            }
+            firstLook = false;
+          } else {
+            final long timeToSleep = Math.min(pollingInterval, Math.abs(endTime - time));
+            Thread.sleep(timeToSleep);
+          }
         } catch (InterruptedException e) {
           logger.debug("Job polling thread was interrupted");
           return;
@@ -289,7 +362,7 @@ public final class JobBarrier {
         // Look at all jobs and make sure all of them have reached the expected status
         for (final Job job : jobs) {
           // Don't ask if we already know
-          if (!finishedJobs.containsKey(job)) {
+          if (!finishedJobs.containsKey(job) && (candidates == null || candidates.contains(job.getId()))) {
             // Get the job status from the service registry
             try {
               final Job processedJob = serviceRegistry.getJob(job.getId());
@@ -56,6 +56,8 @@ public class JobImpl implements Job {
   private boolean dispatchable = true;
   private URI uri;
   private Float load = 1.0F;
+  private Float progress;
+  private Long remainingTime;
 
   public JobImpl() { }
 
@@ -314,6 +316,26 @@ public class JobImpl implements Job {
     this.load = load;
   }
 
+  @Override
+  public Float getProgress() {
+    return progress;
+  }
+
+  @Override
+  public void setProgress(Float progress) {
+    this.progress = progress;
+  }
+
+  @Override
+  public Long getRemainingTime() {
+    return remainingTime;
+  }
+
+  @Override
+  public void setRemainingTime(Long remainingTime) {
+    this.remainingTime = remainingTime;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
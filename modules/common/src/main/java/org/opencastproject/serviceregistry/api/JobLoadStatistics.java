@@ -0,0 +1,203 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * The resources finished jobs actually used, recorded by kind of job, along with the job loads estimated from them.
+ */
+@XmlType(name = "jobloads", namespace = "http://serviceregistry.opencastproject.org")
+@XmlRootElement(name = "jobloads", namespace = "http://serviceregistry.opencastproject.org")
+@XmlAccessorType(XmlAccessType.NONE)
+public class JobLoadStatistics {
+
+  /** The number of recorded jobs needed before the estimated load is used instead of the configured one */
+  public static final long MIN_SAMPLES = 5;
+
+  /** The recorded kinds of jobs */
+  protected List<JobLoad> jobLoads;
+
+  /** No-arg constructor needed by JAXB */
+  public JobLoadStatistics() {
+    jobLoads = new ArrayList<>();
+  }
+
+  public JobLoadStatistics(Collection<JobLoad> jobLoads) {
+    this.jobLoads = new ArrayList<>(jobLoads);
+  }
+
+  @XmlElementWrapper(name = "jobs")
+  @XmlElement(name = "job")
+  public List<JobLoad> getJobLoads() {
+    return jobLoads;
+  }
+
+  public void setJobLoads(List<JobLoad> jobLoads) {
+    this.jobLoads = jobLoads;
+  }
+
+  /**
+   * The resources used by a kind of job, identified by job type, operation and a key distinguishing jobs of the same
+   * operation with different resource needs, e.g. by encoding profile and resolution of the input.
+   * <p>
+   * All values are moving averages over the recorded jobs, giving recent jobs a higher weight.
+   */
+  @XmlType(name = "jobload", namespace = "http://serviceregistry.opencastproject.org")
+  @XmlRootElement(name = "jobload", namespace = "http://serviceregistry.opencastproject.org")
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class JobLoad {
+
+    /** The weight of a recorded job once the averages are based on enough jobs */
+    private static final double WEIGHT = 0.1;
+
+    @XmlAttribute
+    protected String jobType;
+
+    @XmlAttribute
+    protected String operation;
+
+    @XmlAttribute
+    protected String key;
+
+    /** The number of recorded jobs */
+    @XmlAttribute
+    protected long samples;
+
+    /** The processor time in milliseconds */
+    @XmlAttribute
+    protected long cpuTime;
+
+    /** The elapsed time in milliseconds */
+    @XmlAttribute
+    protected long wallTime;
+
+    /** The peak resident memory in bytes */
+    @XmlAttribute
+    protected long peakMemory;
+
+    /** The number of processor cores kept busy, i.e. processor time divided by elapsed time */
+    @XmlAttribute
+    protected float load;
+
+    /** No-arg constructor needed by JAXB */
+    public JobLoad() {
+    }
+
+    public JobLoad(String jobType, String operation, String key) {
+      this.jobType = jobType;
+      this.operation = operation;
+      this.key = key;
+    }
+
+    public JobLoad(String jobType, String operation, String key, long samples, long cpuTime, long wallTime,
+            long peakMemory, float load) {
+      this(jobType, operation, key);
+      this.samples = samples;
+      this.cpuTime = cpuTime;
+      this.wallTime = wallTime;
+      this.peakMemory = peakMemory;
+      this.load = load;
+    }
+
+    /**
+     * Records the resources used by a finished job.
+     *
+     * @param cpuTime
+     *          the processor time in milliseconds
+     * @param wallTime
+     *          the elapsed time in milliseconds, must be positive
+     * @param peakMemory
+     *          the peak resident memory in bytes
+     */
+    public void record(long cpuTime, long wallTime, long peakMemory) {
+      if (wallTime <= 0) {
+        throw new IllegalArgumentException("Elapsed time must be positive");
+      }
+      samples++;
+      // Plain averages for the first jobs, so that the initial value does not dominate
+      final double weight = Math.max(WEIGHT, 1.0 / samples);
+      this.cpuTime = Math.round(this.cpuTime + weight * (cpuTime - this.cpuTime));
+      this.wallTime = Math.round(this.wallTime + weight * (wallTime - this.wallTime));
+      this.peakMemory = Math.round(this.peakMemory + weight * (peakMemory - this.peakMemory));
+      this.load = (float) (this.load + weight * ((double) cpuTime / wallTime - this.load));
+    }
+
+    /**
+     * Returns the estimated load of jobs of this kind.
+     *
+     * @param defaultLoad
+     *          the load to return as long as too few jobs have been recorded
+     * @return the estimated or the default load
+     */
+    public float getEstimatedLoad(float defaultLoad) {
+      return samples >= MIN_SAMPLES ? load : defaultLoad;
+    }
+
+    public String getJobType() {
+      return jobType;
+    }
+
+    public String getOperation() {
+      return operation;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public long getSamples() {
+      return samples;
+    }
+
+    public long getCpuTime() {
+      return cpuTime;
+    }
+
+    public long getWallTime() {
+      return wallTime;
+    }
+
+    public long getPeakMemory() {
+      return peakMemory;
+    }
+
+    public float getLoad() {
+      return load;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s/%s/%s: %.2f (%d jobs)", jobType, operation, key, load, samples);
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
 import org.opencastproject.util.NotFoundException;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /** Manages clustered services and the {@link Job}s they may create to enable asynchronous job handling. */
 public interface ServiceRegistry {
@@ -333,6 +334,25 @@ public interface ServiceRegistry {
    */
   Job updateJob(Job job) throws NotFoundException, ServiceRegistryException;
 
+  /**
+   * Records the progress of a running job. Other than {@link #updateJob(Job)}, this only touches the progress of the
+   * job, so that it is cheap enough to be called repeatedly while the job is being processed. The progress is reset
+   * whenever the status of the job changes.
+   *
+   * @param id
+   *          the job identifier
+   * @param progress
+   *          the completed fraction between 0 and 1
+   * @param remainingTime
+   *          the estimated remaining time in milliseconds or <code>null</code> if unknown
+   * @throws NotFoundException
+   *           if the job does not exist
+   * @throws ServiceRegistryException
+   *           if there is a problem updating the job
+   */
+  void updateJobProgress(long id, float progress, Long remainingTime)
+          throws NotFoundException, ServiceRegistryException;
+
   /**
    * Gets a receipt by its ID, or null if not found
    *
@@ -342,6 +362,33 @@ public interface ServiceRegistry {
    */
   Job getJob(long id) throws NotFoundException, ServiceRegistryException;
 
+  /**
+   * Registers a listener that is called once the job with the given identifier has been terminated, i.e. reached one of
+   * the states reported by {@link Status#isTerminated()}. Notifications are best effort: callers must still look at the
+   * job every now and then, and should not expect to be called for jobs which terminated before registering.
+   *
+   * @param id
+   *          the job id
+   * @param listener
+   *          the listener, called with the terminated job
+   * @return <code>true</code> if this service registry supports termination notifications, <code>false</code> if the
+   *         caller needs to poll for the job status
+   */
+  default boolean addJobTerminationListener(long id, Consumer<Job> listener) {
+    return false;
+  }
+
+  /**
+   * Removes a listener registered using {@link #addJobTerminationListener(long, Consumer)}.
+   *
+   * @param id
+   *          the job id
+   * @param listener
+   *          the listener
+   */
+  default void removeJobTerminationListener(long id, Consumer<Job> listener) {
+  }
+
   /**
    * Deletes the given jobs from the service registry
    *
@@ -548,6 +595,54 @@ public interface ServiceRegistry {
    */
   List<ServiceStatistics> getServiceStatistics() throws ServiceRegistryException;
 
+  /**
+   * Records the resources a finished job actually used, so that the load of similar jobs can be estimated.
+   *
+   * @param jobType
+   *          the job type
+   * @param operation
+   *          the operation
+   * @param key
+   *          what distinguishes jobs of the same operation with different resource needs, e.g. the encoding profile and
+   *          resolution of the input, or <code>null</code>
+   * @param cpuTime
+   *          the processor time in milliseconds
+   * @param wallTime
+   *          the elapsed time in milliseconds
+   * @param peakMemory
+   *          the peak resident memory in bytes
+   * @throws ServiceRegistryException
+   *           if there is a problem accessing the service registry
+   */
+  void recordJobLoad(String jobType, String operation, String key, long cpuTime, long wallTime, long peakMemory)
+          throws ServiceRegistryException;
+
+  /**
+   * Estimates the load of a job from the resources similar jobs actually used, see
+   * {@link #recordJobLoad(String, String, String, long, long, long)}. The estimate never exceeds the maximum load of
+   * the largest host, so that the job can still be dispatched.
+   *
+   * @param jobType
+   *          the job type
+   * @param operation
+   *          the operation
+   * @param key
+   *          what distinguishes jobs of the same operation with different resource needs, or <code>null</code>
+   * @param defaultLoad
+   *          the load to return if too few similar jobs have been recorded
+   * @return the estimated load or the default load
+   */
+  float getEstimatedJobLoad(String jobType, String operation, String key, float defaultLoad);
+
+  /**
+   * Gets the resources used by all recorded kinds of jobs along with their estimated loads.
+   *
+   * @return the job load statistics
+   * @throws ServiceRegistryException
+   *           if there is a problem accessing the service registry
+   */
+  JobLoadStatistics getJobLoadStatistics() throws ServiceRegistryException;
+
   /**
    * Count the number of jobs that match the specified parameters.
    *
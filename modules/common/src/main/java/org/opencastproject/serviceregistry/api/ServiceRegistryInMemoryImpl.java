@@ -32,6 +32,7 @@ import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
 import org.opencastproject.security.api.UserDirectoryService;
+import org.opencastproject.serviceregistry.api.JobLoadStatistics.JobLoad;
 import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
 import org.opencastproject.util.NotFoundException;
 
@@ -79,6 +80,9 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
   /** The serialized jobs */
   protected Map<Long, String> jobs = new HashMap<Long, String>();
 
+  /** The recorded job loads by job type, operation and key */
+  protected final Map<List<String>, JobLoad> jobLoads = new HashMap<>();
+
   /** A mapping of services to jobs */
   protected Map<ServiceRegistrationInMemoryImpl, Set<Job>> jobHosts = new HashMap<ServiceRegistrationInMemoryImpl, Set<Job>>();
 
@@ -545,6 +549,21 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     return updatedJob;
   }
 
+  @Override
+  public void updateJobProgress(long id, float progress, Long remainingTime)
+          throws NotFoundException, ServiceRegistryException {
+    synchronized (jobs) {
+      Job job = getJob(id);
+      job.setProgress(progress);
+      job.setRemainingTime(remainingTime);
+      try {
+        jobs.put(id, JobParser.toXml(new JaxbJob(job)));
+      } catch (IOException e) {
+        throw new IllegalStateException("Error serializing job", e);
+      }
+    }
+  }
+
   private Job updateInternal(Job job) {
     Date now = new Date();
     Status status = job.getStatus();
@@ -815,6 +834,35 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     throw new UnsupportedOperationException("Operation not yet implemented");
   }
 
+  @Override
+  public void recordJobLoad(String jobType, String operation, String key, long cpuTime, long wallTime,
+          long peakMemory) {
+    final String nonNullKey = key == null ? "" : key;
+    synchronized (jobLoads) {
+      jobLoads.computeIfAbsent(List.of(jobType, operation, nonNullKey),
+              k -> new JobLoad(jobType, operation, nonNullKey)).record(cpuTime, wallTime, peakMemory);
+    }
+  }
+
+  @Override
+  public float getEstimatedJobLoad(String jobType, String operation, String key, float defaultLoad) {
+    final JobLoad jobLoad;
+    synchronized (jobLoads) {
+      jobLoad = jobLoads.get(List.of(jobType, operation, key == null ? "" : key));
+    }
+    if (jobLoad == null) {
+      return defaultLoad;
+    }
+    return Math.min(jobLoad.getEstimatedLoad(defaultLoad), Runtime.getRuntime().availableProcessors());
+  }
+
+  @Override
+  public JobLoadStatistics getJobLoadStatistics() {
+    synchronized (jobLoads) {
+      return new JobLoadStatistics(jobLoads.values());
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -92,6 +92,7 @@ public class DBSessionTest {
 
   @Test
   public void testRetries() {
+    final long retries = DBMetrics.getRetries().values().stream().mapToLong(Long::longValue).sum();
     AtomicInteger calls = new AtomicInteger();
 
     calls.set(0);
@@ -112,6 +113,40 @@ public class DBSessionTest {
       }
     });
     assertEquals(2, calls.get());
+    assertEquals(retries + 2, DBMetrics.getRetries().values().stream().mapToLong(Long::longValue).sum());
+  }
+
+  @Test
+  public void testQueryMetrics() {
+    db.execTx(namedQuery.persist(TestDto.create("a", "value")));
+    db.execTx(namedQuery.persist(TestDto.create("b", "value")));
+    final DBMetrics.Histogram durations = DBMetrics.getDurations().get("Test.findAll");
+    final long count = durations == null ? 0 : durations.getCount();
+    final double rows = count == 0 ? 0 : DBMetrics.getResultSizes().get("Test.findAll").getSum();
+
+    assertEquals(2, db.execTx(TestDto.findAll).size());
+    assertEquals(count + 1, DBMetrics.getDurations().get("Test.findAll").getCount());
+    assertEquals(rows + 2, DBMetrics.getResultSizes().get("Test.findAll").getSum(), 0);
+  }
+
+  @Test
+  public void testQueryMetricsOfDirectQueries() {
+    db.execTx(namedQuery.persist(TestDto.create("a", "value")));
+    final long count = queryCount();
+
+    // Queries which are not created through the helpers are recorded as well
+    assertEquals(1, db.exec(em -> {
+      return em.createQuery("select a from Test a", TestDto.class).getResultList();
+    }).size());
+    assertEquals(1, db.exec(em -> {
+      return em.createNativeQuery("select count(*) from test").getResultList();
+    }).size());
+    assertEquals(count + 2, queryCount());
+    assertTrue(DBMetrics.getDurations().containsKey(DBMetrics.NATIVE_QUERY));
+  }
+
+  private static long queryCount() {
+    return DBMetrics.getDurations().values().stream().mapToLong(DBMetrics.Histogram::getCount).sum();
   }
 
   @Test
@@ -57,6 +57,7 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
 import org.opencastproject.smil.api.SmilException;
 import org.opencastproject.smil.api.SmilService;
 import org.opencastproject.smil.entity.api.Smil;
@@ -101,6 +102,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.DecimalFormat;
@@ -116,9 +118,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /** FFMPEG based implementation of the composer service api. */
@@ -219,9 +223,46 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   /** default transition */
   private int transitionDuration = (int) (DEFAULT_PROCESS_SMIL_CLIP_TRANSITION_DURATION * 1000);
 
+  /** Encoding profiles which may be used to encode long tracks in chunks distributed across the cluster */
+  public static final String SEGMENTED_ENCODING_PROFILES = "segmented.encoding.profiles";
+  /** Minimum duration in seconds of tracks to encode in chunks */
+  public static final String SEGMENTED_ENCODING_MIN_DURATION = "segmented.encoding.min.duration";
+  /** Duration in seconds of the chunks */
+  public static final String SEGMENTED_ENCODING_CHUNK_DURATION = "segmented.encoding.chunk.duration";
+  public static final long DEFAULT_SEGMENTED_ENCODING_MIN_DURATION = 1800;
+  public static final long DEFAULT_SEGMENTED_ENCODING_CHUNK_DURATION = 300;
+
+  /**
+   * Load of the job splitting, distributing and joining the chunks. It waits for its chunks, which need the load of the
+   * encoding profile, so any load of its own could keep a node from ever accepting them.
+   */
+  private static final float SEGMENTED_ENCODE_JOB_LOAD = 0f;
+
+  private Set<String> segmentedEncodingProfiles = new HashSet<>();
+  private long segmentedEncodingMinDuration = DEFAULT_SEGMENTED_ENCODING_MIN_DURATION * 1000;
+  private long segmentedEncodingChunkDuration = DEFAULT_SEGMENTED_ENCODING_CHUNK_DURATION * 1000;
+
+  /** Minimum interval in seconds between two updates of the progress of a job */
+  public static final String PROGRESS_INTERVAL = "job.progress.interval";
+
+  public static final long DEFAULT_PROGRESS_INTERVAL = 10;
+
+  private long progressInterval = DEFAULT_PROGRESS_INTERVAL * 1000;
+
+  /** Whether to estimate the load of encoding jobs from the resources similar jobs actually used */
+  public static final String JOB_LOAD_ESTIMATION = "job.load.estimation";
+
+  public static final boolean DEFAULT_JOB_LOAD_ESTIMATION = false;
+
+  private boolean jobLoadEstimation = DEFAULT_JOB_LOAD_ESTIMATION;
+
+  /** Upper bounds of the frame heights by which the job load estimation distinguishes source tracks */
+  private static final int[] LOAD_RESOLUTION_CLASSES = { 360, 480, 576, 720, 1080, 1440, 2160 };
+
   /** List of available operations on jobs */
   enum Operation {
-    Encode, Image, ImageConversion, Mux, Trim, Composite, Concat, ImageToVideo, ParallelEncode, Demux, ProcessSmil, MultiEncode
+    Encode, Image, ImageConversion, Mux, Trim, Composite, Concat, ImageToVideo, ParallelEncode, Demux, ProcessSmil,
+    MultiEncode, SegmentedEncode, EncodeChunk
   }
 
   /** tracked encoder engines */
@@ -297,8 +338,15 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   public Job encode(Track sourceTrack, String profileId) throws EncoderException, MediaPackageException {
     try {
       final EncodingProfile profile = profileScanner.getProfile(profileId);
+      if (isSegmentable(sourceTrack, profileId)) {
+        logger.info("Encoding track {} with profile {} in chunks", sourceTrack.getIdentifier(), profileId);
+        return serviceRegistry.createJob(JOB_TYPE, Operation.SegmentedEncode.toString(),
+                Arrays.asList(profileId, MediaPackageElementParser.getAsXml(sourceTrack), Boolean.FALSE.toString()),
+                SEGMENTED_ENCODE_JOB_LOAD);
+      }
       return serviceRegistry.createJob(JOB_TYPE, Operation.Encode.toString(),
-              Arrays.asList(profileId, MediaPackageElementParser.getAsXml(sourceTrack)), profile.getJobLoad());
+              Arrays.asList(profileId, MediaPackageElementParser.getAsXml(sourceTrack)),
+              getJobLoad(Operation.Encode, getLoadKey(profileId, sourceTrack), profile.getJobLoad()));
     } catch (ServiceRegistryException e) {
       throw new EncoderException("Unable to create a job", e);
     }
@@ -391,10 +439,12 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     logger.info("Encoding {} into {} using profile {}", StringUtils.join(trackMsg, ", "), targetTrackId, profileId);
 
     // Do the work
-    final EncoderEngine encoder = getEncoderEngine();
+    final EncoderEngine encoder = getEncoderEngine(job);
     List<File> output;
     try {
       output = encoder.process(files, profile, null);
+      recordJobLoad(Operation.Encode, getLoadKey(profileId, tracks.getOrDefault("video", tracks.get("audio"))),
+              encoder);
     } catch (EncoderException e) {
       Map<String, String> params = new HashMap<>();
       for (Entry<String, Track> track: tracks.entrySet()) {
@@ -429,6 +479,269 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     return some(inspectedTrack);
   }
 
+  /**
+   * Whether a track is a video long enough to be encoded in chunks with the given profile.
+   */
+  private boolean isSegmentable(Track track, String profileId) {
+    return segmentedEncodingProfiles.contains(profileId) && track.hasVideo() && track.getDuration() != null
+            && track.getDuration() >= segmentedEncodingMinDuration
+            && track.getDuration() >= 2 * segmentedEncodingChunkDuration;
+  }
+
+  /**
+   * Encodes a track by splitting its video into chunks at key frames, encoding each chunk in a separate job which may
+   * run on any node of the cluster and joining the encoded chunks without re-encoding them. The audio is encoded as a
+   * whole in another job and added to the joined video, since joined audio chunks would be audible at the chunk
+   * boundaries and drift from the video.
+   *
+   * @param job
+   *          Job in which context the encoding is done
+   * @param track
+   *          Source track
+   * @param profileId
+   *          the encoding profile
+   * @param parallel
+   *          whether the profile is a parallel encoding profile creating several tracks
+   * @return the encoded tracks
+   * @throws EncoderException
+   *           if encoding fails
+   */
+  private List<Track> segmentedEncode(final Job job, Track track, String profileId, boolean parallel)
+          throws EncoderException, MediaPackageException {
+    final File source = loadTrackIntoWorkspace(job, "source", track, false);
+    final EncodingProfile profile = getProfile(job, profileId);
+    final Map<String, String> properties = parallel ? getConditionalProperties(track, profile) : new HashMap<>();
+    final String loadKey = getLoadKey(profileId, track);
+    final EncoderEngine encoder = getEncoderEngine(job);
+
+    final List<URI> chunkURIs = new ArrayList<>();
+    final List<URI> encodedChunkURIs = new ArrayList<>();
+    final List<File> outputs = new ArrayList<>();
+    try {
+      final List<File> chunks;
+      try {
+        chunks = encoder.split(source, segmentedEncodingChunkDuration);
+      } catch (EncoderException e) {
+        incident().recordFailure(job, ENCODING_FAILED, e,
+                Collections.map(tuple("track", track.getIdentifier()), tuple("profile", profileId)),
+                detailsFor(e, encoder));
+        throw e;
+      }
+      if (chunks.size() < 2) {
+        logger.info("Track {} has too few key frames to be split, encoding it as a whole", track.getIdentifier());
+        cleanup(chunks.toArray(new File[0]));
+        return encodeAsWhole(job, track, profileId, profile, parallel);
+      }
+      logger.info("Encoding track {} in {} chunks using profile {}", track.getIdentifier(), chunks.size(), profileId);
+      chunkURIs.addAll(putToCollection(job, chunks, "source chunk"));
+      URI audioURI = null;
+      if (track.hasAudio()) {
+        final File audio;
+        try {
+          audio = encoder.copyAudio(source);
+        } catch (EncoderException e) {
+          incident().recordFailure(job, ENCODING_FAILED, e,
+                  Collections.map(tuple("track", track.getIdentifier()), tuple("profile", profileId)),
+                  detailsFor(e, encoder));
+          throw e;
+        }
+        audioURI = putToCollection(job, audio, "source audio");
+        chunkURIs.add(audioURI);
+      }
+
+      // Dispatch the chunks and the audio. The audio is not recorded as chunk in the job load estimation.
+      final Job[] chunkJobs = new Job[chunkURIs.size()];
+      for (int i = 0; i < chunkJobs.length; i++) {
+        final URI chunkURI = chunkURIs.get(i);
+        try {
+          if (chunkURI.equals(audioURI)) {
+            chunkJobs[i] = serviceRegistry.createJob(JOB_TYPE, Operation.EncodeChunk.toString(),
+                    Arrays.asList(profileId, chunkURI.toString(), getPropertiesAsString(properties)),
+                    profile.getJobLoad());
+          } else {
+            chunkJobs[i] = serviceRegistry.createJob(JOB_TYPE, Operation.EncodeChunk.toString(),
+                    Arrays.asList(profileId, chunkURI.toString(), getPropertiesAsString(properties), loadKey),
+                    getJobLoad(Operation.EncodeChunk, loadKey, profile.getJobLoad()));
+          }
+        } catch (ServiceRegistryException e) {
+          throw new EncoderException("Unable to create a job", e);
+        }
+      }
+
+      final JobBarrier barrier = new JobBarrier(job, serviceRegistry, chunkJobs);
+      final boolean success = barrier.waitForJobs().isSuccess();
+
+      // The encoded chunks by chunk and output
+      final List<List<URI>> encodedChunks = new ArrayList<>(chunkJobs.length);
+      final List<URI> encodedAudio = new ArrayList<>();
+      final Gson gson = new Gson();
+      for (int i = 0; i < chunkJobs.length; i++) {
+        if (barrier.getStatus().getStatus().get(chunkJobs[i]) == Job.Status.FINISHED) {
+          final List<URI> uris = new ArrayList<>();
+          for (String uri : gson.fromJson(chunkJobs[i].getPayload(), String[].class)) {
+            uris.add(URI.create(uri));
+          }
+          encodedChunkURIs.addAll(uris);
+          if (chunkURIs.get(i).equals(audioURI)) {
+            encodedAudio.addAll(uris);
+          } else {
+            encodedChunks.add(uris);
+          }
+        }
+      }
+      if (!success) {
+        throw new EncoderException(format("Encoding the chunks of track %s failed", track.getIdentifier()));
+      }
+
+      // Join the encoded chunks of each output
+      final int outputCount = encodedChunks.get(0).size();
+      for (List<URI> uris : encodedChunks) {
+        if (uris.size() != outputCount) {
+          throw new EncoderException(format("Chunks of track %s have been encoded to a different number of files",
+                  track.getIdentifier()));
+        }
+      }
+      if (audioURI != null && encodedAudio.size() != outputCount) {
+        throw new EncoderException(format("The audio of track %s has been encoded to %d instead of %d files",
+                track.getIdentifier(), encodedAudio.size(), outputCount));
+      }
+      for (int i = 0; i < outputCount; i++) {
+        final List<File> files = new ArrayList<>(encodedChunks.size());
+        for (List<URI> uris : encodedChunks) {
+          files.add(loadURIIntoWorkspace(job, "encoded chunk", uris.get(i)));
+        }
+        final File audio = audioURI != null ? loadURIIntoWorkspace(job, "encoded audio", encodedAudio.get(i)) : null;
+        if (AdaptivePlaylist.isPlaylist(files.get(0))) {
+          throw new EncoderException("Adaptive streaming profiles cannot be encoded in chunks");
+        }
+        final String name = files.get(0).getName();
+        final String suffix = profile.getTags().stream().map(profile::getSuffix).filter(Objects::nonNull)
+                .filter(name::endsWith).findFirst().orElse("." + FilenameUtils.getExtension(name));
+        final File output = new File(source.getAbsoluteFile().getParentFile(),
+                FilenameUtils.getBaseName(source.getName()) + "_" + UUID.randomUUID() + suffix);
+        try {
+          outputs.add(encoder.join(files, audio, output));
+        } catch (EncoderException e) {
+          incident().recordFailure(job, ENCODING_FAILED, e,
+                  Collections.map(tuple("track", track.getIdentifier()), tuple("profile", profileId)),
+                  detailsFor(e, encoder));
+          throw e;
+        }
+      }
+    } catch (EncoderException e) {
+      cleanup(outputs.toArray(new File[0]));
+      throw e;
+    } finally {
+      activeEncoder.remove(encoder);
+      cleanupWorkspace(chunkURIs.toArray(new URI[0]));
+      cleanupWorkspace(encodedChunkURIs.toArray(new URI[0]));
+    }
+    if (!parallel && outputs.size() > 1) {
+      cleanup(outputs.toArray(new File[0]));
+      throw new EncoderException("Encode does not support multiple files as output");
+    }
+
+    // Put the files in the workspace
+    final List<List<String>> tags = new ArrayList<>(outputs.size());
+    for (File output : outputs) {
+      tags.add(profile.getTags().stream()
+              .filter(tag -> output.getName().endsWith(profile.getSuffix(tag)))
+              .collect(Collectors.toList()));
+    }
+    final List<URI> workspaceURIs = putToCollection(job, outputs, "encoded file");
+
+    // Have the encoded tracks inspected and return the result
+    final List<Track> encodedTracks = inspect(job, workspaceURIs, tags);
+    for (Track encodedTrack : encodedTracks) {
+      encodedTrack.setIdentifier(IdImpl.fromUUID().toString());
+    }
+    return encodedTracks;
+  }
+
+  /**
+   * Encodes a track which cannot be split in a regular encoding job, which is dispatched with the load of the encoding
+   * profile rather than the load of the segmented encoding job.
+   *
+   * @param job
+   *          the segmented encoding job
+   * @param track
+   *          Source track
+   * @param profileId
+   *          the encoding profile
+   * @param profile
+   *          the encoding profile
+   * @param parallel
+   *          whether the profile is a parallel encoding profile creating several tracks
+   * @return the encoded tracks
+   * @throws EncoderException
+   *           if encoding fails
+   */
+  private List<Track> encodeAsWhole(final Job job, Track track, String profileId, EncodingProfile profile,
+          boolean parallel) throws EncoderException, MediaPackageException {
+    final Operation operation = parallel ? Operation.ParallelEncode : Operation.Encode;
+    final Job encodeJob;
+    try {
+      encodeJob = serviceRegistry.createJob(JOB_TYPE, operation.toString(),
+              Arrays.asList(profileId, MediaPackageElementParser.getAsXml(track)),
+              getJobLoad(operation, getLoadKey(profileId, track), profile.getJobLoad()));
+    } catch (ServiceRegistryException e) {
+      throw new EncoderException("Unable to create a job", e);
+    }
+    if (!new JobBarrier(job, serviceRegistry, encodeJob).waitForJobs().isSuccess()) {
+      throw new EncoderException(format("Encoding track %s failed", track.getIdentifier()));
+    }
+    final String payload = encodeJob.getPayload();
+    if (StringUtils.isBlank(payload)) {
+      return new ArrayList<>();
+    }
+    if (!parallel) {
+      return java.util.Collections.singletonList((Track) MediaPackageElementParser.getFromXml(payload));
+    }
+    return MediaPackageElementParser.getArrayFromXml(payload).stream()
+            .map(Track.class::cast)
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Encodes a chunk or the audio of a track split by {@link #segmentedEncode(Job, Track, String, boolean)}.
+   *
+   * @param job
+   *          Job in which context the encoding is done
+   * @param chunkURI
+   *          the workspace URI of the chunk
+   * @param profileId
+   *          the encoding profile
+   * @param properties
+   *          the encoding properties
+   * @param loadKey
+   *          the key of the whole track in the job load estimation, or <code>null</code>
+   * @return the workspace URIs of the encoded files
+   * @throws EncoderException
+   *           if encoding fails
+   */
+  private List<URI> encodeChunk(final Job job, URI chunkURI, String profileId, Map<String, String> properties,
+          String loadKey) throws EncoderException {
+    final File chunk = loadURIIntoWorkspace(job, "chunk", chunkURI);
+    final EncodingProfile profile = getProfile(job, profileId);
+    final EncoderEngine encoder = getEncoderEngine(job);
+    final List<File> outputs;
+    try {
+      outputs = encoder.process(Collections.map(tuple("video", chunk)), profile, properties);
+      if (loadKey != null) {
+        recordJobLoad(Operation.EncodeChunk, loadKey, encoder);
+      }
+    } catch (EncoderException e) {
+      incident().recordFailure(job, ENCODING_FAILED, e,
+              Collections.map(tuple("chunk", chunkURI.toString()), tuple("profile", profileId)),
+              detailsFor(e, encoder));
+      throw e;
+    } finally {
+      activeEncoder.remove(encoder);
+      cleanup(chunk);
+    }
+    return putToCollection(job, outputs, "encoded chunk");
+  }
+
   /**
    * Encodes audio and video track to a file. If both an audio and a video track are given, they are muxed together into
    * one movie container.
@@ -454,37 +767,8 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
 
     // Create the engine
     final EncodingProfile profile = getProfile(profileId);
-    final EncoderEngine encoderEngine = getEncoderEngine();
-
-    // conditional settings based on frame height and width
-    final Optional<VideoStream> videoStream = Arrays.stream(mediaTrack.getStreams())
-            .filter((stream -> stream instanceof VideoStream))
-            .map(stream -> (VideoStream) stream)
-            .findFirst();
-    final int height = videoStream.map(vs -> vs.getFrameHeight()).orElse(0);
-    final int width = videoStream.map(vs -> vs.getFrameWidth()).orElse(0);
-    Map<String, String> properties = new HashMap<>();
-    for (String key: profile.getExtensions().keySet()) {
-      if (key.startsWith(CMD_SUFFIX + ".if-height-geq-")) {
-        final int heightCondition = Integer.parseInt(key.substring((CMD_SUFFIX + ".if-height-geq-").length()));
-        if (heightCondition <= height) {
-          properties.put(key, profile.getExtension(key));
-        }
-      } else if (key.startsWith(CMD_SUFFIX + ".if-height-lt-")) {
-        final int heightCondition = Integer.parseInt(key.substring((CMD_SUFFIX + ".if-height-lt-").length()));
-        if (heightCondition > height) {
-          properties.put(key, profile.getExtension(key));
-        }
-      } else if (key.startsWith(CMD_SUFFIX + ".if-width-or-height-geq-")) {
-        final String[] resCondition = key.substring((CMD_SUFFIX + ".if-width-or-height-geq-").length()).split("-");
-        final int widthCondition = Integer.parseInt(resCondition[0]);
-        final int heightCondition = Integer.parseInt(resCondition[1]);
-
-        if (heightCondition <= height || widthCondition <= width) {
-          properties.put(key, profile.getExtension(key));
-        }
-      }
-    }
+    final EncoderEngine encoderEngine = getEncoderEngine(job);
+    final Map<String, String> properties = getConditionalProperties(mediaTrack, profile);
 
     // List of encoded tracks
     LinkedList<Track> encodedTracks = new LinkedList<>();
@@ -495,6 +779,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     var returnURLs = new ArrayList<URI>();
     var tagsForUrls = new ArrayList<List<String>>();
     activeEncoder.remove(encoderEngine);
+    recordJobLoad(Operation.ParallelEncode, getLoadKey(profileId, mediaTrack), encoderEngine);
     int i = 0;
     var fileMapping = new HashMap<String, String>();
     for (File file: outputFiles) {
@@ -559,6 +844,42 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     return encodedTracks;
   }
 
+  /**
+   * Selects the conditional command line extensions of a profile which apply to the frame size of a track.
+   */
+  private Map<String, String> getConditionalProperties(Track mediaTrack, EncodingProfile profile) {
+    // conditional settings based on frame height and width
+    final Optional<VideoStream> videoStream = Arrays.stream(mediaTrack.getStreams())
+            .filter((stream -> stream instanceof VideoStream))
+            .map(stream -> (VideoStream) stream)
+            .findFirst();
+    final int height = videoStream.map(vs -> vs.getFrameHeight()).orElse(0);
+    final int width = videoStream.map(vs -> vs.getFrameWidth()).orElse(0);
+    Map<String, String> properties = new HashMap<>();
+    for (String key: profile.getExtensions().keySet()) {
+      if (key.startsWith(CMD_SUFFIX + ".if-height-geq-")) {
+        final int heightCondition = Integer.parseInt(key.substring((CMD_SUFFIX + ".if-height-geq-").length()));
+        if (heightCondition <= height) {
+          properties.put(key, profile.getExtension(key));
+        }
+      } else if (key.startsWith(CMD_SUFFIX + ".if-height-lt-")) {
+        final int heightCondition = Integer.parseInt(key.substring((CMD_SUFFIX + ".if-height-lt-").length()));
+        if (heightCondition > height) {
+          properties.put(key, profile.getExtension(key));
+        }
+      } else if (key.startsWith(CMD_SUFFIX + ".if-width-or-height-geq-")) {
+        final String[] resCondition = key.substring((CMD_SUFFIX + ".if-width-or-height-geq-").length()).split("-");
+        final int widthCondition = Integer.parseInt(resCondition[0]);
+        final int heightCondition = Integer.parseInt(resCondition[1]);
+
+        if (heightCondition <= height || widthCondition <= width) {
+          properties.put(key, profile.getExtension(key));
+        }
+      }
+    }
+    return properties;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -569,9 +890,17 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   public Job parallelEncode(Track sourceTrack, String profileId) throws EncoderException, MediaPackageException {
     try {
       final EncodingProfile profile = profileScanner.getProfile(profileId);
-      logger.info("Starting parallel encode with profile {} with job load {}", profileId, df.format(profile.getJobLoad()));
+      if (isSegmentable(sourceTrack, profileId)) {
+        logger.info("Encoding track {} with profile {} in chunks", sourceTrack.getIdentifier(), profileId);
+        return serviceRegistry.createJob(JOB_TYPE, Operation.SegmentedEncode.toString(),
+                Arrays.asList(profileId, MediaPackageElementParser.getAsXml(sourceTrack), Boolean.TRUE.toString()),
+                SEGMENTED_ENCODE_JOB_LOAD);
+      }
+      final float load = getJobLoad(Operation.ParallelEncode, getLoadKey(profileId, sourceTrack),
+              profile.getJobLoad());
+      logger.info("Starting parallel encode with profile {} with job load {}", profileId, df.format(load));
       return serviceRegistry.createJob(JOB_TYPE, Operation.ParallelEncode.toString(),
-              Arrays.asList(profileId, MediaPackageElementParser.getAsXml(sourceTrack)), profile.getJobLoad());
+              Arrays.asList(profileId, MediaPackageElementParser.getAsXml(sourceTrack)), load);
     } catch (ServiceRegistryException e) {
       throw new EncoderException("Unable to create a job", e);
     }
@@ -626,7 +955,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     final EncodingProfile profile = getProfile(job, profileId);
 
     // Create the engine
-    final EncoderEngine encoderEngine = getEncoderEngine();
+    final EncoderEngine encoderEngine = getEncoderEngine(job);
 
     File output;
     try {
@@ -738,7 +1067,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     final EncodingProfile profile = getProfile(job, profileId);
 
     // Create the engine
-    final EncoderEngine encoderEngine = getEncoderEngine();
+    final EncoderEngine encoderEngine = getEncoderEngine(job);
 
     final String targetTrackId = IdImpl.fromUUID().toString();
     Option<File> upperVideoFile = Option.none();
@@ -984,7 +1313,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
 
     // Create the engine
-    final EncoderEngine encoderEngine = getEncoderEngine();
+    final EncoderEngine encoderEngine = getEncoderEngine(job);
 
     if (onlyAudio) {
       logger.info("Concatenating audio tracks {} into {}", trackFiles, targetTrackId);
@@ -1091,7 +1420,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
 
     // Create the engine
-    final EncoderEngine encoderEngine = getEncoderEngine();
+    final EncoderEngine encoderEngine = getEncoderEngine(job);
 
     logger.info("Converting image attachment {} into video {}", sourceImage.getIdentifier(), targetTrackId);
 
@@ -1230,7 +1559,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     final EncodingProfile profile = getProfile(job, profileId);
 
     // Create the encoding engine
-    final EncoderEngine encoderEngine = getEncoderEngine();
+    final EncoderEngine encoderEngine = getEncoderEngine(job);
 
     // Finally get the file that needs to be encoded
     File videoFile = loadTrackIntoWorkspace(job, "video", sourceTrack, true);
@@ -1379,7 +1708,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   private List<Attachment> convertImage(Job job, Attachment sourceImage, String... profileIds) throws EncoderException,
           MediaPackageException {
     List<Attachment> convertedImages = new ArrayList<>();
-    final EncoderEngine encoderEngine = getEncoderEngine();
+    final EncoderEngine encoderEngine = getEncoderEngine(job);
     try {
       for (String profileId : profileIds) {
         logger.info("Converting {} using encoding profile {}", sourceImage, profileId);
@@ -1473,6 +1802,21 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
           serialized = encode(job, Collections.map(tuple("video", firstTrack)), encodingProfile).map(
                   MediaPackageElementParser.getAsXml()).getOrElse("");
           break;
+        case SegmentedEncode:
+          firstTrack = (Track) MediaPackageElementParser.getFromXml(arguments.get(1));
+          boolean parallel = Boolean.parseBoolean(arguments.get(2));
+          List<Track> encodedTracks = segmentedEncode(job, firstTrack, encodingProfile, parallel);
+          if (parallel) {
+            serialized = MediaPackageElementParser.getArrayAsXml(encodedTracks);
+          } else {
+            serialized = encodedTracks.isEmpty() ? "" : MediaPackageElementParser.getAsXml(encodedTracks.get(0));
+          }
+          break;
+        case EncodeChunk:
+          List<URI> encodedChunks = encodeChunk(job, URI.create(arguments.get(1)), encodingProfile,
+                  parseProperties(arguments.get(2)), arguments.size() > 3 ? arguments.get(3) : null);
+          serialized = new Gson().toJson(encodedChunks.stream().map(URI::toString).toArray(String[]::new));
+          break;
         case ParallelEncode:
           firstTrack = (Track) MediaPackageElementParser.getFromXml(arguments.get(1));
           serialized = MediaPackageElementParser.getArrayAsXml(parallelEncode(job, firstTrack, encodingProfile));
@@ -1698,12 +2042,131 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
   }
 
-  private EncoderEngine getEncoderEngine() {
+  private EncoderEngine getEncoderEngine(Job job) {
     EncoderEngine engine = new EncoderEngine(ffmpegBinary);
+    engine.setProgressListener(getProgressListener(job, engine));
     activeEncoder.add(engine);
     return engine;
   }
 
+  /**
+   * Creates a listener writing the progress of the encoding processes of a job to the service registry, at most once
+   * per progress interval. At the same interval, the engine is marked if the processors of this node are overcommitted.
+   */
+  private EncoderProgress.Listener getProgressListener(Job job, EncoderEngine engine) {
+    final long[] lastUpdate = { System.currentTimeMillis() };
+    return (progress, remainingTime) -> {
+      final long now = System.currentTimeMillis();
+      if (now - lastUpdate[0] < progressInterval) {
+        return;
+      }
+      lastUpdate[0] = now;
+      if (isOvercommitted()) {
+        engine.setOvercommitted();
+      }
+      if (progress < 0 || progress >= 1) {
+        return;
+      }
+      try {
+        serviceRegistry.updateJobProgress(job.getId(), progress, remainingTime < 0 ? null : remainingTime);
+      } catch (Exception e) {
+        logger.debug("Unable to update the progress of job {}", job.getId(), e);
+      }
+    };
+  }
+
+  /**
+   * Identifies encoding jobs with similar resource needs for the job load estimation, by the encoding profiles and
+   * the resolution class of the source track.
+   *
+   * @param profileIds
+   *          the identifiers of the encoding profiles
+   * @param track
+   *          the source track, may be <code>null</code>
+   * @return the key of the job in the job load estimation
+   */
+  static String getLoadKey(String profileIds, Track track) {
+    if (track == null || !track.hasVideo()) {
+      return profileIds + "@audio";
+    }
+    final int height = Arrays.stream(track.getStreams())
+            .filter((stream -> stream instanceof VideoStream))
+            .map(stream -> (VideoStream) stream)
+            .findFirst()
+            .map(VideoStream::getFrameHeight)
+            .orElse(0);
+    if (height <= 0) {
+      return profileIds + "@unknown";
+    }
+    for (int resolutionClass : LOAD_RESOLUTION_CLASSES) {
+      if (height <= resolutionClass) {
+        return profileIds + "@" + resolutionClass + "p";
+      }
+    }
+    return profileIds + "@larger";
+  }
+
+  /**
+   * Returns the load of a new job. If enabled, the load is estimated from the resources similar jobs actually used.
+   *
+   * @param operation
+   *          the operation of the job
+   * @param loadKey
+   *          the key of the job in the job load estimation
+   * @param defaultLoad
+   *          the configured load, used as long as too few similar jobs have been recorded
+   * @return the job load
+   */
+  private float getJobLoad(Operation operation, String loadKey, float defaultLoad) {
+    if (!jobLoadEstimation) {
+      return defaultLoad;
+    }
+    final float load = serviceRegistry.getEstimatedJobLoad(JOB_TYPE, operation.toString(), loadKey, defaultLoad);
+    if (load != defaultLoad) {
+      logger.debug("Using estimated job load {} instead of {} for {} {}", load, defaultLoad, operation, loadKey);
+    }
+    return load;
+  }
+
+  /**
+   * Records the resources the encoding processes of a job used, so that the load of similar jobs can be estimated.
+   */
+  private void recordJobLoad(Operation operation, String loadKey, EncoderEngine engine) {
+    if (engine.getWallTime() <= 0) {
+      // FFmpeg did not report any resources
+      return;
+    }
+    if (engine.isOvercommitted() || isOvercommitted()) {
+      logger.debug("Not recording the load of {} {}, the processors of this node have been overcommitted", operation,
+              loadKey);
+      return;
+    }
+    try {
+      serviceRegistry.recordJobLoad(JOB_TYPE, operation.toString(), loadKey, engine.getCpuTime(),
+              engine.getWallTime(), engine.getPeakMemory());
+    } catch (ServiceRegistryException e) {
+      logger.warn("Unable to record the load of {} {}", operation, loadKey, e);
+    }
+  }
+
+  /**
+   * Whether the processors of this node are overcommitted, either because the jobs running on it exceed its maximum
+   * load or because the system load exceeds the number of processors.
+   */
+  private boolean isOvercommitted() {
+    if (ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage() > Runtime.getRuntime()
+            .availableProcessors()) {
+      return true;
+    }
+    try {
+      final NodeLoad node = serviceRegistry.getMaxLoadOnNode(serviceRegistry.getRegistryHostname());
+      return node != null && serviceRegistry.getOwnLoad() > node.getMaxLoad();
+    } catch (Exception e) {
+      logger.debug("Unable to determine the load of this node", e);
+      return false;
+    }
+  }
+
   private EncodingProfile getProfile(Job job, String profileId) throws EncoderException {
     final EncodingProfile profile = profileScanner.getProfile(profileId);
     if (profile == null) {
@@ -2041,7 +2504,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       EncodingProfile profile = getProfile(job, encodingProfile);
       // Create the engine/get
       logger.info("Encoding video track {} using profile '{}'", videoTrack.getIdentifier(), profile);
-      final EncoderEngine encoderEngine = getEncoderEngine();
+      final EncoderEngine encoderEngine = getEncoderEngine(job);
 
       // Do the work
       List<File> outputs;
@@ -2115,6 +2578,43 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
     transitionDuration = (int) (1000 * LoadUtil.getConfiguredLoadValue(properties,
             PROCESS_SMIL_CLIP_TRANSITION_DURATION, DEFAULT_PROCESS_SMIL_CLIP_TRANSITION_DURATION, serviceRegistry));
+
+    segmentedEncodingProfiles = new HashSet<>();
+    String segmentedProfilesStr = StringUtils.trimToNull((String) properties.get(SEGMENTED_ENCODING_PROFILES));
+    if (segmentedProfilesStr != null) {
+      for (String profile : StringUtils.split(segmentedProfilesStr, ", ")) {
+        segmentedEncodingProfiles.add(profile);
+      }
+    }
+    segmentedEncodingMinDuration = 1000 * getPositiveLong(properties, SEGMENTED_ENCODING_MIN_DURATION,
+            DEFAULT_SEGMENTED_ENCODING_MIN_DURATION);
+    segmentedEncodingChunkDuration = 1000 * getPositiveLong(properties, SEGMENTED_ENCODING_CHUNK_DURATION,
+            DEFAULT_SEGMENTED_ENCODING_CHUNK_DURATION);
+    if (!segmentedEncodingProfiles.isEmpty()) {
+      logger.info("Encoding tracks longer than {} seconds in chunks of {} seconds with profiles {}",
+              segmentedEncodingMinDuration / 1000, segmentedEncodingChunkDuration / 1000, segmentedEncodingProfiles);
+    }
+    progressInterval = 1000 * getPositiveLong(properties, PROGRESS_INTERVAL, DEFAULT_PROGRESS_INTERVAL);
+    jobLoadEstimation = Boolean.parseBoolean(StringUtils.trim((String) properties.get(JOB_LOAD_ESTIMATION)));
+    logger.info("Estimating the load of encoding jobs from recorded jobs is {}",
+            jobLoadEstimation ? "enabled" : "disabled");
+  }
+
+  private static long getPositiveLong(Dictionary<String, ?> properties, String key, long defaultValue)
+          throws ConfigurationException {
+    String value = StringUtils.trimToNull((String) properties.get(key));
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      long result = Long.parseLong(value);
+      if (result > 0) {
+        return result;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    throw new ConfigurationException(key, "Expected a positive number but got " + value);
   }
 
   /**
@@ -2329,7 +2829,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       for (String f : inputfile) {
         inputs.add(new File(f));
       }
-      EncoderEngine encoderEngine = getEncoderEngine();
+      EncoderEngine encoderEngine = getEncoderEngine(job);
       try {
         outputs = encoderEngine.multiTrimConcat(inputs, edits, profiles, transitionDuration,
                 !AUDIO_ONLY.equals(mediaType), !VIDEO_ONLY.equals(mediaType));
@@ -2372,7 +2872,8 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   public Job multiEncode(Track sourceTrack, List<String> profileIds) throws EncoderException, MediaPackageException {
     try {
       // Job Load is based on number of encoding profiles
-      float load = calculateJobLoadForMultipleProfiles(profileIds, multiEncodeJobLoadFactor);
+      float load = getJobLoad(Operation.MultiEncode, getLoadKey(StringUtils.join(profileIds, ","), sourceTrack),
+              calculateJobLoadForMultipleProfiles(profileIds, multiEncodeJobLoadFactor));
       ArrayList<String> args = new ArrayList<>();
       args.add(MediaPackageElementParser.getAsXml(sourceTrack));
       args.addAll(profileIds);
@@ -2426,11 +2927,12 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       }
       logger.info("Encoding source track {} using profiles '{}'", track.getIdentifier(), profileIds);
       // Do the work
-      EncoderEngine encoderEngine = getEncoderEngine();
+      EncoderEngine encoderEngine = getEncoderEngine(job);
       try {
         outputs = encoderEngine.multiTrimConcat(Arrays.asList(videoFile), null, profiles, multiEncodeFade,
                 track.hasVideo(),
                 track.hasAudio());
+        recordJobLoad(Operation.MultiEncode, getLoadKey(StringUtils.join(profileIds, ","), track), encoderEngine);
       } catch (EncoderException e) {
         Map<String, String> params = new HashMap<>();
         params.put("videos", videoFile.getName());
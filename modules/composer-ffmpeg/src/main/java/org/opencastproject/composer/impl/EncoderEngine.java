@@ -38,7 +38,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
@@ -80,6 +82,16 @@ public class EncoderEngine implements AutoCloseable {
   private String binary = "ffmpeg";
   /** Set of processes to clean up */
   private Set<Process> processes = new HashSet<>();
+  /** Receives the progress of the encoding processes */
+  private EncoderProgress.Listener progressListener = null;
+  /** Processor time in milliseconds used by all encoding processes so far */
+  private long cpuTime = 0;
+  /** Elapsed time in milliseconds of all encoding processes so far */
+  private long wallTime = 0;
+  /** Peak resident memory in bytes of the largest encoding process so far */
+  private long peakMemory = 0;
+  /** Whether the processors of the node have been overcommitted while encoding */
+  private volatile boolean overcommitted = false;
 
   private final Pattern outputPattern = Pattern.compile("Output .* (\\S+) to '(.*)':");
   // ffmpeg4 generates HLS output files and may use a .tmp suffix while writing
@@ -99,6 +111,51 @@ public class EncoderEngine implements AutoCloseable {
     this.binary = binary;
   }
 
+  /**
+   * Sets the listener to notify about the progress of the encoding processes started by this engine.
+   *
+   * @param progressListener
+   *          the listener or <code>null</code> to not report any progress
+   */
+  void setProgressListener(EncoderProgress.Listener progressListener) {
+    this.progressListener = progressListener;
+  }
+
+  /** Returns the processor time in milliseconds used by all encoding processes of this engine so far. */
+  long getCpuTime() {
+    return cpuTime;
+  }
+
+  /** Returns the elapsed time in milliseconds of all encoding processes of this engine so far. */
+  long getWallTime() {
+    return wallTime;
+  }
+
+  /** Returns the peak resident memory in bytes of the largest encoding process of this engine so far. */
+  long getPeakMemory() {
+    return peakMemory;
+  }
+
+  /**
+   * Marks the resources used by this engine as not representative. Processes competing for overcommitted processors
+   * get less processor time than they could use, so their load would be under-measured.
+   */
+  void setOvercommitted() {
+    overcommitted = true;
+  }
+
+  /** Returns whether the processors of the node have been overcommitted while encoding. */
+  boolean isOvercommitted() {
+    return overcommitted;
+  }
+
+  /** Adds the resources an encoding process reported to the totals of this engine. */
+  private void addResourceUsage(EncoderProgress progress) {
+    cpuTime += progress.getCpuTime();
+    wallTime += progress.getWallTime();
+    peakMemory = Math.max(peakMemory, progress.getPeakMemory());
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -226,10 +283,14 @@ public class EncoderEngine implements AutoCloseable {
 
       // tell encoder listeners about output
       in = new BufferedReader(new InputStreamReader(encoderProcess.getInputStream()));
+      EncoderProgress progress = new EncoderProgress(progressListener);
       String line;
       while ((line = in.readLine()) != null) {
-        handleEncoderOutput(outFiles, line);
+        if (!progress.parse(line)) {
+          handleEncoderOutput(outFiles, line);
+        }
       }
+      addResourceUsage(progress);
 
       // wait until the task is finished
       int exitCode = encoderProcess.waitFor();
@@ -283,6 +344,9 @@ public class EncoderEngine implements AutoCloseable {
     try {
       List<String> command = new ArrayList<>();
       command.add(binary);
+      command.add("-progress"); // machine readable progress report on stdout
+      command.add("pipe:1");
+      command.add("-benchmark"); // report the resources used
       command.addAll(commandopts);
       logger.info("Executing encoding command: {}", StringUtils.join(command, " "));
 
@@ -291,10 +355,14 @@ public class EncoderEngine implements AutoCloseable {
       encoderProcess = pbuilder.start();
       // tell encoder listeners about output
       in = new BufferedReader(new InputStreamReader(encoderProcess.getInputStream()));
+      EncoderProgress progress = new EncoderProgress(progressListener);
       String line;
       while ((line = in.readLine()) != null) {
-        handleEncoderOutput(outFiles, line); // get names of output files
+        if (!progress.parse(line)) {
+          handleEncoderOutput(outFiles, line); // get names of output files
+        }
       }
+      addResourceUsage(progress);
       // wait until the task is finished
       encoderProcess.waitFor();
       int exitCode = encoderProcess.exitValue();
@@ -352,6 +420,9 @@ public class EncoderEngine implements AutoCloseable {
     command.add(binary);
     command.add("-nostdin");
     command.add("-nostats");
+    command.add("-progress");
+    command.add("pipe:1");
+    command.add("-benchmark");
 
     String commandline = profile.getExtension(CMD_SUFFIX);
 
@@ -1345,4 +1416,140 @@ public class EncoderEngine implements AutoCloseable {
     }
   }
 
+  /**
+   * Splits the video of a media file into chunks without re-encoding. Since the streams are copied, each chunk starts
+   * at a key frame of the source and may therefore be longer than requested. Audio is left out since audio chunks
+   * cannot be joined without gaps, see {@link #copyAudio(File)}.
+   *
+   * @param mediaSource
+   *          the file to split
+   * @param chunkDuration
+   *          the minimum duration of each chunk in milliseconds
+   * @return the chunks in playback order
+   * @throws EncoderException
+   *           if splitting fails
+   */
+  List<File> split(File mediaSource, long chunkDuration) throws EncoderException {
+    final File dir = mediaSource.getAbsoluteFile().getParentFile();
+    final String prefix = FilenameUtils.getBaseName(mediaSource.getName()) + "_" + UUID.randomUUID() + "_";
+    DecimalFormatSymbols ffmpegFormat = new DecimalFormatSymbols();
+    ffmpegFormat.setDecimalSeparator('.');
+    DecimalFormat df = new DecimalFormat("0.000", ffmpegFormat);
+
+    // Matroska is able to hold the streams of almost any source container
+    List<String> command = Arrays.asList("-nostats", "-hide_banner", "-i", mediaSource.getAbsolutePath(),
+            "-map", "0:v", "-an", "-c", "copy", "-f", "segment",
+            "-segment_time", df.format((double) chunkDuration / 1000), "-reset_timestamps", "1",
+            new File(dir, prefix + "%05d.mkv").getAbsolutePath());
+    try {
+      process(command);
+    } catch (EncoderException e) {
+      cleanup(listChunks(dir, prefix));
+      throw e;
+    }
+    // The segment muxer does not report its output files like other muxers do
+    List<File> chunks = listChunks(dir, prefix);
+    if (chunks.isEmpty()) {
+      throw new EncoderException("Splitting " + mediaSource + " did not create any chunks");
+    }
+    return chunks;
+  }
+
+  private static List<File> listChunks(File dir, String prefix) {
+    File[] files = dir.listFiles((d, name) -> name.startsWith(prefix));
+    if (files == null) {
+      return new ArrayList<>();
+    }
+    return Arrays.stream(files).sorted().collect(Collectors.toList());
+  }
+
+  /**
+   * Copies the audio streams of a media file into a separate file without re-encoding.
+   *
+   * @param mediaSource
+   *          the file to copy the audio from
+   * @return the audio file
+   * @throws EncoderException
+   *           if copying fails
+   */
+  File copyAudio(File mediaSource) throws EncoderException {
+    final File output = new File(mediaSource.getAbsoluteFile().getParentFile(),
+            FilenameUtils.getBaseName(mediaSource.getName()) + "_" + UUID.randomUUID() + "_audio.mkv");
+    List<File> result = process(Arrays.asList("-nostats", "-hide_banner", "-i", mediaSource.getAbsolutePath(),
+            "-map", "0:a", "-vn", "-c", "copy", output.getAbsolutePath()));
+    if (result.size() != 1) {
+      cleanup(result);
+      throw new EncoderException(String.format("Copying audio expects one output file (%s found)", result.size()));
+    }
+    return result.get(0);
+  }
+
+  /**
+   * Joins chunks encoded with the same settings into one file without re-encoding.
+   *
+   * @param chunks
+   *          the chunks in playback order
+   * @param output
+   *          the file to write
+   * @return the joined file
+   * @throws EncoderException
+   *           if joining fails
+   */
+  File join(List<File> chunks, File output) throws EncoderException {
+    return join(chunks, null, output);
+  }
+
+  /**
+   * Joins video chunks encoded with the same settings into one file and adds the audio of another file, both without
+   * re-encoding.
+   *
+   * @param chunks
+   *          the chunks in playback order
+   * @param audio
+   *          the file to take the audio from, or <code>null</code> to keep the streams of the chunks only
+   * @param output
+   *          the file to write
+   * @return the joined file
+   * @throws EncoderException
+   *           if joining fails
+   */
+  File join(List<File> chunks, File audio, File output) throws EncoderException {
+    if (chunks == null || chunks.isEmpty()) {
+      throw new IllegalArgumentException("At least one chunk must be specified.");
+    }
+    final File list = new File(output.getAbsoluteFile().getParentFile(),
+            FilenameUtils.getBaseName(output.getName()) + ".txt");
+    try {
+      List<String> lines = new ArrayList<>(chunks.size());
+      for (File chunk : chunks) {
+        lines.add("file '" + chunk.getAbsolutePath().replace("'", "'\\''") + "'");
+      }
+      FileUtils.writeLines(list, StandardCharsets.UTF_8.name(), lines);
+
+      List<String> command = new ArrayList<>(Arrays.asList("-nostats", "-hide_banner", "-f", "concat", "-safe", "0",
+              "-i", list.getAbsolutePath()));
+      if (audio != null) {
+        command.addAll(Arrays.asList("-i", audio.getAbsolutePath(), "-map", "0:v", "-map", "1:a"));
+      } else {
+        command.addAll(Arrays.asList("-map", "0"));
+      }
+      command.addAll(Arrays.asList("-c", "copy"));
+      if (Arrays.asList("mp4", "m4v", "m4a", "mov").contains(FilenameUtils.getExtension(output.getName()))) {
+        command.add("-movflags");
+        command.add("+faststart");
+      }
+      command.add(output.getAbsolutePath());
+      List<File> result = process(command);
+      if (result.size() != 1) {
+        cleanup(result);
+        throw new EncoderException(String.format("Join expects one output file (%s found)", result.size()));
+      }
+      return result.get(0);
+    } catch (IOException e) {
+      throw new EncoderException("Unable to write the list of chunks to join", e);
+    } finally {
+      FileUtils.deleteQuietly(list);
+    }
+  }
+
 }
@@ -0,0 +1,236 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The progress of an FFmpeg process, parsed from the key value pairs FFmpeg writes when called with
+ * <code>-progress</code>, along with the durations of the inputs logged by FFmpeg.
+ * <p>
+ * FFmpeg reports its progress in blocks, each terminated by a <code>progress=continue</code> or
+ * <code>progress=end</code> line. The completed fraction is the output time relative to the longest input.
+ * <p>
+ * When called with <code>-benchmark</code>, FFmpeg finally reports the resources the process used.
+ */
+final class EncoderProgress {
+
+  /** Receives the progress of an FFmpeg process */
+  interface Listener {
+    /**
+     * Called whenever FFmpeg completed a progress report.
+     *
+     * @param progress
+     *          the completed fraction between 0 and 1
+     * @param remainingTime
+     *          the estimated remaining time in milliseconds or -1 if unknown
+     */
+    void progress(float progress, long remainingTime);
+  }
+
+  private static final Pattern DURATION = Pattern.compile("^\\s*Duration: (\\d+):(\\d{2}):(\\d{2}(?:\\.\\d+)?)");
+
+  private static final Pattern KEY_VALUE = Pattern.compile("^([a-z_0-9]+)=(.*)$");
+
+  private static final Pattern BENCH_TIME = Pattern.compile(
+          "^bench: utime=([0-9.]+)s stime=([0-9.]+)s rtime=([0-9.]+)s");
+
+  private static final Pattern BENCH_MEMORY = Pattern.compile("^bench: maxrss=(\\d+)\\s*(?:kB|KiB)");
+
+  private final long started = System.currentTimeMillis();
+
+  private final Listener listener;
+
+  /** The duration of the longest input in milliseconds */
+  private long duration = -1;
+
+  private long frames = 0;
+
+  /** The position of the output in milliseconds */
+  private long outTime = 0;
+
+  /** The encoding speed relative to realtime */
+  private double speed = -1;
+
+  private boolean ended = false;
+
+  /** The processor time in milliseconds as reported by the benchmark */
+  private long cpuTime = 0;
+
+  /** The elapsed time in milliseconds as reported by the benchmark */
+  private long wallTime = 0;
+
+  /** The peak resident memory in bytes as reported by the benchmark */
+  private long peakMemory = 0;
+
+  /**
+   * Creates the progress of an FFmpeg process which is just about to be started.
+   *
+   * @param listener
+   *          the listener to notify about each progress report, may be <code>null</code>
+   */
+  EncoderProgress(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Parses a line of FFmpeg output and notifies the listener if the line completes a progress report.
+   *
+   * @param line
+   *          the line written by FFmpeg
+   * @return whether the line is part of a progress report, otherwise it still needs to be handled as regular output
+   */
+  boolean parse(String line) {
+    Matcher matcher = DURATION.matcher(line);
+    if (matcher.find()) {
+      final long inputDuration = Math.round((Long.parseLong(matcher.group(1)) * 3600
+              + Long.parseLong(matcher.group(2)) * 60 + Double.parseDouble(matcher.group(3))) * 1000);
+      duration = Math.max(duration, inputDuration);
+      return false;
+    }
+    matcher = BENCH_TIME.matcher(line.trim());
+    if (matcher.find()) {
+      cpuTime = Math.round((Double.parseDouble(matcher.group(1)) + Double.parseDouble(matcher.group(2))) * 1000);
+      wallTime = Math.round(Double.parseDouble(matcher.group(3)) * 1000);
+      return true;
+    }
+    matcher = BENCH_MEMORY.matcher(line.trim());
+    if (matcher.find()) {
+      peakMemory = Long.parseLong(matcher.group(1)) * 1024;
+      return true;
+    }
+    matcher = KEY_VALUE.matcher(line.trim());
+    if (!matcher.matches()) {
+      return false;
+    }
+    final String key = matcher.group(1);
+    final String value = matcher.group(2).trim();
+    switch (key) {
+      case "frame":
+        frames = parseLong(value, frames);
+        return true;
+      case "out_time_us":
+      case "out_time_ms": // microseconds as well despite its name
+        outTime = parseLong(value, outTime * 1000) / 1000;
+        return true;
+      case "speed":
+        speed = value.endsWith("x") ? parseDouble(value.substring(0, value.length() - 1), -1) : -1;
+        return true;
+      case "progress":
+        ended = "end".equals(value);
+        if (listener != null) {
+          listener.progress(getProgress(), getRemainingTime());
+        }
+        return true;
+      case "fps":
+      case "bitrate":
+      case "total_size":
+      case "out_time":
+      case "dup_frames":
+      case "drop_frames":
+        return true;
+      default:
+        return key.startsWith("stream_");
+    }
+  }
+
+  /** Returns the number of frames encoded so far. */
+  long getFrames() {
+    return frames;
+  }
+
+  /** Returns the position of the output in milliseconds. */
+  long getOutTime() {
+    return outTime;
+  }
+
+  /** Returns the encoding speed relative to realtime or -1 if unknown. */
+  double getSpeed() {
+    return speed;
+  }
+
+  /** Returns the processor time in milliseconds or 0 if FFmpeg did not report it. */
+  long getCpuTime() {
+    return cpuTime;
+  }
+
+  /** Returns the elapsed time in milliseconds or 0 if FFmpeg did not report it. */
+  long getWallTime() {
+    return wallTime;
+  }
+
+  /** Returns the peak resident memory in bytes or 0 if FFmpeg did not report it. */
+  long getPeakMemory() {
+    return peakMemory;
+  }
+
+  /** Returns the completed fraction between 0 and 1 or -1 if the duration of the inputs is unknown. */
+  float getProgress() {
+    if (ended) {
+      return 1;
+    }
+    if (duration <= 0) {
+      return -1;
+    }
+    return (float) Math.max(0, Math.min(1, (double) outTime / duration));
+  }
+
+  /**
+   * Returns the estimated remaining time in milliseconds or -1 if unknown. The estimate is based on the current
+   * encoding speed or, if FFmpeg does not report it, on the time elapsed so far.
+   */
+  long getRemainingTime() {
+    final float progress = getProgress();
+    if (progress < 0) {
+      return -1;
+    }
+    if (progress >= 1) {
+      return 0;
+    }
+    if (speed > 0) {
+      return Math.round((duration - outTime) / speed);
+    }
+    if (progress > 0) {
+      return Math.round((System.currentTimeMillis() - started) * (1 - progress) / progress);
+    }
+    return -1;
+  }
+
+  private static long parseLong(String value, long fallback) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      // FFmpeg reports N/A as long as the value is unknown
+      return fallback;
+    }
+  }
+
+  private static double parseDouble(String value, double fallback) {
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ package org.opencastproject.composer.impl;
 
 import static org.easymock.EasyMock.anyBoolean;
 import static org.easymock.EasyMock.capture;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.composer.api.EncoderException;
@@ -76,6 +77,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -279,6 +281,9 @@ public class ComplexCmdsEncoderEngineTest {
               job.setPayload(composerService.process(job));
               return job;
             }).anyTimes();
+    serviceRegistry.recordJobLoad(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyLong(),
+            EasyMock.anyLong(), EasyMock.anyLong());
+    EasyMock.expectLastCall().anyTimes();
     EasyMock.replay(serviceRegistry);
 
     // Create and populate the composer service
@@ -717,6 +722,27 @@ public class ComplexCmdsEncoderEngineTest {
     }
   }
 
+  @Test
+  public void testSplitAndJoin() throws Exception {
+    List<File> chunks = engine.split(sourceAudioVideoLarger, 1000);
+    assertFalse(chunks.isEmpty());
+    List<File> encodedChunks = new ArrayList<>();
+    for (File chunk : chunks) {
+      assertTrue(chunk.length() > 0);
+      encodedChunks.add(engine.encode(chunk, profileScanner.getProfile("h264-low.http"), null));
+    }
+    File output = engine.join(encodedChunks, new File(workingDirectory, "joined-" + UUID.randomUUID() + ".m4v"));
+    assertTrue(output.isFile());
+    assertTrue(output.length() > 0);
+    for (File file : chunks) {
+      FileUtils.deleteQuietly(file);
+    }
+    for (File file : encodedChunks) {
+      FileUtils.deleteQuietly(file);
+    }
+    FileUtils.deleteQuietly(output);
+  }
+
   @Test
   public void testRawMultiEncodeNoAudio() throws EncoderException
   {
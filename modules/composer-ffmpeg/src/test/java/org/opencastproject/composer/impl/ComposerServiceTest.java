@@ -23,6 +23,7 @@ package org.opencastproject.composer.impl;
 
 import static org.easymock.EasyMock.capture;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -42,6 +43,8 @@ import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackageElementParser;
 import org.opencastproject.mediapackage.Track;
 import org.opencastproject.mediapackage.attachment.AttachmentImpl;
+import org.opencastproject.mediapackage.track.AudioStreamImpl;
+import org.opencastproject.mediapackage.track.TrackImpl;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -51,6 +54,7 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
 import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
+import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.JsonObj;
 import org.opencastproject.util.MimeType;
 import org.opencastproject.util.data.Option;
@@ -77,11 +81,18 @@ import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.imageio.ImageIO;
@@ -246,6 +257,9 @@ public class ComposerServiceTest {
     composerService.setProfileScanner(profileScanner);
     composerService.setWorkspace(workspace);
 
+    serviceRegistry.recordJobLoad(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyLong(),
+            EasyMock.anyLong(), EasyMock.anyLong());
+    EasyMock.expectLastCall().anyTimes();
     EasyMock.replay(serviceRegistry);
   }
 
@@ -301,6 +315,246 @@ public class ComposerServiceTest {
     assertEquals(3, MediaPackageElementParser.getArrayFromXml(job.getPayload()).size());
   }
 
+  /**
+   * Creates an audiovisual source with key frames at the given interval in seconds.
+   */
+  private static File createSource(int keyFrameInterval) throws Exception {
+    File source = new File(testDir, "segmented-" + UUID.randomUUID() + ".mp4");
+    Process p = new ProcessBuilder(FFMPEG_BINARY, "-nostats", "-hide_banner",
+            "-f", "lavfi", "-i", "testsrc=duration=4:size=320x240:rate=10",
+            "-f", "lavfi", "-i", "sine=duration=4",
+            "-c:v", "libx264", "-g", Integer.toString(10 * keyFrameInterval), "-sc_threshold", "0",
+            "-c:a", "aac", "-shortest", source.getAbsolutePath()).redirectErrorStream(true).start();
+    IOUtils.toString(p.getInputStream(), StandardCharsets.UTF_8);
+    assertEquals(0, p.waitFor());
+    return source;
+  }
+
+  private static boolean hasAudio(File file) throws Exception {
+    Process p = new ProcessBuilder(FFMPEG_BINARY, "-hide_banner", "-i", file.getAbsolutePath())
+            .redirectErrorStream(true).start();
+    String output = IOUtils.toString(p.getInputStream(), StandardCharsets.UTF_8);
+    p.waitFor();
+    return output.contains("Audio:");
+  }
+
+  /**
+   * Sets up the composer service to encode the given source in chunks of one second, processing the created jobs right
+   * away on a single node.
+   *
+   * @param source
+   *          the source file
+   * @param failChunks
+   *          whether the chunk encoding jobs fail
+   * @param maxLoad
+   *          the maximum load of the node, which fails the test if it is exceeded
+   * @param jobs
+   *          the created jobs
+   * @param put
+   *          the files put into the workspace
+   * @param deleted
+   *          the files deleted from the workspace
+   * @return the source track
+   */
+  @SuppressWarnings("unchecked")
+  private Track setUpSegmentedEncode(File source, boolean failChunks, float maxLoad, List<Job> jobs, List<URI> put,
+          List<URI> deleted) throws Exception {
+    Workspace workspace = EasyMock.createNiceMock(Workspace.class);
+    EasyMock.expect(workspace.get(EasyMock.anyObject(), EasyMock.anyBoolean())).andReturn(source).anyTimes();
+    EasyMock.expect(workspace.get(EasyMock.anyObject()))
+            .andAnswer(() -> new File((URI) EasyMock.getCurrentArguments()[0])).anyTimes();
+    EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andAnswer(() -> {
+              File file = new File(testDir, UUID.randomUUID() + "-" + EasyMock.getCurrentArguments()[1]);
+              FileUtils.copyInputStreamToFile((InputStream) EasyMock.getCurrentArguments()[2], file);
+              put.add(file.toURI());
+              return file.toURI();
+            }).anyTimes();
+    workspace.delete(EasyMock.anyObject(URI.class));
+    EasyMock.expectLastCall().andAnswer(() -> {
+      URI uri = (URI) EasyMock.getCurrentArguments()[0];
+      FileUtils.deleteQuietly(new File(uri));
+      deleted.add(uri);
+      return null;
+    }).anyTimes();
+    EasyMock.replay(workspace);
+    composerService.setWorkspace(workspace);
+
+    ServiceRegistry serviceRegistry = EasyMock.createNiceMock(ServiceRegistry.class);
+    // The load of the jobs running on the node, including the ones waiting for the jobs they created
+    float[] load = { 0f };
+    EasyMock.expect(serviceRegistry.createJob(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject(),
+            EasyMock.anyFloat())).andAnswer(() -> {
+              Object[] args = EasyMock.getCurrentArguments();
+              Job job = new JobImpl(jobs.size() + 1);
+              job.setJobType((String) args[0]);
+              job.setOperation((String) args[1]);
+              job.setArguments((List<String>) args[2]);
+              job.setJobLoad((Float) args[3]);
+              jobs.add(job);
+              if (failChunks && "EncodeChunk".equals(job.getOperation())) {
+                job.setStatus(Job.Status.FAILED);
+                return job;
+              }
+              if (load[0] + job.getJobLoad() > maxLoad) {
+                fail(String.format("Job %s with load %s would never be accepted by a node running jobs with load %s",
+                        job.getOperation(), job.getJobLoad(), load[0]));
+              }
+              load[0] += job.getJobLoad();
+              try {
+                job.setPayload(composerService.process(job));
+                job.setStatus(Job.Status.FINISHED);
+              } catch (ServiceRegistryException e) {
+                job.setStatus(Job.Status.FAILED);
+              } finally {
+                load[0] -= job.getJobLoad();
+              }
+              return job;
+            }).anyTimes();
+    EasyMock.expect(serviceRegistry.getJob(EasyMock.anyLong()))
+            .andAnswer(() -> jobs.get((int) (long) (Long) EasyMock.getCurrentArguments()[0] - 1)).anyTimes();
+    // The jobs are processed when they are created
+    EasyMock.expect(serviceRegistry.addJobTerminationListener(EasyMock.anyLong(), EasyMock.anyObject()))
+            .andAnswer(() -> {
+              Object[] args = EasyMock.getCurrentArguments();
+              ((Consumer<Job>) args[1]).accept(jobs.get((int) (long) (Long) args[0] - 1));
+              return true;
+            }).anyTimes();
+    EasyMock.expect(serviceRegistry.getHostRegistrations()).andReturn(new ArrayList<>()).anyTimes();
+    EasyMock.replay(serviceRegistry);
+    composerService.setServiceRegistry(serviceRegistry);
+
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put(ComposerServiceImpl.SEGMENTED_ENCODING_PROFILES, "h264-low.http");
+    properties.put(ComposerServiceImpl.SEGMENTED_ENCODING_MIN_DURATION, "1");
+    properties.put(ComposerServiceImpl.SEGMENTED_ENCODING_CHUNK_DURATION, "1");
+    composerService.updated(properties);
+
+    TrackImpl track = (TrackImpl) MediaPackageElementParser.getFromXml(IOUtils.toString(
+            ComposerServiceTest.class.getResourceAsStream("/composer_test_source_track_video.xml"),
+            StandardCharsets.UTF_8));
+    track.setURI(source.toURI());
+    track.setDuration(4000L);
+    track.addStream(new AudioStreamImpl("audio-1"));
+    return track;
+  }
+
+  private static List<Job> getJobs(List<Job> jobs, String operation) {
+    return jobs.stream().filter(job -> operation.equals(job.getOperation())).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testSegmentedEncode() throws Exception {
+    File source = createSource(1);
+    List<Job> jobs = new ArrayList<>();
+    List<URI> put = new ArrayList<>();
+    List<URI> deleted = new ArrayList<>();
+    Track track = setUpSegmentedEncode(source, false, Float.MAX_VALUE, jobs, put, deleted);
+    try {
+      Job job = composerService.encode(track, "h264-low.http");
+      assertEquals("SegmentedEncode", job.getOperation());
+      assertEquals(Job.Status.FINISHED, job.getStatus());
+      assertNotNull(MediaPackageElementParser.getFromXml(job.getPayload()));
+
+      // The chunks are dispatched with the load of the encoding profile
+      List<Job> chunkJobs = getJobs(jobs, "EncodeChunk");
+      assertTrue(chunkJobs.size() > 1);
+      for (Job chunkJob : chunkJobs) {
+        assertEquals(Job.Status.FINISHED, chunkJob.getStatus());
+        assertEquals(profileScanner.getProfile("h264-low.http").getJobLoad(), chunkJob.getJobLoad(), 0.001f);
+      }
+      assertTrue(getJobs(jobs, "Encode").isEmpty());
+
+      // The audio has been added to the joined video
+      URI encoded = put.get(put.size() - 1);
+      assertTrue(hasAudio(new File(encoded)));
+
+      // Only the encoded track is left in the workspace
+      assertEquals(new HashSet<>(put.subList(0, put.size() - 1)), new HashSet<>(deleted));
+      assertFalse(deleted.contains(encoded));
+    } finally {
+      put.forEach(uri -> FileUtils.deleteQuietly(new File(uri)));
+      FileUtils.deleteQuietly(source);
+    }
+  }
+
+  @Test
+  public void testSegmentedEncodeOnFullyLoadedNode() throws Exception {
+    File source = createSource(1);
+    List<Job> jobs = new ArrayList<>();
+    List<URI> put = new ArrayList<>();
+    List<URI> deleted = new ArrayList<>();
+    float profileLoad = profileScanner.getProfile("h264-low.http").getJobLoad();
+    Track track = setUpSegmentedEncode(source, false, profileLoad, jobs, put, deleted);
+    try {
+      // The segmented encoding job waits for its chunks without keeping the node from accepting them
+      Job job = composerService.encode(track, "h264-low.http");
+      assertEquals("SegmentedEncode", job.getOperation());
+      assertEquals(Job.Status.FINISHED, job.getStatus());
+      assertEquals(0f, job.getJobLoad(), 0.001f);
+
+      // The chunks and the audio are each encoded in a job with the load of the encoding profile
+      List<Job> chunkJobs = getJobs(jobs, "EncodeChunk");
+      assertTrue(chunkJobs.size() > 2);
+      assertEquals(1, chunkJobs.stream().filter(chunkJob -> chunkJob.getArguments().size() == 3).count());
+      assertTrue(hasAudio(new File(put.get(put.size() - 1))));
+    } finally {
+      put.forEach(uri -> FileUtils.deleteQuietly(new File(uri)));
+      FileUtils.deleteQuietly(source);
+    }
+  }
+
+  @Test
+  public void testSegmentedEncodeSingleChunk() throws Exception {
+    // A single key frame
+    File source = createSource(10);
+    List<Job> jobs = new ArrayList<>();
+    List<URI> put = new ArrayList<>();
+    List<URI> deleted = new ArrayList<>();
+    Track track = setUpSegmentedEncode(source, false, Float.MAX_VALUE, jobs, put, deleted);
+    try {
+      Job job = composerService.encode(track, "h264-low.http");
+      assertEquals(Job.Status.FINISHED, job.getStatus());
+      assertNotNull(MediaPackageElementParser.getFromXml(job.getPayload()));
+
+      // The track is encoded as a whole in a regular encoding job with the load of the encoding profile
+      assertTrue(getJobs(jobs, "EncodeChunk").isEmpty());
+      List<Job> encodeJobs = getJobs(jobs, "Encode");
+      assertEquals(1, encodeJobs.size());
+      assertEquals(profileScanner.getProfile("h264-low.http").getJobLoad(), encodeJobs.get(0).getJobLoad(), 0.001f);
+      assertEquals(MediaPackageElementParser.getFromXml(encodeJobs.get(0).getPayload()).getIdentifier(),
+              MediaPackageElementParser.getFromXml(job.getPayload()).getIdentifier());
+    } finally {
+      put.forEach(uri -> FileUtils.deleteQuietly(new File(uri)));
+      FileUtils.deleteQuietly(source);
+    }
+  }
+
+  @Test
+  public void testSegmentedEncodeFailedChunks() throws Exception {
+    File source = createSource(1);
+    List<Job> jobs = new ArrayList<>();
+    List<URI> put = new ArrayList<>();
+    List<URI> deleted = new ArrayList<>();
+    Track track = setUpSegmentedEncode(source, true, Float.MAX_VALUE, jobs, put, deleted);
+    try {
+      Job job = composerService.encode(track, "h264-low.http");
+      assertEquals("SegmentedEncode", job.getOperation());
+      assertEquals(Job.Status.FAILED, job.getStatus());
+      assertTrue(getJobs(jobs, "EncodeChunk").size() > 1);
+
+      // The chunks have been removed from the workspace again
+      assertFalse(put.isEmpty());
+      assertEquals(new HashSet<>(put), new HashSet<>(deleted));
+      assertEquals(Collections.emptyList(), Stream.of(testDir.listFiles())
+              .filter(file -> file.getName().startsWith(FilenameUtils.getBaseName(source.getName()) + "_"))
+              .collect(Collectors.toList()));
+    } finally {
+      put.forEach(uri -> FileUtils.deleteQuietly(new File(uri)));
+      FileUtils.deleteQuietly(source);
+    }
+  }
+
   @Test
   public void testTrim() throws Exception {
     assertTrue(sourceVideoOnly.isFile());
@@ -0,0 +1,96 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EncoderProgressTest {
+
+  @Test
+  public void testParse() {
+    final List<Float> reported = new ArrayList<>();
+    final List<Long> remaining = new ArrayList<>();
+    final EncoderProgress progress = new EncoderProgress((p, r) -> {
+      reported.add(p);
+      remaining.add(r);
+    });
+
+    assertFalse(progress.parse("Input #0, mov,mp4,m4a,3gp,3g2,mj2, from 'av.mov':"));
+    assertFalse(progress.parse("  Duration: 00:01:40.00, start: 0.000000, bitrate: 1000 kb/s"));
+    assertFalse(progress.parse("Output #0, mp4, to '/tmp/out.mp4':"));
+    assertEquals(-1, progress.getProgress(), 0);
+
+    assertTrue(progress.parse("frame=250"));
+    assertTrue(progress.parse("fps=50.00"));
+    assertTrue(progress.parse("stream_0_0_q=28.0"));
+    assertTrue(progress.parse("bitrate= 900.1kbits/s"));
+    assertTrue(progress.parse("total_size=1125000"));
+    assertTrue(progress.parse("out_time_us=25000000"));
+    assertTrue(progress.parse("out_time_ms=25000000"));
+    assertTrue(progress.parse("out_time=00:00:25.000000"));
+    assertTrue(progress.parse("dup_frames=0"));
+    assertTrue(progress.parse("drop_frames=0"));
+    assertTrue(progress.parse("speed=2.5x"));
+    assertTrue(reported.isEmpty());
+    assertTrue(progress.parse("progress=continue"));
+
+    assertEquals(250, progress.getFrames());
+    assertEquals(25000, progress.getOutTime());
+    assertEquals(2.5, progress.getSpeed(), 0);
+    assertEquals(0.25f, reported.get(0), 0);
+    assertEquals(30000L, (long) remaining.get(0));
+
+    assertTrue(progress.parse("speed=N/A"));
+    assertTrue(progress.parse("progress=end"));
+    assertEquals(1f, reported.get(1), 0);
+    assertEquals(0L, (long) remaining.get(1));
+  }
+
+  @Test
+  public void testUnknownDuration() {
+    final EncoderProgress progress = new EncoderProgress(null);
+    assertTrue(progress.parse("out_time_us=N/A"));
+    assertTrue(progress.parse("progress=continue"));
+    assertEquals(0, progress.getOutTime());
+    assertEquals(-1, progress.getProgress(), 0);
+    assertEquals(-1, progress.getRemainingTime());
+  }
+
+  @Test
+  public void testBenchmark() {
+    final EncoderProgress progress = new EncoderProgress(null);
+    assertFalse(progress.parse("[out#0/mp4 @ 0x55d0] video:1024kB audio:128kB"));
+    assertTrue(progress.parse("bench: utime=3.000s stime=1.000s rtime=2.000s"));
+    assertTrue(progress.parse("bench: maxrss=10240KiB"));
+    assertEquals(4000, progress.getCpuTime());
+    assertEquals(2000, progress.getWallTime());
+    assertEquals(10485760, progress.getPeakMemory());
+  }
+
+}
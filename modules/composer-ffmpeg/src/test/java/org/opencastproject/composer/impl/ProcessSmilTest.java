@@ -287,6 +287,9 @@ public class ProcessSmilTest {
         Incidents incidents = new Incidents(serviceRegistry, incidentService);
         return incidents;
     }).anyTimes();
+    serviceRegistry.recordJobLoad(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyLong(),
+            EasyMock.anyLong(), EasyMock.anyLong());
+    EasyMock.expectLastCall().anyTimes();
     // Finish setting up the mocks
     EasyMock.replay(bc, cc, orgDirectory, userDirectory, securityService, workspace, incidentService, serviceRegistry);
     composerService.setServiceRegistry(serviceRegistry);
@@ -0,0 +1,263 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.distribution.download;
+
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * A persistent index of the distributed files by their content checksum, used to hard link duplicates instead of
+ * searching the distribution directory for them.
+ * <p>
+ * The index is kept per organization and media package, since only files of the same media package are shared between
+ * publication channels. Each entry is a file named after the checksum which contains the path of a distributed file
+ * with that content. Entries whose file has been removed or replaced are discarded when looked up.
+ * <p>
+ * Files distributed before the index has been introduced are added when the index of their media package is seeded.
+ * A marker file records that a media package has been seeded.
+ */
+public class DistributionIndex {
+
+  /** Logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(DistributionIndex.class);
+
+  /** The name of the file marking that all distributed files of a media package are indexed */
+  private static final String COMPLETE_MARKER = ".complete";
+
+  /** The root directory of the index */
+  private final Path root;
+
+  /** The locks of the media package indexes being seeded, so that elements distributed at once seed them only once */
+  private final Map<Path, Object> seedLocks = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an index stored in the given directory.
+   *
+   * @param root
+   *          the root directory of the index, which must not be served to clients
+   */
+  public DistributionIndex(File root) {
+    this.root = root.toPath();
+  }
+
+  /**
+   * Returns whether all distributed files of the given media package are indexed, i.e. whether the index of the media
+   * package has been seeded.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @return whether the index of the media package is complete
+   */
+  public boolean isComplete(String orgId, String mpId) {
+    return Files.isRegularFile(root.resolve(orgId).resolve(mpId).resolve(COMPLETE_MARKER));
+  }
+
+  /**
+   * Adds the files of the given media package which are not indexed yet, e.g. since they have been distributed before
+   * the index has been introduced, and marks the index of the media package as complete. Concurrent calls for the same
+   * media package wait for the first one instead of seeding the index again.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @param type
+   *          the type of checksum to index the files by
+   * @param directories
+   *          the directories of the media package in all publication channels
+   * @throws IOException
+   *           if the files cannot be read or the index cannot be written
+   */
+  public void seed(String orgId, String mpId, ChecksumType type, List<Path> directories) throws IOException {
+    final Path index = root.resolve(orgId).resolve(mpId);
+    final Object lock = seedLocks.computeIfAbsent(index, i -> new Object());
+    try {
+      synchronized (lock) {
+        if (!isComplete(orgId, mpId)) {
+          seedUnlocked(orgId, mpId, type, directories);
+        }
+      }
+    } finally {
+      seedLocks.remove(index, lock);
+    }
+  }
+
+  private void seedUnlocked(String orgId, String mpId, ChecksumType type, List<Path> directories) throws IOException {
+    final List<Path> files = new ArrayList<>();
+    for (Path directory : directories) {
+      try (Stream<Path> walk = Files.walk(directory)) {
+        walk.filter(Files::isRegularFile).forEach(files::add);
+      }
+    }
+    logger.debug("Seeding the distribution index of media package {} with {} files", mpId, files.size());
+    for (Path file : files) {
+      final Checksum checksum;
+      try {
+        checksum = Checksum.create(type, file.toFile());
+      } catch (FileNotFoundException e) {
+        // retracted in the meantime
+        continue;
+      }
+      if (!Files.exists(getEntry(orgId, mpId, checksum))) {
+        add(orgId, mpId, checksum, file.toFile());
+      }
+    }
+    final Path marker = root.resolve(orgId).resolve(mpId).resolve(COMPLETE_MARKER);
+    Files.createDirectories(marker.getParent());
+    try {
+      Files.createFile(marker);
+    } catch (FileAlreadyExistsException e) {
+      // seeded concurrently by another node sharing the distribution directory
+    }
+  }
+
+  /**
+   * Looks up a distributed file of the given media package by its content. Since the checksums of elements are not
+   * necessarily up to date, the content of a file found is compared to the source.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @param checksum
+   *          the checksum of the content
+   * @param source
+   *          the file with the content
+   * @return the distributed file, if any
+   * @throws IOException
+   *           if the index cannot be read
+   */
+  public Optional<File> find(String orgId, String mpId, Checksum checksum, File source) throws IOException {
+    final Path entry = getEntry(orgId, mpId, checksum);
+    final File file;
+    try {
+      file = new File(new String(Files.readAllBytes(entry), StandardCharsets.UTF_8));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+    if (file.isFile() && file.length() == source.length() && FileUtils.contentEquals(source, file)) {
+      return Optional.of(file);
+    }
+    logger.debug("Removing stale index entry {} pointing to {}", entry, file);
+    Files.deleteIfExists(entry);
+    return Optional.empty();
+  }
+
+  /**
+   * Adds a distributed file of the given media package to the index.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @param checksum
+   *          the checksum of the file's content
+   * @param file
+   *          the distributed file
+   * @throws IOException
+   *           if the index cannot be written
+   */
+  public void add(String orgId, String mpId, Checksum checksum, File file) throws IOException {
+    final Path entry = getEntry(orgId, mpId, checksum);
+    Files.createDirectories(entry.getParent());
+    // Write the entry atomically so that concurrent lookups never read a partial path
+    final Path tmp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tmp, file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+      Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Removes all entries of the given media package pointing to files which no longer exist, e.g. after retracting
+   * them. The index of the media package is removed as well if no entries are left.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @throws IOException
+   *           if the index cannot be updated
+   */
+  public void prune(String orgId, String mpId) throws IOException {
+    final Path dir = root.resolve(orgId).resolve(mpId);
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    boolean empty = true;
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        if (entry.getFileName().toString().endsWith(".tmp")) {
+          // an entry being added
+          empty = false;
+          continue;
+        }
+        if (entry.getFileName().toString().equals(COMPLETE_MARKER)) {
+          continue;
+        }
+        final File file;
+        try {
+          file = new File(new String(Files.readAllBytes(entry), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+          continue;
+        }
+        if (file.isFile()) {
+          empty = false;
+        } else {
+          Files.deleteIfExists(entry);
+        }
+      }
+    }
+    if (empty) {
+      FileUtils.deleteQuietly(dir.toFile());
+    }
+  }
+
+  private Path getEntry(String orgId, String mpId, Checksum checksum) {
+    return root.resolve(orgId).resolve(mpId).resolve(checksum.getType().getName() + "-" + checksum.getValue());
+  }
+
+}
@@ -49,6 +49,8 @@ import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.security.util.SecurityUtil;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.FileSupport;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
@@ -70,6 +72,7 @@ import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,7 +96,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
@@ -139,6 +148,12 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
   /** The key to look for in the service configuration file to override the {@link #DEFAULT_RETRACT_JOB_LOAD} */
   public static final String RETRACT_JOB_LOAD_KEY = "job.load.download.retract";
 
+  /** The default number of elements of a media package distributed in parallel */
+  public static final int DEFAULT_DISTRIBUTE_THREADS = 4;
+
+  /** The key to look for in the service configuration file to override the {@link #DEFAULT_DISTRIBUTE_THREADS} */
+  public static final String DISTRIBUTE_THREADS_KEY = "distribute.threads";
+
   /** The load on the system introduced by creating a distribute job */
   private float distributeJobLoad = DEFAULT_DISTRIBUTE_JOB_LOAD;
 
@@ -152,6 +167,15 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
 
   private String systemUserName = null;
 
+  /** The index of the distributed files by their content */
+  private DistributionIndex index = null;
+
+  /** The number of elements of a media package distributed in parallel */
+  private int distributeThreads = DEFAULT_DISTRIBUTE_THREADS;
+
+  /** Distributes the elements of a media package in parallel */
+  private ExecutorService executor = null;
+
   /**
    * Creates a new instance of the download distribution service.
    */
@@ -181,8 +205,40 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
     }
     this.distributionDirectory = new File(ccDistributionDirectory);
     logger.info("Download distribution directory is {}", distributionDirectory);
+
+    // The index must not be part of the distribution directory which is served to clients
+    String ccIndexDirectory = cc.getBundleContext().getProperty("org.opencastproject.download.index.directory");
+    File indexDirectory = ccIndexDirectory != null
+        ? new File(ccIndexDirectory)
+        : new File(distributionDirectory.getAbsolutePath() + "-index");
+    this.index = new DistributionIndex(indexDirectory);
+    logger.info("Download distribution index directory is {}", indexDirectory);
+
     this.distributionChannel = OsgiUtil.getComponentContextProperty(cc, CONFIG_KEY_STORE_TYPE);
     systemUserName = cc.getBundleContext().getProperty(DIGEST_USER_PROPERTY);
+    startExecutor();
+  }
+
+  /**
+   * Deactivate method for this OSGi service implementation.
+   */
+  @Deactivate
+  public void deactivate() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  private synchronized void startExecutor() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+    final AtomicInteger threadCount = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(distributeThreads, r -> {
+      Thread thread = new Thread(r, "download-distribution-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 
   @Override
@@ -282,16 +338,62 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
 
     if (AdaptivePlaylist.hasHLSPlaylist(elements)) {
       return distributeHLSElements(channelId, mediapackage, elements, checkAvailability, preserveReference);
-    } else {
+    } else if (elements.size() == 1) {
       for (MediaPackageElement element : elements) {
         MediaPackageElement distributedElement = distributeElement(channelId, mediapackage, element, checkAvailability,
                 preserveReference);
         distributedElements.add(distributedElement);
       }
+    } else {
+      // Run the distribution of the elements in parallel in the context of the current user
+      final Organization organization = securityService.getOrganization();
+      final User user = securityService.getUser();
+      List<Future<MediaPackageElement>> futures = new ArrayList<>();
+      for (MediaPackageElement element : elements) {
+        futures.add(executor.submit(() -> {
+          final MediaPackageElement[] distributedElement = new MediaPackageElement[1];
+          final DistributionException[] error = new DistributionException[1];
+          SecurityUtil.runAs(securityService, organization, user, () -> {
+            try {
+              distributedElement[0] = distributeElement(channelId, mediapackage, element, checkAvailability,
+                      preserveReference);
+            } catch (DistributionException e) {
+              error[0] = e;
+            }
+          });
+          if (error[0] != null) {
+            throw error[0];
+          }
+          return distributedElement[0];
+        }));
+      }
+      for (Future<MediaPackageElement> future : futures) {
+        distributedElements.add(getDistributedElement(future, futures));
+      }
     }
     return distributedElements.toArray(new MediaPackageElement[distributedElements.size()]);
   }
 
+  /**
+   * Waits for the distribution of an element. If it failed, the distribution of the other elements is cancelled.
+   */
+  private MediaPackageElement getDistributedElement(Future<MediaPackageElement> future,
+          List<Future<MediaPackageElement>> futures) throws DistributionException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new DistributionException(e);
+    } catch (ExecutionException e) {
+      futures.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof DistributionException) {
+        throw (DistributionException) e.getCause();
+      }
+      throw new DistributionException(e.getCause());
+    }
+  }
+
   /**
    * Distribute a Mediapackage element to the download distribution service.
    *
@@ -328,8 +430,9 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
       }
 
       // Try to find a duplicated element source
+      final Checksum checksum = getChecksum(element, source);
       try {
-        source = findDuplicatedElementSource(source, mediapackageId);
+        source = findDuplicatedElementSource(source, checksum, mediapackageId);
       } catch (IOException e) {
         logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
       }
@@ -351,6 +454,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
           throw new DistributionException(format("Unable to copy %s to %s", source, destination), e);
         }
       }
+      addToIndex(checksum, mediapackageId, destination);
       // Create a media package element representation of the distributed file
       MediaPackageElement distributedElement = (MediaPackageElement) element.clone();
       try {
@@ -451,9 +555,11 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
       throw new DistributionException("Error loading " + element.getURI() + " from the workspace", e);
     }
 
-    // Try to find a duplicated element source
+    // Try to find a duplicated element source. Playlists are not indexed since their references are rewritten.
+    final boolean playlist = AdaptivePlaylist.isPlaylist(source);
+    final Checksum checksum = playlist ? null : getChecksum(element, source);
     try {
-      source = findDuplicatedElementSource(source, mediapackageId);
+      source = findDuplicatedElementSource(source, checksum, mediapackageId);
     } catch (IOException e) {
       logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
     }
@@ -470,7 +576,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
               mediapackageId, channelId, destination);
 
       try {
-        if (AdaptivePlaylist.isPlaylist(source)) { // do not link text files
+        if (playlist) { // do not link text files
           FileSupport.copy(source, destination, true);
         } else {
           FileSupport.link(source, destination, true);
@@ -479,6 +585,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
         throw new DistributionException(format("Unable to copy %s to %s", source, destination), e);
       }
     }
+    addToIndex(checksum, mediapackageId, destination);
 
     MediaPackageElement distributeElement = (MediaPackageElement) element.clone();
     // Create a media package element representation of the distributed file
@@ -680,6 +787,13 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
         FileSupport.delete(mediapackageDir);
       }
 
+      try {
+        index.prune(securityService.getOrganization().getId(), mediapackageId);
+      } catch (IOException e) {
+        logger.warn("Unable to update the distribution index of media package {}: {}", mediapackageId,
+            ExceptionUtils.getMessage(e));
+      }
+
       logger.debug("Finished retracting element {} of media package {} from publication channel {}", elementId,
           mediapackageId, channelId);
       return element;
@@ -757,34 +871,78 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
   }
 
   /**
-   * Try to find the same file being already distributed in one of the other channels
+   * Gets the checksum of an element's content, computing it if the element does not carry one.
+   *
+   * @param element
+   *          the element
+   * @param source
+   *          the element's file
+   * @return the checksum or <code>null</code> if it cannot be computed
+   */
+  private Checksum getChecksum(MediaPackageElement element, File source) {
+    if (element.getChecksum() != null) {
+      return element.getChecksum();
+    }
+    Optional<Checksum> checksum = workspace.getChecksum(element.getURI());
+    if (checksum.isPresent()) {
+      return checksum.get();
+    }
+    try {
+      return Checksum.create(ChecksumType.DEFAULT_TYPE, source);
+    } catch (IOException e) {
+      logger.warn("Unable to compute checksum of {}: {}", source, ExceptionUtils.getMessage(e));
+      return null;
+    }
+  }
+
+  /**
+   * Adds a distributed file to the index of distributed files.
+   *
+   * @param checksum
+   *          the checksum of the file's content or <code>null</code> if the file should not be indexed
+   * @param mpId
+   *          the element's mediapackage id
+   * @param file
+   *          the distributed file
+   */
+  private void addToIndex(Checksum checksum, String mpId, File file) {
+    if (checksum == null) {
+      return;
+    }
+    try {
+      index.add(securityService.getOrganization().getId(), mpId, checksum, file);
+    } catch (IOException e) {
+      logger.warn("Unable to add {} to the distribution index: {}", file, ExceptionUtils.getMessage(e));
+    }
+  }
+
+  /**
+   * Try to find the same file being already distributed in one of the other channels. The file is looked up in the
+   * index of distributed files. The index of a media package is seeded from its distributed files on first use, since
+   * they may have been distributed before the index has been introduced. Without a checksum, the distributed files of
+   * the media package are searched for.
    *
    * @param source
    *          the source file
+   * @param checksum
+   *          the checksum of the source file or <code>null</code> if unknown
    * @param mpId
    *          the element's mediapackage id
    * @return the found duplicated file or the given source if nothing has been found
    * @throws IOException
    *           if an I/O error occurs
    */
-  private File findDuplicatedElementSource(final File source, final String mpId) throws IOException {
+  private File findDuplicatedElementSource(final File source, final Checksum checksum, final String mpId)
+          throws IOException {
     String orgId = securityService.getOrganization().getId();
-    final Path rootPath = Paths.get(distributionDirectory.getAbsolutePath(), orgId);
-
-    if (!Files.exists(rootPath)) {
-      return source;
-    }
-
-    List<Path> mediaPackageDirectories = new ArrayList<>();
-    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(rootPath)) {
-      for (Path path : directoryStream) {
-        Path mpDir = path.resolve(mpId);
-        if (Files.exists(mpDir)) {
-          mediaPackageDirectories.add(mpDir);
-        }
+    if (checksum != null) {
+      if (!index.isComplete(orgId, mpId)) {
+        index.seed(orgId, mpId, checksum.getType(), getMediaPackageDirectories(orgId, mpId));
       }
+      return index.find(orgId, mpId, checksum, source).orElse(source);
     }
 
+    List<Path> mediaPackageDirectories = getMediaPackageDirectories(orgId, mpId);
     if (mediaPackageDirectories.isEmpty()) {
       return source;
     }
@@ -824,6 +982,34 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
     return source;
   }
 
+  /**
+   * Returns the directories of a media package in all publication channels.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @return the existing directories
+   * @throws IOException
+   *           if the distribution directory cannot be read
+   */
+  private List<Path> getMediaPackageDirectories(String orgId, String mpId) throws IOException {
+    final Path rootPath = Paths.get(distributionDirectory.getAbsolutePath(), orgId);
+    List<Path> mediaPackageDirectories = new ArrayList<>();
+    if (!Files.exists(rootPath)) {
+      return mediaPackageDirectories;
+    }
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(rootPath)) {
+      for (Path path : directoryStream) {
+        Path mpDir = path.resolve(mpId);
+        if (Files.exists(mpDir)) {
+          mediaPackageDirectories.add(mpDir);
+        }
+      }
+    }
+    return mediaPackageDirectories;
+  }
+
   /**
    * Gets the destination file to copy the contents of a mediapackage element.
    *
@@ -883,6 +1069,24 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
             DEFAULT_DISTRIBUTE_JOB_LOAD, serviceRegistry);
     retractJobLoad = LoadUtil.getConfiguredLoadValue(properties, RETRACT_JOB_LOAD_KEY, DEFAULT_RETRACT_JOB_LOAD,
             serviceRegistry);
+
+    int threads = DEFAULT_DISTRIBUTE_THREADS;
+    Object value = properties != null ? properties.get(DISTRIBUTE_THREADS_KEY) : null;
+    if (value != null) {
+      try {
+        threads = Integer.parseInt(value.toString().trim());
+      } catch (NumberFormatException e) {
+        throw new ConfigurationException(DISTRIBUTE_THREADS_KEY, "Expected a positive number but got " + value);
+      }
+      if (threads < 1) {
+        throw new ConfigurationException(DISTRIBUTE_THREADS_KEY, "Expected a positive number but got " + value);
+      }
+    }
+    if (threads != distributeThreads) {
+      distributeThreads = threads;
+      logger.info("Distributing up to {} elements of a media package in parallel", distributeThreads);
+      startExecutor();
+    }
   }
 
   /**
@@ -69,6 +69,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Dictionary;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -157,6 +158,8 @@ public class DownloadDistributionServiceImplTest {
               }
             }).anyTimes();
 
+    EasyMock.expect(workspace.getChecksum(EasyMock.anyObject(URI.class))).andReturn(Optional.empty()).anyTimes();
+
     EasyMock.replay(workspace);
 
     BundleContext bc = EasyMock.createNiceMock(BundleContext.class);
@@ -178,6 +181,7 @@ public class DownloadDistributionServiceImplTest {
   @After
   public void tearDown() throws Exception {
     FileUtils.deleteDirectory(distributionRoot);
+    FileUtils.deleteDirectory(new File(distributionRoot.getAbsolutePath() + "-index"));
     ((ServiceRegistryInMemoryImpl) serviceRegistry).dispose();
   }
 
@@ -205,6 +209,59 @@ public class DownloadDistributionServiceImplTest {
     Assert.assertFalse(new File(attachmentsDir, "attachment.txt").exists());
   }
 
+  @Test
+  public void testDistributionIndex() throws Exception {
+    // Distribute multiple elements within a single job
+    Job job1 = service.distribute("engage-player", mp, new HashSet<>(Arrays.asList("track-1", "catalog-1", "notes")),
+            false);
+    JobBarrier jobBarrier = new JobBarrier(null, serviceRegistry, 500, job1);
+    jobBarrier.waitForJobs();
+    Assert.assertEquals(3, MediaPackageElementParser.getArrayFromXml(job1.getPayload()).size());
+
+    File mpDir = new File(distributionRoot,
+            PathSupport.path(defaultOrganization.getId(), "engage-player", mp.getIdentifier().toString()));
+    File media = new File(mpDir, PathSupport.path("track-1", "media.mov"));
+    Assert.assertTrue(media.exists());
+    Assert.assertTrue(new File(mpDir, PathSupport.path("catalog-1", "dublincore.xml")).exists());
+    Assert.assertTrue(new File(mpDir, PathSupport.path("notes", "attachment.txt")).exists());
+
+    // The distributed files are indexed by their checksum
+    File indexDir = new File(distributionRoot.getAbsolutePath() + "-index",
+            PathSupport.path(defaultOrganization.getId(), mp.getIdentifier().toString()));
+    File entry = new File(indexDir, "md5-43b7d843b02c4a429b2f547a4f230d31");
+    Assert.assertTrue(entry.isFile());
+    Assert.assertEquals(media.getAbsolutePath(), FileUtils.readFileToString(entry, "UTF-8"));
+
+    // Retracting all files removes the index of the media package
+    Job job2 = service.retract("engage-player", mp, new HashSet<>(Arrays.asList("track-1", "catalog-1", "notes")));
+    jobBarrier = new JobBarrier(null, serviceRegistry, 500, job2);
+    jobBarrier.waitForJobs();
+    Assert.assertFalse(media.exists());
+    Assert.assertFalse(indexDir.exists());
+  }
+
+  @Test
+  public void testDistributionIndexSeededFromLegacyFiles() throws Exception {
+    // A file distributed before the index has been introduced
+    final File mediaPackageRoot = new File(getClass().getResource("/mediapackage.xml").toURI()).getParentFile();
+    File legacy = new File(distributionRoot, PathSupport.path(defaultOrganization.getId(), "oai-pmh",
+            mp.getIdentifier().toString(), "track-1", "media.mov"));
+    FileUtils.copyFile(new File(mediaPackageRoot, "media.mov"), legacy);
+
+    // Distributing another element first creates the index of the media package
+    Job job1 = service.distribute("engage-player", mp, "catalog-1");
+    JobBarrier jobBarrier = new JobBarrier(null, serviceRegistry, 500, job1);
+    jobBarrier.waitForJobs();
+
+    // The legacy file is still found as duplicate
+    Job job2 = service.distribute("engage-player", mp, "track-1");
+    jobBarrier = new JobBarrier(null, serviceRegistry, 500, job2);
+    jobBarrier.waitForJobs();
+    File media = new File(distributionRoot, PathSupport.path(defaultOrganization.getId(), "engage-player",
+            mp.getIdentifier().toString(), "track-1", "media.mov"));
+    Assert.assertTrue(Files.isSameFile(legacy.toPath(), media.toPath()));
+  }
+
   @Test
   public void testRetractByOriginal() throws Exception {
     // Distribute the mediapackage and all of its elements
@@ -33,7 +33,9 @@ import org.opencastproject.elasticsearch.api.SearchResultItem;
 import org.opencastproject.util.requests.SortCriterion;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
@@ -42,6 +44,10 @@ import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -62,6 +68,9 @@ import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.CreateIndexResponse;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.rest.RestStatus;
@@ -89,6 +98,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 /**
@@ -166,6 +179,48 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** Password of an external Elasticsearch server to connect to. */
   private String password;
 
+  /** The refresh policy of write requests */
+  private WriteRequest.RefreshPolicy refreshPolicy = DEFAULT_REFRESH_POLICY;
+  private static final String REFRESH_POLICY_PROPERTY = "index.refresh.policy";
+  private static final WriteRequest.RefreshPolicy DEFAULT_REFRESH_POLICY = WriteRequest.RefreshPolicy.IMMEDIATE;
+
+  /** Whether to queue bulk updates and write them asynchronously */
+  private boolean bulkAsync = DEFAULT_BULK_ASYNC;
+  private static final String BULK_ASYNC_PROPERTY = "index.bulk.async";
+  private static final boolean DEFAULT_BULK_ASYNC = false;
+
+  /** The number of queued documents to write at once */
+  private int bulkActions = DEFAULT_BULK_ACTIONS;
+  private static final String BULK_ACTIONS_PROPERTY = "index.bulk.actions";
+  private static final int DEFAULT_BULK_ACTIONS = 1000;
+
+  /** The size of queued documents to write at once, in megabytes */
+  private int bulkSize = DEFAULT_BULK_SIZE;
+  private static final String BULK_SIZE_PROPERTY = "index.bulk.size";
+  private static final int DEFAULT_BULK_SIZE = 5;
+
+  /** The time after which queued documents are written in any case, in milliseconds */
+  private long bulkFlushInterval = DEFAULT_BULK_FLUSH_INTERVAL;
+  private static final String BULK_FLUSH_INTERVAL_PROPERTY = "index.bulk.flush.interval";
+  private static final long DEFAULT_BULK_FLUSH_INTERVAL = 1000L;
+
+  /** The number of bulk requests which may be written at the same time before queuing blocks */
+  private int bulkConcurrentRequests = DEFAULT_BULK_CONCURRENT_REQUESTS;
+  private static final String BULK_CONCURRENT_REQUESTS_PROPERTY = "index.bulk.concurrent.requests";
+  private static final int DEFAULT_BULK_CONCURRENT_REQUESTS = 1;
+
+  /** Writes queued bulk updates in the background, if enabled */
+  private BulkProcessor bulkProcessor = null;
+
+  /** The number of bulk requests of the bulk processor which are being written */
+  private final AtomicInteger pendingBulkRequests = new AtomicInteger();
+
+  /** The number of documents the bulk processor could not write since the last flush */
+  private final AtomicLong failedBulkDocuments = new AtomicLong();
+
+  /** The reason of the last failed bulk request of the bulk processor since the last flush */
+  private final AtomicReference<String> bulkFailure = new AtomicReference<>();
+
   /**
    * Returns an array of document types for the index. For every one of these, the corresponding document type
    * definition will be loaded.
@@ -216,6 +271,35 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     indexName = StringUtils.defaultIfBlank((String) properties.get(INDEX_NAME_PROPERTY),
             DEFAULT_INDEX_NAME);
     logger.info("Index name set to {}.", indexName);
+
+    String policy = StringUtils.trimToNull((String) properties.get(REFRESH_POLICY_PROPERTY));
+    try {
+      refreshPolicy = policy == null
+          ? DEFAULT_REFRESH_POLICY
+          : WriteRequest.RefreshPolicy.valueOf(policy.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      logger.warn("Invalid refresh policy '{}', using {}", policy, DEFAULT_REFRESH_POLICY);
+      refreshPolicy = DEFAULT_REFRESH_POLICY;
+    }
+    logger.info("Refresh policy of index {} set to {}.", indexName, refreshPolicy);
+
+    bulkAsync = BooleanUtils.toBoolean((String) properties.get(BULK_ASYNC_PROPERTY));
+    bulkActions = NumberUtils.toInt((String) properties.get(BULK_ACTIONS_PROPERTY), DEFAULT_BULK_ACTIONS);
+    bulkSize = NumberUtils.toInt((String) properties.get(BULK_SIZE_PROPERTY), DEFAULT_BULK_SIZE);
+    bulkFlushInterval = NumberUtils.toLong((String) properties.get(BULK_FLUSH_INTERVAL_PROPERTY),
+            DEFAULT_BULK_FLUSH_INTERVAL);
+    bulkConcurrentRequests = NumberUtils.toInt((String) properties.get(BULK_CONCURRENT_REQUESTS_PROPERTY),
+            DEFAULT_BULK_CONCURRENT_REQUESTS);
+
+    // Pick up changes of the bulk writer configuration if the client is already running
+    if (client != null) {
+      try {
+        closeBulkProcessor();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      createBulkProcessor();
+    }
   }
 
   @Override
@@ -260,9 +344,32 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    */
   protected IndexResponse update(int maxRetryAttempts, int retryWaitingPeriod, ElasticsearchDocument document)
           throws IOException, InterruptedException {
+    return update(maxRetryAttempts, retryWaitingPeriod, document, false);
+  }
+
+  /**
+   * Posts the input document to the search index.
+   *
+   * @param maxRetryAttempts
+   *          How often to retry update in case of ElasticsearchStatusException
+   * @param retryWaitingPeriod
+   *          How long to wait (in ms) between retries
+   * @param document
+   *          The Elasticsearch document
+   * @param waitForVisibility
+   *          Whether the document needs to be visible to searches once this method returns
+   * @return the query response
+   *
+   * @throws IOException
+   *         If updating the index fails
+   * @throws InterruptedException
+   *         If waiting during retry is interrupted
+   */
+  protected IndexResponse update(int maxRetryAttempts, int retryWaitingPeriod, ElasticsearchDocument document,
+          boolean waitForVisibility) throws IOException, InterruptedException {
 
     final IndexRequest indexRequest = new IndexRequest(getSubIndexIdentifier(document.getType())).id(document.getUID())
-            .source(document).setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+            .source(document).setRefreshPolicy(getRefreshPolicy(waitForVisibility));
 
     IndexResponse indexResponse = null;
     int retryAttempts = 0;
@@ -308,7 +415,41 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   protected BulkResponse bulkUpdate(int maxRetryAttempts, int retryWaitingPeriod,
       List<ElasticsearchDocument> documents)
           throws IOException, InterruptedException {
-    BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+    return bulkUpdate(maxRetryAttempts, retryWaitingPeriod, documents, false);
+  }
+
+  /**
+   * Posts the input documents to the search index. If the asynchronous bulk writer is enabled and the documents do not
+   * need to be visible right away, the documents are only queued. Queuing blocks while the bulk writer is busy.
+   *
+   * @param maxRetryAttempts
+   *          How often to retry update in case of ElasticsearchStatusException
+   * @param retryWaitingPeriod
+   *          How long to wait (in ms) between retries
+   * @param documents
+   *          The Elasticsearch documents
+   * @param waitForVisibility
+   *          Whether the documents need to be visible to searches once this method returns
+   * @return the query response or <code>null</code> if the documents have been queued
+   *
+   * @throws IOException
+   *         If updating the index fails
+   * @throws InterruptedException
+   *         If waiting during retry is interrupted
+   */
+  protected BulkResponse bulkUpdate(int maxRetryAttempts, int retryWaitingPeriod,
+      List<ElasticsearchDocument> documents, boolean waitForVisibility)
+          throws IOException, InterruptedException {
+    final BulkProcessor processor = bulkProcessor;
+    if (processor != null && !waitForVisibility) {
+      for (ElasticsearchDocument document: documents) {
+        processor.add(new IndexRequest(getSubIndexIdentifier(document.getType())).id(document.getUID())
+            .source(document));
+      }
+      return null;
+    }
+
+    BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(getRefreshPolicy(waitForVisibility));
 
     for (ElasticsearchDocument document: documents) {
       bulkRequest.add(new IndexRequest(getSubIndexIdentifier(document.getType())).id(document.getUID())
@@ -358,7 +499,7 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   protected DeleteResponse delete(String type, String id, int maxRetryAttempts, int retryWaitingPeriod)
           throws IOException, InterruptedException {
     final DeleteRequest deleteRequest = new DeleteRequest(getSubIndexIdentifier(type), id).setRefreshPolicy(
-            WriteRequest.RefreshPolicy.IMMEDIATE);
+            getRefreshPolicy(true));
     DeleteResponse deleteResponse = null;
     int retryAttempts = 0;
     do {
@@ -412,6 +553,7 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       }
 
       client = new RestHighLevelClient(builder);
+      createBulkProcessor();
     }
 
     // Create the index
@@ -425,11 +567,144 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    *           if stopping the Elasticsearch node fails
    */
   protected void close() throws IOException {
+    try {
+      closeBulkProcessor();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
     if (client != null) {
       client.close();
     }
   }
 
+  /**
+   * Writes all documents queued by the asynchronous bulk writer and waits until they have been written.
+   *
+   * @throws InterruptedException
+   *           if interrupted while waiting for queued documents to be written
+   * @throws IOException
+   *           if any document queued since the last flush could not be written
+   */
+  public void flush() throws InterruptedException, IOException {
+    final BulkProcessor processor = bulkProcessor;
+    if (processor != null) {
+      processor.flush();
+      synchronized (pendingBulkRequests) {
+        while (pendingBulkRequests.get() > 0) {
+          pendingBulkRequests.wait();
+        }
+      }
+    }
+    final long failed = failedBulkDocuments.getAndSet(0);
+    final String failure = bulkFailure.getAndSet(null);
+    if (failed > 0) {
+      throw new IOException(String.format("Could not write %d documents to index %s: %s", failed, indexName,
+              failure));
+    }
+  }
+
+  /**
+   * Makes all changes to the index visible to searches. Call this after {@link #flush()} before reading documents
+   * written by bulk updates.
+   *
+   * @throws IOException
+   *           if refreshing the index fails
+   */
+  public void refresh() throws IOException {
+    client.indices().refresh(new RefreshRequest(
+            Arrays.stream(getDocumentTypes()).map(this::getSubIndexIdentifier).toArray(String[]::new)),
+            RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Returns the refresh policy for a write request.
+   *
+   * @param waitForVisibility
+   *          Whether the written documents need to be visible to searches once the request returns
+   * @return the configured refresh policy, or {@link WriteRequest.RefreshPolicy#WAIT_UNTIL} if the documents need to
+   *         be visible but the configured policy does not refresh the index at all
+   */
+  private WriteRequest.RefreshPolicy getRefreshPolicy(boolean waitForVisibility) {
+    if (waitForVisibility && refreshPolicy == WriteRequest.RefreshPolicy.NONE) {
+      return WriteRequest.RefreshPolicy.WAIT_UNTIL;
+    }
+    return refreshPolicy;
+  }
+
+  /**
+   * Creates the asynchronous bulk writer if it is enabled.
+   */
+  private void createBulkProcessor() {
+    if (!bulkAsync) {
+      return;
+    }
+    bulkProcessor = BulkProcessor.builder(
+        (request, listener) -> client.bulkAsync(request, RequestOptions.DEFAULT, listener),
+        new BulkWriterListener())
+        .setBulkActions(bulkActions)
+        .setBulkSize(new ByteSizeValue(bulkSize, ByteSizeUnit.MB))
+        .setFlushInterval(TimeValue.timeValueMillis(bulkFlushInterval))
+        .setConcurrentRequests(bulkConcurrentRequests)
+        .setBackoffPolicy(BackoffPolicy.exponentialBackoff())
+        .build();
+    logger.info("Asynchronous bulk writer of index {} writes {} documents or {} MB at once, at least every {} ms.",
+            indexName, bulkActions, bulkSize, bulkFlushInterval);
+  }
+
+  /**
+   * Writes the documents queued by the asynchronous bulk writer and shuts it down.
+   *
+   * @throws InterruptedException
+   *           if interrupted while waiting for queued documents to be written
+   */
+  private void closeBulkProcessor() throws InterruptedException {
+    final BulkProcessor processor = bulkProcessor;
+    bulkProcessor = null;
+    if (processor != null && !processor.awaitClose(30, TimeUnit.SECONDS)) {
+      logger.warn("Timeout writing documents queued for index {}", indexName);
+    }
+  }
+
+  /**
+   * Keeps track of the bulk requests written by the asynchronous bulk writer.
+   */
+  final class BulkWriterListener implements BulkProcessor.Listener {
+
+    @Override
+    public void beforeBulk(long executionId, BulkRequest request) {
+      pendingBulkRequests.incrementAndGet();
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+      if (response.hasFailures()) {
+        final String message = response.buildFailureMessage();
+        logger.error("Could not write documents to index {}: {}", indexName, message);
+        failed(Arrays.stream(response.getItems()).filter(BulkItemResponse::isFailed).count(), message);
+      }
+      done();
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+      logger.error("Could not write {} documents to index {}", request.numberOfActions(), indexName, failure);
+      failed(request.numberOfActions(), failure.getMessage());
+      done();
+    }
+
+    private void failed(long documents, String message) {
+      failedBulkDocuments.addAndGet(documents);
+      bulkFailure.set(message);
+    }
+
+    private void done() {
+      synchronized (pendingBulkRequests) {
+        pendingBulkRequests.decrementAndGet();
+        pendingBulkRequests.notifyAll();
+      }
+    }
+  }
+
   /**
    * Prepares index to store data for the types (or mappings) as returned by {@link #getDocumentTypes()}.
    *
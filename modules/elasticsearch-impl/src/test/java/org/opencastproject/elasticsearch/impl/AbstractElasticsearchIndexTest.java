@@ -0,0 +1,99 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.elasticsearch.impl;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Tests reporting documents the asynchronous bulk writer could not write.
+ */
+public class AbstractElasticsearchIndexTest {
+
+  private AbstractElasticsearchIndex index;
+
+  @Before
+  public void setUp() {
+    index = new AbstractElasticsearchIndex() {
+      @Override
+      public String[] getDocumentTypes() {
+        return new String[] { "event" };
+      }
+    };
+  }
+
+  private static BulkRequest request(int documents) {
+    BulkRequest request = new BulkRequest();
+    for (int i = 0; i < documents; i++) {
+      request.add(new IndexRequest("event").id(Integer.toString(i)).source(Map.of("title", "test")));
+    }
+    return request;
+  }
+
+  @Test
+  public void testFailedBulkResponse() throws Exception {
+    AbstractElasticsearchIndex.BulkWriterListener listener = index.new BulkWriterListener();
+    BulkRequest request = request(1);
+    listener.beforeBulk(1, request);
+    listener.afterBulk(1, request, new BulkResponse(new BulkItemResponse[] {
+        BulkItemResponse.failure(0, OpType.INDEX,
+                new BulkItemResponse.Failure("event", "_doc", "0", new IllegalArgumentException("mapping")))
+    }, 10));
+
+    try {
+      index.flush();
+      fail("Flushing must fail if documents could not be written");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Could not write 1 documents"));
+    }
+
+    // The failure is only reported once
+    index.flush();
+  }
+
+  @Test
+  public void testFailedBulkRequest() throws Exception {
+    AbstractElasticsearchIndex.BulkWriterListener listener = index.new BulkWriterListener();
+    BulkRequest request = request(3);
+    listener.beforeBulk(1, request);
+    listener.afterBulk(1, request, new IOException("Connection refused"));
+
+    try {
+      index.flush();
+      fail("Flushing must fail if documents could not be written");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Could not write 3 documents"));
+    }
+  }
+
+}
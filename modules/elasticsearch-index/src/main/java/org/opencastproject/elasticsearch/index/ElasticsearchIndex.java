@@ -26,6 +26,7 @@ import static org.opencastproject.util.data.functions.Misc.chuck;
 import org.opencastproject.elasticsearch.api.SearchIndexException;
 import org.opencastproject.elasticsearch.api.SearchMetadata;
 import org.opencastproject.elasticsearch.api.SearchResult;
+import org.opencastproject.elasticsearch.api.SearchResultItem;
 import org.opencastproject.elasticsearch.impl.AbstractElasticsearchIndex;
 import org.opencastproject.elasticsearch.impl.ElasticsearchDocument;
 import org.opencastproject.elasticsearch.impl.SearchMetadataCollection;
@@ -59,6 +60,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -245,6 +248,39 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
     }
   }
 
+  /**
+   * Loads the events with the given media package identifiers from the search index in a single query. Media packages
+   * without an event in the search index are missing from the result.
+   *
+   * @param mediaPackageIds
+   *          The media package identifiers
+   * @param organization
+   *          The organization
+   * @param user
+   *          The user
+   * @return the events by media package identifier
+   *
+   * @throws SearchIndexException
+   *          If querying the search index fails
+   */
+  public Map<String, Event> getEvents(Collection<String> mediaPackageIds, String organization, User user)
+          throws SearchIndexException {
+    Map<String, Event> events = new HashMap<>();
+    if (mediaPackageIds.isEmpty()) {
+      return events;
+    }
+    EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions();
+    query.withLimit(mediaPackageIds.size());
+    for (String mediaPackageId : mediaPackageIds) {
+      query.withIdentifier(mediaPackageId);
+    }
+    SearchResult<Event> searchResult = getByQuery(query, maxRetryAttemptsGet, retryWaitingPeriodGet);
+    for (SearchResultItem<Event> item : searchResult.getItems()) {
+      events.put(item.getSource().getIdentifier(), item.getSource());
+    }
+    return events;
+  }
+
   /**
    * Loads the series from the search index if it exists.
    *
@@ -412,7 +448,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
             inputDocument.getDocumentType(), resourceMetadata);
 
     try {
-      update(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, doc);
+      update(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, doc, true);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write event " + event + " to index", t);
     }
@@ -497,7 +533,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
             inputDocument.getDocumentType(), resourceMetadata);
 
     try {
-      update(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, doc);
+      update(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, doc, true);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write series " + series + " to index", t);
     }
@@ -582,7 +618,7 @@ public class ElasticsearchIndex extends AbstractElasticsearchIndex {
             inputDocument.getDocumentType(), resourceMetadata);
 
     try {
-      update(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, doc);
+      update(maxRetryAttemptsUpdate, retryWaitingPeriodUpdate, doc, true);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write theme " + theme + " to index", t);
     }
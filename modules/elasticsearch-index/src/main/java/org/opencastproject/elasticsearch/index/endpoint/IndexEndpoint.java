@@ -176,7 +176,8 @@ public class IndexEndpoint {
   @Path("resume/{service}")
   @RestQuery(name = "resumeIndexRebuild",
           description = "Starts repopulating the Index from an specific service and will then continue with the rest "
-                  + "of the services that come afterwards",
+                  + "of the services that come afterwards. Services which report their progress, like the Workflow "
+                  + "service, continue where their last rebuild stopped",
           returnDescription = "OK if repopulation has started", pathParameters = {
           @RestParameter(name = "service", isRequired = true, description = "The service to start recreating the index "
                   + "from. "
@@ -215,6 +216,10 @@ public class IndexEndpoint {
       data.put("type", entry.getKey());
       data.put("state", entry.getValue());
       data.put("executionOrder", IndexRebuildService.Service.valueOf(entry.getKey()).ordinal());
+      indexRebuildService.getRebuildProgress(IndexRebuildService.Service.valueOf(entry.getKey())).ifPresent(p -> {
+        data.put("current", p.getCurrent());
+        data.put("total", p.getTotal());
+      });
       statesAsJson.add(data);
     }
     JSONObject service = new JSONObject();
@@ -31,6 +31,19 @@ public interface IndexProducer {
    */
   void repopulate() throws IndexRebuildException;
 
+  /**
+   * Re-add the data of this service to the index, continuing after a checkpoint reported by an earlier, interrupted
+   * run. Producers which cannot resume a rebuild simply re-add all data.
+   *
+   * @param checkpoint
+   *           The last checkpoint reported to the progress listener or <code>null</code> to re-add all data.
+   * @param progress
+   *           The listener to report the progress of the rebuild to.
+   */
+  default void repopulate(String checkpoint, ProgressListener progress) throws IndexRebuildException {
+    repopulate();
+  }
+
   /**
    * Get the service that implements IndexProducer.
    *
@@ -38,4 +51,22 @@ public interface IndexProducer {
    *           The service that implements IndexProducer.
    */
   IndexRebuildService.Service getService();
+
+  /**
+   * Listener for the progress of an index rebuild.
+   */
+  interface ProgressListener {
+
+    /**
+     * Reports the progress of an index rebuild.
+     *
+     * @param current
+     *           The amount of elements that have already been re-added.
+     * @param total
+     *           The total amount of elements to be re-added.
+     * @param checkpoint
+     *           Opaque value which allows to resume the rebuild after the elements re-added so far.
+     */
+    void progress(int current, int total, String checkpoint);
+  }
 }
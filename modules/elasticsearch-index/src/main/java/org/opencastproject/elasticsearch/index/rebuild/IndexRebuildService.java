@@ -35,8 +35,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -133,8 +135,9 @@ public class IndexRebuildService implements BundleActivator {
     index.clear();
     logger.info("{} Index cleared, starting complete rebuild.", index.getIndexName());
     setAllRebuildStates(IndexRebuildService.State.PENDING);
+    rebuildProgress.clear();
     for (IndexRebuildService.Service service: IndexRebuildService.Service.values()) {
-      rebuildIndex(index, service);
+      rebuildIndex(index, service, false);
     }
   }
 
@@ -156,12 +159,12 @@ public class IndexRebuildService implements BundleActivator {
     IndexRebuildService.Service service = IndexRebuildService.Service.valueOf(serviceName);
     logger.info("Starting partial rebuild of the {} index from service '{}'.", index.getIndexName(), service);
     setRebuildState(service, IndexRebuildService.State.PENDING);
-    rebuildIndex(index, service);
+    rebuildIndex(index, service, false);
   }
 
   /**
    * Start Index Rebuild from the specified service and then do all that follow. Can be used to resume a complete index
-   * rebuild that was interrupted.
+   * rebuild that was interrupted. Services which support it continue after the last checkpoint they reported.
    *
    * @param index
    *           The index to rebuild.
@@ -180,7 +183,7 @@ public class IndexRebuildService implements BundleActivator {
     setSubsetOfRebuildStates(startingService, IndexRebuildService.State.PENDING);
     Service[] services = IndexRebuildService.Service.values();
     for (int i = startingService.ordinal(); i < services.length; i++) {
-      rebuildIndex(index, services[i]);
+      rebuildIndex(index, services[i], true);
     }
   }
 
@@ -191,11 +194,13 @@ public class IndexRebuildService implements BundleActivator {
    *           The index to rebuild.
    * @param service
    *          The {@link IndexRebuildService.Service} to re-add data from.
+   * @param resume
+   *          Whether to continue after the last checkpoint reported by the service.
    *
    * @throws IndexRebuildException
    *           Thrown if the index rebuild failed.
    */
-  private void rebuildIndex(ElasticsearchIndex index, IndexRebuildService.Service service)
+  private void rebuildIndex(ElasticsearchIndex index, IndexRebuildService.Service service, boolean resume)
           throws IndexRebuildException {
 
     if (!indexProducers.containsKey(service)) {
@@ -205,11 +210,39 @@ public class IndexRebuildService implements BundleActivator {
     IndexProducer indexProducer = indexProducers.get(service);
     logger.info("Starting to rebuild the {} index from service '{}'", index.getIndexName(), service);
     setRebuildState(service, IndexRebuildService.State.RUNNING);
+    // Keep the last checkpoint until the service reports a new one, in case the rebuild fails right away again
+    RebuildProgress lastProgress = resume ? rebuildProgress.get(service) : rebuildProgress.remove(service);
+    String checkpoint = resume && lastProgress != null ? lastProgress.getCheckpoint() : null;
+    if (checkpoint != null) {
+      logger.info("Continuing rebuild of the {} index from service '{}' after checkpoint '{}'", index.getIndexName(),
+              service, checkpoint);
+    }
     try {
-      indexProducer.repopulate();
+      indexProducer.repopulate(checkpoint, (current, total, next) -> {
+        // Only remember checkpoints whose data has actually been written
+        try {
+          index.flush();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (IOException e) {
+          // Keep the previous checkpoint, the documents up to this one are not all in the index
+          throw new UncheckedIOException(e);
+        }
+        rebuildProgress.put(service, new RebuildProgress(current, total, next));
+      });
+      // Later services may read what this one wrote
+      index.flush();
+      index.refresh();
+      // A finished rebuild must not be resumed
+      rebuildProgress.computeIfPresent(service, (s, progress) ->
+              new RebuildProgress(progress.getCurrent(), progress.getTotal(), null));
       setRebuildState(service, IndexRebuildService.State.OK);
     } catch (IndexRebuildException e) {
       setRebuildState(service, IndexRebuildService.State.ERROR);
+    } catch (IOException | UncheckedIOException | InterruptedException e) {
+      logger.error("Error writing the data of service '{}' to the {} index", service, index.getIndexName(), e);
+      setRebuildState(service, IndexRebuildService.State.ERROR);
     }
     logger.info("Finished to rebuild the {} index from service '{}'", index.getIndexName(), service);
   }
@@ -312,6 +345,54 @@ public class IndexRebuildService implements BundleActivator {
 
   private final Map<Service, State> rebuildStates = new HashMap<>();
 
+  /** The progress of the last or running rebuild of each service, if reported by the service */
+  private final Map<Service, RebuildProgress> rebuildProgress = new ConcurrentHashMap<>();
+
+  /**
+   * The progress of an index rebuild from a single service.
+   */
+  public static final class RebuildProgress {
+    private final int current;
+    private final int total;
+    private final String checkpoint;
+
+    private RebuildProgress(int current, int total, String checkpoint) {
+      this.current = current;
+      this.total = total;
+      this.checkpoint = checkpoint;
+    }
+
+    /**
+     * @return the amount of elements that have already been re-added
+     */
+    public int getCurrent() {
+      return current;
+    }
+
+    /**
+     * @return the total amount of elements to be re-added
+     */
+    public int getTotal() {
+      return total;
+    }
+
+    /**
+     * @return the checkpoint to resume the rebuild from
+     */
+    public String getCheckpoint() {
+      return checkpoint;
+    }
+  }
+
+  /**
+   * @param service
+   *           the rebuild service
+   * @return the progress of the last or running rebuild of the service, if the service reports its progress
+   */
+  public Optional<RebuildProgress> getRebuildProgress(IndexRebuildService.Service service) {
+    return Optional.ofNullable(rebuildProgress.get(service));
+  }
+
   /**
    * @return All rebuild service repopulation states.
    */
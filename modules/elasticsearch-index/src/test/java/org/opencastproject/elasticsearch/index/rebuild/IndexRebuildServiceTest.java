@@ -0,0 +1,120 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.elasticsearch.index.rebuild;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.elasticsearch.index.ElasticsearchIndex;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests that a rebuild whose documents could not be written is neither reported as successful nor resumed after them.
+ */
+public class IndexRebuildServiceTest {
+
+  private IndexRebuildService rebuildService;
+  private ElasticsearchIndex index;
+
+  /** The checkpoints the rebuild has been started after */
+  private final List<String> startedAfter = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    ServiceReference<?> reference = EasyMock.createNiceMock(ServiceReference.class);
+    BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+    EasyMock.expect(bundleContext.getAllServiceReferences(IndexProducer.class.getName(), null))
+            .andReturn(new ServiceReference<?>[] { reference }).anyTimes();
+    EasyMock.expect(bundleContext.getService(reference)).andReturn((Object) new IndexProducer() {
+      @Override
+      public void repopulate() {
+        repopulate(null, (current, total, checkpoint) -> { });
+      }
+
+      @Override
+      public void repopulate(String checkpoint, ProgressListener progress) {
+        startedAfter.add(checkpoint);
+        progress.progress(1, 2, "cp1");
+        progress.progress(2, 2, "cp2");
+      }
+
+      @Override
+      public IndexRebuildService.Service getService() {
+        return IndexRebuildService.Service.Workflow;
+      }
+    }).anyTimes();
+    EasyMock.replay(reference, bundleContext);
+
+    rebuildService = new IndexRebuildService();
+    rebuildService.start(bundleContext);
+
+    index = EasyMock.createNiceMock(ElasticsearchIndex.class);
+    EasyMock.expect(index.getIndexName()).andReturn("test").anyTimes();
+  }
+
+  @Test
+  public void testRebuild() throws Exception {
+    EasyMock.replay(index);
+
+    rebuildService.rebuildIndex(index, "Workflow");
+
+    assertEquals(IndexRebuildService.State.OK.toString(),
+            rebuildService.getRebuildState(IndexRebuildService.Service.Workflow));
+    assertEquals(2, rebuildService.getRebuildProgress(IndexRebuildService.Service.Workflow).get().getCurrent());
+  }
+
+  @Test
+  public void testFailedBulkWrite() throws Exception {
+    // The documents up to the first checkpoint are written, the bulk request with the next ones fails
+    index.flush();
+    EasyMock.expectLastCall().once();
+    index.flush();
+    EasyMock.expectLastCall().andThrow(new IOException("Could not write 1 documents to index test")).once();
+    index.flush();
+    EasyMock.expectLastCall().anyTimes();
+    EasyMock.replay(index);
+
+    rebuildService.rebuildIndex(index, "Workflow");
+
+    assertEquals(IndexRebuildService.State.ERROR.toString(),
+            rebuildService.getRebuildState(IndexRebuildService.Service.Workflow));
+    assertEquals("cp1", rebuildService.getRebuildProgress(IndexRebuildService.Service.Workflow).get()
+            .getCheckpoint());
+
+    // Resuming writes the documents after the last written checkpoint again
+    rebuildService.resumeIndexRebuild(index, "Workflow");
+
+    assertEquals(Arrays.asList(null, "cp1"), startedAfter);
+    assertEquals(IndexRebuildService.State.OK.toString(),
+            rebuildService.getRebuildState(IndexRebuildService.Service.Workflow));
+  }
+
+}
@@ -25,11 +25,18 @@ import static java.lang.String.format;
 import com.entwinemedia.fn.data.json.JValue;
 import com.entwinemedia.fn.data.json.SimpleSerializer;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Function;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 /**
  * A utility class for creating responses from the external api.
@@ -116,6 +123,28 @@ public final class ApiResponses {
       return ok(version, json);
     }
 
+    /**
+     * Streams a JSON array, rendering and serializing one element at a time instead of building the whole array first.
+     * Rendering an element must not fail since the response status has already been sent by then.
+     */
+    public static <A> Response ok(ApiVersion version, Collection<A> values, Function<A, JValue> render) {
+      final StreamingOutput body = out -> {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('[');
+        boolean first = true;
+        for (A value : values) {
+          if (!first) {
+            writer.write(',');
+          }
+          first = false;
+          writer.write(serializer.toJson(render.apply(value)));
+        }
+        writer.write(']');
+        writer.flush();
+      };
+      return Response.ok(body, APPLICATION_PREFIX + version.toExternalForm() + JSON_SUFFIX).build();
+    }
+
     /**
      * Create a created json response for the external api
      *
@@ -39,6 +39,9 @@ import static org.opencastproject.util.doc.rest.RestParameter.Type.STRING;
 
 import org.opencastproject.assetmanager.api.AssetManager;
 import org.opencastproject.assetmanager.api.AssetManagerException;
+import org.opencastproject.assetmanager.api.query.AQueryBuilder;
+import org.opencastproject.assetmanager.api.query.ARecord;
+import org.opencastproject.assetmanager.api.query.AResult;
 import org.opencastproject.capture.CaptureParameters;
 import org.opencastproject.capture.admin.api.CaptureAgentStateService;
 import org.opencastproject.elasticsearch.api.SearchIndexException;
@@ -150,6 +153,7 @@ import java.text.SimpleDateFormat;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
@@ -1027,12 +1031,152 @@ public class EventsEndpoint implements ManagedService {
   protected Response getJsonEvents(String acceptHeader, List<IndexObject> events, Boolean withAcl, Boolean withMetadata,
           Boolean withScheduling, Boolean withPublications, Boolean withSignedUrls, ApiVersion requestedVersion)
       throws IndexServiceException, UnauthorizedException, SchedulerException {
-    List<JValue> eventsList = new ArrayList<>();
-    for (IndexObject item : events) {
-      eventsList.add(eventToJSON((Event) item, withAcl, withMetadata, withScheduling, withPublications, withSignedUrls,
-              requestedVersion));
+    final List<Event> eventList = events.stream().map(item -> (Event) item).collect(Collectors.toList());
+    // Look up the additional information of all events before rendering them one by one into the response
+    final EventEnrichment enrichment = enrichEvents(eventList, withAcl, withMetadata, withScheduling);
+    return ApiResponses.Json.ok(requestedVersion, eventList,
+        event -> eventToJSON(event, enrichment, withPublications, withSignedUrls, requestedVersion));
+  }
+
+  /**
+   * The additional information rendered along with events, looked up for a whole list of events at once.
+   */
+  private static final class EventEnrichment {
+    private final Map<String, AccessControlList> acls = new HashMap<>();
+    private final Map<String, MetadataList> metadata = new HashMap<>();
+    private final Map<String, SchedulingInfo> scheduling = new HashMap<>();
+  }
+
+  /**
+   * Look up the additional information of a single event.
+   *
+   * @param event
+   *          The event to look up the information for
+   * @param withAcl
+   *          Whether to look up the acl
+   * @param withMetadata
+   *          Whether to look up the metadata
+   * @param withScheduling
+   *          Whether to look up the scheduling information
+   * @return The information of the event
+   * @throws IndexServiceException
+   *           Thrown if unable to get the metadata for the event.
+   * @throws SchedulerException
+   * @throws UnauthorizedException
+   */
+  private EventEnrichment enrichEvent(Event event, Boolean withAcl, Boolean withMetadata, Boolean withScheduling)
+      throws IndexServiceException, SchedulerException, UnauthorizedException {
+    final EventEnrichment enrichment = new EventEnrichment();
+    if (withAcl != null && withAcl) {
+      enrichment.acls.put(event.getIdentifier(), getAclFromEvent(event));
+    }
+    if (withMetadata != null && withMetadata) {
+      try {
+        Opt<MetadataList> metadata = getEventMetadata(event);
+        if (metadata.isSome()) {
+          enrichment.metadata.put(event.getIdentifier(), metadata.get());
+        }
+      } catch (Exception e) {
+        logger.error("Unable to get metadata for event '{}'", event.getIdentifier(), e);
+        throw new IndexServiceException("Unable to add metadata to event", e);
+      }
+    }
+    if (withScheduling != null && withScheduling) {
+      enrichment.scheduling.put(event.getIdentifier(), SchedulingInfo.of(event.getIdentifier(), schedulerService));
+    }
+    return enrichment;
+  }
+
+  /**
+   * Look up the additional information of a list of events with one lookup per kind of information instead of one per
+   * event.
+   *
+   * @param events
+   *          The events to look up the information for
+   * @param withAcl
+   *          Whether to look up the acls
+   * @param withMetadata
+   *          Whether to look up the metadata
+   * @param withScheduling
+   *          Whether to look up the scheduling information
+   * @return The information of the events
+   * @throws IndexServiceException
+   *           Thrown if unable to get the metadata for the events.
+   * @throws SchedulerException
+   * @throws UnauthorizedException
+   */
+  private EventEnrichment enrichEvents(List<Event> events, Boolean withAcl, Boolean withMetadata,
+          Boolean withScheduling) throws IndexServiceException, SchedulerException, UnauthorizedException {
+    final EventEnrichment enrichment = new EventEnrichment();
+    if (withAcl != null && withAcl) {
+      // Events of the same series usually share their access policy which then only needs to be parsed once
+      final Map<String, AccessControlList> acls = new HashMap<>();
+      for (Event event : events) {
+        final AccessControlList acl = event.getAccessPolicy() == null
+            ? new AccessControlList()
+            : acls.computeIfAbsent(event.getAccessPolicy(), policy -> getAclFromEvent(event));
+        enrichment.acls.put(event.getIdentifier(), acl);
+      }
+    }
+    if (withMetadata != null && withMetadata) {
+      final List<EventCatalogUIAdapter> catalogUIAdapters = getEventCatalogUIAdapters();
+      final EventCatalogUIAdapter eventCatalogUIAdapter = indexService.getCommonEventCatalogUIAdapter();
+      catalogUIAdapters.remove(eventCatalogUIAdapter);
+      // The media packages are only needed by the extended metadata catalogs
+      final Map<String, MediaPackage> mediaPackages = catalogUIAdapters.isEmpty()
+          ? Collections.emptyMap()
+          : getArchivedMediaPackages(events);
+      for (Event event : events) {
+        try {
+          MediaPackage mediaPackage = null;
+          if (!catalogUIAdapters.isEmpty()) {
+            mediaPackage = mediaPackages.get(event.getIdentifier());
+            if (mediaPackage == null) {
+              mediaPackage = indexService.getEventMediapackage(event);
+            }
+          }
+          enrichment.metadata.put(event.getIdentifier(),
+              getEventMetadata(event, catalogUIAdapters, eventCatalogUIAdapter, mediaPackage));
+        } catch (Exception e) {
+          logger.error("Unable to get metadata for event '{}'", event.getIdentifier(), e);
+          throw new IndexServiceException("Unable to add metadata to event", e);
+        }
+      }
+    }
+    if (withScheduling != null && withScheduling) {
+      final Map<String, TechnicalMetadata> technicalMetadata = schedulerService.getTechnicalMetadata(
+          events.stream().map(Event::getIdentifier).collect(Collectors.toList()));
+      for (Event event : events) {
+        enrichment.scheduling.put(event.getIdentifier(),
+            SchedulingInfo.of(technicalMetadata.get(event.getIdentifier())));
+      }
+    }
+    return enrichment;
+  }
+
+  /**
+   * Get the latest archived media packages of those events whose media package is taken from the archive.
+   *
+   * @param events
+   *          The events to get the media packages for
+   * @return The media packages by event identifier
+   */
+  private Map<String, MediaPackage> getArchivedMediaPackages(List<Event> events) {
+    final String[] ids = events.stream()
+        .filter(event -> indexService.getEventSource(event) == IndexService.Source.ARCHIVE)
+        .map(Event::getIdentifier)
+        .toArray(String[]::new);
+    final Map<String, MediaPackage> mediaPackages = new HashMap<>();
+    if (ids.length == 0) {
+      return mediaPackages;
+    }
+    final AQueryBuilder q = assetManager.createQuery();
+    final AResult result = q.select(q.snapshot()).where(q.mediaPackageIds(ids).and(q.version().isLatest())).run();
+    for (ARecord record : result.getRecords()) {
+      record.getSnapshot().ifPresent(snapshot ->
+          mediaPackages.put(record.getMediaPackageId(), snapshot.getMediaPackage()));
     }
-    return ApiResponses.Json.ok(requestedVersion, arr(eventsList));
+    return mediaPackages;
   }
 
   /**
@@ -1058,6 +1202,25 @@ public class EventsEndpoint implements ManagedService {
    */
   protected JValue eventToJSON(Event event, Boolean withAcl, Boolean withMetadata, Boolean withScheduling,
           Boolean withPublications, Boolean withSignedUrls, ApiVersion requestedVersion) throws IndexServiceException, SchedulerException, UnauthorizedException {
+    return eventToJSON(event, enrichEvent(event, withAcl, withMetadata, withScheduling), withPublications,
+        withSignedUrls, requestedVersion);
+  }
+
+  /**
+   * Transform an {@link Event} to Json
+   *
+   * @param event
+   *          The event to transform into json
+   * @param enrichment
+   *          The additional information to add for the event, if looked up
+   * @param withPublications
+   *          Whether to add the publications
+   * @param withSignedUrls
+   *          Whether to sign the urls if they are protected by stream security.
+   * @return The event in json format.
+   */
+  private JValue eventToJSON(Event event, EventEnrichment enrichment, Boolean withPublications,
+          Boolean withSignedUrls, ApiVersion requestedVersion) {
     List<Field> fields = new ArrayList<>();
     if (event.getArchiveVersion() != null)
       fields.add(f("archive_version", v(event.getArchiveVersion())));
@@ -1105,23 +1268,17 @@ public class EventsEndpoint implements ManagedService {
       fields.add(f("subjects", arr()));
     }
     fields.add(f("title", v(event.getTitle(), BLANK)));
-    if (withAcl != null && withAcl) {
-      AccessControlList acl = getAclFromEvent(event);
+    AccessControlList acl = enrichment.acls.get(event.getIdentifier());
+    if (acl != null) {
       fields.add(f("acl", arr(AclUtils.serializeAclToJson(acl))));
     }
-    if (withMetadata != null && withMetadata) {
-      try {
-        Opt<MetadataList> metadata = getEventMetadata(event);
-        if (metadata.isSome()) {
-          fields.add(f("metadata", MetadataJson.listToJson(metadata.get(), true)));
-        }
-      } catch (Exception e) {
-        logger.error("Unable to get metadata for event '{}'", event.getIdentifier(), e);
-        throw new IndexServiceException("Unable to add metadata to event", e);
-      }
+    MetadataList metadata = enrichment.metadata.get(event.getIdentifier());
+    if (metadata != null) {
+      fields.add(f("metadata", MetadataJson.listToJson(metadata, true)));
     }
-    if (withScheduling != null && withScheduling) {
-      fields.add(f("scheduling", SchedulingInfo.of(event.getIdentifier(), schedulerService).toJson()));
+    SchedulingInfo scheduling = enrichment.scheduling.get(event.getIdentifier());
+    if (scheduling != null) {
+      fields.add(f("scheduling", scheduling.toJson()));
     }
     if (withPublications != null && withPublications) {
       List<JValue> publications = getPublications(event, withSignedUrls, requestedVersion);
@@ -1340,11 +1497,16 @@ public class EventsEndpoint implements ManagedService {
   }
 
   protected Opt<MetadataList> getEventMetadata(Event event) throws IndexServiceException, Exception {
-    MetadataList metadataList = new MetadataList();
     List<EventCatalogUIAdapter> catalogUIAdapters = getEventCatalogUIAdapters();
     EventCatalogUIAdapter eventCatalogUIAdapter = indexService.getCommonEventCatalogUIAdapter();
     catalogUIAdapters.remove(eventCatalogUIAdapter);
     MediaPackage mediaPackage = indexService.getEventMediapackage(event);
+    return Opt.some(getEventMetadata(event, catalogUIAdapters, eventCatalogUIAdapter, mediaPackage));
+  }
+
+  private MetadataList getEventMetadata(Event event, List<EventCatalogUIAdapter> catalogUIAdapters,
+          EventCatalogUIAdapter eventCatalogUIAdapter, MediaPackage mediaPackage) throws Exception {
+    MetadataList metadataList = new MetadataList();
     if (catalogUIAdapters.size() > 0) {
       for (EventCatalogUIAdapter catalogUIAdapter : catalogUIAdapters) {
         // TODO: This is very slow:
@@ -1360,7 +1522,7 @@ public class EventsEndpoint implements ManagedService {
     if (WorkflowInstance.WorkflowState.RUNNING.toString().equals(event.getWorkflowState())) {
       metadataList.setLocked(Locked.WORKFLOW_RUNNING);
     }
-    return Opt.some(metadataList);
+    return metadataList;
   }
 
   private Opt<MediaPackageElementFlavor> getFlavor(String flavorString) {
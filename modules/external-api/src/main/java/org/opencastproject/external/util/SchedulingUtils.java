@@ -320,20 +320,34 @@ public final class SchedulingUtils {
      */
     public static SchedulingInfo of(String eventId, SchedulerService schedulerService)
         throws UnauthorizedException, SchedulerException {
-      final SchedulingInfo result = new SchedulingInfo();
       try {
-        final TechnicalMetadata technicalMetadata = schedulerService.getTechnicalMetadata(eventId);
-        result.startDate = Opt.some(technicalMetadata.getStartDate());
-        result.endDate = Opt.some(technicalMetadata.getEndDate());
-        result.agentId = Opt.some(technicalMetadata.getAgentId());
-        String inputs = technicalMetadata.getCaptureAgentConfiguration().get(CaptureParameters.CAPTURE_DEVICE_NAMES);
-        if (isNotBlank(inputs)) {
-          result.inputs = Opt.some(inputs);
-        }
-        return result;
+        return of(schedulerService.getTechnicalMetadata(eventId));
       } catch (NotFoundException e) {
+        return new SchedulingInfo();
+      }
+    }
+
+    /**
+     * Get the SchedulingInfo from the technical metadata of an event.
+     *
+     * @param technicalMetadata
+     *          The technical metadata of the event or <code>null</code> if the event is not scheduled.
+     *
+     * @return The SchedulingInfo of the event.
+     */
+    public static SchedulingInfo of(TechnicalMetadata technicalMetadata) {
+      final SchedulingInfo result = new SchedulingInfo();
+      if (technicalMetadata == null) {
         return result;
       }
+      result.startDate = Opt.some(technicalMetadata.getStartDate());
+      result.endDate = Opt.some(technicalMetadata.getEndDate());
+      result.agentId = Opt.some(technicalMetadata.getAgentId());
+      String inputs = technicalMetadata.getCaptureAgentConfiguration().get(CaptureParameters.CAPTURE_DEVICE_NAMES);
+      if (isNotBlank(inputs)) {
+        result.inputs = Opt.some(inputs);
+      }
+      return result;
     }
   }
 
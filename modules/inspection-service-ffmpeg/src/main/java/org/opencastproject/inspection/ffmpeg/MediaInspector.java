@@ -65,6 +65,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 
 /**
  * Contains the business logic for media inspection. Its primary purpose is to decouple the inspection logic from all
@@ -132,7 +133,7 @@ public class MediaInspector {
 
         // Checksum
         try {
-          track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
+          track.setChecksum(checksum(trackURI, file));
         } catch (IOException e) {
           throw new MediaInspectionException("Unable to read " + file, e);
         }
@@ -269,7 +270,7 @@ public class MediaInspector {
           track.setDuration(metadata.getDuration());
         if (track.getChecksum() == null || override) {
           try {
-            track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
+            track.setChecksum(checksum(originalTrackUrl, file));
           } catch (IOException e) {
             throw new MediaInspectionException("Unable to read " + file, e);
           }
@@ -347,7 +348,7 @@ public class MediaInspector {
       // Checksum
       if (element.getChecksum() == null || override) {
         try {
-          element.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
+          element.setChecksum(checksum(element.getURI(), file));
         } catch (IOException e) {
           throw new MediaInspectionException("Error generating checksum for " + element.getURI(), e);
         }
@@ -375,6 +376,26 @@ public class MediaInspector {
     }
   }
 
+  /**
+   * Returns the checksum of a file. The checksum computed by the workspace while storing or downloading the file is
+   * used if there is one, so that the file does not have to be read once more.
+   *
+   * @param uri
+   *          the uri of the file
+   * @param file
+   *          the file in the workspace
+   * @return the checksum
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  private Checksum checksum(URI uri, File file) throws IOException {
+    final Optional<Checksum> checksum = workspace.getChecksum(uri);
+    if (checksum.isPresent()) {
+      return checksum.get();
+    }
+    return Checksum.create(ChecksumType.DEFAULT_TYPE, file);
+  }
+
   /**
    * Asks the media analyzer to extract the file's metadata.
    *
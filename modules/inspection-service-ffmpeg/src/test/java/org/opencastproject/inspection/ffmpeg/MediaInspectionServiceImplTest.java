@@ -52,6 +52,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Optional;
 
 public class MediaInspectionServiceImplTest {
   private static final Logger logger = LoggerFactory.getLogger(MediaInspectionServiceImplTest.class);
@@ -81,6 +82,7 @@ public class MediaInspectionServiceImplTest {
       EasyMock.expect(workspace.get(resource)).andReturn(f);
       EasyMock.expect(workspace.get(resource)).andReturn(f);
       EasyMock.expect(workspace.get(resource)).andReturn(f);
+      EasyMock.expect(workspace.getChecksum(resource)).andReturn(Optional.empty()).anyTimes();
       EasyMock.replay(workspace);
       return some(new MediaInspector(workspace, binary));
     }
@@ -21,10 +21,36 @@
 
 package org.opencastproject.kernel.security;
 
+import java.util.Map;
+
 /**
- * An MxBean that exposes the number of open http connections to a JXM agent
+ * An MxBean that exposes the number of open http connections and the state of the connection pool to a JXM agent
  */
 public interface HttpConnectionMXBean {
   /** Gets the number of open http connections */
   int getOpenConnections();
+
+  /** Gets the number of pooled connections currently in use */
+  int getLeasedPooledConnections();
+
+  /** Gets the number of idle pooled connections kept alive for reuse */
+  int getAvailablePooledConnections();
+
+  /** Gets the number of requests waiting for a pooled connection */
+  int getPendingPooledConnectionRequests();
+
+  /** Gets the maximum number of pooled connections */
+  int getMaxPooledConnections();
+
+  /** Gets the number of pooled connections currently in use per remote host */
+  Map<String, Integer> getLeasedPooledConnectionsPerHost();
+
+  /** Gets the number of requests authenticated with a cached digest nonce */
+  long getDigestNonceCacheHits();
+
+  /** Gets the number of digest handshakes performed to obtain a nonce */
+  long getDigestHandshakes();
+
+  /** Gets the number of requests which failed since no pooled connection became available in time */
+  long getPooledConnectionTimeouts();
 }
@@ -41,21 +41,35 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScheme;
 import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.AuthState;
+import org.apache.http.auth.AuthenticationException;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.auth.DigestScheme;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -68,9 +82,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.net.URI;
 import java.util.Map;
 import java.util.Random;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -118,6 +138,21 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   public static final String NONCE_TIMEOUT_RETRY_MAXIMUM_VARIABLE_TIME_KEY =
     "org.opencastproject.security.digest.nonce.variable.time";
 
+  /** The configuration property specifying whether digest nonces are cached and reused per remote host. */
+  public static final String NONCE_CACHE_ENABLED_KEY = "org.opencastproject.security.digest.nonce.cache";
+
+  /** The configuration property specifying the maximum number of pooled connections. */
+  public static final String POOL_MAX_TOTAL_KEY = "org.opencastproject.security.http.pool.max.total";
+
+  /** The configuration property specifying the maximum number of pooled connections per remote host. */
+  public static final String POOL_MAX_PER_ROUTE_KEY = "org.opencastproject.security.http.pool.max.per.host";
+
+  /** The configuration property specifying the time in seconds an idle pooled connection is kept alive. */
+  public static final String POOL_KEEP_ALIVE_KEY = "org.opencastproject.security.http.pool.keepalive";
+
+  /** The configuration property specifying the time in seconds a request waits for a pooled connection. */
+  public static final String POOL_LEASE_TIMEOUT_KEY = "org.opencastproject.security.http.pool.lease.timeout";
+
   /** The default time until a connection attempt fails */
   public static final int DEFAULT_CONNECTION_TIMEOUT = 60 * 1000;
 
@@ -136,6 +171,21 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   /** Default maximum amount of time in a random range between 0 and this value to add to the base time. */
   public static final int DEFAULT_RETRY_MAXIMUM_VARIABLE_TIME = 300;
 
+  /** The default maximum number of pooled connections */
+  public static final int DEFAULT_POOL_MAX_TOTAL = 256;
+
+  /** The default maximum number of pooled connections per remote host */
+  public static final int DEFAULT_POOL_MAX_PER_ROUTE = 64;
+
+  /** The default time in seconds an idle pooled connection is kept alive */
+  public static final int DEFAULT_POOL_KEEP_ALIVE = 30;
+
+  /** The default time in seconds a request waits for a pooled connection */
+  public static final int DEFAULT_POOL_LEASE_TIMEOUT = 10;
+
+  /** The time in milliseconds after which an idle pooled connection is validated before it is reused */
+  private static final int POOL_VALIDATE_AFTER_INACTIVITY = 2000;
+
   /**
    * The default time before a piece of signed content expires. 1 Minute. These are internal calls to another server, if
    * we can't make the request in under a minute something has gone horribly wrong.
@@ -154,6 +204,42 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   /** The map of open responses to their http clients, which need to be closed after we are finished with the response */
   protected Map<HttpResponse, CloseableHttpClient> responseMap = new ConcurrentHashMap<>();
 
+  /** The map of open responses to the underlying responses, which hand their connection back to the pool on close */
+  private final Map<HttpResponse, CloseableHttpResponse> pooledResponseMap = new ConcurrentHashMap<>();
+
+  /** The connection pool shared by all http clients created by this trusted http client */
+  private final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+
+  /** Periodically closes expired and idle pooled connections */
+  private ScheduledExecutorService idleConnectionEvictor = null;
+
+  /** The time in milliseconds an idle pooled connection is kept alive */
+  private long keepAliveMillis = DEFAULT_POOL_KEEP_ALIVE * MILLISECONDS_IN_SECONDS;
+
+  /** The time in milliseconds a request waits for a pooled connection */
+  private int leaseTimeoutMillis = DEFAULT_POOL_LEASE_TIMEOUT * MILLISECONDS_IN_SECONDS;
+
+  /** The number of requests which failed since no pooled connection became available in time */
+  private final AtomicLong poolTimeouts = new AtomicLong();
+
+  /** Keeps pooled connections alive as long as the server permits, but no longer than the configured time */
+  private final ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+    final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+    return keepAlive > 0 ? Math.min(keepAlive, keepAliveMillis) : keepAliveMillis;
+  };
+
+  /** Whether digest nonces are cached and reused per remote host */
+  private boolean nonceCacheEnabled = true;
+
+  /** The map of remote hosts to the last known {realm, nonce} pair used for digest authentication */
+  private final Map<String, String[]> nonceCache = new ConcurrentHashMap<>();
+
+  /** The number of requests that have been authenticated with a cached nonce */
+  private final AtomicLong nonceCacheHits = new AtomicLong();
+
+  /** The number of digest handshakes that have been performed */
+  private final AtomicLong digestHandshakes = new AtomicLong();
+
   /** Used to add a random amount of time up to retryMaximumVariableTime to retry a request after a nonce timeout. */
   private final Random generator = new Random();
 
@@ -186,6 +272,7 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     getRetryNumber(cc);
     getRetryBaseTime(cc);
     getRetryMaximumVariableTime(cc);
+    configureConnectionPool(cc);
 
     // register with jmx
     try {
@@ -287,6 +374,41 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
                                                           DEFAULT_RETRY_MAXIMUM_VARIABLE_TIME);
   }
 
+  /**
+   * Configures the shared connection pool and the digest nonce cache and starts evicting idle connections.
+   *
+   * @param cc
+   *         The ComponentContent to extract the pool properties from.
+   */
+  private void configureConnectionPool(ComponentContext cc) {
+    connectionManager.setMaxTotal(getIntFromComponentContext(cc, POOL_MAX_TOTAL_KEY, DEFAULT_POOL_MAX_TOTAL));
+    connectionManager.setDefaultMaxPerRoute(
+        getIntFromComponentContext(cc, POOL_MAX_PER_ROUTE_KEY, DEFAULT_POOL_MAX_PER_ROUTE));
+    connectionManager.setValidateAfterInactivity(POOL_VALIDATE_AFTER_INACTIVITY);
+    keepAliveMillis = (long) getIntFromComponentContext(cc, POOL_KEEP_ALIVE_KEY, DEFAULT_POOL_KEEP_ALIVE)
+        * MILLISECONDS_IN_SECONDS;
+    leaseTimeoutMillis = getIntFromComponentContext(cc, POOL_LEASE_TIMEOUT_KEY, DEFAULT_POOL_LEASE_TIMEOUT)
+        * MILLISECONDS_IN_SECONDS;
+    nonceCacheEnabled = !"false".equalsIgnoreCase(
+        StringUtils.trimToEmpty(cc.getBundleContext().getProperty(NONCE_CACHE_ENABLED_KEY)));
+    logger.debug("Pooling up to {} connections ({} per host), keep-alive {}ms, lease timeout {}ms, "
+        + "nonce cache enabled: {}", connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute(),
+        keepAliveMillis, leaseTimeoutMillis, nonceCacheEnabled);
+
+    if (idleConnectionEvictor == null) {
+      idleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "trusted-http-client-idle-connection-evictor");
+        thread.setDaemon(true);
+        return thread;
+      });
+      final long period = Math.max(keepAliveMillis / 2, MILLISECONDS_IN_SECONDS);
+      idleConnectionEvictor.scheduleWithFixedDelay(() -> {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS);
+      }, period, period, TimeUnit.MILLISECONDS);
+    }
+  }
+
   /**
    * Gets a property from the ComponentContext that is the base type int.
    *
@@ -320,6 +442,12 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   @Deactivate
   public void deactivate() {
     logger.debug("deactivate");
+    if (idleConnectionEvictor != null) {
+      idleConnectionEvictor.shutdownNow();
+      idleConnectionEvictor = null;
+    }
+    nonceCache.clear();
+    connectionManager.shutdown();
   }
 
   public TrustedHttpClientImpl() {
@@ -330,12 +458,23 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     this.pass = pass;
   }
 
-  /** Creates a new HttpClientBuilder to use for making requests. */
+  /**
+   * Creates a new HttpClientBuilder to use for making requests. All clients built from it share the keep-alive
+   * connection pool of this trusted http client, so closing a client does not close any pooled connections.
+   * <p>
+   * Requests wait for a pooled connection no longer than the configured lease timeout, so that an exhausted pool, e.g.
+   * due to responses which are never closed, fails fast instead of blocking for the whole connection timeout.
+   */
   public HttpClientBuilder makeHttpClientBuilder(int connectionTimeout, int socketTimeout) {
     RequestConfig config = RequestConfig.custom()
-        .setConnectionRequestTimeout(connectionTimeout)
+        .setConnectTimeout(connectionTimeout)
+        .setConnectionRequestTimeout(Math.min(leaseTimeoutMillis, connectionTimeout))
         .setSocketTimeout(socketTimeout).build();
-    return HttpClientBuilder.create().setDefaultRequestConfig(config);
+    return HttpClientBuilder.create()
+        .setDefaultRequestConfig(config)
+        .setConnectionManager(connectionManager)
+        .setConnectionManagerShared(true)
+        .setKeepAliveStrategy(keepAliveStrategy);
   }
 
   /**
@@ -378,12 +517,25 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
           new UsernamePasswordCredentials(user, pass));
       final CloseableHttpClient httpClient = clientBuilder.setDefaultCredentialsProvider(provider).build();
       // Run the request (the http client handles the multiple back-and-forth requests)
+      CloseableHttpResponse pooledResponse = null;
       try {
         httpUriRequest = getSignedUrl(httpUriRequest);
-        HttpResponse response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
-        responseMap.put(response, httpClient);
-        return response;
+        // Skip the digest challenge if we already know a nonce for this host
+        final boolean cachedNonce = authenticateWithCachedNonce(httpUriRequest);
+        final HttpClientContext context = HttpClientContext.create();
+        pooledResponse = httpClient.execute(httpUriRequest, context);
+        if (cachedNonce && isUnauthorized(pooledResponse)) {
+          // The cached nonce has been rejected, so let the http client go through the digest handshake instead
+          invalidateCachedNonce(httpUriRequest);
+          releaseResponse(pooledResponse);
+          httpUriRequest.removeHeaders(AUTHORIZATION_HEADER_NAME);
+          pooledResponse = httpClient.execute(httpUriRequest, context);
+        }
+        cacheNonceOfHandshake(httpUriRequest, context);
+        return registerResponse(pooledResponse, httpClient);
       } catch (IOException e) {
+        logPoolTimeout(e, httpUriRequest);
+        releaseResponse(pooledResponse);
         try {
           httpClient.close();
         } catch (IOException ioException) {
@@ -395,21 +547,28 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
       final CloseableHttpClient httpClient = clientBuilder.build();
       // HttpClient doesn't handle the request dynamics for other verbs (especially when sending a streamed multipart
       // request), so we need to handle the details of the digest auth back-and-forth manually
-      manuallyHandleDigestAuthentication(httpUriRequest, httpClient);
-      HttpResponse response = null;
+      final boolean cachedNonce = manuallyHandleDigestAuthentication(httpUriRequest, httpClient, true);
+      CloseableHttpResponse pooledResponse = null;
       try {
-        response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
-        if (nonceTimeoutRetries > 0 && hadNonceTimeoutResponse(response)) {
+        pooledResponse = httpClient.execute(httpUriRequest);
+        if (cachedNonce && isUnauthorized(pooledResponse)) {
+          // The cached nonce has been rejected, so get a fresh one right away instead of waiting for a retry
+          invalidateCachedNonce(httpUriRequest);
+          releaseResponse(pooledResponse);
+          httpUriRequest.removeHeaders(AUTHORIZATION_HEADER_NAME);
+          manuallyHandleDigestAuthentication(httpUriRequest, httpClient, false);
+          pooledResponse = httpClient.execute(httpUriRequest);
+        }
+        if (nonceTimeoutRetries > 0 && hadNonceTimeoutResponse(pooledResponse)) {
+          invalidateCachedNonce(httpUriRequest);
+          releaseResponse(pooledResponse);
           httpClient.close();
-          response = retryAuthAndRequestAfterNonceTimeout(httpUriRequest, response);
+          return retryAuthAndRequestAfterNonceTimeout(httpUriRequest, pooledResponse);
         }
-        responseMap.put(response, httpClient);
-        return response;
+        return registerResponse(pooledResponse, httpClient);
       } catch (Exception e) {
-        // if we have a response, remove it from the map
-        if (response != null) {
-          responseMap.remove(response);
-        }
+        logPoolTimeout(e, httpUriRequest);
+        releaseResponse(pooledResponse);
         // close the http connection(s)
         try {
           httpClient.close();
@@ -421,6 +580,89 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     }
   }
 
+  /**
+   * Wraps a response so that it can be tracked until it is closed using {@link #close(HttpResponse)}.
+   *
+   * @param pooledResponse
+   *         The response as returned by the http client.
+   * @param httpClient
+   *         The http client that executed the request.
+   * @return The wrapped response.
+   */
+  private HttpResponse registerResponse(CloseableHttpResponse pooledResponse, CloseableHttpClient httpClient) {
+    final HttpResponse response = new HttpResponseWrapper(pooledResponse);
+    pooledResponseMap.put(response, pooledResponse);
+    responseMap.put(response, httpClient);
+    return response;
+  }
+
+  /**
+   * Logs that a request failed since the connection pool has been exhausted. This usually means that responses are
+   * not closed, which keeps their connections leased forever.
+   *
+   * @param e
+   *         The exception the request failed with.
+   * @param httpUriRequest
+   *         The failed request.
+   */
+  private void logPoolTimeout(Exception e, HttpUriRequest httpUriRequest) {
+    if (!(e instanceof ConnectionPoolTimeoutException)) {
+      return;
+    }
+    poolTimeouts.incrementAndGet();
+    final PoolStats stats = connectionManager.getTotalStats();
+    logger.warn("No pooled connection available within {}ms for {} {}: {} of {} connections leased, {} requests "
+        + "waiting, {} responses not closed yet. Make sure to close every response.", leaseTimeoutMillis,
+        httpUriRequest.getMethod(), httpUriRequest.getURI(), stats.getLeased(), stats.getMax(), stats.getPending(),
+        responseMap.size());
+  }
+
+  /**
+   * Caches the realm and nonce of a digest handshake the http client performed on its own for a request, so that
+   * subsequent requests to the same host, including requests with other methods, can skip the challenge.
+   *
+   * @param httpUriRequest
+   *         The executed request.
+   * @param context
+   *         The context the request has been executed in.
+   */
+  private void cacheNonceOfHandshake(HttpUriRequest httpUriRequest, HttpClientContext context) {
+    if (!nonceCacheEnabled) {
+      return;
+    }
+    final AuthState authState = context.getTargetAuthState();
+    final AuthScheme authScheme = authState == null ? null : authState.getAuthScheme();
+    if (!(authScheme instanceof DigestScheme) || !authScheme.isComplete()) {
+      // No challenge, e.g. since the request has been authenticated with a cached nonce already
+      return;
+    }
+    final String nonce = ((DigestScheme) authScheme).getParameter("nonce");
+    final String key = getNonceCacheKey(httpUriRequest);
+    if (nonce != null && key != null) {
+      digestHandshakes.incrementAndGet();
+      nonceCache.put(key, new String[] { authScheme.getRealm(), nonce });
+    }
+  }
+
+  /**
+   * Consumes whatever is left of a response we are not going to hand out and closes it, so that its connection goes
+   * back to the pool.
+   *
+   * @param pooledResponse
+   *         The response to release, may be <code>null</code>.
+   */
+  private void releaseResponse(CloseableHttpResponse pooledResponse) {
+    if (pooledResponse == null) {
+      return;
+    }
+    EntityUtils.consumeQuietly(pooledResponse.getEntity());
+    try {
+      pooledResponse.close();
+    } catch (IOException e) {
+      logger.debug("Unable to close response", e);
+    }
+  }
+
   /**
    * If the request is a GET, sign the URL and return a new {@link HttpUriRequest} that is signed.
    *
@@ -463,8 +705,8 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
    *         The request to be made that isn't a GET, those are handled automatically.
    * @param response
    *         The response with the bad nonce timeout in it.
-   * @return A new response for the request if it was successful without the nonce timing out again or just the same
-   * response it got if it ran out of attempts.
+   * @return A new response for the request if it was successful without the nonce timing out again or just the
+   * response of the last attempt if it ran out of attempts.
    * @throws TrustedHttpClientException
    * @throws IOException
    * @throws ClientProtocolException
@@ -492,12 +734,14 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
           logger.error("Suffered InteruptedException while trying to sleep until next retry.", e);
         }
       }
-      manuallyHandleDigestAuthentication(httpUriRequest, httpClient);
-      response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
-      if (!hadNonceTimeoutResponse(response)) {
-        responseMap.put(response, httpClient);
-        break;
+      manuallyHandleDigestAuthentication(httpUriRequest, httpClient, false);
+      CloseableHttpResponse pooledResponse = httpClient.execute(httpUriRequest);
+      if (!hadNonceTimeoutResponse(pooledResponse) || i == nonceTimeoutRetries - 1) {
+        return registerResponse(pooledResponse, httpClient);
       }
+      response = pooledResponse;
+      invalidateCachedNonce(httpUriRequest);
+      releaseResponse(pooledResponse);
       httpClient.close();
     }
     return response;
@@ -511,10 +755,21 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
    * @return true if it has time out, false if it hasn't
    */
   private boolean hadNonceTimeoutResponse(HttpResponse response) {
-    return (401 == response.getStatusLine().getStatusCode())
+    return isUnauthorized(response)
             && ("Nonce has expired/timed out".equals(response.getStatusLine().getReasonPhrase()));
   }
 
+  /**
+   * Determines if a request has been rejected as unauthorized.
+   *
+   * @param response
+   *         The response to test.
+   * @return true if the response status is 401
+   */
+  private boolean isUnauthorized(HttpResponse response) {
+    return 401 == response.getStatusLine().getStatusCode();
+  }
+
   /**
    * Handles the necessary handshake for digest authenticaion in the case where it isn't a GET operation.
    *
@@ -522,33 +777,35 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
    *         The request location to get the digest authentication for.
    * @param httpClient
    *         The client to send the request through.
+   * @param useCachedNonce
+   *         Whether a cached nonce for the remote host may be used instead of performing the handshake.
+   * @return true if the request has been authenticated with a cached nonce
    * @throws TrustedHttpClientException
    *         Thrown if the client cannot be shutdown.
    */
-  private void manuallyHandleDigestAuthentication(HttpUriRequest httpUriRequest, CloseableHttpClient httpClient)
-          throws TrustedHttpClientException {
-    HttpRequestBase digestRequest;
-    try {
-      digestRequest = (HttpRequestBase) httpUriRequest.getClass().newInstance();
-    } catch (Exception e) {
-      throw new IllegalStateException("Can not create a new " + httpUriRequest.getClass().getName());
+  private boolean manuallyHandleDigestAuthentication(HttpUriRequest httpUriRequest, CloseableHttpClient httpClient,
+          boolean useCachedNonce) throws TrustedHttpClientException {
+    String[] realmAndNonce = useCachedNonce ? getCachedRealmAndNonce(httpUriRequest) : null;
+    final boolean cachedNonce = realmAndNonce != null;
+    if (!cachedNonce) {
+      HttpRequestBase digestRequest;
+      try {
+        digestRequest = (HttpRequestBase) httpUriRequest.getClass().newInstance();
+      } catch (Exception e) {
+        throw new IllegalStateException("Can not create a new " + httpUriRequest.getClass().getName());
+      }
+      digestRequest.setURI(httpUriRequest.getURI());
+      digestRequest.setHeader(REQUESTED_AUTH_HEADER, DIGEST_AUTH);
+      realmAndNonce = getRealmAndNonce(digestRequest);
+      if (realmAndNonce != null && nonceCacheEnabled && getNonceCacheKey(httpUriRequest) != null) {
+        nonceCache.put(getNonceCacheKey(httpUriRequest), realmAndNonce);
+      }
     }
-    digestRequest.setURI(httpUriRequest.getURI());
-    digestRequest.setHeader(REQUESTED_AUTH_HEADER, DIGEST_AUTH);
-    String[] realmAndNonce = getRealmAndNonce(digestRequest);
 
     if (realmAndNonce != null) {
-      // Set the user/pass
-      UsernamePasswordCredentials creds = new UsernamePasswordCredentials(user, pass);
-
-      // Set up the digest authentication with the required values
-      DigestScheme digestAuth = new DigestScheme();
-      digestAuth.overrideParamter("realm", realmAndNonce[0]);
-      digestAuth.overrideParamter("nonce", realmAndNonce[1]);
-
       // Add the authentication header
       try {
-        httpUriRequest.setHeader(digestAuth.authenticate(creds, httpUriRequest));
+        addDigestAuthorizationHeader(httpUriRequest, realmAndNonce);
       } catch (Exception e) {
         // close the http connection(s)
         try {
@@ -559,6 +816,101 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
         throw new TrustedHttpClientException(e);
       }
     }
+    return cachedNonce;
+  }
+
+  /**
+   * Adds the digest authentication header for the given realm and nonce to a request.
+   *
+   * @param httpUriRequest
+   *         The request to authenticate.
+   * @param realmAndNonce
+   *         The {realm, nonce} to authenticate with.
+   * @throws AuthenticationException
+   *         Thrown if the authentication header cannot be generated.
+   */
+  private void addDigestAuthorizationHeader(HttpUriRequest httpUriRequest, String[] realmAndNonce)
+          throws AuthenticationException {
+    // Set the user/pass
+    UsernamePasswordCredentials creds = new UsernamePasswordCredentials(user, pass);
+
+    // Set up the digest authentication with the required values
+    DigestScheme digestAuth = new DigestScheme();
+    digestAuth.overrideParamter("realm", realmAndNonce[0]);
+    digestAuth.overrideParamter("nonce", realmAndNonce[1]);
+    httpUriRequest.setHeader(digestAuth.authenticate(creds, httpUriRequest));
+  }
+
+  /**
+   * Adds a digest authentication header to a request if a nonce for its remote host is known.
+   *
+   * @param httpUriRequest
+   *         The request to authenticate.
+   * @return true if the request has been authenticated with a cached nonce
+   * @throws TrustedHttpClientException
+   *         Thrown if the authentication header cannot be generated.
+   */
+  private boolean authenticateWithCachedNonce(HttpUriRequest httpUriRequest) throws TrustedHttpClientException {
+    final String[] realmAndNonce = getCachedRealmAndNonce(httpUriRequest);
+    if (realmAndNonce == null) {
+      return false;
+    }
+    try {
+      addDigestAuthorizationHeader(httpUriRequest, realmAndNonce);
+    } catch (AuthenticationException e) {
+      throw new TrustedHttpClientException(e);
+    }
+    return true;
+  }
+
+  /**
+   * Looks up the last known realm and nonce of the remote host of a request. Requests with an entity that cannot be
+   * sent twice never use a cached nonce, since they could not be repeated if the nonce turns out to be stale.
+   *
+   * @param httpUriRequest
+   *         The request to look up the nonce for.
+   * @return The {realm, nonce} or <code>null</code> if none is known or it must not be used
+   */
+  private String[] getCachedRealmAndNonce(HttpUriRequest httpUriRequest) {
+    if (!nonceCacheEnabled) {
+      return null;
+    }
+    if (httpUriRequest instanceof HttpEntityEnclosingRequest) {
+      final HttpEntity entity = ((HttpEntityEnclosingRequest) httpUriRequest).getEntity();
+      if (entity != null && !entity.isRepeatable()) {
+        return null;
+      }
+    }
+    final String key = getNonceCacheKey(httpUriRequest);
+    final String[] realmAndNonce = key == null ? null : nonceCache.get(key);
+    if (realmAndNonce != null) {
+      nonceCacheHits.incrementAndGet();
+    }
+    return realmAndNonce;
+  }
+
+  /**
+   * Removes the cached nonce of the remote host of a request.
+   *
+   * @param httpUriRequest
+   *         The request whose nonce has been rejected.
+   */
+  private void invalidateCachedNonce(HttpUriRequest httpUriRequest) {
+    final String key = getNonceCacheKey(httpUriRequest);
+    if (key != null) {
+      nonceCache.remove(key);
+    }
+  }
+
+  /**
+   * @return the key of the remote host of a request in the nonce cache or <code>null</code> for relative requests
+   */
+  private String getNonceCacheKey(HttpUriRequest httpUriRequest) {
+    final URI uri = httpUriRequest.getURI();
+    if (uri == null || uri.getScheme() == null || uri.getRawAuthority() == null) {
+      return null;
+    }
+    return uri.getScheme().toLowerCase() + "://" + uri.getRawAuthority().toLowerCase();
   }
 
   /**
@@ -569,9 +921,17 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   @Override
   public void close(HttpResponse response) throws IOException {
     if (response != null) {
+      CloseableHttpResponse pooledResponse = pooledResponseMap.remove(response);
       CloseableHttpClient httpClient = responseMap.remove(response);
-      if (httpClient != null) {
-        httpClient.close();
+      try {
+        // Hands the connection back to the pool, or discards it if the response has not been fully consumed
+        if (pooledResponse != null) {
+          pooledResponse.close();
+        }
+      } finally {
+        if (httpClient != null) {
+          httpClient.close();
+        }
       }
     } else {
       logger.debug("Can not close a null response");
@@ -587,10 +947,11 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
    */
   protected String[] getRealmAndNonce(HttpRequestBase request) throws TrustedHttpClientException {
     CloseableHttpClient httpClient = makeHttpClientBuilder(DEFAULT_CONNECTION_TIMEOUT, DEFAULT_SOCKET_TIMEOUT).build();
-    HttpResponse response;
+    digestHandshakes.incrementAndGet();
     try {
+      CloseableHttpResponse response = null;
       try {
-        response = new HttpResponseWrapper(httpClient.execute(request));
+        response = httpClient.execute(request);
         Header[] headers = response.getHeaders("WWW-Authenticate");
         if (headers == null || headers.length == 0) {
           logger.warn("URI {} does not support digest authentication", request.getURI());
@@ -608,6 +969,7 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
         }
         return new String[]{realm, nonce};
       } finally {
+        releaseResponse(response);
         httpClient.close();
       }
     } catch (IOException e) {
@@ -620,6 +982,51 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     return responseMap.size();
   }
 
+  @Override
+  public int getLeasedPooledConnections() {
+    return connectionManager.getTotalStats().getLeased();
+  }
+
+  @Override
+  public int getAvailablePooledConnections() {
+    return connectionManager.getTotalStats().getAvailable();
+  }
+
+  @Override
+  public int getPendingPooledConnectionRequests() {
+    return connectionManager.getTotalStats().getPending();
+  }
+
+  @Override
+  public int getMaxPooledConnections() {
+    return connectionManager.getMaxTotal();
+  }
+
+  @Override
+  public Map<String, Integer> getLeasedPooledConnectionsPerHost() {
+    final Map<String, Integer> leased = new TreeMap<>();
+    for (HttpRoute route : connectionManager.getRoutes()) {
+      final PoolStats stats = connectionManager.getStats(route);
+      leased.put(route.getTargetHost().toURI(), stats.getLeased());
+    }
+    return leased;
+  }
+
+  @Override
+  public long getDigestNonceCacheHits() {
+    return nonceCacheHits.get();
+  }
+
+  @Override
+  public long getDigestHandshakes() {
+    return digestHandshakes.get();
+  }
+
+  @Override
+  public long getPooledConnectionTimeouts() {
+    return poolTimeouts.get();
+  }
+
   /**
    * @return Returns the number of times the TrustedHttpClient will retry a request if nonce timeouts are occuring.
    */
@@ -42,12 +42,15 @@ import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.ProtocolVersion;
+import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.auth.DigestScheme;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicHttpResponse;
@@ -131,6 +134,12 @@ public class TrustedHttpClientImplTest {
         .andReturn(new BasicStatusLine(new ProtocolVersion("Http", 1, 1), 401, "Nonce has expired/timed out"))
         .anyTimes();
     expect(nonceResponse.getHeaders("WWW-Authenticate")).andReturn(new Header[] {}).anyTimes();
+    // Responses are released to the connection pool
+    for (CloseableHttpResponse response : new CloseableHttpResponse[] { okResponse, digestResponse, nonceResponse }) {
+      expect(response.getEntity()).andReturn(null).anyTimes();
+      response.close();
+      EasyMock.expectLastCall().anyTimes();
+    }
     replay(okResponse, digestResponse, nonceResponse);
   }
 
@@ -534,6 +543,123 @@ public class TrustedHttpClientImplTest {
     Assert.assertEquals(200, response.getStatusLine().getStatusCode());
   }
 
+  @Test
+  public void cachedNonceIsReusedForSameHost() throws ClientProtocolException, IOException {
+    CloseableHttpClient httpClient = createMock(CloseableHttpClient.class);
+    // Digest handshake for the first request only
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
+    // First request
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    // Second request using the cached nonce
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    httpClient.close();
+    EasyMock.expectLastCall().anyTimes();
+    HttpClientBuilder httpClientBuilder = createNiceMock(HttpClientBuilder.class);
+    expect(httpClientBuilder.build()).andReturn(httpClient).anyTimes();
+    replay(httpClientBuilder, httpClient);
+    client = new TrustedHttpClientImpl("u", "p") {
+      @Override
+      public HttpClientBuilder makeHttpClientBuilder(int connectionTimeout, int socketTimeout) {
+        return httpClientBuilder;
+      }
+    };
+    client.setServiceRegistry(serviceRegistry);
+    client.setSecurityService(securityService);
+    client.activate(componentContextMock);
+
+    HttpPost first = new HttpPost("http://localhost:8080/fake");
+    client.close(client.execute(first));
+    HttpPost second = new HttpPost("http://localhost:8080/fake");
+    HttpResponse response = client.execute(second);
+    client.close(response);
+
+    Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+    Assert.assertNotNull(second.getFirstHeader(TrustedHttpClientImpl.AUTHORIZATION_HEADER_NAME));
+    Assert.assertEquals(1, client.getDigestHandshakes());
+    Assert.assertEquals(1, client.getDigestNonceCacheHits());
+    Assert.assertEquals(0, client.getOpenConnections());
+    verify(httpClient);
+  }
+
+  @Test
+  public void rejectedCachedNonceIsReplaced() throws ClientProtocolException, IOException {
+    CloseableHttpClient httpClient = createMock(CloseableHttpClient.class);
+    // Digest handshake and first request
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    // Second request with the cached nonce is rejected
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
+    // New digest handshake and second request without any retry delay
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    httpClient.close();
+    EasyMock.expectLastCall().anyTimes();
+    HttpClientBuilder httpClientBuilder = createNiceMock(HttpClientBuilder.class);
+    expect(httpClientBuilder.build()).andReturn(httpClient).anyTimes();
+    replay(httpClientBuilder, httpClient);
+    client = new TrustedHttpClientImpl("u", "p") {
+      @Override
+      public HttpClientBuilder makeHttpClientBuilder(int connectionTimeout, int socketTimeout) {
+        return httpClientBuilder;
+      }
+    };
+    client.setServiceRegistry(serviceRegistry);
+    client.setSecurityService(securityService);
+    client.activate(componentContextMock);
+
+    client.close(client.execute(new HttpPost("http://localhost:8080/fake")));
+    HttpResponse response = client.execute(new HttpPost("http://localhost:8080/fake"));
+
+    Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+    Assert.assertEquals(2, client.getDigestHandshakes());
+    verify(httpClient);
+  }
+
+  @Test
+  public void nonceOfGetHandshakeIsCached() throws Exception {
+    CloseableHttpClient httpClient = createMock(CloseableHttpClient.class);
+    // The http client performs the digest handshake of the GET request on its own
+    expect(httpClient.execute(isA(HttpUriRequest.class), isA(HttpClientContext.class))).andAnswer(() -> {
+      final DigestScheme digestScheme = new DigestScheme();
+      digestScheme.processChallenge(digestResponse.getHeaders("WWW-Authenticate")[0]);
+      ((HttpClientContext) EasyMock.getCurrentArguments()[1]).getTargetAuthState()
+          .update(digestScheme, new UsernamePasswordCredentials("u", "p"));
+      return okResponse;
+    });
+    // The POST request uses the nonce right away
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    httpClient.close();
+    EasyMock.expectLastCall().anyTimes();
+    HttpClientBuilder httpClientBuilder = createNiceMock(HttpClientBuilder.class);
+    expect(httpClientBuilder.setDefaultCredentialsProvider(EasyMock.anyObject())).andReturn(httpClientBuilder)
+        .anyTimes();
+    expect(httpClientBuilder.build()).andReturn(httpClient).anyTimes();
+    replay(httpClientBuilder, httpClient);
+    client = new TrustedHttpClientImpl("u", "p") {
+      @Override
+      public HttpClientBuilder makeHttpClientBuilder(int connectionTimeout, int socketTimeout) {
+        return httpClientBuilder;
+      }
+    };
+    client.setServiceRegistry(serviceRegistry);
+    client.setSecurityService(securityService);
+    UrlSigningService urlSigningService = createNiceMock(UrlSigningService.class);
+    replay(urlSigningService);
+    client.setUrlSigningService(urlSigningService);
+    client.activate(componentContextMock);
+
+    client.close(client.execute(new HttpGet("http://localhost:8080/fake")));
+    HttpPost post = new HttpPost("http://localhost:8080/fake");
+    client.close(client.execute(post));
+
+    Assert.assertNotNull(post.getFirstHeader(TrustedHttpClientImpl.AUTHORIZATION_HEADER_NAME));
+    Assert.assertTrue(post.getFirstHeader(TrustedHttpClientImpl.AUTHORIZATION_HEADER_NAME).getValue()
+        .contains("dcd98b7102dd2f0e8b11d0f600bfb0c093"));
+    Assert.assertEquals(1, client.getDigestHandshakes());
+    Assert.assertEquals(1, client.getDigestNonceCacheHits());
+    verify(httpClient);
+  }
+
   @Test
   public void testNotAcceptsUrlSigningService() throws IOException {
     bundleContextMock = createNiceMock(BundleContext.class);
@@ -558,7 +684,7 @@ public class TrustedHttpClientImplTest {
 
     // Setup Http Client
     CloseableHttpClient httpClient = createMock(CloseableHttpClient.class);
-    expect(httpClient.execute(EasyMock.capture(request))).andReturn(okResponse);
+    expect(httpClient.execute(EasyMock.capture(request), isA(HttpClientContext.class))).andReturn(okResponse);
     httpClient.close();
     EasyMock.expectLastCall().anyTimes();
     HttpClientBuilder httpClientBuilder = createNiceMock(HttpClientBuilder.class);
@@ -593,7 +719,7 @@ public class TrustedHttpClientImplTest {
 
     // Setup Http Client
     CloseableHttpClient httpClient = createMock(CloseableHttpClient.class);
-    expect(httpClient.execute(EasyMock.capture(request))).andReturn(okResponse);
+    expect(httpClient.execute(EasyMock.capture(request), isA(HttpClientContext.class))).andReturn(okResponse);
     httpClient.close();
     EasyMock.expectLastCall().anyTimes();
     HttpClientBuilder httpClientBuilder = createNiceMock(HttpClientBuilder.class);
@@ -0,0 +1,76 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediaanalysis.api;
+
+import org.opencastproject.mediapackage.MediaPackageElement;
+
+/**
+ * The analyses the {@link MediaAnalysisService} can run on a track.
+ * <p>
+ * Each resulting media package element is flavored with the type of the analyzed track and the subtype of the
+ * analysis, so that callers can tell the results apart.
+ */
+public enum MediaAnalysis {
+
+  /** A waveform image of the audio, as created by the waveform service */
+  WAVEFORM("waveform", false),
+
+  /** A SMIL catalog with the non-silent segments of the audio, as created by the silence detection service */
+  SILENCE("silence", false),
+
+  /** A single image containing the timeline preview images, as created by the timeline previews service */
+  TIMELINE_PREVIEWS("timeline-previews", true),
+
+  /** An MPEG-7 catalog with the segments between scene changes, as created by the video segmenter service */
+  SEGMENTS("segments", true);
+
+  private final String flavorSubtype;
+
+  private final boolean video;
+
+  MediaAnalysis(String flavorSubtype, boolean video) {
+    this.flavorSubtype = flavorSubtype;
+    this.video = video;
+  }
+
+  /** Returns the flavor subtype of the media package element resulting from this analysis. */
+  public String getFlavorSubtype() {
+    return flavorSubtype;
+  }
+
+  /** Returns whether this analysis needs a video stream rather than an audio stream. */
+  public boolean isVideo() {
+    return video;
+  }
+
+  /**
+   * Returns whether the given media package element results from this analysis.
+   *
+   * @param element
+   *          the media package element returned by the {@link MediaAnalysisService}
+   * @return whether the element results from this analysis
+   */
+  public boolean isResult(MediaPackageElement element) {
+    return element.getFlavor() != null && flavorSubtype.equals(element.getFlavor().getSubtype());
+  }
+
+}
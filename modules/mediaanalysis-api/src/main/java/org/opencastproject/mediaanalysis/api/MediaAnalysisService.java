@@ -0,0 +1,61 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediaanalysis.api;
+
+import org.opencastproject.job.api.Job;
+import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.mediapackage.Track;
+
+import java.util.Set;
+
+/**
+ * This is an api for a service that runs several analyses on a track while decoding it only once.
+ * <p>
+ * The results are compatible with those of the waveform, silence detection, timeline previews and video segmenter
+ * services, but the track is read and decoded by a single process instead of once per service.
+ */
+public interface MediaAnalysisService {
+
+  /** Job type */
+  String JOB_TYPE = "org.opencastproject.mediaanalysis";
+
+  /**
+   * Takes the given track and returns the job that will run the given analyses on it. Analyses requiring a stream the
+   * track does not have are skipped. The job payload is the list of resulting media package elements, each flavored
+   * as described by {@link MediaAnalysis}.
+   *
+   * @param track
+   *          the track to analyze
+   * @param analyses
+   *          the analyses to run
+   * @param imageCount
+   *          the number of timeline preview images to generate
+   * @return a job that will analyze the track
+   * @throws MediaPackageException
+   *           if the serialization of the given track fails
+   * @throws MediaAnalysisException
+   *           if the job can't be created for any reason
+   */
+  Job analyze(Track track, Set<MediaAnalysis> analyses, int imageCount)
+          throws MediaPackageException, MediaAnalysisException;
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediaanalysis.endpoint;
+
+import org.opencastproject.job.api.JaxbJob;
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobProducer;
+import org.opencastproject.mediaanalysis.api.MediaAnalysis;
+import org.opencastproject.mediaanalysis.api.MediaAnalysisException;
+import org.opencastproject.mediaanalysis.api.MediaAnalysisService;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.rest.AbstractJobProducerEndpoint;
+import org.opencastproject.serviceregistry.api.ServiceRegistry;
+import org.opencastproject.util.doc.rest.RestParameter;
+import org.opencastproject.util.doc.rest.RestQuery;
+import org.opencastproject.util.doc.rest.RestResponse;
+import org.opencastproject.util.doc.rest.RestService;
+
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * The REST endpoint for the {@link MediaAnalysisService} service
+ */
+@Path("/")
+@RestService(
+    name = "MediaAnalysisEndpoint",
+    title = "Media Analysis Service REST Endpoint",
+    abstractText = "This service creates waveform images, silence segments, timeline preview images and scene "
+        + "segments from a media file while decoding it only once.",
+    notes = {
+        "All paths above are relative to the REST endpoint base (something like http://your.server/files)",
+        "If the service is down or not working it will return a status 503, this means the the "
+            + "underlying service is not working and is either restarting or has failed",
+        "A status code 500 means a general failure has occurred which is not recoverable and was "
+            + "not anticipated. In other words, there is a bug! You should file an error report "
+            + "with your server logs from the time when the error occurred: "
+            + "<a href=\"https://github.com/opencast/opencast/issues\">Opencast Issue Tracker</a>"
+    }
+)
+@Component(
+    immediate = true,
+    service = MediaAnalysisRestEndpoint.class,
+    property = {
+        "service.description=Media Analysis REST Endpoint",
+        "opencast.service.type=org.opencastproject.mediaanalysis",
+        "opencast.service.path=/mediaanalysis",
+        "opencast.service.jobproducer=true"
+    }
+)
+public class MediaAnalysisRestEndpoint extends AbstractJobProducerEndpoint {
+
+  /** The logger */
+  private static final Logger logger = LoggerFactory.getLogger(MediaAnalysisRestEndpoint.class);
+
+  /** The media analysis service */
+  protected MediaAnalysisService service;
+
+  /** The service registry */
+  protected ServiceRegistry serviceRegistry = null;
+
+  /**
+   * Callback from the OSGi declarative services to set the service registry.
+   *
+   * @param serviceRegistry
+   *          the service registry
+   */
+  @Reference
+  protected void setServiceRegistry(ServiceRegistry serviceRegistry) {
+    this.serviceRegistry = serviceRegistry;
+  }
+
+  /**
+   * Sets the media analysis service
+   *
+   * @param mediaAnalysisService
+   *          the media analysis service
+   */
+  @Reference
+  protected void setMediaAnalysisService(MediaAnalysisService mediaAnalysisService) {
+    this.service = mediaAnalysisService;
+  }
+
+  /**
+   * Analyzes a track.
+   *
+   * @param trackAsXml
+   *          the track xml to analyze
+   * @param analysesParam
+   *          the comma separated analyses to run
+   * @param imageCount
+   *          the number of timeline preview images
+   * @return the job in the body of a JAX-RS response
+   * @throws Exception
+   */
+  @POST
+  @Path("/analyze")
+  @Produces(MediaType.TEXT_XML)
+  @RestQuery(name = "analyze", description = "Run several analyses on the given track, decoding it only once.",
+          restParameters = {
+            @RestParameter(description = "The track to analyze.",
+                    isRequired = true, name = "track", type = RestParameter.Type.FILE),
+            @RestParameter(description = "The comma separated analyses to run, out of WAVEFORM, SILENCE, "
+                    + "TIMELINE_PREVIEWS and SEGMENTS.",
+                    isRequired = true, name = "analyses", type = RestParameter.Type.STRING),
+            @RestParameter(description = "The number of timeline preview images to generate.",
+                    isRequired = false, name = "imageCount", type = RestParameter.Type.INTEGER,
+                    defaultValue = "100")
+          },
+          responses = {
+            @RestResponse(description = "Media analysis job successfully created",
+                    responseCode = HttpServletResponse.SC_OK),
+            @RestResponse(description = "The given track or analyses can't be parsed.",
+                    responseCode = HttpServletResponse.SC_BAD_REQUEST),
+            @RestResponse(description = "Internal server error.",
+                    responseCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR)
+          },
+          returnDescription = "The job ID to use when polling for the resulting media package elements.")
+  public Response analyze(@FormParam("track") String trackAsXml, @FormParam("analyses") String analysesParam,
+          @FormParam("imageCount") Integer imageCount) throws Exception {
+    // Ensure that the POST parameters are present
+    if (StringUtils.isBlank(trackAsXml) || StringUtils.isBlank(analysesParam)) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("track and analyses must not be null").build();
+    }
+
+    // Deserialize the track
+    MediaPackageElement sourceTrack = MediaPackageElementParser.getFromXml(trackAsXml);
+    if (!Track.TYPE.equals(sourceTrack.getElementType())) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("mediapackage element must be of type track").build();
+    }
+
+    Set<MediaAnalysis> analyses = EnumSet.noneOf(MediaAnalysis.class);
+    try {
+      for (String analysis : StringUtils.split(analysesParam, ',')) {
+        analyses.add(MediaAnalysis.valueOf(StringUtils.trim(analysis)));
+      }
+    } catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("unknown analysis in " + analysesParam).build();
+    }
+
+    try {
+      Job job = service.analyze((Track) sourceTrack, analyses, imageCount == null ? 100 : imageCount);
+      return Response.ok().entity(new JaxbJob(job)).build();
+    } catch (MediaAnalysisException e) {
+      logger.warn("Analysis of track failed: {}", e.getMessage());
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @Override
+  public JobProducer getService() {
+    if (service instanceof JobProducer) {
+      return (JobProducer) service;
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public ServiceRegistry getServiceRegistry() {
+    return serviceRegistry;
+  }
+
+}
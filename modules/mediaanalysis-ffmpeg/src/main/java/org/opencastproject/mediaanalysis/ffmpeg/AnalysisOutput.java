@@ -0,0 +1,212 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediaanalysis.ffmpeg;
+
+import org.opencastproject.mediaanalysis.api.MediaAnalysisException;
+import org.opencastproject.silencedetection.api.MediaSegment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The silences and scene change scores of a track, as printed by the FFmpeg <code>silencedetect</code> and
+ * <code>metadata</code> filters of a single analysis run.
+ * <p>
+ * The voice segments and scene changes are derived the same way the silence detection and video segmenter services
+ * derive them from the output of their own FFmpeg runs.
+ */
+public final class AnalysisOutput {
+
+  /** Start of a silence printed by the FFmpeg silencedetect filter */
+  private static final Pattern SILENCE_START = Pattern.compile("silence_start: (-?\\d+(\\.\\d+)?)");
+
+  /** End of a silence printed by the FFmpeg silencedetect filter */
+  private static final Pattern SILENCE_END = Pattern.compile("silence_end: (-?\\d+(\\.\\d+)?)");
+
+  /** Frame information printed by the FFmpeg metadata filter */
+  private static final Pattern FRAME = Pattern.compile("pts_time:(-?\\d+(\\.\\d+)?)");
+
+  /** Scene score printed by the FFmpeg metadata filter */
+  private static final Pattern SCORE = Pattern.compile("lavfi\\.scene_score=(\\d+(\\.\\d+)?)");
+
+  /** The silence starts and ends in milliseconds in the order they have been printed */
+  private final long[] silences;
+
+  /** Whether each of the silences marks the end of a silence */
+  private final boolean[] silenceEnds;
+
+  /** The presentation time of each frame with a scene score in milliseconds */
+  private final long[] times;
+
+  /** The scene change score of each frame */
+  private final float[] scores;
+
+  private AnalysisOutput(long[] silences, boolean[] silenceEnds, long[] times, float[] scores) {
+    this.silences = silences;
+    this.silenceEnds = silenceEnds;
+    this.times = times;
+    this.scores = scores;
+  }
+
+  /**
+   * Parses the output of an FFmpeg run with the <code>silencedetect</code> filter and the <code>metadata</code> filter
+   * printing the scene scores of the frames selected before, e.g.:
+   *
+   * <pre>
+   * [silencedetect @ 0x2968e40] silence_start: 466.486
+   * [silencedetect @ 0x2968e40] silence_end: 469.322 | silence_duration: 2.83592
+   * [Parsed_metadata_7 @ 0x55d0c8a0f780] frame:41   pts:42000   pts_time:1.68
+   * [Parsed_metadata_7 @ 0x55d0c8a0f780] lavfi.scene_score=0.374207
+   * </pre>
+   *
+   * Other lines are ignored.
+   *
+   * @param reader
+   *          the FFmpeg output
+   * @return the parsed output
+   * @throws IOException
+   *           if the output cannot be read
+   * @throws MediaAnalysisException
+   *           if the output cannot be parsed
+   */
+  public static AnalysisOutput parse(BufferedReader reader) throws IOException, MediaAnalysisException {
+    long[] silences = new long[64];
+    boolean[] silenceEnds = new boolean[64];
+    int silenceCount = 0;
+    long[] times = new long[1024];
+    float[] scores = new float[1024];
+    int size = 0;
+    long time = -1;
+    String line;
+    try {
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("[silencedetect ")) {
+          Matcher matcher = SILENCE_END.matcher(line);
+          boolean end = matcher.find();
+          if (!end) {
+            matcher = SILENCE_START.matcher(line);
+            if (!matcher.find()) {
+              continue;
+            }
+          }
+          if (silenceCount == silences.length) {
+            silences = Arrays.copyOf(silences, silenceCount * 2);
+            silenceEnds = Arrays.copyOf(silenceEnds, silenceCount * 2);
+          }
+          silences[silenceCount] = (long) (Double.parseDouble(matcher.group(1)) * 1000);
+          silenceEnds[silenceCount] = end;
+          silenceCount++;
+        } else if (line.startsWith("[Parsed_metadata")) {
+          Matcher matcher = FRAME.matcher(line);
+          if (matcher.find()) {
+            time = Math.round(Float.parseFloat(matcher.group(1)) * 1000);
+            continue;
+          }
+          matcher = SCORE.matcher(line);
+          if (matcher.find() && time >= 0) {
+            if (size == times.length) {
+              times = Arrays.copyOf(times, size * 2);
+              scores = Arrays.copyOf(scores, size * 2);
+            }
+            times[size] = time;
+            scores[size] = Float.parseFloat(matcher.group(1));
+            size++;
+            time = -1;
+          }
+        }
+      }
+    } catch (NumberFormatException e) {
+      throw new MediaAnalysisException("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
+    }
+    return new AnalysisOutput(Arrays.copyOf(silences, silenceCount), Arrays.copyOf(silenceEnds, silenceCount),
+            Arrays.copyOf(times, size), Arrays.copyOf(scores, size));
+  }
+
+  /**
+   * Returns the non-silent segments of the track the same way the silence detection service does.
+   *
+   * @param minVoiceLength
+   *          the minimum length of a non-silent segment in milliseconds
+   * @param preSilenceLength
+   *          the length of the silence to include before a non-silent segment in milliseconds
+   * @param duration
+   *          the duration of the track in milliseconds
+   * @return the non-silent segments
+   */
+  public List<MediaSegment> getVoiceSegments(long minVoiceLength, long preSilenceLength, long duration) {
+    List<MediaSegment> segments = new LinkedList<>();
+    if (silences.length == 0) {
+      return segments;
+    }
+    long lastSilenceEnd = 0;
+    long lastSilenceStart = 0;
+    for (int i = 0; i < silences.length; i++) {
+      if (silenceEnds[i]) {
+        lastSilenceEnd = Math.max(lastSilenceEnd, silences[i]);
+        continue;
+      }
+      lastSilenceStart = silences[i];
+      if (lastSilenceStart - lastSilenceEnd > minVoiceLength) {
+        segments.add(new MediaSegment(Math.max(0, lastSilenceEnd - preSilenceLength), lastSilenceStart));
+      }
+    }
+    // Add last segment if it is no silence and the segment is long enough
+    if (lastSilenceStart < lastSilenceEnd && duration - lastSilenceEnd > minVoiceLength) {
+      segments.add(new MediaSegment(Math.max(0, lastSilenceEnd - preSilenceLength), duration));
+    }
+    return segments;
+  }
+
+  /**
+   * Returns the times of the frames whose scene score is greater than the given threshold, ignoring scene changes
+   * within the given minimum segment length after the previous scene change.
+   *
+   * @param threshold
+   *          the changes threshold
+   * @param minSegmentLength
+   *          the minimum length of a segment in milliseconds
+   * @return the times of the scene changes in milliseconds
+   */
+  public List<Long> getSceneChanges(float threshold, long minSegmentLength) {
+    List<Long> changes = new ArrayList<>();
+    long start = 0;
+    for (int i = 0; i < times.length; i++) {
+      if (scores[i] > threshold && times[i] - start > minSegmentLength) {
+        changes.add(times[i]);
+        start = times[i];
+      }
+    }
+    return changes;
+  }
+
+  /** Returns the number of frames with a scene score. */
+  public int getFrameCount() {
+    return times.length;
+  }
+
+}
@@ -0,0 +1,763 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediaanalysis.ffmpeg;
+
+import org.opencastproject.job.api.AbstractJobProducer;
+import org.opencastproject.job.api.Job;
+import org.opencastproject.mediaanalysis.api.MediaAnalysis;
+import org.opencastproject.mediaanalysis.api.MediaAnalysisException;
+import org.opencastproject.mediaanalysis.api.MediaAnalysisService;
+import org.opencastproject.mediapackage.Attachment;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElementBuilder;
+import org.opencastproject.mediapackage.MediaPackageElementBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageElementFlavor;
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.mediapackage.identifier.IdImpl;
+import org.opencastproject.metadata.mpeg7.MediaLocatorImpl;
+import org.opencastproject.metadata.mpeg7.MediaRelTimeImpl;
+import org.opencastproject.metadata.mpeg7.Mpeg7Catalog;
+import org.opencastproject.metadata.mpeg7.Mpeg7CatalogService;
+import org.opencastproject.metadata.mpeg7.Segment;
+import org.opencastproject.metadata.mpeg7.Video;
+import org.opencastproject.security.api.OrganizationDirectoryService;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.UserDirectoryService;
+import org.opencastproject.serviceregistry.api.ServiceRegistry;
+import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.silencedetection.api.MediaSegment;
+import org.opencastproject.smil.api.SmilResponse;
+import org.opencastproject.smil.api.SmilService;
+import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.LoadUtil;
+import org.opencastproject.util.MimeTypes;
+import org.opencastproject.util.NotFoundException;
+import org.opencastproject.workspace.api.Workspace;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.cm.ConfigurationException;
+import org.osgi.service.cm.ManagedService;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Media analysis service running the waveform, silence detection, timeline previews and scene detection analyses of a
+ * track in a single FFmpeg process.
+ * <p>
+ * The track is decoded once and its audio and video streams are split within a filter graph, feeding each analysis
+ * filter with the same decoded frames. The resulting media package elements are created the same way the waveform,
+ * silence detection, timeline previews and video segmenter services create them.
+ */
+@Component(
+    immediate = true,
+    service = { MediaAnalysisService.class, ManagedService.class },
+    property = {
+        "service.description=Media Analysis Service"
+    }
+)
+public class MediaAnalysisServiceImpl extends AbstractJobProducer implements MediaAnalysisService, ManagedService {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(MediaAnalysisServiceImpl.class);
+
+  /** The workspace collection the analysis results are put into */
+  public static final String COLLECTION_ID = "mediaanalysis";
+
+  /** List of available operations on jobs */
+  enum Operation {
+    Analyze
+  };
+
+  public static final String FFMPEG_BINARY_CONFIG_KEY = "org.opencastproject.composer.ffmpeg.path";
+
+  public static final String DEFAULT_FFMPEG_BINARY = "ffmpeg";
+
+  public static final String JOB_LOAD_CONFIG_KEY = "job.load.mediaanalysis";
+
+  public static final float DEFAULT_JOB_LOAD = 0.4f;
+
+  public static final String WAVEFORM_PIXELS_PER_MINUTE_CONFIG_KEY = "waveform.pixels.per.minute";
+
+  public static final int DEFAULT_WAVEFORM_PIXELS_PER_MINUTE = 200;
+
+  public static final String WAVEFORM_MIN_WIDTH_CONFIG_KEY = "waveform.min.width";
+
+  public static final int DEFAULT_WAVEFORM_MIN_WIDTH = 5000;
+
+  public static final String WAVEFORM_MAX_WIDTH_CONFIG_KEY = "waveform.max.width";
+
+  public static final int DEFAULT_WAVEFORM_MAX_WIDTH = 20000;
+
+  public static final String WAVEFORM_HEIGHT_CONFIG_KEY = "waveform.height";
+
+  public static final int DEFAULT_WAVEFORM_HEIGHT = 500;
+
+  public static final String WAVEFORM_COLOR_CONFIG_KEY = "waveform.color";
+
+  public static final String[] DEFAULT_WAVEFORM_COLOR = { "black" };
+
+  public static final String WAVEFORM_SPLIT_CHANNELS_CONFIG_KEY = "waveform.split.channels";
+
+  public static final boolean DEFAULT_WAVEFORM_SPLIT_CHANNELS = false;
+
+  public static final String WAVEFORM_SCALE_CONFIG_KEY = "waveform.scale";
+
+  public static final String DEFAULT_WAVEFORM_SCALE = "lin";
+
+  public static final String SILENCE_THRESHOLD_DB_CONFIG_KEY = "silence.threshold.db";
+
+  public static final String DEFAULT_SILENCE_THRESHOLD_DB = "-40dB";
+
+  public static final String SILENCE_MIN_LENGTH_CONFIG_KEY = "silence.min.length";
+
+  public static final long DEFAULT_SILENCE_MIN_LENGTH = 5000L;
+
+  public static final String SILENCE_PRE_LENGTH_CONFIG_KEY = "silence.pre.length";
+
+  public static final long DEFAULT_SILENCE_PRE_LENGTH = 2000L;
+
+  public static final String VOICE_MIN_LENGTH_CONFIG_KEY = "voice.min.length";
+
+  public static final long DEFAULT_VOICE_MIN_LENGTH = 60000L;
+
+  public static final String PREVIEWS_RESOLUTION_X_CONFIG_KEY = "timelinepreviews.resolution.x";
+
+  public static final int DEFAULT_PREVIEWS_RESOLUTION_X = 160;
+
+  public static final String PREVIEWS_RESOLUTION_Y_CONFIG_KEY = "timelinepreviews.resolution.y";
+
+  public static final int DEFAULT_PREVIEWS_RESOLUTION_Y = -1;
+
+  public static final String SEGMENTS_CHANGES_THRESHOLD_CONFIG_KEY = "segments.changes.threshold";
+
+  public static final float DEFAULT_SEGMENTS_CHANGES_THRESHOLD = 0.025f;
+
+  public static final String SEGMENTS_STABILITY_THRESHOLD_CONFIG_KEY = "segments.stability.threshold";
+
+  public static final int DEFAULT_SEGMENTS_STABILITY_THRESHOLD = 60;
+
+  /** Tracks longer than this are only sampled at key frames for timeline previews if no scene detection is needed */
+  private static final double PREVIEWS_KEYFRAMES_ONLY_DURATION = 15 * 60.0;
+
+  private String binary = DEFAULT_FFMPEG_BINARY;
+
+  private float jobLoad = DEFAULT_JOB_LOAD;
+
+  private int waveformPixelsPerMinute = DEFAULT_WAVEFORM_PIXELS_PER_MINUTE;
+
+  private int waveformMinWidth = DEFAULT_WAVEFORM_MIN_WIDTH;
+
+  private int waveformMaxWidth = DEFAULT_WAVEFORM_MAX_WIDTH;
+
+  private int waveformHeight = DEFAULT_WAVEFORM_HEIGHT;
+
+  private String[] waveformColor = DEFAULT_WAVEFORM_COLOR;
+
+  private boolean waveformSplitChannels = DEFAULT_WAVEFORM_SPLIT_CHANNELS;
+
+  private String waveformScale = DEFAULT_WAVEFORM_SCALE;
+
+  private String silenceThresholdDb = DEFAULT_SILENCE_THRESHOLD_DB;
+
+  private long silenceMinLength = DEFAULT_SILENCE_MIN_LENGTH;
+
+  private long silencePreLength = DEFAULT_SILENCE_PRE_LENGTH;
+
+  private long voiceMinLength = DEFAULT_VOICE_MIN_LENGTH;
+
+  private int previewsResolutionX = DEFAULT_PREVIEWS_RESOLUTION_X;
+
+  private int previewsResolutionY = DEFAULT_PREVIEWS_RESOLUTION_Y;
+
+  private float segmentsChangesThreshold = DEFAULT_SEGMENTS_CHANGES_THRESHOLD;
+
+  private int segmentsStabilityThreshold = DEFAULT_SEGMENTS_STABILITY_THRESHOLD;
+
+  private ServiceRegistry serviceRegistry = null;
+
+  private Workspace workspace = null;
+
+  private SmilService smilService = null;
+
+  private Mpeg7CatalogService mpeg7CatalogService = null;
+
+  private SecurityService securityService = null;
+
+  private UserDirectoryService userDirectoryService = null;
+
+  private OrganizationDirectoryService organizationDirectoryService = null;
+
+  public MediaAnalysisServiceImpl() {
+    super(JOB_TYPE);
+  }
+
+  @Override
+  @Activate
+  public void activate(ComponentContext cc) {
+    super.activate(cc);
+    logger.info("Activate ffmpeg media analysis service");
+    final String path = cc.getBundleContext().getProperty(FFMPEG_BINARY_CONFIG_KEY);
+    binary = (path == null ? DEFAULT_FFMPEG_BINARY : path);
+    logger.debug("ffmpeg binary set to {}", binary);
+  }
+
+  @Override
+  public void updated(Dictionary<String, ?> properties) throws ConfigurationException {
+    if (properties == null) {
+      return;
+    }
+    logger.debug("Configuring the media analysis service");
+    jobLoad = LoadUtil.getConfiguredLoadValue(properties, JOB_LOAD_CONFIG_KEY, DEFAULT_JOB_LOAD, serviceRegistry);
+
+    waveformPixelsPerMinute = getInt(properties, WAVEFORM_PIXELS_PER_MINUTE_CONFIG_KEY,
+            DEFAULT_WAVEFORM_PIXELS_PER_MINUTE);
+    waveformMinWidth = getInt(properties, WAVEFORM_MIN_WIDTH_CONFIG_KEY, DEFAULT_WAVEFORM_MIN_WIDTH);
+    waveformMaxWidth = getInt(properties, WAVEFORM_MAX_WIDTH_CONFIG_KEY, DEFAULT_WAVEFORM_MAX_WIDTH);
+    waveformHeight = getInt(properties, WAVEFORM_HEIGHT_CONFIG_KEY, DEFAULT_WAVEFORM_HEIGHT);
+    String color = StringUtils.trimToNull((String) properties.get(WAVEFORM_COLOR_CONFIG_KEY));
+    waveformColor = color == null ? DEFAULT_WAVEFORM_COLOR : StringUtils.split(color, ", |:;");
+    String splitChannels = StringUtils.trimToNull((String) properties.get(WAVEFORM_SPLIT_CHANNELS_CONFIG_KEY));
+    waveformSplitChannels = splitChannels == null ? DEFAULT_WAVEFORM_SPLIT_CHANNELS
+            : Boolean.parseBoolean(splitChannels);
+    String scale = StringUtils.trimToNull((String) properties.get(WAVEFORM_SCALE_CONFIG_KEY));
+    if (scale != null && !"lin".equals(scale) && !"log".equals(scale)) {
+      throw new ConfigurationException(WAVEFORM_SCALE_CONFIG_KEY, "Found illegal value '" + scale
+              + "' for the waveform scale, expected lin or log");
+    }
+    waveformScale = scale == null ? DEFAULT_WAVEFORM_SCALE : scale;
+
+    String thresholdDb = StringUtils.trimToNull((String) properties.get(SILENCE_THRESHOLD_DB_CONFIG_KEY));
+    silenceThresholdDb = thresholdDb == null ? DEFAULT_SILENCE_THRESHOLD_DB : thresholdDb;
+    silenceMinLength = getInt(properties, SILENCE_MIN_LENGTH_CONFIG_KEY, (int) DEFAULT_SILENCE_MIN_LENGTH);
+    silencePreLength = getInt(properties, SILENCE_PRE_LENGTH_CONFIG_KEY, (int) DEFAULT_SILENCE_PRE_LENGTH);
+    voiceMinLength = getInt(properties, VOICE_MIN_LENGTH_CONFIG_KEY, (int) DEFAULT_VOICE_MIN_LENGTH);
+    if (silencePreLength > silenceMinLength) {
+      throw new ConfigurationException(SILENCE_PRE_LENGTH_CONFIG_KEY,
+              "The pre silence length must not be greater than the minimum silence length");
+    }
+
+    previewsResolutionX = getInt(properties, PREVIEWS_RESOLUTION_X_CONFIG_KEY, DEFAULT_PREVIEWS_RESOLUTION_X);
+    previewsResolutionY = getInt(properties, PREVIEWS_RESOLUTION_Y_CONFIG_KEY, DEFAULT_PREVIEWS_RESOLUTION_Y);
+
+    String threshold = StringUtils.trimToNull((String) properties.get(SEGMENTS_CHANGES_THRESHOLD_CONFIG_KEY));
+    try {
+      segmentsChangesThreshold = threshold == null ? DEFAULT_SEGMENTS_CHANGES_THRESHOLD : Float.parseFloat(threshold);
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(SEGMENTS_CHANGES_THRESHOLD_CONFIG_KEY, "Found illegal value '" + threshold
+              + "' for the changes threshold");
+    }
+    segmentsStabilityThreshold = getInt(properties, SEGMENTS_STABILITY_THRESHOLD_CONFIG_KEY,
+            DEFAULT_SEGMENTS_STABILITY_THRESHOLD);
+  }
+
+  private static int getInt(Dictionary<String, ?> properties, String key, int defaultValue)
+          throws ConfigurationException {
+    String value = StringUtils.trimToNull((String) properties.get(key));
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(key, "Found illegal value '" + value + "'");
+    }
+  }
+
+  @Override
+  public Job analyze(Track track, Set<MediaAnalysis> analyses, int imageCount)
+          throws MediaPackageException, MediaAnalysisException {
+    if (analyses.contains(MediaAnalysis.TIMELINE_PREVIEWS) && imageCount < 1) {
+      throw new MediaAnalysisException("The number of timeline preview images must be positive");
+    }
+    try {
+      return serviceRegistry.createJob(jobType, Operation.Analyze.toString(),
+          Arrays.asList(
+              MediaPackageElementParser.getAsXml(track),
+              analyses.stream().map(MediaAnalysis::name).collect(Collectors.joining(",")),
+              Integer.toString(imageCount)
+          ),
+          jobLoad
+      );
+    } catch (ServiceRegistryException e) {
+      throw new MediaAnalysisException("Unable to create media analysis job", e);
+    }
+  }
+
+  @Override
+  protected String process(Job job) throws Exception {
+    Operation op = null;
+    String operation = job.getOperation();
+    List<String> arguments = job.getArguments();
+    try {
+      op = Operation.valueOf(operation);
+      switch (op) {
+        case Analyze:
+          Track track = (Track) MediaPackageElementParser.getFromXml(arguments.get(0));
+          Set<MediaAnalysis> analyses = EnumSet.noneOf(MediaAnalysis.class);
+          for (String analysis : StringUtils.split(arguments.get(1), ',')) {
+            analyses.add(MediaAnalysis.valueOf(analysis));
+          }
+          int imageCount = Integer.parseInt(arguments.get(2));
+          return MediaPackageElementParser.getArrayAsXml(analyze(job, track, analyses, imageCount));
+        default:
+          throw new ServiceRegistryException("This service can't handle operations of type '" + op + "'");
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new ServiceRegistryException("This argument list for operation '" + op + "' does not meet expectations", e);
+    } catch (MediaPackageException | MediaAnalysisException e) {
+      throw new ServiceRegistryException("Error handling operation '" + op + "'", e);
+    }
+  }
+
+  /**
+   * Runs the given analyses on a track in a single FFmpeg process.
+   *
+   * @param job
+   *          the job running the analyses
+   * @param track
+   *          the track to analyze
+   * @param requested
+   *          the analyses to run
+   * @param imageCount
+   *          the number of timeline preview images
+   * @return the resulting media package elements
+   */
+  private List<MediaPackageElement> analyze(Job job, Track track, Set<MediaAnalysis> requested, int imageCount)
+          throws MediaAnalysisException, MediaPackageException {
+    if (track.getDuration() == null) {
+      throw new MediaPackageException("Track " + track + " does not have a duration");
+    }
+
+    // Skip the analyses the track has no stream for
+    Set<MediaAnalysis> analyses = EnumSet.noneOf(MediaAnalysis.class);
+    for (MediaAnalysis analysis : requested) {
+      if (analysis.isVideo() ? track.hasVideo() : track.hasAudio()) {
+        analyses.add(analysis);
+      } else {
+        logger.info("Skipping {} analysis of track {} without {} stream", analysis, track.getIdentifier(),
+                analysis.isVideo() ? "video" : "audio");
+      }
+    }
+    if (analyses.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    File mediaFile;
+    try {
+      mediaFile = workspace.get(track.getURI());
+    } catch (NotFoundException e) {
+      throw new MediaAnalysisException("Error finding the media file in the workspace", e);
+    } catch (IOException e) {
+      throw new MediaAnalysisException("Error reading the media file in the workspace", e);
+    }
+
+    double duration = track.getDuration() / 1000.0;
+    int tiles = (int) Math.ceil(Math.sqrt(imageCount));
+    double previewInterval = duration / imageCount;
+    previewInterval = previewInterval <= 0.0 ? 1.0 : previewInterval;
+
+    // Image outputs of the filter graph
+    Map<MediaAnalysis, File> images = new LinkedHashMap<>();
+    String basePath = FilenameUtils.removeExtension(mediaFile.getAbsolutePath()) + '-' + UUID.randomUUID();
+    if (analyses.contains(MediaAnalysis.WAVEFORM)) {
+      images.put(MediaAnalysis.WAVEFORM, new File(basePath + "-waveform.png"));
+    }
+    if (analyses.contains(MediaAnalysis.TIMELINE_PREVIEWS)) {
+      images.put(MediaAnalysis.TIMELINE_PREVIEWS, new File(basePath + "-timelinepreviews.png"));
+    }
+
+    List<String> command = new ArrayList<>(Arrays.asList(binary, "-nostats", "-nostdin", "-hide_banner"));
+    if (analyses.contains(MediaAnalysis.TIMELINE_PREVIEWS) && !analyses.contains(MediaAnalysis.SEGMENTS)
+            && duration > PREVIEWS_KEYFRAMES_ONLY_DURATION) {
+      // Without scene detection, long videos only need to be decoded at key frames, like the timeline previews
+      // service does
+      command.addAll(Arrays.asList("-skip_frame", "nokey"));
+    }
+    command.addAll(Arrays.asList("-i", mediaFile.getAbsolutePath()));
+    command.addAll(Arrays.asList("-filter_complex",
+            createFilterGraph(analyses, getWaveformWidth(track), previewInterval, tiles)));
+    for (Map.Entry<MediaAnalysis, File> image : images.entrySet()) {
+      command.addAll(Arrays.asList("-map", "[" + image.getKey().getFlavorSubtype() + "]", "-frames:v", "1",
+              image.getValue().getAbsolutePath()));
+    }
+    if (analyses.contains(MediaAnalysis.SILENCE) || analyses.contains(MediaAnalysis.SEGMENTS)) {
+      for (MediaAnalysis analysis : analyses) {
+        if (analysis == MediaAnalysis.SILENCE || analysis == MediaAnalysis.SEGMENTS) {
+          command.addAll(Arrays.asList("-map", "[" + analysis.getFlavorSubtype() + "]"));
+        }
+      }
+      command.addAll(Arrays.asList("-f", "null", "-"));
+    }
+
+    logger.info("Analyzing track {} ({}) using command: {}", track.getIdentifier(), analyses,
+            StringUtils.join(command, " "));
+
+    AnalysisOutput output;
+    try {
+      output = runFFmpeg(command);
+      logger.info("Analysis of track {} yielded scene scores of {} frames", track.getIdentifier(),
+              output.getFrameCount());
+
+      List<MediaPackageElement> elements = new ArrayList<>();
+      for (MediaAnalysis analysis : analyses) {
+        MediaPackageElement element;
+        switch (analysis) {
+          case WAVEFORM:
+            element = createWaveform(track, images.get(analysis));
+            break;
+          case SILENCE:
+            element = createSilenceCatalog(job, track, output);
+            break;
+          case TIMELINE_PREVIEWS:
+            element = createTimelinePreviews(track, images.get(analysis), imageCount, tiles);
+            break;
+          case SEGMENTS:
+            element = createSegmentsCatalog(job, track, output);
+            break;
+          default:
+            throw new IllegalStateException("Unknown analysis " + analysis);
+        }
+        if (element != null) {
+          element.setFlavor(new MediaPackageElementFlavor(track.getFlavor().getType(), analysis.getFlavorSubtype()));
+          elements.add(element);
+        }
+      }
+      return elements;
+    } finally {
+      for (File image : images.values()) {
+        FileUtils.deleteQuietly(image);
+      }
+    }
+  }
+
+  /**
+   * Creates the FFmpeg filter graph running the given analyses. The audio and video streams are split if more than
+   * one analysis needs them, and each analysis ends in an output labeled with the flavor subtype of the analysis.
+   *
+   * @param analyses
+   *          the analyses to run
+   * @param waveformWidth
+   *          the width of the waveform image
+   * @param previewInterval
+   *          the interval between timeline preview images in seconds
+   * @param tiles
+   *          the number of rows and columns of timeline preview images
+   * @return the filter graph
+   */
+  String createFilterGraph(Set<MediaAnalysis> analyses, int waveformWidth, double previewInterval, int tiles) {
+    DecimalFormat decimalFmt = new DecimalFormat("0.000", new DecimalFormatSymbols(Locale.US));
+    Map<MediaAnalysis, String> filters = new LinkedHashMap<>();
+    for (MediaAnalysis analysis : analyses) {
+      switch (analysis) {
+        case WAVEFORM:
+          filters.put(analysis, "showwavespic=split_channels=" + (waveformSplitChannels ? 1 : 0)
+                  + ":s=" + waveformWidth + "x" + waveformHeight
+                  + ":scale=" + waveformScale
+                  + ":colors=" + StringUtils.join(waveformColor, "|"));
+          break;
+        case SILENCE:
+          filters.put(analysis, "silencedetect=noise=" + silenceThresholdDb
+                  + ":duration=" + decimalFmt.format(silenceMinLength / 1000.0));
+          break;
+        case TIMELINE_PREVIEWS:
+          filters.put(analysis, "fps=1/" + previewInterval
+                  + ",scale=" + previewsResolutionX + ":" + previewsResolutionY
+                  + ",tile=" + tiles + "x" + tiles);
+          break;
+        case SEGMENTS:
+          filters.put(analysis, "select=gt(scene\\,0),metadata=print");
+          break;
+        default:
+          throw new IllegalStateException("Unknown analysis " + analysis);
+      }
+    }
+
+    List<String> chains = new ArrayList<>();
+    for (boolean video : new boolean[] { false, true }) {
+      List<MediaAnalysis> consumers = filters.keySet().stream()
+              .filter(analysis -> analysis.isVideo() == video)
+              .collect(Collectors.toList());
+      String input = video ? "[0:v:0]" : "[0:a:0]";
+      if (consumers.size() == 1) {
+        MediaAnalysis analysis = consumers.get(0);
+        chains.add(input + filters.get(analysis) + "[" + analysis.getFlavorSubtype() + "]");
+      } else if (consumers.size() > 1) {
+        StringBuilder split = new StringBuilder(input).append(video ? "split=" : "asplit=").append(consumers.size());
+        for (MediaAnalysis analysis : consumers) {
+          split.append("[in-").append(analysis.getFlavorSubtype()).append("]");
+        }
+        chains.add(split.toString());
+        for (MediaAnalysis analysis : consumers) {
+          chains.add("[in-" + analysis.getFlavorSubtype() + "]" + filters.get(analysis)
+                  + "[" + analysis.getFlavorSubtype() + "]");
+        }
+      }
+    }
+    return StringUtils.join(chains, ";");
+  }
+
+  /**
+   * Runs FFmpeg and parses its output.
+   *
+   * @param command
+   *          the FFmpeg command
+   * @return the parsed output
+   */
+  private AnalysisOutput runFFmpeg(List<String> command) throws MediaAnalysisException {
+    ProcessBuilder pb = new ProcessBuilder(command);
+    pb.redirectErrorStream(true);
+    Process process = null;
+    int exitCode;
+    AnalysisOutput output;
+    try {
+      process = pb.start();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+        output = AnalysisOutput.parse(reader);
+      }
+      exitCode = process.waitFor();
+    } catch (IOException e) {
+      throw new MediaAnalysisException("Start ffmpeg process failed", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MediaAnalysisException("Waiting for the ffmpeg process was interrupted unexpectedly", e);
+    } finally {
+      IoSupport.closeQuietly(process);
+    }
+    if (exitCode != 0) {
+      throw new MediaAnalysisException(String.format("The ffmpeg process exited abnormally with exit code %s "
+              + "using command\n%s", exitCode, String.join(" ", command)));
+    }
+    return output;
+  }
+
+  /**
+   * Returns the waveform image width for a track the same way the waveform workflow operation does.
+   */
+  private int getWaveformWidth(Track track) {
+    int imageWidth = waveformMinWidth;
+    int trackDurationMinutes = (int) TimeUnit.MILLISECONDS.toMinutes(track.getDuration());
+    if (waveformPixelsPerMinute > 0 && trackDurationMinutes > 0) {
+      imageWidth = Math.max(waveformMinWidth, trackDurationMinutes * waveformPixelsPerMinute);
+      imageWidth = Math.min(waveformMaxWidth, imageWidth);
+    }
+    return imageWidth;
+  }
+
+  private MediaPackageElement createWaveform(Track track, File image) throws MediaAnalysisException {
+    URI uri = putInWorkspace(image.getName(), image);
+    Attachment waveform = (Attachment) newElement(uri, MediaPackageElement.Type.Attachment, track);
+    waveform.setIdentifier(IdImpl.fromUUID().toString());
+    return waveform;
+  }
+
+  private MediaPackageElement createTimelinePreviews(Track track, File image, int imageCount, int tiles)
+          throws MediaAnalysisException {
+    URI uri = putInWorkspace(image.getName(), image);
+    Attachment previews = (Attachment) newElement(uri, MediaPackageElement.Type.Attachment, track);
+    previews.setMimeType(MimeTypes.PNG);
+    previews.referTo(track);
+    previews.getProperties().put("imageCount", String.valueOf(imageCount));
+    previews.getProperties().put("imageSizeX", String.valueOf(tiles));
+    previews.getProperties().put("imageSizeY", String.valueOf(tiles));
+    previews.getProperties().put("resolutionX", String.valueOf(previewsResolutionX));
+    previews.getProperties().put("resolutionY", String.valueOf(previewsResolutionY));
+    previews.setIdentifier(IdImpl.fromUUID().toString());
+    return previews;
+  }
+
+  /**
+   * Creates the SMIL catalog referencing the non-silent segments of the track, or returns <code>null</code> if there
+   * are none, just as the silence detection workflow operation does not attach an empty catalog.
+   */
+  private MediaPackageElement createSilenceCatalog(Job job, Track track, AnalysisOutput output)
+          throws MediaAnalysisException {
+    List<MediaSegment> segments = output.getVoiceSegments(voiceMinLength, silencePreLength, track.getDuration());
+    logger.info("Silence detection of track {} yielded {} segments", track.getIdentifier(), segments.size());
+    if (segments.isEmpty()) {
+      return null;
+    }
+    String smil;
+    try {
+      SmilResponse smilResponse = smilService.createNewSmil();
+      for (MediaSegment segment : segments) {
+        smilResponse = smilService.addParallel(smilResponse.getSmil());
+        String parId = smilResponse.getEntity().getId();
+        smilResponse = smilService.addClips(smilResponse.getSmil(), parId, new Track[] { track },
+                segment.getSegmentStart(), segment.getSegmentStop() - segment.getSegmentStart());
+      }
+      smil = smilResponse.getSmil().toXML();
+    } catch (Exception e) {
+      throw new MediaAnalysisException("Failed to create smil document", e);
+    }
+    URI uri = putInWorkspace(job.getId() + "-silence.smil", IOUtils.toInputStream(smil, StandardCharsets.UTF_8));
+    MediaPackageElement catalog = newElement(uri, MediaPackageElement.Type.Catalog, track);
+    catalog.setIdentifier(IdImpl.fromUUID().toString());
+    return catalog;
+  }
+
+  /**
+   * Creates the MPEG-7 catalog with the segments between the scene changes of the track. Unlike the video segmenter
+   * service, the changes threshold is not optimized towards a preferred number of segments, which would require
+   * further decoding runs, but scene changes within the stability threshold are merged.
+   */
+  private MediaPackageElement createSegmentsCatalog(Job job, Track track, AnalysisOutput output)
+          throws MediaAnalysisException {
+    Mpeg7Catalog mpeg7 = mpeg7CatalogService.newInstance();
+    Video videoContent = mpeg7.addVideoContent("videosegment", new MediaRelTimeImpl(0, track.getDuration()),
+            new MediaLocatorImpl(track.getURI()));
+    List<Long> changes = output.getSceneChanges(segmentsChangesThreshold, segmentsStabilityThreshold * 1000L);
+    long start = 0;
+    int segmentCount = 1;
+    for (long change : changes) {
+      Segment segment = videoContent.getTemporalDecomposition().createSegment("segment-" + segmentCount++);
+      segment.setMediaTime(new MediaRelTimeImpl(start, change - start));
+      start = change;
+    }
+    Segment segment = videoContent.getTemporalDecomposition().createSegment("segment-" + segmentCount);
+    segment.setMediaTime(new MediaRelTimeImpl(start, track.getDuration() - start));
+    logger.info("Scene detection of track {} yielded {} segments", track.getIdentifier(), segmentCount);
+
+    URI uri;
+    try {
+      uri = putInWorkspace(job.getId() + "-segments.xml", mpeg7CatalogService.serialize(mpeg7));
+    } catch (IOException e) {
+      throw new MediaAnalysisException("Unable to serialize the mpeg7 catalog", e);
+    }
+    MediaPackageElement catalog = newElement(uri, MediaPackageElement.Type.Catalog, track);
+    catalog.setIdentifier(IdImpl.fromUUID().toString());
+    return catalog;
+  }
+
+  private static MediaPackageElement newElement(URI uri, MediaPackageElement.Type type, Track track) {
+    MediaPackageElementBuilder builder = MediaPackageElementBuilderFactory.newInstance().newElementBuilder();
+    // it is up to the workflow operation handler to set the final flavor
+    return builder.elementFromURI(uri, type, track.getFlavor());
+  }
+
+  private URI putInWorkspace(String fileName, File file) throws MediaAnalysisException {
+    try (InputStream in = new FileInputStream(file)) {
+      return putInWorkspace(fileName, in);
+    } catch (IOException e) {
+      throw new MediaAnalysisException(String.format("Analysis result '%s' not found", file), e);
+    }
+  }
+
+  private URI putInWorkspace(String fileName, InputStream in) throws MediaAnalysisException {
+    try {
+      URI uri = workspace.putInCollection(COLLECTION_ID, fileName, in);
+      logger.debug("Copied analysis result {} to the workspace {}", fileName, uri);
+      return uri;
+    } catch (IOException | IllegalArgumentException e) {
+      throw new MediaAnalysisException(String.format("Can't write analysis result '%s' to workspace", fileName), e);
+    } finally {
+      IoSupport.closeQuietly(in);
+    }
+  }
+
+  @Override
+  protected ServiceRegistry getServiceRegistry() {
+    return serviceRegistry;
+  }
+
+  @Override
+  protected SecurityService getSecurityService() {
+    return securityService;
+  }
+
+  @Override
+  protected UserDirectoryService getUserDirectoryService() {
+    return userDirectoryService;
+  }
+
+  @Override
+  protected OrganizationDirectoryService getOrganizationDirectoryService() {
+    return organizationDirectoryService;
+  }
+
+  @Reference
+  public void setServiceRegistry(ServiceRegistry serviceRegistry) {
+    this.serviceRegistry = serviceRegistry;
+  }
+
+  @Reference
+  public void setWorkspace(Workspace workspace) {
+    this.workspace = workspace;
+  }
+
+  @Reference
+  public void setSmilService(SmilService smilService) {
+    this.smilService = smilService;
+  }
+
+  @Reference
+  public void setMpeg7CatalogService(Mpeg7CatalogService mpeg7CatalogService) {
+    this.mpeg7CatalogService = mpeg7CatalogService;
+  }
+
+  @Reference
+  public void setSecurityService(SecurityService securityService) {
+    this.securityService = securityService;
+  }
+
+  @Reference
+  public void setUserDirectoryService(UserDirectoryService userDirectoryService) {
+    this.userDirectoryService = userDirectoryService;
+  }
+
+  @Reference
+  public void setOrganizationDirectoryService(OrganizationDirectoryService organizationDirectoryService) {
+    this.organizationDirectoryService = organizationDirectoryService;
+  }
+
+}
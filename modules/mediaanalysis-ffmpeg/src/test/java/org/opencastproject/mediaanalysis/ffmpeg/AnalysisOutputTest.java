@@ -0,0 +1,80 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediaanalysis.ffmpeg;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.silencedetection.api.MediaSegment;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+public class AnalysisOutputTest {
+
+  private static final String OUTPUT = String.join("\n",
+      "Input #0, mov,mp4,m4a,3gp,3g2,mj2, from 'test.mp4':",
+      "[silencedetect @ 0x2968e40] silence_start: 0",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] frame:0    pts:1000   pts_time:1",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] lavfi.scene_score=0.010000",
+      "[silencedetect @ 0x2968e40] silence_end: 10.5 | silence_duration: 10.5",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] frame:1    pts:30000  pts_time:30",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] lavfi.scene_score=0.500000",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] frame:2    pts:50000  pts_time:50",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] lavfi.scene_score=0.900000",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] frame:3    pts:100000 pts_time:100",
+      "[Parsed_metadata_7 @ 0x55d0c8a0f780] lavfi.scene_score=0.030000",
+      "[silencedetect @ 0x2968e40] silence_start: 100",
+      "[silencedetect @ 0x2968e40] silence_end: 110 | silence_duration: 10",
+      "[out#0/null @ 0x5581] video:1kB audio:2kB");
+
+  private static AnalysisOutput parse() throws Exception {
+    return AnalysisOutput.parse(new BufferedReader(new StringReader(OUTPUT)));
+  }
+
+  @Test
+  public void testVoiceSegments() throws Exception {
+    List<MediaSegment> segments = parse().getVoiceSegments(60000, 2000, 200000);
+    assertEquals(2, segments.size());
+    assertEquals(8500, segments.get(0).getSegmentStart());
+    assertEquals(100000, segments.get(0).getSegmentStop());
+    assertEquals(108000, segments.get(1).getSegmentStart());
+    assertEquals(200000, segments.get(1).getSegmentStop());
+
+    // Segments shorter than the minimum voice length are dropped
+    assertEquals(0, parse().getVoiceSegments(100000, 2000, 200000).size());
+  }
+
+  @Test
+  public void testSceneChanges() throws Exception {
+    AnalysisOutput output = parse();
+    assertEquals(4, output.getFrameCount());
+    assertEquals(Arrays.asList(30000L, 50000L, 100000L), output.getSceneChanges(0.025f, 0));
+    assertEquals(Arrays.asList(50000L), output.getSceneChanges(0.6f, 0));
+    // Scene changes within the minimum segment length are merged
+    assertEquals(Arrays.asList(30000L, 100000L), output.getSceneChanges(0.025f, 25000));
+  }
+
+}
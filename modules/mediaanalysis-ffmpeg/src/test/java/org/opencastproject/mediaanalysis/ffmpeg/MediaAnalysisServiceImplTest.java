@@ -0,0 +1,49 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediaanalysis.ffmpeg;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.mediaanalysis.api.MediaAnalysis;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+public class MediaAnalysisServiceImplTest {
+
+  @Test
+  public void testFilterGraph() {
+    MediaAnalysisServiceImpl service = new MediaAnalysisServiceImpl();
+    assertEquals("[0:a:0]asplit=2[in-waveform][in-silence];"
+            + "[in-waveform]showwavespic=split_channels=0:s=5000x500:scale=lin:colors=black[waveform];"
+            + "[in-silence]silencedetect=noise=-40dB:duration=5.000[silence];"
+            + "[0:v:0]select=gt(scene\\,0),metadata=print[segments]",
+        service.createFilterGraph(EnumSet.of(MediaAnalysis.WAVEFORM, MediaAnalysis.SILENCE, MediaAnalysis.SEGMENTS),
+            5000, 6.0, 10));
+    assertEquals("[0:v:0]split=2[in-timeline-previews][in-segments];"
+            + "[in-timeline-previews]fps=1/6.0,scale=160:-1,tile=10x10[timeline-previews];"
+            + "[in-segments]select=gt(scene\\,0),metadata=print[segments]",
+        service.createFilterGraph(EnumSet.of(MediaAnalysis.TIMELINE_PREVIEWS, MediaAnalysis.SEGMENTS), 5000, 6.0, 10));
+  }
+
+}
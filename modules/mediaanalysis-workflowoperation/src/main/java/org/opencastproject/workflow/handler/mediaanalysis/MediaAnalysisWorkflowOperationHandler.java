@@ -0,0 +1,284 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.handler.mediaanalysis;
+
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobContext;
+import org.opencastproject.mediaanalysis.api.MediaAnalysis;
+import org.opencastproject.mediaanalysis.api.MediaAnalysisException;
+import org.opencastproject.mediaanalysis.api.MediaAnalysisService;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElementFlavor;
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.mediapackage.selector.TrackSelector;
+import org.opencastproject.serviceregistry.api.ServiceRegistry;
+import org.opencastproject.util.NotFoundException;
+import org.opencastproject.workflow.api.AbstractWorkflowOperationHandler;
+import org.opencastproject.workflow.api.ConfiguredTagsAndFlavors;
+import org.opencastproject.workflow.api.WorkflowInstance;
+import org.opencastproject.workflow.api.WorkflowOperationException;
+import org.opencastproject.workflow.api.WorkflowOperationHandler;
+import org.opencastproject.workflow.api.WorkflowOperationInstance;
+import org.opencastproject.workflow.api.WorkflowOperationResult;
+import org.opencastproject.workspace.api.Workspace;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Workflow operation for the media analysis service, creating waveform images, silence segments, timeline preview
+ * images and scene segments of tracks while decoding each track only once.
+ * <p>
+ * An analysis is run if a target flavor is configured for it.
+ */
+@Component(
+    immediate = true,
+    service = WorkflowOperationHandler.class,
+    property = {
+        "service.description=Media Analysis Workflow Operation Handler",
+        "workflow.operation=analyze-media"
+    }
+)
+public class MediaAnalysisWorkflowOperationHandler extends AbstractWorkflowOperationHandler {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(MediaAnalysisWorkflowOperationHandler.class);
+
+  /** Source flavor configuration property name. */
+  private static final String SOURCE_FLAVOR_PROPERTY = "source-flavor";
+
+  /** Source tags configuration property name. */
+  private static final String SOURCE_TAGS_PROPERTY = "source-tags";
+
+  /** Prefix of the target flavor configuration property names, followed by the flavor subtype of an analysis. */
+  private static final String TARGET_FLAVOR_PROPERTY_PREFIX = "target-flavor-";
+
+  /** Number of timeline preview images configuration property name. */
+  private static final String IMAGE_COUNT_PROPERTY = "image-count";
+
+  /** Default value for the number of timeline preview images. */
+  private static final int DEFAULT_IMAGE_COUNT = 10;
+
+  /** The media analysis service. */
+  private MediaAnalysisService mediaAnalysisService = null;
+
+  /** The workspace service. */
+  private Workspace workspace = null;
+
+  @Override
+  @Activate
+  public void activate(ComponentContext cc) {
+    super.activate(cc);
+    logger.info("Registering media analysis workflow operation handler");
+  }
+
+  @Override
+  public WorkflowOperationResult start(WorkflowInstance workflowInstance, JobContext context)
+          throws WorkflowOperationException {
+    MediaPackage mediaPackage = workflowInstance.getMediaPackage();
+    WorkflowOperationInstance operation = workflowInstance.getCurrentOperation();
+    logger.info("Start media analysis workflow operation for mediapackage {}", mediaPackage.getIdentifier());
+
+    ConfiguredTagsAndFlavors tagsAndFlavors = getTagsAndFlavors(workflowInstance,
+        Configuration.many, Configuration.many, Configuration.many, Configuration.none);
+    List<MediaPackageElementFlavor> sourceFlavors = tagsAndFlavors.getSrcFlavors();
+    List<String> sourceTags = tagsAndFlavors.getSrcTags();
+    if (sourceFlavors.isEmpty() && sourceTags.isEmpty()) {
+      throw new WorkflowOperationException(String.format("Required property %s or %s not set",
+              SOURCE_FLAVOR_PROPERTY, SOURCE_TAGS_PROPERTY));
+    }
+    List<String> targetTags = tagsAndFlavors.getTargetTags();
+
+    // Run the analyses a target flavor is configured for
+    Map<MediaAnalysis, MediaPackageElementFlavor> targetFlavors = new EnumMap<>(MediaAnalysis.class);
+    for (MediaAnalysis analysis : MediaAnalysis.values()) {
+      String key = TARGET_FLAVOR_PROPERTY_PREFIX + analysis.getFlavorSubtype();
+      String flavor = StringUtils.trimToNull(operation.getConfiguration(key));
+      if (flavor != null) {
+        try {
+          targetFlavors.put(analysis, MediaPackageElementFlavor.parseFlavor(flavor));
+        } catch (IllegalArgumentException e) {
+          throw new WorkflowOperationException(String.format("Property %s is not a valid flavor: %s", key, flavor));
+        }
+      }
+    }
+    if (targetFlavors.isEmpty()) {
+      throw new WorkflowOperationException(String.format("At least one property %s<analysis> must be set",
+              TARGET_FLAVOR_PROPERTY_PREFIX));
+    }
+
+    int imageCount = DEFAULT_IMAGE_COUNT;
+    String imageCountArg = StringUtils.trimToNull(operation.getConfiguration(IMAGE_COUNT_PROPERTY));
+    if (imageCountArg != null) {
+      try {
+        imageCount = Integer.parseInt(imageCountArg);
+      } catch (NumberFormatException e) {
+        throw new WorkflowOperationException(String.format("Property %s is not a valid number: %s",
+                IMAGE_COUNT_PROPERTY, imageCountArg));
+      }
+    }
+
+    TrackSelector trackSelector = new TrackSelector();
+    for (MediaPackageElementFlavor flavor : sourceFlavors) {
+      trackSelector.addFlavor(flavor);
+    }
+    for (String tag : sourceTags) {
+      trackSelector.addTag(tag);
+    }
+    Collection<Track> sourceTracks = trackSelector.select(mediaPackage, true);
+    if (sourceTracks.isEmpty()) {
+      logger.info("No tracks found in mediapackage {} with specified {} {}", mediaPackage.getIdentifier(),
+              SOURCE_FLAVOR_PROPERTY, sourceFlavors);
+      return createResult(mediaPackage, WorkflowOperationResult.Action.SKIP);
+    }
+
+    List<Job> jobs = new ArrayList<>(sourceTracks.size());
+    for (Track sourceTrack : sourceTracks) {
+      try {
+        logger.info("Create media analysis job for track '{}' in mediapackage '{}'", sourceTrack.getIdentifier(),
+                mediaPackage.getIdentifier());
+        jobs.add(mediaAnalysisService.analyze(sourceTrack, targetFlavors.keySet(), imageCount));
+      } catch (MediaPackageException | MediaAnalysisException e) {
+        throw new WorkflowOperationException(String.format("Creating media analysis job for track '%s' failed",
+                sourceTrack.getIdentifier()), e);
+      }
+    }
+
+    logger.info("Wait for media analysis jobs for media package {}", mediaPackage.getIdentifier());
+    if (!waitForStatus(jobs.toArray(new Job[0])).isSuccess()) {
+      cleanupWorkspace(jobs);
+      throw new WorkflowOperationException(String.format(
+              "Media analysis jobs for media package '%s' have not completed successfully",
+              mediaPackage.getIdentifier()));
+    }
+
+    try {
+      for (Job job : jobs) {
+        for (MediaPackageElement element : getElements(job)) {
+          MediaAnalysis analysis = null;
+          for (MediaAnalysis candidate : targetFlavors.keySet()) {
+            if (candidate.isResult(element)) {
+              analysis = candidate;
+            }
+          }
+          if (analysis == null) {
+            logger.warn("Ignoring unexpected media analysis result {} of job {}", element.getFlavor(), job.getId());
+            continue;
+          }
+
+          // move the result into the media package and flavor it
+          try (InputStream in = new FileInputStream(workspace.get(element.getURI()))) {
+            String fileName = FilenameUtils.getName(element.getURI().getPath());
+            URI uri = workspace.put(mediaPackage.getIdentifier().toString(), element.getIdentifier(), fileName, in);
+            element.setURI(uri);
+          } catch (NotFoundException | IOException e) {
+            throw new WorkflowOperationException(String.format("Can't move media analysis result '%s' into the "
+                    + "media package", element.getURI()), e);
+          }
+          element.setFlavor(targetFlavors.get(analysis).applyTo(element.getFlavor()));
+          for (String tag : targetTags) {
+            element.addTag(tag);
+          }
+          mediaPackage.add(element);
+        }
+      }
+    } finally {
+      cleanupWorkspace(jobs);
+    }
+
+    logger.info("Media analysis workflow operation for mediapackage {} completed", mediaPackage.getIdentifier());
+    return createResult(mediaPackage, WorkflowOperationResult.Action.CONTINUE);
+  }
+
+  /**
+   * Returns the media package elements created by a job.
+   */
+  private static List<? extends MediaPackageElement> getElements(Job job) throws WorkflowOperationException {
+    if (StringUtils.isEmpty(job.getPayload())) {
+      return new ArrayList<>();
+    }
+    try {
+      return MediaPackageElementParser.getArrayFromXml(job.getPayload());
+    } catch (MediaPackageException e) {
+      throw new WorkflowOperationException("Can't parse media analysis results from job " + job.getId(), e);
+    }
+  }
+
+  /**
+   * Remove all files created by the given jobs
+   * @param jobs
+   */
+  private void cleanupWorkspace(List<Job> jobs) {
+    for (Job job : jobs) {
+      try {
+        for (MediaPackageElement element : getElements(job)) {
+          try {
+            workspace.delete(element.getURI());
+          } catch (NotFoundException e) {
+            // this is ok, because we want delete the file
+          } catch (IOException e) {
+            // this is ok, because workspace cleaner will remove old files if they exist
+            logger.warn("Deleting media analysis result from workspace failed: {}", e.getMessage());
+          }
+        }
+      } catch (WorkflowOperationException e) {
+        logger.error("Can't parse media analysis results from job {}", job.getId());
+      }
+    }
+  }
+
+  @Reference
+  public void setMediaAnalysisService(MediaAnalysisService mediaAnalysisService) {
+    this.mediaAnalysisService = mediaAnalysisService;
+  }
+
+  @Reference
+  public void setWorkspace(Workspace workspace) {
+    this.workspace = workspace;
+  }
+
+  @Reference
+  @Override
+  public void setServiceRegistry(ServiceRegistry serviceRegistry) {
+    super.setServiceRegistry(serviceRegistry);
+  }
+
+}
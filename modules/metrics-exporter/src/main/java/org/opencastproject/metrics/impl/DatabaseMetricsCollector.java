@@ -0,0 +1,80 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.metrics.impl;
+
+import org.opencastproject.db.DBMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+
+/**
+ * Exposes the statistics about database queries recorded by {@link DBMetrics}.
+ */
+public class DatabaseMetricsCollector extends Collector {
+
+  @Override
+  public List<MetricFamilySamples> collect() {
+    final CounterMetricFamily retries = new CounterMetricFamily(
+        "opencast_db_transaction_retries",
+        "Retried database transactions",
+        Collections.singletonList("component"));
+    for (Map.Entry<String, Long> entry : DBMetrics.getRetries().entrySet()) {
+      retries.addMetric(Collections.singletonList(entry.getKey()), entry.getValue());
+    }
+
+    return Arrays.asList(
+        histogram("opencast_db_query_duration_seconds", "Duration of database queries", DBMetrics.getDurations()),
+        histogram("opencast_db_query_rows", "Rows returned or updated by database queries",
+            DBMetrics.getResultSizes()),
+        retries);
+  }
+
+  private static MetricFamilySamples histogram(String name, String help, Map<String, DBMetrics.Histogram> queries) {
+    final List<String> labelNames = Collections.singletonList("query");
+    final List<String> bucketLabelNames = Arrays.asList("query", "le");
+    final List<MetricFamilySamples.Sample> samples = new ArrayList<>();
+    for (Map.Entry<String, DBMetrics.Histogram> entry : queries.entrySet()) {
+      final String query = entry.getKey();
+      final DBMetrics.Histogram histogram = entry.getValue();
+      final double[] upperBounds = histogram.getUpperBounds();
+      final long[] counts = histogram.getCumulativeCounts();
+      final long count = histogram.getCount();
+      for (int i = 0; i < upperBounds.length; i++) {
+        samples.add(new MetricFamilySamples.Sample(name + "_bucket", bucketLabelNames,
+            Arrays.asList(query, doubleToGoString(upperBounds[i])), counts[i]));
+      }
+      samples.add(new MetricFamilySamples.Sample(name + "_bucket", bucketLabelNames,
+          Arrays.asList(query, "+Inf"), count));
+      samples.add(new MetricFamilySamples.Sample(name + "_count", labelNames,
+          Collections.singletonList(query), count));
+      samples.add(new MetricFamilySamples.Sample(name + "_sum", labelNames,
+          Collections.singletonList(query), histogram.getSum()));
+    }
+    return new MetricFamilySamples(name, Type.HISTOGRAM, help, samples);
+  }
+}
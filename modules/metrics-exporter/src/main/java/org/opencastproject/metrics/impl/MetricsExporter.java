@@ -110,6 +110,16 @@ public class MetricsExporter {
       .help("Active jobs")
       .labelNames("host", "organization")
       .register();
+  private final Gauge jobProgress = Gauge.build()
+      .name("opencast_job_progress")
+      .help("Completed fraction of running jobs reporting their progress")
+      .labelNames("host", "job_id", "operation")
+      .register();
+  private final Gauge jobRemainingSeconds = Gauge.build()
+      .name("opencast_job_remaining_seconds")
+      .help("Estimated remaining time of running jobs reporting their progress")
+      .labelNames("host", "job_id", "operation")
+      .register();
   private final Gauge workflowsActive = Gauge.build()
       .name("opencast_workflow_active")
       .help("Active workflows")
@@ -126,6 +136,7 @@ public class MetricsExporter {
       .labelNames("part")
       .register();
   private Gauge eventsInAssetManager;
+  private final DatabaseMetricsCollector databaseMetrics = new DatabaseMetricsCollector().register();
 
   /** OSGi services */
   private ServiceRegistry serviceRegistry;
@@ -180,7 +191,9 @@ public class MetricsExporter {
       }
     }
 
-    // count jobs and workflows
+    // count jobs and workflows, only keeping the progress of jobs which are still running
+    jobProgress.clear();
+    jobRemainingSeconds.clear();
     for (Job job: serviceRegistry.getActiveJobs()) {
       Map<String, Integer> orgJobs = jobs.getOrDefault(job.getOrganization(), null);
       if (orgJobs != null) {
@@ -189,6 +202,14 @@ public class MetricsExporter {
       if ("START_WORKFLOW".equals(job.getOperation())) {
         workflows.computeIfPresent(job.getOrganization(), (k, v) -> v + 1);
       }
+      if (job.getStatus() == Job.Status.RUNNING && job.getProgress() != null) {
+        final String jobId = Long.toString(job.getId());
+        jobProgress.labels(job.getProcessingHost(), jobId, job.getOperation()).set(job.getProgress());
+        if (job.getRemainingTime() != null) {
+          jobRemainingSeconds.labels(job.getProcessingHost(), jobId, job.getOperation())
+              .set(job.getRemainingTime() / 1000.0);
+        }
+      }
     }
 
     // set workflows by organization
@@ -31,7 +31,9 @@ import com.entwinemedia.fn.data.Opt;
 import net.fortuna.ical4j.model.Period;
 import net.fortuna.ical4j.model.property.RRule;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -276,6 +278,28 @@ public interface SchedulerService {
   TechnicalMetadata getTechnicalMetadata(String mediaPackageId)
           throws NotFoundException, UnauthorizedException, SchedulerException;
 
+  /**
+   * Retrieves the technical metadata associated with multiple events at once.
+   *
+   * @param mediaPackageIds
+   *          IDs of the events for which technical metadata will be retrieved
+   * @return {@link TechnicalMetadata} by event ID, missing for events which cannot be found
+   * @throws SchedulerException
+   *           if exception occurred
+   */
+  default Map<String, TechnicalMetadata> getTechnicalMetadata(Collection<String> mediaPackageIds)
+          throws UnauthorizedException, SchedulerException {
+    final Map<String, TechnicalMetadata> result = new HashMap<>();
+    for (String mediaPackageId : mediaPackageIds) {
+      try {
+        result.put(mediaPackageId, getTechnicalMetadata(mediaPackageId));
+      } catch (NotFoundException e) {
+        // not a scheduled event
+      }
+    }
+    return result;
+  }
+
   /**
    * Retrieves workflow configuration associated with specified event ID.
    *
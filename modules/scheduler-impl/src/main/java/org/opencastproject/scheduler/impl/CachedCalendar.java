@@ -0,0 +1,123 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.scheduler.impl;
+
+import com.entwinemedia.fn.data.Opt;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.component.CalendarComponent;
+import net.fortuna.ical4j.model.component.VEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The iCalendar of a capture agent, rendered once for all upcoming events.
+ * <p>
+ * Capture agents poll their calendar frequently while it rarely changes. The events are therefore kept in their
+ * serialized form and only filtered by date when assembling the calendar for a request.
+ */
+public final class CachedCalendar {
+
+  /** A serialized event */
+  private static final class Event {
+    private final long start;
+    private final long end;
+    private final String ical;
+
+    private Event(long start, long end, String ical) {
+      this.start = start;
+      this.end = end;
+      this.ical = ical;
+    }
+  }
+
+  /** The last modified hash of the schedule the calendar has been rendered from */
+  private final String lastModified;
+
+  /** The calendar up to the first event */
+  private final String header;
+
+  /** The calendar after the last event */
+  private final String footer;
+
+  /** The events ordered as in the rendered calendar */
+  private final List<Event> events;
+
+  /**
+   * Serializes a calendar.
+   *
+   * @param lastModified
+   *          the last modified hash of the schedule the calendar has been rendered from
+   * @param calendar
+   *          the calendar containing all upcoming events
+   */
+  public CachedCalendar(String lastModified, Calendar calendar) {
+    this.lastModified = lastModified;
+    final List<Event> events = new ArrayList<>();
+    for (CalendarComponent component : calendar.getComponents()) {
+      if (component instanceof VEvent) {
+        final VEvent event = (VEvent) component;
+        events.add(new Event(event.getStartDate().getDate().getTime(), event.getEndDate().getDate().getTime(),
+                event.toString()));
+      }
+    }
+    this.events = Collections.unmodifiableList(events);
+
+    final String empty = new Calendar(calendar.getProperties(), new ComponentList<>()).toString();
+    final int end = empty.lastIndexOf("END:" + Calendar.VCALENDAR);
+    this.header = empty.substring(0, end);
+    this.footer = empty.substring(end);
+  }
+
+  public String getLastModified() {
+    return lastModified;
+  }
+
+  /** Returns the number of events in the calendar. */
+  public int getEventCount() {
+    return events.size();
+  }
+
+  /**
+   * Assembles the calendar containing the events which end after the given date and start before the cutoff.
+   *
+   * @param endFrom
+   *          the date events have to end at or after
+   * @param cutoff
+   *          the date events have to start before, if any
+   * @return the calendar
+   */
+  public String render(Date endFrom, Opt<Date> cutoff) {
+    final StringBuilder calendar = new StringBuilder(header);
+    for (Event event : events) {
+      if (event.end >= endFrom.getTime() && (cutoff.isNone() || event.start < cutoff.get().getTime())) {
+        calendar.append(event.ical);
+      }
+    }
+    return calendar.append(footer).toString();
+  }
+
+}
@@ -26,6 +26,9 @@ import org.opencastproject.util.NotFoundException;
 
 import com.entwinemedia.fn.data.Opt;
 
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -135,6 +138,25 @@ public interface SchedulerServiceDatabase {
    */
   List<String> getEvents(String captureAgentId, Date start, Date end, int separationMillis) throws SchedulerServiceDatabaseException;
 
+  /**
+   * Retrieves the events scheduled on a capture agent which conflict with any of the given intervals. All intervals are
+   * checked using a single query, which makes this much cheaper than checking the intervals one by one, e.g. for all
+   * occurrences of a recurring event.
+   *
+   * @param captureAgentId
+   *          the capture agent ID of the capture agent to check
+   * @param intervals
+   *          the start and end dates of the intervals to check
+   * @param separationMillis
+   *          number of milliseconds to prepend and append to each interval
+   * @return The mediapackage IDs of the events overlapping at least one of the intervals, ordered by start date
+   *         ascending.
+   * @throws SchedulerServiceDatabaseException
+   *           If the database cannot be queried.
+   */
+  List<String> getEvents(String captureAgentId, List<Pair<Date, Date>> intervals, int separationMillis)
+          throws SchedulerServiceDatabaseException;
+
   /**
    * Retrieve all events matching given filter ordered by start time ascending.
    *
@@ -190,6 +212,19 @@ public interface SchedulerServiceDatabase {
    */
   Opt<ExtendedEventDto> getEvent(String mediapackageId) throws SchedulerServiceDatabaseException;
 
+  /**
+   * Get the events with the given mediapackage ids for the current organization.
+   *
+   * @param mediapackageIds
+   *          The mediapackage ids to look for
+   *
+   * @return The events found, in no particular order.
+   *
+   * @throws SchedulerServiceDatabaseException
+   *           If the database cannot be queried.
+   */
+  List<ExtendedEventDto> getEvents(Collection<String> mediapackageIds) throws SchedulerServiceDatabaseException;
+
   /**
    * Get the event with the given mediapackage id and organization.
    *
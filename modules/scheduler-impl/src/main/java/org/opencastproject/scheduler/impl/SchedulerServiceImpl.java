@@ -118,6 +118,7 @@ import net.fortuna.ical4j.model.property.RRule;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.osgi.service.cm.ConfigurationException;
@@ -138,6 +139,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -176,12 +178,18 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   /** The last modified cache configuration key */
   private static final String CFG_KEY_LAST_MODIFIED_CACHE_EXPIRE = "last_modified_cache_expire";
 
+  /** The calendar cache configuration key */
+  private static final String CFG_KEY_CALENDAR_CACHE_EXPIRE = "calendar_cache_expire";
+
   /** The maintenance configuration key */
   private static final String CFG_KEY_MAINTENANCE = "maintenance";
 
   /** The default cache expire time in seconds */
   private static final int DEFAULT_CACHE_EXPIRE = 60;
 
+  /** The default time in seconds rendered calendars are kept */
+  private static final int DEFAULT_CALENDAR_CACHE_EXPIRE = 3600;
+
   /** The Etag for an empty calendar */
   private static final String EMPTY_CALENDAR_ETAG = "mod0";
 
@@ -205,6 +213,10 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   protected Cache<String, String> lastModifiedCache = CacheBuilder.newBuilder()
           .expireAfterWrite(DEFAULT_CACHE_EXPIRE, TimeUnit.SECONDS).build();
 
+  /** The rendered calendars of the capture agents by organization and capture agent */
+  protected Cache<String, CachedCalendar> calendarCache = CacheBuilder.newBuilder()
+          .expireAfterWrite(DEFAULT_CALENDAR_CACHE_EXPIRE, TimeUnit.SECONDS).build();
+
   /** Persistent storage for events */
   private SchedulerServiceDatabase persistence;
 
@@ -398,6 +410,10 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
       } else {
         logger.info("Set last modified cache to default {}", DateTimeSupport.humanReadableTime(DEFAULT_CACHE_EXPIRE));
       }
+      final int calendarCacheExpire = OsgiUtil.getOptCfg(properties, CFG_KEY_CALENDAR_CACHE_EXPIRE)
+              .bind(Strings.toInt).getOrElse(DEFAULT_CALENDAR_CACHE_EXPIRE);
+      calendarCache = CacheBuilder.newBuilder().expireAfterWrite(calendarCacheExpire, TimeUnit.SECONDS).build();
+      logger.info("Keeping rendered calendars for {}", DateTimeSupport.humanReadableTime(calendarCacheExpire));
       final Option<Boolean> maintenance = OsgiUtil.getOptCfgAsBoolean(properties, CFG_KEY_MAINTENANCE);
       if (maintenance.getOrElse(false)) {
         final String name = SchedulerServiceImpl.class.getName();
@@ -976,6 +992,23 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     }
   }
 
+  @Override
+  public Map<String, TechnicalMetadata> getTechnicalMetadata(Collection<String> mediaPackageIds)
+          throws UnauthorizedException, SchedulerException {
+    notNull(mediaPackageIds, "mediaPackageIds");
+
+    try {
+      final Map<String, TechnicalMetadata> result = new HashMap<>();
+      for (ExtendedEventDto extEvt : persistence.getEvents(mediaPackageIds)) {
+        result.put(extEvt.getMediaPackageId(), getTechnicalMetadata(extEvt));
+      }
+      return result;
+    } catch (Exception e) {
+      logger.error("Failed to get technical metadata of {} events:", mediaPackageIds.size(), e);
+      throw new SchedulerException(e);
+    }
+  }
+
   @Override
   public Map<String, String> getWorkflowConfig(String mediaPackageId) throws NotFoundException, SchedulerException {
     notEmpty(mediaPackageId, "mediaPackageId");
@@ -1063,6 +1096,20 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   @Override
   public List<MediaPackage> findConflictingEvents(String captureDeviceID, Date startDate, Date endDate)
       throws SchedulerException {
+    return findConflictingEvents(captureDeviceID, Collections.singletonList(Pair.of(startDate, endDate)));
+  }
+
+  /**
+   * Returns the events scheduled on a capture agent which conflict with any of the given intervals.
+   *
+   * @param captureDeviceID
+   *          the capture agent
+   * @param intervals
+   *          the start and end dates of the intervals
+   * @return the conflicting events
+   */
+  private List<MediaPackage> findConflictingEvents(String captureDeviceID, List<Pair<Date, Date>> intervals)
+      throws SchedulerException {
     try {
       final Organization organization = securityService.getOrganization();
       final User user = SecurityUtil.createSystemUser(systemUserName, organization);
@@ -1070,7 +1117,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
 
       SecurityUtil.runAs(securityService, organization, user, () -> {
         try {
-          persistence.getEvents(captureDeviceID, startDate, endDate, Util.EVENT_MINIMUM_SEPARATION_MILLISECONDS)
+          persistence.getEvents(captureDeviceID, intervals, Util.EVENT_MINIMUM_SEPARATION_MILLISECONDS)
                   .stream()
                   .map(id -> getEventMediaPackage(id, false))
                   .forEach(conflictingEvents::add);
@@ -1134,17 +1181,14 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     try {
       TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
 
-      Set<MediaPackage> events = new HashSet<>();
-
+      // Check all occurrences at once instead of querying the database for each of them
+      final List<Pair<Date, Date>> intervals = new ArrayList<>(periods.size());
       for (Period event : periods) {
         event.setTimeZone(registry.getTimeZone(tz.getID()));
-        final Date startDate = event.getStart();
-        final Date endDate = event.getEnd();
-
-        events.addAll(findConflictingEvents(captureAgentId, startDate, endDate));
+        intervals.add(Pair.of(event.getStart(), event.getEnd()));
       }
 
-      return new ArrayList<>(events);
+      return findConflictingEvents(captureAgentId, intervals);
     } catch (Exception e) {
       throw new SchedulerException(e);
     }
@@ -1153,7 +1197,31 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   @Override
   public String getCalendar(Opt<String> captureAgentId, Opt<String> seriesId, Opt<Date> cutoff)
           throws SchedulerException {
+    // Calendars polled by capture agents are rendered once and served from the cache until the schedule changes. Only
+    // administrators are served from the cache since the events visible to other users depend on their roles.
+    if (captureAgentId.isSome() && seriesId.isNone() && isAdmin()) {
+      final String key = calendarCacheKey(captureAgentId.get());
+      final String lastModified = getScheduleLastModified(captureAgentId.get());
+      CachedCalendar calendar = calendarCache.getIfPresent(key);
+      if (calendar == null || !lastModified.equals(calendar.getLastModified())) {
+        calendar = new CachedCalendar(lastModified, generateCalendar(captureAgentId, seriesId, Opt.none()));
+        logger.debug("Rendered calendar of {} with {} events", captureAgentId.get(), calendar.getEventCount());
+        calendarCache.put(key, calendar);
+      }
+      return calendar.render(DateTime.now().minusHours(1).toDate(), cutoff);
+    }
+    return generateCalendar(captureAgentId, seriesId, cutoff).toString();
+  }
+
+  private String calendarCacheKey(String captureAgentId) {
+    return securityService.getOrganization().getId() + "/" + captureAgentId;
+  }
 
+  /**
+   * Generates the iCalendar of the upcoming events matching the given filters.
+   */
+  private net.fortuna.ical4j.model.Calendar generateCalendar(Opt<String> captureAgentId, Opt<String> seriesId,
+          Opt<Date> cutoff) throws SchedulerException {
     try {
       final Map<String, ExtendedEventDto> searchResult = persistence.search(captureAgentId, Opt.none(), cutoff,
           Opt.some(DateTime.now().minusHours(1).toDate()), Opt.none(), Opt.none()).stream()
@@ -1212,7 +1280,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
         cal.getCalendar().validate();
       }
 
-      return cal.getCalendar().toString();
+      return cal.getCalendar();
 
     } catch (Exception e) {
       throw new SchedulerException(e);
@@ -1591,6 +1659,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     try {
       logger.debug("Marking calendar feed for {} as modified", captureAgentId);
       persistence.touchLastEntry(captureAgentId);
+      calendarCache.invalidate(calendarCacheKey(captureAgentId));
       populateLastModifiedCache();
     } catch (SchedulerServiceDatabaseException e) {
       logger.error("Failed to update last modified entry of agent '{}':", captureAgentId, e);
@@ -42,6 +42,10 @@ import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -68,6 +72,9 @@ public class SchedulerServiceDatabaseImpl implements SchedulerServiceDatabase {
   /** Logging utilities */
   private static final Logger logger = LoggerFactory.getLogger(SchedulerServiceDatabaseImpl.class);
 
+  /** The maximum number of mediapackage ids looked up with a single query */
+  private static final int MAX_IDS_PER_QUERY = 1000;
+
   /** Factory used to create {@link EntityManager}s for transactions */
   private EntityManagerFactory emf;
 
@@ -233,6 +240,62 @@ public class SchedulerServiceDatabaseImpl implements SchedulerServiceDatabase {
     }
   }
 
+  @Override
+  public List<String> getEvents(String captureAgentId, List<Pair<Date, Date>> intervals, int separationMillis)
+      throws SchedulerServiceDatabaseException {
+    if (intervals.isEmpty()) {
+      return Collections.emptyList();
+    }
+    // Sort the intervals by their end and remember the earliest start of all intervals ending at the same time or
+    // later. An event conflicts if the earliest start of the intervals ending after it starts lies before its end.
+    final List<Pair<Date, Date>> sorted = new ArrayList<>(intervals);
+    sorted.sort(Comparator.comparing(Pair::getRight));
+    final long[] ends = new long[sorted.size()];
+    final long[] minStarts = new long[sorted.size()];
+    long minStart = Long.MAX_VALUE;
+    for (int i = sorted.size() - 1; i >= 0; i--) {
+      ends[i] = sorted.get(i).getRight().getTime() + separationMillis;
+      minStart = Math.min(minStart, sorted.get(i).getLeft().getTime() - separationMillis);
+      minStarts[i] = minStart;
+    }
+
+    // Load the events between the earliest start and the latest end with a single query
+    final List<Object[]> candidates;
+    try {
+      candidates = db.exec(namedQuery.findAll(
+          "ExtendedEvent.findEventPeriods",
+          Object[].class,
+          Pair.of("org", securityService.getOrganization().getId()),
+          Pair.of("ca", captureAgentId),
+          Pair.of("start", new Date(minStarts[0])),
+          Pair.of("end", new Date(ends[ends.length - 1]))
+      ));
+    } catch (Exception e) {
+      throw new SchedulerServiceDatabaseException(e);
+    }
+
+    final List<String> conflicts = new ArrayList<>();
+    for (Object[] candidate : candidates) {
+      final long start = ((Date) candidate[1]).getTime();
+      final long end = ((Date) candidate[2]).getTime();
+      // Find the first interval ending after the event starts
+      int low = 0;
+      int high = ends.length;
+      while (low < high) {
+        final int mid = (low + high) >>> 1;
+        if (ends[mid] > start) {
+          high = mid;
+        } else {
+          low = mid + 1;
+        }
+      }
+      if (low < ends.length && minStarts[low] < end) {
+        conflicts.add((String) candidate[0]);
+      }
+    }
+    return conflicts;
+  }
+
   @Override
   public List<ExtendedEventDto> search(
       Opt<String> captureAgentId,
@@ -334,6 +397,27 @@ public class SchedulerServiceDatabaseImpl implements SchedulerServiceDatabase {
     }
   }
 
+  @Override
+  public List<ExtendedEventDto> getEvents(Collection<String> mediapackageIds) throws SchedulerServiceDatabaseException {
+    final String orgId = securityService.getOrganization().getId();
+    final List<String> ids = new ArrayList<>(mediapackageIds);
+    final List<ExtendedEventDto> events = new ArrayList<>();
+    try {
+      // Keep the IN clause below the limits of the supported databases
+      for (int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY) {
+        events.addAll(db.exec(namedQuery.findAll(
+            "ExtendedEvent.findByIds",
+            ExtendedEventDto.class,
+            Pair.of("org", orgId),
+            Pair.of("ids", ids.subList(i, Math.min(i + MAX_IDS_PER_QUERY, ids.size())))
+        )));
+      }
+      return events;
+    } catch (Exception e) {
+      throw new SchedulerServiceDatabaseException(e);
+    }
+  }
+
   @Override
   public Opt<ExtendedEventDto> getEvent(String mediapackageId) throws SchedulerServiceDatabaseException {
     try {
@@ -0,0 +1,84 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.entwinemedia.fn.data.Opt;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Uid;
+import net.fortuna.ical4j.model.property.Version;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+public class CachedCalendarTest {
+
+  private static final long HOUR = 3600_000L;
+
+  private static VEvent event(String id, long start, long end) {
+    final DateTime startDate = new DateTime(start);
+    final DateTime endDate = new DateTime(end);
+    startDate.setUtc(true);
+    endDate.setUtc(true);
+    final VEvent event = new VEvent(startDate, endDate, id);
+    event.getProperties().add(new Uid(id));
+    return event;
+  }
+
+  @Test
+  public void testRender() {
+    final long now = System.currentTimeMillis();
+    final Calendar calendar = new Calendar();
+    calendar.getProperties().add(new ProdId("Opencast Calendar File 0.5"));
+    calendar.getProperties().add(Version.VERSION_2_0);
+    calendar.getProperties().add(CalScale.GREGORIAN);
+    calendar.getComponents().add(event("running", now - HOUR, now + HOUR));
+    calendar.getComponents().add(event("tomorrow", now + 24 * HOUR, now + 25 * HOUR));
+
+    final CachedCalendar cached = new CachedCalendar("mod1", calendar);
+    assertEquals("mod1", cached.getLastModified());
+    assertEquals(2, cached.getEventCount());
+
+    // Without further restrictions the calendar is rendered as is
+    assertEquals(calendar.toString(), cached.render(new Date(now - 2 * HOUR), Opt.none()));
+
+    final String cutoff = cached.render(new Date(now - 2 * HOUR), Opt.some(new Date(now + 2 * HOUR)));
+    assertTrue(cutoff.contains("UID:running"));
+    assertFalse(cutoff.contains("UID:tomorrow"));
+    assertTrue(cutoff.startsWith("BEGIN:VCALENDAR"));
+    assertTrue(cutoff.endsWith("END:VCALENDAR\r\n"));
+
+    final String later = cached.render(new Date(now + 2 * HOUR), Opt.none());
+    assertFalse(later.contains("UID:running"));
+    assertTrue(later.contains("UID:tomorrow"));
+  }
+
+}
@@ -457,6 +457,13 @@ public class SchedulerServiceImplTest {
     assertTrue(technicalMetadata.getRecording().isNone());
     assertTrue(technicalMetadata.getCaptureAgentConfiguration().size() >= caProperties.size());
 
+    // Looking up multiple events at once skips those which are not scheduled
+    Map<String, TechnicalMetadata> technicalMetadataById = schedSvc.getTechnicalMetadata(
+        Arrays.asList(mp.getIdentifier().toString(), "unknown"));
+    assertEquals(1, technicalMetadataById.size());
+    assertEquals(captureDeviceID, technicalMetadataById.get(mp.getIdentifier().toString()).getAgentId());
+    assertEquals(start, technicalMetadataById.get(mp.getIdentifier().toString()).getStartDate());
+
     assertEquals(wfProperties, new HashMap<>(schedSvc.getWorkflowConfig(mp.getIdentifier().toString())));
     String lastModified = schedSvc.getScheduleLastModified(captureDeviceID);
     assertNotEquals("mod0", lastModified);
@@ -31,6 +31,7 @@ import org.opencastproject.util.NotFoundException;
 import com.entwinemedia.fn.data.Opt;
 import com.google.gson.Gson;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
@@ -264,6 +265,49 @@ public class SchedulerServiceDatabaseImplTest {
     Assert.assertTrue(eventIds.contains(mpId + 3));
   }
 
+  @Test
+  public void testGetEventsForIntervals() throws Exception {
+    // We create 5 events of one hour each, starting every day at the same time, and query for three intervals on the
+    // days 0, 2 and 3 with the interval on day 3 ending exactly when the event starts.
+    final long oneHourMillis = 3600_000;
+    final long oneDayMillis = 24 * oneHourMillis;
+    final long nowMillis = new Date().getTime();
+    final String mpId = "mpId";
+    final String agentId = "agent1";
+    final String orgId = new DefaultOrganization().getId();
+    for (int i = 0; i < 5; i++) {
+      final Date start = new Date(nowMillis + i * oneDayMillis);
+      final Date end = new Date(start.getTime() + oneHourMillis);
+      schedulerDatabase.storeEvent(
+          mpId + i,
+          orgId,
+          Opt.some(agentId),
+          Opt.some(start),
+          Opt.some(end),
+          Opt.none(),
+          Opt.none(),
+          Opt.none(),
+          Opt.none(),
+          Opt.none(),
+          Opt.none(),
+          Opt.none(),
+          Opt.none()
+      );
+    }
+    final List<Pair<Date, Date>> intervals = Arrays.asList(
+        Pair.of(new Date(nowMillis + 2 * oneDayMillis + oneHourMillis / 2),
+            new Date(nowMillis + 2 * oneDayMillis + 2 * oneHourMillis)),
+        Pair.of(new Date(nowMillis - oneHourMillis), new Date(nowMillis + oneHourMillis / 2)),
+        Pair.of(new Date(nowMillis + 3 * oneDayMillis - oneHourMillis), new Date(nowMillis + 3 * oneDayMillis)));
+
+    Assert.assertEquals(Arrays.asList(mpId + 0, mpId + 2),
+        schedulerDatabase.getEvents(agentId, intervals, 0));
+    Assert.assertEquals(Arrays.asList(mpId + 0, mpId + 2, mpId + 3),
+        schedulerDatabase.getEvents(agentId, intervals, 60 * 1000));
+    Assert.assertTrue(schedulerDatabase.getEvents("agent2", intervals, 0).isEmpty());
+    Assert.assertTrue(schedulerDatabase.getEvents(agentId, Collections.emptyList(), 0).isEmpty());
+  }
+
   @Test
   public void testSearch() throws Exception {
     // We create 4 events, each with a duration of 2 hours:
@@ -0,0 +1,172 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import org.opencastproject.db.DBSession;
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.jpa.JpaJob;
+import org.opencastproject.serviceregistry.api.HostRegistration;
+import org.opencastproject.serviceregistry.api.ServiceRegistration;
+import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.serviceregistry.api.SystemLoad;
+import org.opencastproject.util.NotFoundException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The services, hosts and loads of the cluster as seen by a dispatch round, along with the parent jobs of the jobs
+ * being dispatched.
+ * <p>
+ * Looking these up for every single job makes dispatching a large backlog bound by the database. The snapshot loads
+ * them once and keeps track of the jobs dispatched during the round in memory instead. It is reloaded if the service
+ * registry reports changes to the hosts or services, and after {@link #MAX_AGE} to pick up the changes made by other
+ * nodes.
+ */
+final class DispatchSnapshot {
+
+  private static final Logger logger = LoggerFactory.getLogger(DispatchSnapshot.class);
+
+  /** The maximum time in milliseconds a snapshot is used before being reloaded */
+  static final long MAX_AGE = 10000L;
+
+  private final ServiceRegistryJpaImpl serviceRegistry;
+  private final DBSession db;
+
+  private long topologyVersion;
+  private long loaded;
+  private List<ServiceRegistration> services;
+  private List<HostRegistration> hosts;
+  private SystemLoad systemLoad;
+
+  /** The parent jobs by their identifier */
+  private final Map<Long, Optional<Job>> parentJobs = new HashMap<>();
+
+  /** Whether jobs have running child jobs, by the identifier of the job */
+  private final Map<Long, Boolean> runningChildren = new HashMap<>();
+
+  DispatchSnapshot(ServiceRegistryJpaImpl serviceRegistry, DBSession db) {
+    this.serviceRegistry = serviceRegistry;
+    this.db = db;
+  }
+
+  /** Returns all service registrations. */
+  List<ServiceRegistration> getServices() {
+    refresh();
+    return services;
+  }
+
+  /** Returns all host registrations. */
+  List<HostRegistration> getHosts() {
+    refresh();
+    return hosts;
+  }
+
+  /** Returns the loads of all hosts, including the jobs dispatched since the snapshot has been loaded. */
+  SystemLoad getSystemLoad() {
+    refresh();
+    return systemLoad;
+  }
+
+  /**
+   * Returns the parent job of a job.
+   *
+   * @param job
+   *          the job
+   * @return the parent job, or an empty Optional if the job has no parent or the parent does not exist anymore
+   */
+  Optional<Job> getParentJob(JpaJob job) throws ServiceRegistryException {
+    if (job.getParentJob() == null) {
+      return Optional.empty();
+    }
+    refresh();
+    final long id = job.getParentJob().getId();
+    Optional<Job> parent = parentJobs.get(id);
+    if (parent == null) {
+      try {
+        parent = Optional.of(serviceRegistry.getJob(id));
+      } catch (NotFoundException e) {
+        parent = Optional.empty();
+      }
+      parentJobs.put(id, parent);
+    }
+    return parent;
+  }
+
+  /**
+   * Checks whether any child job of a job is running.
+   *
+   * @param parentId
+   *          the identifier of the parent job
+   * @return whether any child job is running or has been dispatched since the snapshot has been loaded
+   */
+  boolean hasRunningChildren(long parentId) throws ServiceRegistryException {
+    refresh();
+    Boolean running = runningChildren.get(parentId);
+    if (running == null) {
+      running = serviceRegistry.getChildJobs(parentId).stream()
+          .anyMatch(child -> Job.Status.RUNNING.equals(child.getStatus()));
+      runningChildren.put(parentId, running);
+    }
+    return running;
+  }
+
+  /**
+   * Records a dispatched job. Its load is added to the host and it is considered to be running from now on.
+   *
+   * @param job
+   *          the dispatched job
+   * @param host
+   *          the host accepting the job
+   */
+  void jobDispatched(JpaJob job, String host) {
+    try {
+      systemLoad.updateNodeLoad(host, job.getJobLoad());
+    } catch (NotFoundException e) {
+      logger.info("Host {} not found in load list, cannot dispatch {} to it", host, job);
+    }
+    if (job.getParentJob() != null) {
+      runningChildren.put(job.getParentJob().getId(), true);
+    }
+  }
+
+  private void refresh() {
+    final long version = serviceRegistry.getTopologyVersion();
+    final long now = System.currentTimeMillis();
+    if (services != null && version == topologyVersion && now - loaded < MAX_AGE) {
+      return;
+    }
+    logger.debug("Loading services, hosts and loads for dispatching");
+    topologyVersion = version;
+    loaded = now;
+    services = db.exec(serviceRegistry.getServiceRegistrationsQuery());
+    hosts = db.exec(serviceRegistry.getHostRegistrationsQuery());
+    systemLoad = db.exec(serviceRegistry.getHostLoadsQuery());
+    parentJobs.clear();
+    runningChildren.clear();
+  }
+}
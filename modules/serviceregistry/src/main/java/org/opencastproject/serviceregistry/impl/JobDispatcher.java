@@ -46,6 +46,7 @@ import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.UrlSupport;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.HttpResponse;
@@ -57,6 +58,7 @@ import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
@@ -64,6 +66,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Dictionary;
@@ -72,10 +75,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -110,6 +116,15 @@ public class JobDispatcher {
   /** Multiplicative factor to transform dispatch interval captured in seconds to milliseconds */
   static final long DISPATCH_INTERVAL_MS_FACTOR = 1000;
 
+  /** Configuration key for dispatching jobs as soon as they are queued */
+  protected static final String OPT_EVENT_DRIVEN = "dispatch.event.driven";
+
+  /** Configuration key for the maximum delay between two full dispatch rounds in event driven mode, in seconds */
+  protected static final String OPT_FULL_DISPATCH_INTERVAL = "dispatch.full.interval";
+
+  /** Default maximum delay between two full dispatch rounds in event driven mode, in seconds */
+  static final long DEFAULT_FULL_DISPATCH_INTERVAL = 60;
+
   private static final Logger logger = LoggerFactory.getLogger(JobDispatcher.class);
 
   private ServiceRegistryJpaImpl serviceRegistry;
@@ -139,6 +154,42 @@ public class JobDispatcher {
   /** The dispatcher priority list */
   protected final Map<Long, String> dispatchPriorityList = new HashMap<>();
 
+  /** Whether jobs are dispatched as soon as they are queued instead of with the next dispatch round */
+  private boolean eventDriven = false;
+
+  /** Maximum delay between two full dispatch rounds in event driven mode, in milliseconds */
+  private long fullDispatchIntervalMs = DEFAULT_FULL_DISPATCH_INTERVAL * DISPATCH_INTERVAL_MS_FACTOR;
+
+  /** The identifiers of jobs queued on this node since the last dispatch round */
+  private final Set<Long> queuedJobIds = ConcurrentHashMap.newKeySet();
+
+  /** Whether a dispatch round for queued jobs is already pending */
+  private final AtomicBoolean queuedJobsRoundPending = new AtomicBoolean(false);
+
+  /** Whether the next dispatch round must go through all dispatchable jobs */
+  private final AtomicBoolean fullDispatchRequested = new AtomicBoolean(true);
+
+  /** The job table state seen by the last full dispatch round, see ServiceRegistryJpaImpl#getDispatchStateQuery */
+  private Map<Object, List<Object>> lastDispatchState = null;
+
+  /** The time of the last full dispatch round */
+  private long lastFullDispatch = 0L;
+
+  /** Receives notifications about queued jobs from the service registry */
+  private final ServiceRegistryJpaImpl.DispatchListener dispatchListener = new ServiceRegistryJpaImpl.DispatchListener() {
+    @Override
+    public void jobQueued(long jobId) {
+      queuedJobIds.add(jobId);
+      scheduleQueuedJobsRound();
+    }
+
+    @Override
+    public void dispatchStateChanged() {
+      fullDispatchRequested.set(true);
+      scheduleQueuedJobsRound();
+    }
+  };
+
   /** OSGi DI */
   @Reference(target = "(osgi.unit.name=org.opencastproject.common)")
   void setEntityManagerFactory(EntityManagerFactory emf) {
@@ -188,6 +239,12 @@ public class JobDispatcher {
   }
 
 
+  @Deactivate
+  public void deactivate() {
+    logger.debug("Deactivate job dispatcher");
+    serviceRegistry.setDispatchListener(null);
+  }
+
   @Modified
   public void modified(ComponentContext cc) throws ConfigurationException {
     logger.debug("Modified in job dispatcher");
@@ -223,10 +280,26 @@ public class JobDispatcher {
       }
     }
 
+    eventDriven = BooleanUtils.toBoolean(StringUtils.trimToNull((String) properties.get(OPT_EVENT_DRIVEN)));
+    long fullDispatchInterval = DEFAULT_FULL_DISPATCH_INTERVAL;
+    String fullDispatchIntervalString = StringUtils.trimToNull((String) properties.get(OPT_FULL_DISPATCH_INTERVAL));
+    if (fullDispatchIntervalString != null) {
+      try {
+        fullDispatchInterval = Long.parseLong(fullDispatchIntervalString);
+      } catch (NumberFormatException e) {
+        logger.warn("Full dispatch interval '{}' is malformed, setting to {}", fullDispatchIntervalString,
+            DEFAULT_FULL_DISPATCH_INTERVAL);
+      }
+    }
+    fullDispatchIntervalMs = fullDispatchInterval * DISPATCH_INTERVAL_MS_FACTOR;
+
     // Stop the current dispatch thread so we can configure a new one
     if (jdfuture != null) {
       jdfuture.cancel(true);
+      jdfuture = null;
     }
+    serviceRegistry.setDispatchListener(null);
+    fullDispatchRequested.set(true);
 
     // Schedule the job dispatching.
     if (dispatchInterval > 0) {
@@ -235,6 +308,11 @@ public class JobDispatcher {
       logger.debug("Starting job dispatching at a custom interval of {}s", dispatchInterval);
       jdfuture = scheduledExecutor.scheduleWithFixedDelay(getJobDispatcherRunnable(), dispatchIntervalMs, dispatchIntervalMs,
           TimeUnit.MILLISECONDS);
+      if (eventDriven) {
+        logger.info("Dispatching queued jobs immediately, with full dispatch rounds at least every {}s",
+            fullDispatchInterval);
+        serviceRegistry.setDispatchListener(dispatchListener);
+      }
     } else {
       logger.info("Job dispatching is disabled");
     }
@@ -244,6 +322,25 @@ public class JobDispatcher {
     return new JobDispatcherRunner();
   }
 
+  /**
+   * Schedules a dispatch round for the jobs queued since the last round, unless one is already pending. The round runs
+   * on the dispatcher thread, so it never overlaps with a regular dispatch round.
+   */
+  private void scheduleQueuedJobsRound() {
+    if (jdfuture == null || !queuedJobsRoundPending.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      scheduledExecutor.execute(() -> {
+        queuedJobsRoundPending.set(false);
+        new JobDispatcherRunner().dispatchQueuedJobs();
+      });
+    } catch (RejectedExecutionException e) {
+      queuedJobsRoundPending.set(false);
+      logger.debug("Not dispatching queued jobs since the dispatcher is shutting down");
+    }
+  }
+
   public class JobDispatcherRunner implements Runnable {
 
     /**
@@ -253,8 +350,15 @@ public class JobDispatcher {
      */
     @Override
     public void run() {
+      if (eventDriven && !fullDispatchRequested.getAndSet(false) && isDispatchStateUnchanged()) {
+        logger.trace("No jobs have been queued or finished since the last dispatch round");
+        return;
+      }
+
       logger.debug("Starting job dispatch");
 
+      // A full round picks up all queued jobs
+      queuedJobIds.clear();
       undispatchableJobTypes = new ArrayList<>();
       try {
         //GDLGDL: move collectJobStats to the JD config, then this is reasonable
@@ -275,6 +379,7 @@ public class JobDispatcher {
           }
         }
 
+        DispatchSnapshot snapshot = new DispatchSnapshot(serviceRegistry, db);
         int jobsOffset = 0;
         List<JpaJob> dispatchableJobs;
         List<JpaJob> workflowJobs = new ArrayList<>();
@@ -297,7 +402,7 @@ public class JobDispatcher {
             continue;
           }
 
-          dispatchDispatchableJobs(dispatchableJobs);
+          dispatchDispatchableJobs(dispatchableJobs, snapshot);
         } while (jobsFound);
 
         jobsOffset = 0;
@@ -319,11 +424,11 @@ public class JobDispatcher {
             continue;
           }
 
-          dispatchDispatchableJobs(dispatchableJobs);
+          dispatchDispatchableJobs(dispatchableJobs, snapshot);
         } while (jobsFound);
 
         if (!workflowJobs.isEmpty()) {
-          dispatchDispatchableJobs(workflowJobs);
+          dispatchDispatchableJobs(workflowJobs, snapshot);
         }
       } catch (Throwable t) {
         logger.warn("Error dispatching jobs", t);
@@ -334,15 +439,83 @@ public class JobDispatcher {
       logger.debug("Finished job dispatch");
     }
 
+    /**
+     * Dispatches the jobs that have been queued on this node since the last dispatch round, or runs a full dispatch
+     * round if one has been requested.
+     */
+    void dispatchQueuedJobs() {
+      if (fullDispatchRequested.get()) {
+        run();
+        return;
+      }
+
+      List<Long> jobIds = new ArrayList<>(queuedJobIds);
+      queuedJobIds.removeAll(jobIds);
+      if (jobIds.isEmpty()) {
+        return;
+      }
+
+      logger.debug("Dispatching {} queued jobs", jobIds.size());
+      undispatchableJobTypes = new ArrayList<>();
+      try {
+        DispatchSnapshot snapshot = new DispatchSnapshot(serviceRegistry, db);
+        List<JpaJob> workflowJobs = new ArrayList<>();
+        for (int i = 0; i < jobIds.size(); i += ServiceRegistryJpaImpl.DEFAULT_DISPATCH_JOBS_LIMIT) {
+          List<Long> chunk = jobIds.subList(i,
+              Math.min(i + ServiceRegistryJpaImpl.DEFAULT_DISPATCH_JOBS_LIMIT, jobIds.size()));
+          List<JpaJob> dispatchableJobs = db.exec(serviceRegistry.getDispatchableJobsWithIdsQuery(chunk,
+              Job.Status.RESTART, Job.Status.QUEUED));
+
+          // dispatch workflow jobs last, just like a full dispatch round does
+          for (JpaJob job : dispatchableJobs) {
+            if (ServiceRegistryJpaImpl.TYPE_WORKFLOW.equals(job.getJobType())) {
+              workflowJobs.add(job);
+            }
+          }
+          dispatchableJobs.removeAll(workflowJobs);
+          dispatchDispatchableJobs(dispatchableJobs, snapshot);
+        }
+
+        if (!workflowJobs.isEmpty()) {
+          dispatchDispatchableJobs(workflowJobs, snapshot);
+        }
+      } catch (Throwable t) {
+        logger.warn("Error dispatching queued jobs", t);
+      } finally {
+        undispatchableJobTypes = null;
+      }
+    }
+
+    /**
+     * Checks whether any job has been queued, dispatched or finished since the last full dispatch round. Since the
+     * outcome of a dispatch round would not differ otherwise, the round can be skipped. Changes to the hosts are not
+     * detected this way, which is why a full round is enforced after the configured full dispatch interval.
+     *
+     * @return true if the dispatch state is unchanged and no full round is due
+     */
+    private boolean isDispatchStateUnchanged() {
+      Map<Object, List<Object>> dispatchState = new HashMap<>();
+      for (Object[] row : db.exec(serviceRegistry.getDispatchStateQuery())) {
+        dispatchState.put(row[0], Arrays.asList(row[1], row[2]));
+      }
+      boolean unchanged = dispatchState.equals(lastDispatchState);
+      lastDispatchState = dispatchState;
+
+      long now = System.currentTimeMillis();
+      if (unchanged && now - lastFullDispatch < fullDispatchIntervalMs) {
+        return true;
+      }
+      lastFullDispatch = now;
+      return false;
+    }
+
     /**
      * Dispatch the given jobs.
      *
      * @param jobsToDispatch list with dispatchable jobs to dispatch
+     * @param snapshot the services, hosts and loads of the current dispatch round
      */
-    private void dispatchDispatchableJobs(List<JpaJob> jobsToDispatch) {
-      // Get the current system load
-      SystemLoad systemLoad = db.exec(serviceRegistry.getHostLoadsQuery());
-
+    private void dispatchDispatchableJobs(List<JpaJob> jobsToDispatch, DispatchSnapshot snapshot) {
       for (JpaJob job : jobsToDispatch) {
         // Remember the job type
         String jobType = job.getJobType();
@@ -378,36 +551,22 @@ public class JobDispatcher {
 
         // Start dispatching
         try {
-          List<ServiceRegistration> services = db.exec(serviceRegistry.getServiceRegistrationsQuery());
-          List<HostRegistration> hosts = db.exec(serviceRegistry.getHostRegistrationsQuery()).stream()
+          List<ServiceRegistration> services = snapshot.getServices();
+          List<HostRegistration> hosts = snapshot.getHosts().stream()
                                            .filter(host -> !dispatchPriorityList.containsValue(host.getBaseUrl())
                                                || host.getBaseUrl().equals(dispatchPriorityList.get(job.getId())))
                                            .collect(Collectors.toList());
+          SystemLoad systemLoad = snapshot.getSystemLoad();
           List<ServiceRegistration> candidateServices;
 
           // Depending on whether this running job is trying to reach out to other services or whether this is an
           // attempt to execute the next operation in a workflow, choose either from a limited or from the full list
           // of services
-          Job parentJob = null;
-          try {
-            if (job.getParentJob() != null) {
-              parentJob = serviceRegistry.getJob(job.getParentJob().getId());
-            }
-          } catch (NotFoundException e) {
-            // That's ok
-          }
+          Job parentJob = snapshot.getParentJob(job).orElse(null);
 
           // When a job A starts a series of child jobs, then those child jobs should only be dispatched at the
           // same time if there is processing capacity available.
-          boolean parentHasRunningChildren = false;
-          if (parentJob != null) {
-            for (Job child : serviceRegistry.getChildJobs(parentJob.getId())) {
-              if (Job.Status.RUNNING.equals(child.getStatus())) {
-                parentHasRunningChildren = true;
-                break;
-              }
-            }
-          }
+          boolean parentHasRunningChildren = parentJob != null && snapshot.hasRunningChildren(parentJob.getId());
 
           // If this is a root job (a new workflow or a new workflow operation), then only dispatch if there is
           // capacity, i. e. the workflow service is ok dispatching the next workflow or the next workflow operation.
@@ -423,11 +582,7 @@ public class JobDispatcher {
           String hostAcceptingJob;
           try {
             hostAcceptingJob = dispatchJob(job, candidateServices);
-            try {
-              systemLoad.updateNodeLoad(hostAcceptingJob, job.getJobLoad());
-            } catch (NotFoundException e) {
-              logger.info("Host {} not found in load list, cannot dispatch {} to it", hostAcceptingJob, job);
-            }
+            snapshot.jobDispatched(job, hostAcceptingJob);
 
             dispatchPriorityList.remove(job.getId());
           } catch (ServiceUnavailableException e) {
@@ -37,6 +37,7 @@ import org.opencastproject.db.DBSession;
 import org.opencastproject.db.DBSessionFactory;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.jpa.JpaArchivedJob;
 import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.Organization;
@@ -49,6 +50,8 @@ import org.opencastproject.serviceregistry.api.HostStatistics;
 import org.opencastproject.serviceregistry.api.IncidentService;
 import org.opencastproject.serviceregistry.api.Incidents;
 import org.opencastproject.serviceregistry.api.JaxbServiceStatistics;
+import org.opencastproject.serviceregistry.api.JobLoadStatistics;
+import org.opencastproject.serviceregistry.api.JobLoadStatistics.JobLoad;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
@@ -59,6 +62,7 @@ import org.opencastproject.serviceregistry.impl.jmx.HostsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.JobsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.ServicesStatistics;
 import org.opencastproject.serviceregistry.impl.jpa.HostRegistrationJpaImpl;
+import org.opencastproject.serviceregistry.impl.jpa.JobLoadJpaImpl;
 import org.opencastproject.serviceregistry.impl.jpa.ServiceRegistrationJpaImpl;
 import org.opencastproject.systems.OpencastConstants;
 import org.opencastproject.util.NotFoundException;
@@ -73,6 +77,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
@@ -90,11 +95,13 @@ import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -104,9 +111,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -117,6 +129,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
+import javax.persistence.TemporalType;
 import javax.persistence.TypedQuery;
 
 /** JPA implementation of the {@link ServiceRegistry} */
@@ -182,6 +195,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Configuration key for the retrieval of service statistics: Do not consider jobs older than max_job_age (in days) */
   protected static final String OPT_SERVICE_STATISTICS_MAX_JOB_AGE = "org.opencastproject.statistics.services.max_job_age";
 
+  /** Configuration key for the age in days after which terminated jobs are moved to the job archive */
+  protected static final String OPT_JOB_ARCHIVE_AGE = "job.archive.age";
+
+  /** Configuration key for the interval in seconds in which terminated jobs are moved to the job archive */
+  protected static final String OPT_JOB_ARCHIVE_INTERVAL = "job.archive.interval";
+
   /** Configuration key for the encoding preferred worker nodes */
   protected static final String OPT_ENCODING_WORKERS = "org.opencastproject.encoding.workers";
 
@@ -205,6 +224,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
   static final double DEFAULT_ENCODING_THRESHOLD = 0.0;
 
+  /** Default age in days after which terminated jobs are archived */
+  static final int DEFAULT_JOB_ARCHIVE_AGE = 30;
+
+  /** Default interval in seconds in which terminated jobs are archived */
+  static final long DEFAULT_JOB_ARCHIVE_INTERVAL = 3600;
+
+  /** The maximum number of job trees looked up at once for archiving */
+  static final int JOB_ARCHIVE_BATCH_SIZE = 100;
+
   /** The configuration key for setting {@link #maxAttemptsBeforeErrorState} */
   static final String MAX_ATTEMPTS_CONFIG_KEY = "max.attempts";
 
@@ -269,6 +297,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Maximum age of jobs being considering for service statistics */
   protected int maxJobAge = DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE;
 
+  /** The age in days after which terminated jobs are archived, archiving is disabled if not positive */
+  protected int jobArchiveAge = DEFAULT_JOB_ARCHIVE_AGE;
+
   /** A static list of statuses that influence how load balancing is calculated */
   protected static final List<Status> JOB_STATUSES_INFLUENCING_LOAD_BALANCING;
 
@@ -288,12 +319,73 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   // Current system load
   protected float localSystemLoad = 0.0f;
 
+  /** The service type of the service registry endpoint, which receives job termination notifications */
+  static final String SERVICE_REGISTRY_TYPE = "org.opencastproject.serviceregistry";
+
+  /** The listeners waiting for jobs to terminate, by job identifier */
+  private final Map<Long, List<Consumer<Job>>> jobTerminationListeners = new ConcurrentHashMap<>();
+
+  /** Sends job termination notifications to the nodes waiting for the terminated jobs */
+  private ExecutorService jobTerminationNotifier = null;
+
+  /** The listener to notify about jobs that may have become dispatchable, if any */
+  private volatile DispatchListener dispatchListener = null;
+
+  /** Incremented whenever hosts or services are registered or change their state */
+  private final AtomicLong topologyVersion = new AtomicLong();
+
+  /** The time in milliseconds after which the recorded job loads are reloaded from the database */
+  static final long JOB_LOAD_CACHE_TTL = 60 * 1000;
+
+  /** The recorded job loads by job type, operation and key, as of the last reload */
+  private volatile Map<List<String>, JobLoad> jobLoadCache = Collections.emptyMap();
+
+  /** The maximum load of the largest host, as of the last reload of the job loads */
+  private volatile float jobLoadCacheMaxLoad = Float.MAX_VALUE;
+
+  /** The time the job loads have last been reloaded */
+  private volatile long jobLoadCacheUpdated = 0;
+
+  private final Object jobLoadCacheLock = new Object();
+
+  /**
+   * Listener that is notified about changes to the job table that may allow jobs to be dispatched.
+   */
+  interface DispatchListener {
+
+    /**
+     * Called after a job has been queued for dispatching.
+     *
+     * @param jobId
+     *          the identifier of the queued job
+     */
+    void jobQueued(long jobId);
+
+    /**
+     * Called after processing capacity has been released or jobs have been requeued in bulk, so that all queued jobs
+     * need to be reconsidered.
+     */
+    void dispatchStateChanged();
+  }
+
   /** OSGi DI */
   @Reference(target = "(osgi.unit.name=org.opencastproject.common)")
   void setEntityManagerFactory(EntityManagerFactory emf) {
     this.emf = emf;
   }
 
+  /**
+   * Returns a number which changes whenever hosts or services of this node are registered or change their state, so
+   * that copies of the registrations can be refreshed.
+   */
+  long getTopologyVersion() {
+    return topologyVersion.get();
+  }
+
+  private void topologyChanged() {
+    topologyVersion.incrementAndGet();
+  }
+
   @Reference
   public void setDBSessionFactory(DBSessionFactory dbSessionFactory) {
     this.dbSessionFactory = dbSessionFactory;
@@ -389,6 +481,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               .getOrElse(DEFAULT_ACCEPT_JOB_LOADS_EXCEEDING);
     }
 
+    if (jobTerminationNotifier == null) {
+      jobTerminationNotifier = Executors.newSingleThreadExecutor();
+    }
+
     localSystemLoad = 0;
     logger.info("Activated");
   }
@@ -420,6 +516,11 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    if (jobTerminationNotifier != null) {
+      jobTerminationNotifier.shutdownNow();
+      jobTerminationNotifier = null;
+    }
+
     for (ObjectInstance mbean : jmxBeans) {
       JmxUtil.unregisterMXBean(mbean);
     }
@@ -587,6 +688,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     });
 
     setJobUri(jpaJob);
+    if (dispatchable) {
+      DispatchListener listener = dispatchListener;
+      if (listener != null) {
+        listener.jobQueued(jpaJob.getId());
+      }
+    }
     return jpaJob.toJob();
   }
 
@@ -603,6 +710,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       db.execTxChecked(em -> {
         for (long jobId : jobIds) {
           JpaJob job = em.find(JpaJob.class, jobId);
+          if (job == null && removeArchivedJob(em, jobId)) {
+            continue;
+          }
           if (job == null) {
             logger.error("Job with Id {} cannot be deleted: Not found.", jobId);
             removeFromLoadCache(jobId);
@@ -647,6 +757,108 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     };
   }
 
+  /**
+   * Removes an archived job along with its archived child jobs.
+   *
+   * @return whether the job has been found in the archive
+   */
+  private boolean removeArchivedJob(EntityManager em, long jobId) {
+    JpaArchivedJob job = em.find(JpaArchivedJob.class, jobId);
+    if (job == null) {
+      return false;
+    }
+    List<JpaArchivedJob> childJobs = getArchivedChildrenQuery(jobId).apply(em);
+    for (int i = childJobs.size() - 1; i >= 0; i--) {
+      em.remove(childJobs.get(i));
+    }
+    em.remove(job);
+    logger.debug("{} deleted", job);
+    return true;
+  }
+
+  /**
+   * Moves terminated job trees whose root job completed before the given date from the job table to the job archive.
+   * This keeps the job table, which all dispatching and statistics queries run on, limited to recent jobs.
+   *
+   * @param before
+   *          the date the root jobs have to be completed before
+   * @return the number of archived jobs, including child jobs
+   */
+  public int archiveJobs(Date before) {
+    final List<Integer> terminated = Arrays.stream(Status.values())
+        .filter(Status::isTerminated)
+        .map(Enum::ordinal)
+        .collect(Collectors.toList());
+    // Page by the completion date and identifier of the last root job, job trees which cannot be archived stay in
+    // the job table and are not looked up again
+    Date lastDate = new Date(0);
+    long lastId = 0;
+    int archived = 0;
+    List<Object[]> roots;
+    do {
+      final Date afterDate = lastDate;
+      final long afterId = lastId;
+      roots = db.exec(em -> {
+        return em.createNamedQuery("Job.archivable", Object[].class)
+            .setParameter("statuses", terminated)
+            .setParameter("date", before, TemporalType.TIMESTAMP)
+            .setParameter("lastDate", afterDate, TemporalType.TIMESTAMP)
+            .setParameter("lastId", afterId)
+            .setMaxResults(JOB_ARCHIVE_BATCH_SIZE)
+            .getResultList();
+      });
+      for (Object[] root : roots) {
+        lastId = (Long) root[0];
+        lastDate = (Date) root[1];
+        try {
+          archived += db.execTx(archiveJobTreeQuery(lastId));
+        } catch (Exception e) {
+          logger.warn("Unable to archive job {} and its child jobs", lastId, e);
+        }
+      }
+    } while (roots.size() == JOB_ARCHIVE_BATCH_SIZE);
+    return archived;
+  }
+
+  private Function<EntityManager, Integer> archiveJobTreeQuery(long rootId) {
+    return em -> {
+      JpaJob root = em.find(JpaJob.class, rootId);
+      if (root == null) {
+        return 0;
+      }
+      List<JpaJob> jobs = new ArrayList<>(namedQuery.findAll("Job.root.children", JpaJob.class, Pair.of("id", rootId))
+          .apply(em));
+      jobs.add(root);
+      if (!jobs.stream().allMatch(job -> job.getStatus().isTerminated())) {
+        return 0;
+      }
+      final Date now = new Date();
+      for (JpaJob job : jobs) {
+        em.persist(JpaArchivedJob.from(job.toJob(), now));
+      }
+      // Child jobs are created after their parents, removing them in reverse order keeps the references intact
+      jobs.sort(Comparator.comparingLong(JpaJob::getId).reversed());
+      for (JpaJob job : jobs) {
+        em.remove(job);
+        removeFromLoadCache(job.getId());
+      }
+      logger.debug("Archived {} along with {} child jobs", root, jobs.size() - 1);
+      return jobs.size();
+    };
+  }
+
+  /** Archives the terminated jobs older than the configured archive age. */
+  private void archiveOldJobs() {
+    try {
+      int count = archiveJobs(DateUtils.addDays(new Date(), -jobArchiveAge));
+      if (count > 0) {
+        logger.info("Moved {} terminated jobs to the job archive", count);
+      }
+    } catch (Exception e) {
+      logger.warn("Unable to archive terminated jobs", e);
+    }
+  }
+
   @Override
   public void removeParentlessJobs(int lifetime) throws ServiceRegistryException {
     int count = db.execTxChecked(em -> {
@@ -675,14 +887,55 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       return c;
     });
 
+    // Jobs are archived before they reach the lifetime of parentless jobs, remove them from the archive as well
+    int archivedCount = removeParentlessArchivedJobs(DateUtils.addDays(new Date(), -lifetime));
 
-    if (count > 0) {
-      logger.info("Successfully removed {} parentless jobs", count);
+    if (count > 0 || archivedCount > 0) {
+      logger.info("Successfully removed {} parentless jobs and {} parentless archived jobs", count, archivedCount);
     } else {
       logger.trace("No parentless jobs found to remove");
     }
   }
 
+  /**
+   * Removes archived job trees whose root job has been created before the given date. Like in the job table, the jobs
+   * of workflow instances and operations are kept.
+   *
+   * @param before
+   *          the date the root jobs have to be created before
+   * @return the number of removed root jobs
+   */
+  private int removeParentlessArchivedJobs(Date before) {
+    final List<String> operations = Arrays.asList(START_OPERATION, START_WORKFLOW, RESUME);
+    long lastId = 0;
+    int removed = 0;
+    List<Long> roots;
+    do {
+      final long afterId = lastId;
+      roots = db.exec(em -> {
+        return em.createNamedQuery("ArchivedJob.parentless", Long.class)
+            .setParameter("date", before, TemporalType.TIMESTAMP)
+            .setParameter("lastId", afterId)
+            .setParameter("operations", operations)
+            .setMaxResults(JOB_ARCHIVE_BATCH_SIZE)
+            .getResultList();
+      });
+      for (long root : roots) {
+        lastId = root;
+        try {
+          if (db.execTx(em -> {
+            return removeArchivedJob(em, root);
+          })) {
+            removed++;
+          }
+        } catch (Exception e) {
+          logger.warn("Unable to remove archived job {} and its child jobs", root, e);
+        }
+      }
+    } while (roots.size() == JOB_ARCHIVE_BATCH_SIZE);
+    return removed;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -788,6 +1041,33 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    jobArchiveAge = DEFAULT_JOB_ARCHIVE_AGE;
+    String jobArchiveAgeString = StringUtils.trimToNull((String) properties.get(OPT_JOB_ARCHIVE_AGE));
+    if (jobArchiveAgeString != null) {
+      try {
+        jobArchiveAge = Integer.parseInt(jobArchiveAgeString);
+      } catch (NumberFormatException e) {
+        logger.warn("Can not set job archive age to {}. {} must be an integer", jobArchiveAgeString,
+                OPT_JOB_ARCHIVE_AGE);
+      }
+    }
+
+    long jobArchiveInterval = DEFAULT_JOB_ARCHIVE_INTERVAL;
+    String jobArchiveIntervalString = StringUtils.trimToNull((String) properties.get(OPT_JOB_ARCHIVE_INTERVAL));
+    if (jobArchiveIntervalString != null) {
+      try {
+        jobArchiveInterval = Long.parseLong(jobArchiveIntervalString);
+      } catch (NumberFormatException e) {
+        logger.warn("Can not set job archive interval to {}. {} must be an integer", jobArchiveIntervalString,
+                OPT_JOB_ARCHIVE_INTERVAL);
+      }
+      if (jobArchiveInterval <= 0) {
+        logger.warn("Job archive interval {} seconds too low, adjusting to {}", jobArchiveInterval,
+                DEFAULT_JOB_ARCHIVE_INTERVAL);
+        jobArchiveInterval = DEFAULT_JOB_ARCHIVE_INTERVAL;
+      }
+    }
+
     scheduledExecutor = Executors.newScheduledThreadPool(1);
 
     // Schedule the service heartbeat if the interval is > 0
@@ -796,6 +1076,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       scheduledExecutor.scheduleWithFixedDelay(new JobProducerHeartbeat(), heartbeatInterval, heartbeatInterval,
               TimeUnit.SECONDS);
     }
+
+    // Schedule the archiving of terminated jobs if the archive age is > 0
+    if (jobArchiveAge > 0) {
+      logger.info("Archiving jobs terminated more than {} days ago every {}s", jobArchiveAge, jobArchiveInterval);
+      scheduledExecutor.scheduleWithFixedDelay(this::archiveOldJobs, jobArchiveInterval, jobArchiveInterval,
+              TimeUnit.SECONDS);
+    } else {
+      logger.info("Job archive disabled");
+    }
   }
 
   /**
@@ -823,9 +1112,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   @Override
   public Job getJob(long id) throws NotFoundException, ServiceRegistryException {
     try {
-      return db.exec(getJpaJobQuery(id))
-          .map(JpaJob::toJob)
-          .orElseThrow(NotFoundException::new);
+      Optional<Job> job = db.exec(getJpaJobQuery(id)).map(JpaJob::toJob);
+      if (job.isEmpty()) {
+        job = db.exec(namedQuery.findByIdOpt(JpaArchivedJob.class, id))
+            .map(this::setJobUri)
+            .map(JpaArchivedJob::toJob);
+      }
+      return job.orElseThrow(NotFoundException::new);
     } catch (NotFoundException e) {
       throw e;
     } catch (Exception e) {
@@ -872,6 +1165,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           updateServiceForFailover(job);
         }
 
+        notifyDispatchListener(oldJob.getStatus(), job);
+        if (oldJob.getStatus() != job.getStatus() && job.getStatus().isTerminated()) {
+          notifyJobTerminated(jpaJob.toJob());
+        }
         return jpaJob;
       });
     } catch (ServiceRegistryException e) {
@@ -893,6 +1190,172 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     return updateJob(jpaJob).toJob();
   }
 
+  @Override
+  public void updateJobProgress(long id, float progress, Long remainingTime)
+          throws NotFoundException, ServiceRegistryException {
+    final int updated;
+    try {
+      updated = db.execTx(namedQuery.update("Job.progress",
+          Pair.of("progress", progress),
+          Pair.of("remainingTime", remainingTime),
+          Pair.of("id", id),
+          Pair.of("status", Status.RUNNING.ordinal())));
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    }
+    if (updated == 0) {
+      // Throws if the job does not exist at all
+      logger.debug("Ignoring progress of {} which is not running", getJob(id));
+    }
+  }
+
+  @Override
+  public boolean addJobTerminationListener(long id, Consumer<Job> listener) {
+    jobTerminationListeners.compute(id, (jobId, listeners) -> {
+      List<Consumer<Job>> result = listeners != null ? listeners : new CopyOnWriteArrayList<>();
+      result.add(listener);
+      return result;
+    });
+    return true;
+  }
+
+  @Override
+  public void removeJobTerminationListener(long id, Consumer<Job> listener) {
+    jobTerminationListeners.computeIfPresent(id, (jobId, listeners) -> {
+      listeners.remove(listener);
+      return listeners.isEmpty() ? null : listeners;
+    });
+  }
+
+  /**
+   * Calls the local listeners waiting for the given job to terminate.
+   *
+   * @param job
+   *          the terminated job
+   */
+  private void fireJobTerminated(Job job) {
+    List<Consumer<Job>> listeners = jobTerminationListeners.get(job.getId());
+    if (listeners == null) {
+      return;
+    }
+    for (Consumer<Job> listener : listeners) {
+      try {
+        listener.accept(job);
+      } catch (Exception e) {
+        logger.warn("Error notifying listener about termination of {}", job, e);
+      }
+    }
+  }
+
+  /**
+   * Notifies the listeners waiting for the given job to terminate. Jobs are usually awaited by their parent job, so the
+   * node processing the parent job is notified as well if that is not this node.
+   *
+   * @param job
+   *          the terminated job
+   */
+  private void notifyJobTerminated(Job job) {
+    fireJobTerminated(job);
+    if (job.getParentJobId() == null || jobTerminationNotifier == null || client == null) {
+      return;
+    }
+    try {
+      jobTerminationNotifier.execute(() -> notifyRemoteJobTerminated(job));
+    } catch (RejectedExecutionException e) {
+      logger.debug("Not sending termination notification for {} since the service registry is shutting down", job);
+    }
+  }
+
+  /**
+   * Notifies the node processing the parent of the given job about the job's termination. Failures are only logged,
+   * since waiting nodes look at the jobs every now and then anyway.
+   *
+   * @param job
+   *          the terminated job
+   */
+  private void notifyRemoteJobTerminated(Job job) {
+    HttpResponse response = null;
+    try {
+      String waitingHost = getJob(job.getParentJobId()).getProcessingHost();
+      if (waitingHost == null || waitingHost.equals(hostName)) {
+        return;
+      }
+      ServiceRegistration endpoint = getServiceRegistration(SERVICE_REGISTRY_TYPE, waitingHost);
+      if (endpoint == null) {
+        logger.debug("No service registry endpoint on {} to notify about termination of {}", waitingHost, job);
+        return;
+      }
+      String url = UrlSupport.concat(waitingHost, endpoint.getPath(), "job", Long.toString(job.getId()), "terminated");
+      response = client.execute(new HttpPost(url));
+      if (response.getStatusLine().getStatusCode() != HttpStatus.SC_NO_CONTENT) {
+        logger.debug("Unable to notify {} about termination of {}: {}", waitingHost, job, response.getStatusLine());
+      }
+    } catch (Exception e) {
+      logger.debug("Unable to notify the node waiting for {} about its termination", job, e);
+    } finally {
+      try {
+        client.close(response);
+      } catch (IOException e) {
+        logger.debug("Error closing termination notification response", e);
+      }
+    }
+  }
+
+  /**
+   * Notifies the local listeners about the termination of a job on another node.
+   *
+   * @param id
+   *          the identifier of the terminated job
+   * @throws NotFoundException
+   *           if the job does not exist
+   * @throws ServiceRegistryException
+   *           if there is a problem accessing the service registry
+   */
+  public void jobTerminated(long id) throws NotFoundException, ServiceRegistryException {
+    if (!jobTerminationListeners.containsKey(id)) {
+      return;
+    }
+    Job job = getJob(id);
+    if (job.getStatus().isTerminated()) {
+      fireJobTerminated(job);
+    }
+  }
+
+  /**
+   * Sets the listener to notify about jobs that may have become dispatchable.
+   *
+   * @param listener
+   *          the listener or <code>null</code> to stop notifications
+   */
+  void setDispatchListener(DispatchListener listener) {
+    this.dispatchListener = listener;
+  }
+
+  /**
+   * Notifies the dispatch listener if a status change queued a job or released processing capacity. Changes made by
+   * the dispatcher itself, i.e. putting a job it failed to dispatch back into the queue, are ignored.
+   *
+   * @param oldStatus
+   *          the status of the job before the update
+   * @param job
+   *          the updated job
+   */
+  private void notifyDispatchListener(Status oldStatus, JpaJob job) {
+    DispatchListener listener = dispatchListener;
+    Status status = job.getStatus();
+    if (listener == null || oldStatus == status) {
+      return;
+    }
+    boolean queued = Status.QUEUED.equals(status) || Status.RESTART.equals(status);
+    boolean wasQueued = Status.QUEUED.equals(oldStatus) || Status.RESTART.equals(oldStatus)
+        || Status.DISPATCHING.equals(oldStatus);
+    if (queued && !wasQueued && job.isDispatchable()) {
+      listener.jobQueued(job.getId());
+    } else if (Status.RUNNING.equals(oldStatus)) {
+      listener.dispatchStateChanged();
+    }
+  }
+
   /**
    * Processes the job load changes for the *local* load cache
    *
@@ -943,6 +1406,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     return job;
   }
 
+  private JpaArchivedJob setJobUri(JpaArchivedJob job) {
+    try {
+      job.setUri(new URI(jobHost + "/services/job/" + job.getId() + ".xml"));
+    } catch (URISyntaxException e) {
+      logger.warn("Can not set the job URI", e);
+    }
+    return job;
+  }
+
   /**
    * Internal method to update a job, throwing unwrapped JPA exceptions.
    *
@@ -992,6 +1464,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     });
 
     servicesStatistics.updateService(registration);
+    topologyChanged();
     return registration;
   }
 
@@ -1011,6 +1484,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     final Status fromDbStatus = fromDb.getStatus();
 
     fromDb.setPayload(job.getPayload());
+    if (status != fromDbStatus) {
+      // The progress only refers to the current status
+      fromDb.setProgress(null, null);
+    }
     fromDb.setStatus(job.getStatus());
     fromDb.setDispatchable(job.isDispatchable());
     fromDb.setVersion(job.getVersion());
@@ -1117,6 +1594,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       });
 
       hostsStatistics.updateHost(hostRegistration);
+      topologyChanged();
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
@@ -1146,6 +1624,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
       logger.info("Host {} unregistered", host);
       hostsStatistics.updateHost(existingHostRegistration);
+      topologyChanged();
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
@@ -1178,6 +1657,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       });
 
       hostsStatistics.updateHost(hostRegistration);
+      topologyChanged();
     } catch (NotFoundException e) {
       throw e;
     } catch (Exception e) {
@@ -1210,6 +1690,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       });
 
       hostsStatistics.updateHost(hostRegistration);
+      topologyChanged();
     } catch (NotFoundException e) {
       throw e;
     } catch (Exception e) {
@@ -1311,6 +1792,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
       hostsStatistics.updateHost(hostRegistration.get());
       servicesStatistics.updateService(registration.get());
+      topologyChanged();
       return registration.get();
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
@@ -1437,6 +1919,11 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
+
+    DispatchListener listener = dispatchListener;
+    if (listener != null) {
+      listener.dispatchStateChanged();
+    }
   }
 
   /**
@@ -1475,6 +1962,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     });
 
     hostsStatistics.updateHost(reg);
+    topologyChanged();
     logger.info("Finished setting maintenance mode on host '{}'", baseUrl);
   }
 
@@ -1579,6 +2067,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         jobs = db.exec(getChildrenQuery(id));
       }
 
+      // The children of archived jobs are archived as well, jobs still in the job table have no archived children
+      if (jobs.size() == 0 && db.exec(namedQuery.findByIdOpt(JpaJob.class, id)).isEmpty()) {
+        return db.exec(getArchivedChildrenQuery(id)).stream()
+            .map(this::setJobUri)
+            .map(JpaArchivedJob::toJob)
+            .collect(Collectors.toList());
+      }
+
       return jobs.stream()
           .map(this::setJobUri)
           .map(JpaJob::toJob)
@@ -1605,6 +2101,24 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     };
   }
 
+  private Function<EntityManager, List<JpaArchivedJob>> getArchivedChildrenQuery(long id) {
+    return em -> {
+      List<JpaArchivedJob> jobs = namedQuery.findAll("ArchivedJob.root.children", JpaArchivedJob.class,
+          Pair.of("id", id)).apply(em);
+      if (!jobs.isEmpty()) {
+        return jobs;
+      }
+
+      List<JpaArchivedJob> result = new ArrayList<>();
+      for (JpaArchivedJob child : namedQuery.findAll("ArchivedJob.children", JpaArchivedJob.class,
+          Pair.of("id", id)).apply(em)) {
+        result.add(child);
+        result.addAll(getArchivedChildrenQuery(child.getId()).apply(em));
+      }
+      return result;
+    };
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -1754,6 +2268,50 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     };
   }
 
+  /**
+   * Gets the dispatchable jobs with the given identifiers that are still in one of the given states.
+   *
+   * @param jobIds
+   *          the job identifiers
+   * @param statuses
+   *          the job states
+   * @return the dispatchable jobs, ordered by their creation date
+   */
+  protected Function<EntityManager, List<JpaJob>> getDispatchableJobsWithIdsQuery(Collection<Long> jobIds,
+      Status... statuses) {
+    return em -> {
+      if (jobIds == null || jobIds.isEmpty() || statuses == null) {
+        return Collections.emptyList();
+      }
+
+      return namedQuery.findAll(
+          "Job.dispatchable.status.ids",
+          JpaJob.class,
+          Pair.of("jobids", jobIds),
+          Pair.of("statuses", Arrays.stream(statuses).map(Enum::ordinal).collect(Collectors.toList()))
+      ).apply(em);
+    };
+  }
+
+  /**
+   * Gets the number and the highest identifier of the jobs per status for all states relevant to dispatching. Two
+   * equal results indicate that no job has been queued, dispatched or finished in between.
+   *
+   * @return rows of status, number of jobs and highest job identifier
+   */
+  Function<EntityManager, List<Object[]>> getDispatchStateQuery() {
+    return namedQuery.findAll(
+        "Job.dispatch.state",
+        Object[].class,
+        Pair.of("statuses", List.of(
+            Status.RESTART.ordinal(),
+            Status.QUEUED.ordinal(),
+            Status.DISPATCHING.ordinal(),
+            Status.RUNNING.ordinal()
+        ))
+    );
+  }
+
   Function<EntityManager, List<Object[]>> getAvgOperationsQuery() {
     return namedQuery.findAll("Job.avgOperation", Object[].class);
   }
@@ -1902,6 +2460,111 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  @Override
+  public void recordJobLoad(String jobType, String operation, String key, long cpuTime, long wallTime,
+          long peakMemory) throws ServiceRegistryException {
+    if (wallTime <= 0) {
+      logger.debug("Ignoring load of {} job {} without elapsed time", jobType, operation);
+      return;
+    }
+    final String nonNullKey = JobLoadJpaImpl.toStoredKey(key);
+    for (int attempt = 1; ; attempt++) {
+      try {
+        db.execTx(em -> {
+          // Lock the row, jobs of the same kind finishing on several nodes at once update it concurrently
+          JobLoadJpaImpl jobLoad = em.createNamedQuery("JobLoad.find", JobLoadJpaImpl.class)
+              .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+              .setParameter("jobType", jobType)
+              .setParameter("operation", operation)
+              .setParameter("key", nonNullKey)
+              .getResultList()
+              .stream()
+              .findFirst()
+              .orElse(null);
+          if (jobLoad == null) {
+            jobLoad = new JobLoadJpaImpl(jobType, operation, nonNullKey);
+            em.persist(jobLoad);
+          }
+          jobLoad.record(cpuTime, wallTime, peakMemory);
+        });
+        return;
+      } catch (Exception e) {
+        // There is no row to lock before the first job of a kind has been recorded. If another node inserted the row
+        // at the same time, the unique constraint failed and the load is added to that row instead.
+        if (attempt < 2 && findJobLoad(jobType, operation, nonNullKey).isPresent()) {
+          logger.debug("Load of {} job {} has been recorded concurrently, retrying", jobType, operation);
+          continue;
+        }
+        throw new ServiceRegistryException(e);
+      }
+    }
+  }
+
+  private Optional<JobLoadJpaImpl> findJobLoad(String jobType, String operation, String key) {
+    try {
+      return db.exec(namedQuery.findOpt(
+          "JobLoad.find",
+          JobLoadJpaImpl.class,
+          Pair.of("jobType", jobType),
+          Pair.of("operation", operation),
+          Pair.of("key", key)
+      ));
+    } catch (Exception e) {
+      logger.debug("Unable to look up the load of {} job {}", jobType, operation, e);
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public float getEstimatedJobLoad(String jobType, String operation, String key, float defaultLoad) {
+    if (System.currentTimeMillis() - jobLoadCacheUpdated > JOB_LOAD_CACHE_TTL) {
+      reloadJobLoads();
+    }
+    final JobLoad jobLoad = jobLoadCache.get(List.of(jobType, operation, JobLoadJpaImpl.toStoredKey(key)));
+    if (jobLoad == null) {
+      return defaultLoad;
+    }
+    return Math.min(jobLoad.getEstimatedLoad(defaultLoad), jobLoadCacheMaxLoad);
+  }
+
+  /**
+   * Reloads the recorded job loads and the maximum load of the largest host, so that estimating job loads does not
+   * need to access the database each time. Failing to reload keeps the previous job loads.
+   */
+  private void reloadJobLoads() {
+    synchronized (jobLoadCacheLock) {
+      if (System.currentTimeMillis() - jobLoadCacheUpdated <= JOB_LOAD_CACHE_TTL) {
+        // Reloaded concurrently
+        return;
+      }
+      try {
+        final Map<List<String>, JobLoad> jobLoads = new HashMap<>();
+        for (JobLoad jobLoad : getJobLoadStatistics().getJobLoads()) {
+          jobLoads.put(List.of(jobLoad.getJobType(), jobLoad.getOperation(), jobLoad.getKey()), jobLoad);
+        }
+        jobLoadCacheMaxLoad = getMaxLoads().getNodeLoads().stream()
+            .map(NodeLoad::getMaxLoad)
+            .max(Float::compare)
+            .orElse(Float.MAX_VALUE);
+        jobLoadCache = jobLoads;
+      } catch (ServiceRegistryException e) {
+        logger.warn("Unable to load the recorded job loads", e);
+      }
+      jobLoadCacheUpdated = System.currentTimeMillis();
+    }
+  }
+
+  @Override
+  public JobLoadStatistics getJobLoadStatistics() throws ServiceRegistryException {
+    try {
+      return new JobLoadStatistics(db.exec(namedQuery.findAll("JobLoad.findAll", JobLoadJpaImpl.class)).stream()
+          .map(JobLoadJpaImpl::toJobLoad)
+          .collect(Collectors.toList()));
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    }
+  }
+
   /**
    * Gets performance and runtime statistics for each known service registration.
    * For the statistics, only jobs created within the time interval [startDate, endDate] are being considered
@@ -537,6 +537,20 @@ public class ServiceRegistryEndpoint {
     }
   }
 
+  @POST
+  @Path("job/{id}/terminated")
+  @RestQuery(name = "jobterminated", description = "Notifies this node that a job it may be waiting for has been terminated.", returnDescription = "No content", pathParameters = { @RestParameter(name = "id", isRequired = true, type = Type.INTEGER, description = "The job identifier") }, responses = {
+          @RestResponse(responseCode = SC_NO_CONTENT, description = "Notification received."),
+          @RestResponse(responseCode = SC_NOT_FOUND, description = "No job with that identifier exists.") })
+  public Response jobTerminated(@PathParam("id") long id) throws NotFoundException {
+    try {
+      ((ServiceRegistryJpaImpl) serviceRegistry).jobTerminated(id);
+      return Response.status(Status.NO_CONTENT).build();
+    } catch (ServiceRegistryException e) {
+      throw new WebApplicationException(e);
+    }
+  }
+
   @GET
   @Path("job/{id}.xml")
   @Produces(MediaType.TEXT_XML)
@@ -718,6 +732,34 @@ public class ServiceRegistryEndpoint {
   }
 
 
+  @GET
+  @Path("jobloads.json")
+  @Produces(MediaType.APPLICATION_JSON)
+  @RestQuery(name = "jobloadsasjson", description = "Returns the resources recorded jobs actually used, by job type, "
+          + "operation and key, along with the job loads estimated from them. The estimated load is only used for "
+          + "new jobs once enough jobs have been recorded.",
+          returnDescription = "The recorded job loads", restParameters = {},
+          responses = { @RestResponse(responseCode = SC_OK, description = "A JSON representation of the job loads") })
+  public Response getJobLoadsAsJson() {
+    try {
+      return Response.ok(serviceRegistry.getJobLoadStatistics()).build();
+    } catch (ServiceRegistryException e) {
+      throw new WebApplicationException(e);
+    }
+  }
+
+  @GET
+  @Path("jobloads.xml")
+  @Produces(MediaType.TEXT_XML)
+  @RestQuery(name = "jobloadsasxml", description = "Returns the resources recorded jobs actually used, by job type, "
+          + "operation and key, along with the job loads estimated from them. The estimated load is only used for "
+          + "new jobs once enough jobs have been recorded.",
+          returnDescription = "The recorded job loads", restParameters = {},
+          responses = { @RestResponse(responseCode = SC_OK, description = "An XML representation of the job loads") })
+  public Response getJobLoadsAsXml() {
+    return getJobLoadsAsJson();
+  }
+
   @DELETE
   @Path("job/{id}")
   @RestQuery(name = "deletejob", description = "Deletes a job from the service registry", returnDescription = "No data is returned, just the HTTP status code", pathParameters = { @RestParameter(isRequired = true, name = "id", type = Type.INTEGER, description = "ID of the job to delete") }, responses = {
@@ -22,13 +22,16 @@
 package org.opencastproject.serviceregistry.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.opencastproject.db.DBTestEnv.getDbSessionFactory;
 import static org.opencastproject.db.DBTestEnv.newEntityManagerFactory;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.api.JobBarrier;
+import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -40,6 +43,8 @@ import org.opencastproject.security.api.TrustedHttpClient;
 import org.opencastproject.security.api.TrustedHttpClientException;
 import org.opencastproject.security.api.User;
 import org.opencastproject.security.api.UserDirectoryService;
+import org.opencastproject.serviceregistry.api.JobLoadStatistics;
+import org.opencastproject.serviceregistry.api.JobLoadStatistics.JobLoad;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.serviceregistry.api.ServiceState;
@@ -83,8 +88,11 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.management.ObjectInstance;
 import javax.persistence.EntityManagerFactory;
@@ -329,6 +337,114 @@ public class ServiceRegistryJpaImplTest {
     serviceRegistryJpaImpl.removeJobs(Collections.singletonList(1L));
   }
 
+  @Test
+  public void testUpdateJobProgress() throws Exception {
+    Job job = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, null);
+
+    // Only the progress of running jobs is updated
+    serviceRegistryJpaImpl.updateJobProgress(job.getId(), 0.5f, 1000L);
+    assertNull(serviceRegistryJpaImpl.getJob(job.getId()).getProgress());
+
+    job.setStatus(Status.RUNNING);
+    job = serviceRegistryJpaImpl.updateJob(job);
+    serviceRegistryJpaImpl.updateJobProgress(job.getId(), 0.5f, 1000L);
+    Job running = serviceRegistryJpaImpl.getJob(job.getId());
+    assertEquals(0.5f, running.getProgress(), 0);
+    assertEquals(Long.valueOf(1000L), running.getRemainingTime());
+
+    // Updating the job otherwise keeps the progress until its status changes
+    running.setPayload("payload");
+    running = serviceRegistryJpaImpl.updateJob(running);
+    assertEquals(0.5f, serviceRegistryJpaImpl.getJob(job.getId()).getProgress(), 0);
+
+    running.setStatus(Status.FINISHED);
+    serviceRegistryJpaImpl.updateJob(running);
+    Job finished = serviceRegistryJpaImpl.getJob(job.getId());
+    assertNull(finished.getProgress());
+    assertNull(finished.getRemainingTime());
+
+    assertThrows(NotFoundException.class, () -> serviceRegistryJpaImpl.updateJobProgress(-1L, 0.5f, null));
+  }
+
+  @Test
+  public void testJobLoadEstimation() throws Exception {
+    for (int i = 0; i < JobLoadStatistics.MIN_SAMPLES; i++) {
+      serviceRegistryJpaImpl.recordJobLoad(TEST_SERVICE, TEST_OPERATION, "profile@1080p", 2000, 1000, 1024);
+      serviceRegistryJpaImpl.recordJobLoad(TEST_SERVICE, TEST_OPERATION, "profile@2160p", 16000, 1000, 1024);
+    }
+    serviceRegistryJpaImpl.recordJobLoad(TEST_SERVICE, TEST_OPERATION, "profile@720p", 1000, 1000, 1024);
+    // Jobs without elapsed time are ignored
+    serviceRegistryJpaImpl.recordJobLoad(TEST_SERVICE, TEST_OPERATION, "profile@480p", 1000, 0, 1024);
+
+    List<JobLoad> jobLoads = serviceRegistryJpaImpl.getJobLoadStatistics().getJobLoads();
+    assertEquals(3, jobLoads.size());
+    assertEquals("profile@1080p", jobLoads.get(0).getKey());
+    assertEquals(JobLoadStatistics.MIN_SAMPLES, jobLoads.get(0).getSamples());
+    assertEquals(2000, jobLoads.get(0).getCpuTime());
+    assertEquals(2.0f, jobLoads.get(0).getLoad(), 0.001f);
+
+    assertEquals(2.0f, serviceRegistryJpaImpl.getEstimatedJobLoad(TEST_SERVICE, TEST_OPERATION, "profile@1080p", 1.5f),
+        0.001f);
+    // Estimates never exceed the maximum load of the largest host
+    assertEquals(4.0f, serviceRegistryJpaImpl.getEstimatedJobLoad(TEST_SERVICE, TEST_OPERATION, "profile@2160p", 1.5f),
+        0.001f);
+    // The default load is used until enough jobs have been recorded
+    assertEquals(1.5f, serviceRegistryJpaImpl.getEstimatedJobLoad(TEST_SERVICE, TEST_OPERATION, "profile@720p", 1.5f),
+        0);
+    assertEquals(1.5f, serviceRegistryJpaImpl.getEstimatedJobLoad(TEST_SERVICE, TEST_OPERATION, "other", 1.5f), 0);
+  }
+
+  @Test
+  public void testLongJobLoadKeys() throws Exception {
+    // Keys of jobs encoding with many profiles exceed the column and only differ at their end
+    final String prefix = StringUtils.repeat("profile,", 40);
+    for (int i = 0; i < JobLoadStatistics.MIN_SAMPLES; i++) {
+      serviceRegistryJpaImpl.recordJobLoad(TEST_SERVICE, TEST_OPERATION, prefix + "a@1080p", 1000, 1000, 1024);
+      serviceRegistryJpaImpl.recordJobLoad(TEST_SERVICE, TEST_OPERATION, prefix + "b@1080p", 3000, 1000, 1024);
+    }
+
+    List<JobLoad> jobLoads = serviceRegistryJpaImpl.getJobLoadStatistics().getJobLoads();
+    assertEquals(2, jobLoads.size());
+    for (JobLoad jobLoad : jobLoads) {
+      assertTrue(jobLoad.getKey().length() <= 255);
+    }
+    assertEquals(1.0f, serviceRegistryJpaImpl.getEstimatedJobLoad(TEST_SERVICE, TEST_OPERATION, prefix + "a@1080p",
+        1.5f), 0.001f);
+    assertEquals(3.0f, serviceRegistryJpaImpl.getEstimatedJobLoad(TEST_SERVICE, TEST_OPERATION, prefix + "b@1080p",
+        1.5f), 0.001f);
+  }
+
+  @Test
+  public void testConcurrentJobLoadRecording() throws Exception {
+    final int threads = 4;
+    final int recordings = 5;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < recordings; j++) {
+            serviceRegistryJpaImpl.recordJobLoad(TEST_SERVICE, TEST_OPERATION, "concurrent", 1000, 1000, 1024);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // No recording is lost, neither by concurrent updates nor by concurrent inserts of the first recording
+    JobLoad jobLoad = serviceRegistryJpaImpl.getJobLoadStatistics().getJobLoads().stream()
+        .filter(load -> "concurrent".equals(load.getKey()))
+        .findFirst()
+        .orElseThrow();
+    assertEquals(threads * recordings, jobLoad.getSamples());
+    assertEquals(1000, jobLoad.getCpuTime());
+  }
+
   @Test
   public void testCancelUndispatchablesOrphanedByActivatingNode() throws Exception {
     setUpUndispatchableJobs();
@@ -502,6 +618,126 @@ public class ServiceRegistryJpaImplTest {
     Assert.assertNotNull(updatedJob.getRunTime());
   }
 
+  @Test
+  public void testArchiveJobs() throws Exception {
+    Job parent = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, new ArrayList<>(
+            Arrays.asList("a", "b")), "parent payload", true, null);
+    Job child = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, "child payload", true,
+            parent);
+    parent.setStatus(Job.Status.FINISHED);
+    serviceRegistryJpaImpl.updateJob(parent);
+    child.setStatus(Job.Status.RUNNING);
+    child = serviceRegistryJpaImpl.updateJob(child);
+    final Date cutoff = new Date(System.currentTimeMillis() + 60000L);
+
+    // Job trees with active jobs are not archived
+    serviceRegistryJpaImpl.archiveJobs(cutoff);
+    assertEquals(Job.Status.RUNNING, serviceRegistryJpaImpl.getJob(child.getId()).getStatus());
+    assertEquals(1, serviceRegistryJpaImpl.getChildJobs(parent.getId()).size());
+
+    child.setStatus(Job.Status.FAILED);
+    serviceRegistryJpaImpl.updateJob(child);
+    Assert.assertTrue(serviceRegistryJpaImpl.archiveJobs(cutoff) >= 2);
+    Assert.assertEquals(0L, (long) serviceRegistryJpaImpl.db.exec(em -> {
+      return em.createQuery("SELECT COUNT(j) FROM Job j WHERE j.id = :id", Long.class)
+          .setParameter("id", parent.getId())
+          .getSingleResult();
+    }));
+
+    // Archived jobs can still be looked up
+    Job archived = serviceRegistryJpaImpl.getJob(parent.getId());
+    assertEquals(Job.Status.FINISHED, archived.getStatus());
+    assertEquals("parent payload", archived.getPayload());
+    assertEquals(Arrays.asList("a", "b"), archived.getArguments());
+    assertEquals(TEST_HOST, archived.getCreatedHost());
+    List<Job> children = serviceRegistryJpaImpl.getChildJobs(parent.getId());
+    assertEquals(1, children.size());
+    assertEquals(child.getId(), children.get(0).getId());
+    assertEquals(Job.Status.FAILED, children.get(0).getStatus());
+    assertEquals("child payload", children.get(0).getPayload());
+    assertEquals(parent.getId(), (long) children.get(0).getParentJobId());
+
+    // Removing an archived job removes it from the archive
+    serviceRegistryJpaImpl.removeJobs(Collections.singletonList(parent.getId()));
+    assertThrows(NotFoundException.class, () -> serviceRegistryJpaImpl.getJob(parent.getId()));
+    final long childId = child.getId();
+    assertThrows(NotFoundException.class, () -> serviceRegistryJpaImpl.getJob(childId));
+  }
+
+  @Test
+  public void testArchiveAndRemoveParentlessJobs() throws Exception {
+    // More job trees than are looked up at once
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i <= ServiceRegistryJpaImpl.JOB_ARCHIVE_BATCH_SIZE; i++) {
+      Job job = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, true, null);
+      job.setStatus(Job.Status.FINISHED);
+      ids.add(serviceRegistryJpaImpl.updateJob(job).getId());
+    }
+    Job workflow = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, ServiceRegistryJpaImpl.START_WORKFLOW,
+            null, null, true, null);
+    workflow.setStatus(Job.Status.FINISHED);
+    workflow = serviceRegistryJpaImpl.updateJob(workflow);
+
+    Assert.assertTrue(serviceRegistryJpaImpl.archiveJobs(new Date(System.currentTimeMillis() + 60000L))
+            >= ids.size() + 1);
+    for (long id : ids) {
+      assertNull(serviceRegistryJpaImpl.db.exec(em -> {
+        return em.find(JpaJob.class, id);
+      }));
+    }
+
+    // Archived parentless jobs are removed, except for workflow jobs
+    Thread.sleep(10);
+    serviceRegistryJpaImpl.removeParentlessJobs(0);
+    for (long id : ids) {
+      assertThrows(NotFoundException.class, () -> serviceRegistryJpaImpl.getJob(id));
+    }
+    assertEquals(Job.Status.FINISHED, serviceRegistryJpaImpl.getJob(workflow.getId()).getStatus());
+  }
+
+  @Test
+  public void testDispatchSnapshot() throws Exception {
+    DispatchSnapshot snapshot = new DispatchSnapshot(serviceRegistryJpaImpl, serviceRegistryJpaImpl.db);
+    final int services = snapshot.getServices().size();
+    final float load = snapshot.getSystemLoad().get(TEST_HOST).getCurrentLoad();
+
+    // Dispatched jobs are accounted for in memory
+    Job job = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, true, null, 2.0f);
+    snapshot.jobDispatched(JpaJob.from(job), TEST_HOST);
+    assertEquals(load + 2.0f, snapshot.getSystemLoad().get(TEST_HOST).getCurrentLoad(), 0.001f);
+    assertEquals(services, snapshot.getServices().size());
+
+    // Registry changes invalidate the snapshot
+    serviceRegistryJpaImpl.registerService("snapshot", TEST_HOST, "/snapshot");
+    try {
+      assertEquals(services + 1, snapshot.getServices().size());
+    } finally {
+      serviceRegistryJpaImpl.unRegisterService("snapshot", TEST_HOST);
+    }
+  }
+
+  @Test
+  public void testJobTerminationListener() throws Exception {
+    Job job = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_PATH, null, null, true, null, 1.0f);
+    List<Job> terminated = new ArrayList<>();
+    Consumer<Job> listener = terminated::add;
+    Assert.assertTrue(serviceRegistryJpaImpl.addJobTerminationListener(job.getId(), listener));
+
+    job.setStatus(Job.Status.RUNNING);
+    job = serviceRegistryJpaImpl.updateJob(job);
+    Assert.assertTrue(terminated.isEmpty());
+
+    job.setStatus(Job.Status.FINISHED);
+    serviceRegistryJpaImpl.updateJob(job);
+    assertEquals(1, terminated.size());
+    assertEquals(Job.Status.FINISHED, terminated.get(0).getStatus());
+
+    // Removed listeners are not called anymore
+    serviceRegistryJpaImpl.removeJobTerminationListener(job.getId(), listener);
+    serviceRegistryJpaImpl.jobTerminated(job.getId());
+    assertEquals(1, terminated.size());
+  }
+
   @Test
   public void testErrorState() throws Exception {
     // set max attempts to 1
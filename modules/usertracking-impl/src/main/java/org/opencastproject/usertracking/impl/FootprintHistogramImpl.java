@@ -0,0 +1,231 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * The footprints of all sessions of a media package, aggregated into the number of views per second, along with the
+ * number of sessions which watched it.
+ * <p>
+ * The histogram is stored as the positions at which the number of views changes, each encoded as variable length
+ * deltas to the previous position and number of views. The last position always has no views and marks the end of the
+ * histogram.
+ */
+@Entity(name = "FootprintHistogram")
+@Access(AccessType.FIELD)
+@Table(name = "oc_user_footprint_histogram")
+public class FootprintHistogramImpl {
+
+  /** Positions beyond this limit in seconds are ignored */
+  public static final int MAX_LENGTH = 24 * 3600;
+
+  @Id
+  @Column(name = "mediapackage", length = 128)
+  private String mediapackageId;
+
+  @Column(name = "views")
+  private long views;
+
+  @Lob
+  @Column(name = "data", length = 16777215)
+  private byte[] data;
+
+  /** The decoded number of views per second */
+  @Transient
+  private int[] counts;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public FootprintHistogramImpl() {
+  }
+
+  /**
+   * Creates a histogram.
+   *
+   * @param mediapackageId
+   *          the media package identifier
+   * @param counts
+   *          the number of views per second with one more element than the last position watched
+   */
+  public FootprintHistogramImpl(String mediapackageId, int[] counts) {
+    this.mediapackageId = mediapackageId;
+    this.counts = counts;
+    this.data = encode(counts);
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  /** Returns the number of sessions which watched the media package. */
+  public long getViews() {
+    return views;
+  }
+
+  public void setViews(long views) {
+    this.views = views;
+  }
+
+  /** Counts another session which watched the media package. */
+  public void addView() {
+    views++;
+  }
+
+  /**
+   * Returns the number of views per second. The array has one more element than the last position watched, which has
+   * no views.
+   */
+  public int[] getCounts() {
+    if (counts == null) {
+      counts = decode(data);
+    }
+    return counts;
+  }
+
+  /**
+   * Adds the given number of views to each second in a range.
+   *
+   * @param from
+   *          the first second, inclusive
+   * @param to
+   *          the last second, exclusive
+   * @param delta
+   *          the number of views to add, negative to remove views
+   */
+  public void add(int from, int to, int delta) {
+    from = Math.max(from, 0);
+    to = Math.min(to, MAX_LENGTH);
+    int[] current = getCounts();
+    if (to >= current.length) {
+      current = Arrays.copyOf(current, to + 1);
+    }
+    for (int i = from; i < to; i++) {
+      current[i] += delta;
+    }
+    counts = current;
+    data = encode(current);
+  }
+
+  /**
+   * Adds views to each second and sessions at once.
+   *
+   * @param deltas
+   *          the number of views to add per second, negative to remove views
+   * @param sessions
+   *          the number of sessions to add
+   */
+  public void add(int[] deltas, long sessions) {
+    views += sessions;
+    int length = Math.min(deltas.length, MAX_LENGTH + 1);
+    int[] current = getCounts();
+    if (length > current.length) {
+      current = Arrays.copyOf(current, length);
+    }
+    boolean changed = false;
+    for (int i = 0; i < length; i++) {
+      current[i] += deltas[i];
+      changed |= deltas[i] != 0;
+    }
+    if (changed) {
+      counts = current;
+      data = encode(current);
+    }
+  }
+
+  static byte[] encode(int[] counts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int lastPosition = 0;
+    int lastViews = -1;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != lastViews || i == counts.length - 1) {
+        writeVarInt(out, i - lastPosition);
+        writeVarInt(out, zigZag(counts[i] - lastViews));
+        lastPosition = i;
+        lastViews = counts[i];
+      }
+    }
+    return out.toByteArray();
+  }
+
+  static int[] decode(byte[] data) {
+    int[] counts = new int[16];
+    int[] index = { 0 };
+    int position = 0;
+    int views = -1;
+    int length = 0;
+    while (index[0] < data.length) {
+      int next = position + readVarInt(data, index);
+      if (next >= counts.length) {
+        counts = Arrays.copyOf(counts, Math.max(next + 1, counts.length * 2));
+      }
+      if (length > 0) {
+        Arrays.fill(counts, position, next, views);
+      }
+      position = next;
+      views += unZigZag(readVarInt(data, index));
+      counts[position] = views;
+      length = position + 1;
+    }
+    return Arrays.copyOf(counts, Math.max(length, 1));
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int readVarInt(byte[] data, int[] index) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = data[index[0]++];
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+}
@@ -65,6 +65,9 @@ import javax.xml.bind.annotation.XmlType;
     @NamedQuery(name = "countSessionsGroupByMediapackage", query = "SELECT a.mediapackageId, COUNT(distinct a.session), SUM(a.length) FROM UserAction a GROUP BY a.mediapackageId"),
     @NamedQuery(name = "countSessionsGroupByMediapackageByIntervall", query = "SELECT a.mediapackageId, COUNT(distinct a.session.sessionId), SUM(a.length) FROM UserAction a WHERE :begin <= a.created AND a.created <= :end GROUP BY a.mediapackageId"),
     @NamedQuery(name = "countSessionsOfMediapackage", query = "SELECT COUNT(distinct a.session) FROM UserAction a WHERE a.mediapackageId = :mediapackageId"),
+    @NamedQuery(name = "countActionsOfSessionAndMediapackage", query = "SELECT COUNT(a) FROM UserAction a WHERE a.session = :session AND a.mediapackageId = :mediapackageId"),
+    @NamedQuery(name = "findActionsOfSessionAndMediapackage", query = "SELECT a FROM UserAction a WHERE a.session = :session AND a.mediapackageId = :mediapackageId"),
+    @NamedQuery(name = "findFootprintRangesOfMediapackage", query = "SELECT a.inpoint, a.outpoint FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = \'FOOTPRINT\'"),
     @NamedQuery(name = "findLastUserFootprintOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session AND a.type = \'FOOTPRINT\'  ORDER BY a.created DESC"),
     @NamedQuery(name = "findLastUserActionsOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session ORDER BY a.created DESC"),
     @NamedQuery(name = "findUserActionsByType", query = "SELECT a FROM UserAction a WHERE a.type = :type"),
@@ -46,22 +46,38 @@ import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
-import javax.persistence.EntityTransaction;
-import javax.persistence.NoResultException;
+import javax.persistence.LockModeType;
 import javax.persistence.TemporalType;
 import javax.persistence.TypedQuery;
 
@@ -90,6 +106,22 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public static final String USER_LOGGING = "org.opencastproject.usertracking.log.user";
   public static final String SESSION_LOGGING = "org.opencastproject.usertracking.log.session";
 
+  /** Configuration key enabling the asynchronous ingestion of user actions */
+  public static final String ASYNC_INGESTION = "org.opencastproject.usertracking.async";
+  /** Configuration key for the maximum number of user actions buffered in memory */
+  public static final String QUEUE_SIZE = "org.opencastproject.usertracking.queue.size";
+  /** Configuration key for the interval in seconds in which buffered user actions are written to the database */
+  public static final String FLUSH_INTERVAL = "org.opencastproject.usertracking.flush.interval";
+
+  public static final int DEFAULT_QUEUE_SIZE = 10000;
+  public static final int DEFAULT_FLUSH_INTERVAL = 10;
+
+  /** The maximum number of user actions written in a single transaction */
+  private static final int BATCH_SIZE = 500;
+
+  /** The maximum number of session identifiers known to be persisted */
+  private static final int SESSION_CACHE_SIZE = 100000;
+
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingServiceImpl.class);
 
   private boolean detailedTracking = false;
@@ -97,6 +129,31 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   private boolean logUser = true;
   private boolean logSession = true;
 
+  private volatile boolean asyncIngestion = false;
+  private volatile int queueSize = DEFAULT_QUEUE_SIZE;
+  private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+  /** Buffered user actions waiting to be written, oldest first */
+  private final Queue<UserAction> queue = new ConcurrentLinkedQueue<>();
+
+  /** The latest footprint of each session, extended in memory as long as playback continues */
+  private final ConcurrentMap<String, UserAction> pendingFootprints = new ConcurrentHashMap<>();
+
+  /** The number of buffered user actions */
+  private final AtomicInteger buffered = new AtomicInteger();
+
+  /** Identifiers of sessions known to be persisted, so that they do not need to be looked up again */
+  private final Set<String> knownSessions = ConcurrentHashMap.newKeySet();
+
+  /** Changes to the footprint histograms by synchronously stored user actions, not yet written to the database */
+  private final ConcurrentMap<String, HistogramDelta> pendingHistograms = new ConcurrentHashMap<>();
+
+  /** Identifiers of media packages known to have a footprint histogram in the database */
+  private final Set<String> knownHistograms = ConcurrentHashMap.newKeySet();
+
+  /** Writes the buffered user actions and the pending footprint histogram changes to the database */
+  private ScheduledExecutorService flusher = null;
+
   /** The factory used to generate the entity manager */
   protected EntityManagerFactory emf = null;
 
@@ -122,6 +179,16 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public void activate() {
     logger.debug("activate()");
     db = dbSessionFactory.createSession(emf);
+    startFlusher();
+  }
+
+  /**
+   * Deactivation callback writing all buffered user actions to the database
+   */
+  @Deactivate
+  public void deactivate() {
+    stopFlusher();
+    flush();
   }
 
   @Override
@@ -148,97 +215,515 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
       logSession = Boolean.valueOf((String) val);
     }
 
+    val = props.get(QUEUE_SIZE);
+    if (val != null && String.class.isInstance(val)) {
+      queueSize = parseInt(QUEUE_SIZE, (String) val);
+    }
+    val = props.get(FLUSH_INTERVAL);
+    if (val != null && String.class.isInstance(val)) {
+      flushInterval = parseInt(FLUSH_INTERVAL, (String) val);
+    }
+    val = props.get(ASYNC_INGESTION);
+    boolean async = val != null && String.class.isInstance(val) && Boolean.valueOf((String) val);
+    stopFlusher();
+    asyncIngestion = async;
+    if (async) {
+      logger.info("Buffering up to {} user actions, writing them every {} seconds", queueSize, flushInterval);
+    } else {
+      // Write what has been buffered so far
+      flush();
+    }
+    startFlusher();
+  }
+
+  private static int parseInt(String key, String value) throws ConfigurationException {
+    try {
+      int result = Integer.parseInt(value.trim());
+      if (result > 0) {
+        return result;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    throw new ConfigurationException(key, "Expected a positive number but got " + value);
+  }
+
+  private void startFlusher() {
+    stopFlusher();
+    flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "usertracking-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.SECONDS);
+  }
+
+  private void stopFlusher() {
+    if (flusher != null) {
+      flusher.shutdown();
+      try {
+        flusher.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      flusher = null;
+    }
   }
 
   public int getViews(String mediapackageId) {
-    return db.exec(namedQuery.find(
-        "countSessionsOfMediapackage",
-        Long.class,
-        Pair.of("mediapackageId", mediapackageId)
-    )).intValue();
+    return (int) getHistogram(mediapackageId).getViews();
   }
 
   public UserAction addUserFootprint(UserAction action, UserSession session) throws UserTrackingException {
     action.setType(FOOTPRINT_KEY);
-    if (!logIp) session.setUserIp("-omitted-");
-    if (!logUser) session.setUserId("-omitted-");
-    if (!logSession) session.setSessionId("-omitted-");
-
-    try {
-      return db.execTx(em -> {
-        UserSession userSession = populateSession(em, session);
-        List<UserAction> userActions = em
-            .createNamedQuery("findLastUserFootprintOfSession", UserAction.class)
-            .setParameter("session", userSession)
-            .setMaxResults(1)
-            .getResultList();
-
-        // no actions
-        if (userActions.isEmpty()) {
-          action.setSession(userSession);
-          em.persist(action);
-          return action;
-        }
+    anonymize(session);
 
-        // found last action
-        UserAction lastAction = userActions.iterator().next();
-        if (lastAction.getMediapackageId().equals(action.getMediapackageId())
-            && lastAction.getType().equals(action.getType())
-            && lastAction.getOutpoint() == action.getInpoint()) {
-          // we are assuming in this case that the sessions match and are unchanged (IP wise, for example)
-          action.setId(lastAction.getId());
-          lastAction.setOutpoint(action.getOutpoint());
-          em.persist(lastAction);
-          return lastAction;
-        }
+    if (bufferFootprint(action, session)) {
+      return action;
+    }
 
-        // last action does not match current action
-        action.setSession(userSession);
-        em.persist(action);
-        return action;
+    try {
+      ensureHistogram(action.getMediapackageId());
+      AtomicReference<HistogramDelta> delta = new AtomicReference<>();
+      UserAction result = db.execTx(em -> {
+        delta.set(newDelta(action));
+        return storeFootprint(em, action, resolveSession(em, session), delta.get());
       });
+      rememberSession(session.getSessionId());
+      addPendingHistogram(action.getMediapackageId(), delta.get());
+      return result;
     } catch (Exception e) {
       throw new UserTrackingException(e);
     }
   }
 
   public UserAction addUserTrackingEvent(UserAction a, UserSession session) throws UserTrackingException {
-    if (!logIp) session.setUserIp("-omitted-");
-    if (!logUser) session.setUserId("-omitted-");
-    if (!logSession) session.setSessionId("-omitted-");
+    anonymize(session);
+
+    if (buffer(a, session)) {
+      return a;
+    }
 
     try {
-      return db.execTx(em -> {
-        UserSession userSession = populateSession(em, session);
-        a.setSession(userSession);
+      ensureHistogram(a.getMediapackageId());
+      AtomicReference<HistogramDelta> delta = new AtomicReference<>();
+      UserAction result = db.execTx(em -> {
+        delta.set(newDelta(a));
+        a.setSession(resolveSession(em, session));
+        countView(em, delta.get(), a);
         em.persist(a);
         return a;
       });
+      rememberSession(session.getSessionId());
+      addPendingHistogram(a.getMediapackageId(), delta.get());
+      return result;
     } catch (Exception e) {
       throw new UserTrackingException(e);
     }
   }
 
-  private synchronized UserSession populateSession(EntityManager em, UserSession session) {
-    // assumption: this code is only called inside a DB transaction
-    //             => transaction retries are handled outside this method
+  private void anonymize(UserSession session) {
+    if (!logIp) session.setUserIp("-omitted-");
+    if (!logUser) session.setUserId("-omitted-");
+    if (!logSession) session.setSessionId("-omitted-");
+  }
+
+  /**
+   * Extends the last footprint of the session or stores the footprint, merging it with the last footprint of the
+   * session in the database if playback continued. The changes to the footprint histogram of the media package are
+   * recorded accordingly.
+   */
+  private UserAction storeFootprint(EntityManager em, UserAction action, UserSession userSession,
+          HistogramDelta histogram) {
+    List<UserAction> userActions = em
+        .createNamedQuery("findLastUserFootprintOfSession", UserAction.class)
+        .setParameter("session", userSession)
+        .setMaxResults(1)
+        .getResultList();
+
+    // no actions
+    if (userActions.isEmpty()) {
+      action.setSession(userSession);
+      countView(em, histogram, action);
+      addFootprint(histogram, action.getInpoint(), action.getInpoint(), action.getOutpoint());
+      em.persist(action);
+      return action;
+    }
+
+    // found last action
+    UserAction lastAction = userActions.iterator().next();
+    if (continues(lastAction, action)) {
+      // we are assuming in this case that the sessions match and are unchanged (IP wise, for example)
+      action.setId(lastAction.getId());
+      addFootprint(histogram, lastAction.getInpoint(), lastAction.getOutpoint(), action.getOutpoint());
+      lastAction.setOutpoint(action.getOutpoint());
+      em.persist(lastAction);
+      return lastAction;
+    }
+
+    // last action does not match current action
+    action.setSession(userSession);
+    countView(em, histogram, action);
+    addFootprint(histogram, action.getInpoint(), action.getInpoint(), action.getOutpoint());
+    em.persist(action);
+    return action;
+  }
+
+  /**
+   * Updates a histogram for a footprint whose outpoint moved.
+   *
+   * @param inpoint
+   *          the inpoint of the footprint
+   * @param from
+   *          the previous outpoint of the footprint, the inpoint for new footprints
+   * @param to
+   *          the new outpoint of the footprint
+   */
+  private static void addFootprint(HistogramDelta histogram, int inpoint, int from, int to) {
+    if (histogram == null) {
+      return;
+    }
+    from = Math.max(from, inpoint);
+    to = Math.max(to, inpoint);
+    if (to >= from) {
+      histogram.add(from, to, 1);
+    } else {
+      histogram.add(to, from, -1);
+    }
+  }
+
+  /** Counts the session of a user action as a view if it has not accessed the media package before. */
+  private static void countView(EntityManager em, HistogramDelta histogram, UserAction action) {
+    if (histogram == null || namedQuery.find(
+        "countActionsOfSessionAndMediapackage",
+        Long.class,
+        Pair.of("session", action.getSession()),
+        Pair.of("mediapackageId", action.getMediapackageId())
+    ).apply(em) > 0) {
+      return;
+    }
+    // Concurrent first actions of a session would both be counted. Locking the session, which is created with a unique
+    // identifier, serializes them, and the locking read sees the actions committed by the other transactions.
+    em.flush();
+    em.lock(action.getSession(), LockModeType.PESSIMISTIC_WRITE);
+    if (em.createNamedQuery("findActionsOfSessionAndMediapackage", UserAction.class)
+        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+        .setParameter("session", action.getSession())
+        .setParameter("mediapackageId", action.getMediapackageId())
+        .setMaxResults(1)
+        .getResultList()
+        .isEmpty()) {
+      histogram.addView();
+    }
+  }
+
+  /**
+   * Locks the footprint histogram of a media package for the current transaction, building it from the stored user
+   * actions if it does not exist yet.
+   *
+   * @return the histogram or <code>null</code> if no media package is given
+   */
+  private FootprintHistogramImpl lockHistogram(EntityManager em, String mediapackageId) {
+    if (mediapackageId == null) {
+      return null;
+    }
+    FootprintHistogramImpl histogram = em.find(FootprintHistogramImpl.class, mediapackageId,
+        LockModeType.PESSIMISTIC_WRITE);
+    if (histogram == null) {
+      histogram = buildHistogram(em, mediapackageId);
+      em.persist(histogram);
+    }
+    return histogram;
+  }
+
+  /**
+   * Creates the footprint histogram of a media package from the stored user actions if it does not exist yet, so that
+   * the changes of user actions stored afterwards can be applied to it.
+   */
+  private void ensureHistogram(String mediapackageId) {
+    if (mediapackageId == null || knownHistograms.contains(mediapackageId)) {
+      return;
+    }
     try {
-      // Try and find the session. If not found, persist it
-      return namedQuery.find(
-          "findUserSessionBySessionId",
-          UserSession.class,
-          Pair.of("sessionId", session.getSessionId())
-      ).apply(em);
-    } catch (NoResultException n) {
-      em.persist(session);
-      // Commit the session object so that it's immediately found by other threads
-      EntityTransaction tx = em.getTransaction();
-      tx.commit();
-      tx.begin(); // start a new transaction to continue after session population
+      db.execTx(em -> {
+        if (em.find(FootprintHistogramImpl.class, mediapackageId) == null) {
+          em.persist(buildHistogram(em, mediapackageId));
+        }
+      });
+    } catch (RuntimeException e) {
+      // Another thread or node may have created it at the same time
+      if (db.exec(namedQuery.findByIdOpt(FootprintHistogramImpl.class, mediapackageId)).isEmpty()) {
+        throw e;
+      }
+    }
+    if (knownHistograms.size() >= SESSION_CACHE_SIZE) {
+      knownHistograms.clear();
+    }
+    knownHistograms.add(mediapackageId);
+  }
+
+  /** Returns a record of the histogram changes of a user action or <code>null</code> if it has no media package. */
+  private static HistogramDelta newDelta(UserAction action) {
+    return action.getMediapackageId() != null ? new HistogramDelta() : null;
+  }
+
+  /** Queues the histogram changes of a synchronously stored user action for the flusher. */
+  private void addPendingHistogram(String mediapackageId, HistogramDelta delta) {
+    if (mediapackageId != null && delta != null) {
+      pendingHistograms.merge(mediapackageId, delta, HistogramDelta::merge);
     }
+  }
+
+  /**
+   * Writes the pending histogram changes of synchronously stored user actions, locking each histogram only once.
+   * Changes which cannot be written are kept for the next run.
+   */
+  private void writePendingHistograms() {
+    // Lock histograms in a consistent order to avoid deadlocks with other nodes
+    for (String mediapackageId : new TreeSet<>(pendingHistograms.keySet())) {
+      HistogramDelta delta = pendingHistograms.remove(mediapackageId);
+      if (delta == null) {
+        continue;
+      }
+      try {
+        db.execTx(em -> {
+          FootprintHistogramImpl histogram = em.find(FootprintHistogramImpl.class, mediapackageId,
+              LockModeType.PESSIMISTIC_WRITE);
+          if (histogram != null) {
+            delta.applyTo(histogram);
+          } else {
+            // Built from the stored user actions, which already include the changes
+            em.persist(buildHistogram(em, mediapackageId));
+          }
+        });
+      } catch (Exception e) {
+        logger.warn("Unable to update the footprint histogram of media package {}", mediapackageId, e);
+        pendingHistograms.merge(mediapackageId, delta, HistogramDelta::merge);
+      }
+    }
+  }
+
+  /**
+   * Returns the footprint histogram of a media package including the changes not yet written to the database. It is
+   * built from the stored user actions if it does not exist yet, e.g. for user actions recorded before histograms were
+   * introduced. The histogram is neither locked nor written.
+   */
+  private FootprintHistogramImpl getHistogram(String mediapackageId) {
+    FootprintHistogramImpl histogram = db.exec(namedQuery.findByIdOpt(FootprintHistogramImpl.class, mediapackageId))
+        .orElse(null);
+    if (histogram == null) {
+      return db.exec(em -> {
+        return buildHistogram(em, mediapackageId);
+      });
+    }
+    HistogramDelta pending = pendingHistograms.get(mediapackageId);
+    if (pending != null) {
+      // Detached copy, the changes are not written
+      long views = histogram.getViews();
+      histogram = new FootprintHistogramImpl(mediapackageId, histogram.getCounts().clone());
+      histogram.setViews(views);
+      pending.applyTo(histogram);
+    }
+    return histogram;
+  }
+
+  private FootprintHistogramImpl buildHistogram(EntityManager em, String mediapackageId) {
+    logger.debug("Building footprint histogram of media package {}", mediapackageId);
+    List<Object[]> ranges = em.createNamedQuery("findFootprintRangesOfMediapackage", Object[].class)
+        .setParameter("mediapackageId", mediapackageId)
+        .getResultList();
+    FootprintHistogramImpl histogram = new FootprintHistogramImpl(mediapackageId, countViews(ranges.stream()
+        .map(range -> new int[] { (Integer) range[0], (Integer) range[1] })
+        .collect(Collectors.toList())));
+    histogram.setViews(namedQuery.find(
+        "countSessionsOfMediapackage",
+        Long.class,
+        Pair.of("mediapackageId", mediapackageId)
+    ).apply(em));
+    return histogram;
+  }
+
+  /**
+   * Counts the views per second of footprints.
+   *
+   * @param ranges
+   *          the inpoint and outpoint of each footprint
+   * @return the number of views per second with one more element than the last outpoint
+   */
+  private static int[] countViews(List<int[]> ranges) {
+    int length = 1;
+    for (int[] range : ranges) {
+      length = Math.max(length, Math.min(range[1], FootprintHistogramImpl.MAX_LENGTH) + 1);
+    }
+    // Count where views start and end, then sum them up
+    int[] counts = new int[length];
+    for (int[] range : ranges) {
+      int from = Math.max(range[0], 0);
+      int to = Math.min(range[1], FootprintHistogramImpl.MAX_LENGTH);
+      if (from < to) {
+        counts[from]++;
+        counts[to]--;
+      }
+    }
+    for (int i = 1; i < length; i++) {
+      counts[i] += counts[i - 1];
+    }
+    return counts;
+  }
+
+  /** Whether an action continues the playback of the last action */
+  private static boolean continues(UserAction lastAction, UserAction action) {
+    return lastAction.getMediapackageId().equals(action.getMediapackageId())
+        && lastAction.getType().equals(action.getType())
+        && lastAction.getOutpoint() == action.getInpoint();
+  }
+
+  /**
+   * Looks up a session or persists it if it does not exist yet. Sessions known to be persisted are only referenced.
+   * Concurrently persisting the same session fails on commit and is resolved by the transaction retry of the caller.
+   */
+  private UserSession resolveSession(EntityManager em, UserSession session) {
+    if (knownSessions.contains(session.getSessionId())) {
+      return em.getReference(UserSessionImpl.class, session.getSessionId());
+    }
+    UserSession existing = em.find(UserSessionImpl.class, session.getSessionId());
+    if (existing != null) {
+      return existing;
+    }
+    em.persist(session);
     return session;
   }
 
+  /** Remembers a committed session. */
+  private void rememberSession(String sessionId) {
+    if (knownSessions.size() >= SESSION_CACHE_SIZE) {
+      knownSessions.clear();
+    }
+    knownSessions.add(sessionId);
+  }
+
+  /**
+   * Buffers a footprint if asynchronous ingestion is enabled and the buffer is not full. A footprint continuing the
+   * playback of the pending footprint of its session just extends it.
+   *
+   * @return whether the footprint has been buffered
+   */
+  private boolean bufferFootprint(UserAction action, UserSession session) {
+    if (!asyncIngestion || buffered.get() >= queueSize) {
+      return false;
+    }
+    action.setSession(session);
+    pendingFootprints.compute(session.getSessionId(), (sessionId, pending) -> {
+      if (pending != null && continues(pending, action)) {
+        pending.setOutpoint(action.getOutpoint());
+        return pending;
+      }
+      if (pending != null) {
+        queue.add(pending);
+      }
+      buffered.incrementAndGet();
+      return action;
+    });
+    return true;
+  }
+
+  /**
+   * Buffers a user action if asynchronous ingestion is enabled and the buffer is not full.
+   *
+   * @return whether the user action has been buffered
+   */
+  private boolean buffer(UserAction action, UserSession session) {
+    if (!asyncIngestion || buffered.get() >= queueSize) {
+      return false;
+    }
+    action.setSession(session);
+    queue.add(action);
+    buffered.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Writes all buffered user actions to the database in batches. If a batch cannot be written, its actions are written
+   * one by one so that a single invalid action does not discard the whole batch. Afterwards, the pending histogram
+   * changes of synchronously stored user actions are written.
+   */
+  synchronized void flush() {
+    writeBufferedActions();
+    writePendingHistograms();
+  }
+
+  private void writeBufferedActions() {
+    List<UserAction> actions = new ArrayList<>();
+    UserAction action;
+    while ((action = queue.poll()) != null) {
+      actions.add(action);
+    }
+    // Removing a pending footprint atomically ensures it is not extended anymore while being written
+    for (String sessionId : pendingFootprints.keySet()) {
+      action = pendingFootprints.remove(sessionId);
+      if (action != null) {
+        actions.add(action);
+      }
+    }
+    if (actions.isEmpty()) {
+      return;
+    }
+    buffered.addAndGet(-actions.size());
+
+    logger.debug("Writing {} buffered user actions", actions.size());
+    for (int i = 0; i < actions.size(); i += BATCH_SIZE) {
+      List<UserAction> batch = actions.subList(i, Math.min(i + BATCH_SIZE, actions.size()));
+      try {
+        store(batch);
+      } catch (Exception e) {
+        logger.warn("Unable to write batch of {} user actions, writing them one by one", batch.size(), e);
+        for (UserAction a : batch) {
+          try {
+            store(List.of(a));
+          } catch (Exception e1) {
+            logger.error("Unable to write user action of session {}", a.getSession().getSessionId(), e1);
+          }
+        }
+      }
+    }
+  }
+
+  private void store(List<UserAction> batch) {
+    Set<String> sessionIds = db.execTx(em -> {
+      // Lock histograms in a consistent order to avoid deadlocks between concurrent batches
+      Set<String> mediapackageIds = new TreeSet<>();
+      for (UserAction a : batch) {
+        if (a.getMediapackageId() != null) {
+          mediapackageIds.add(a.getMediapackageId());
+        }
+      }
+      Map<String, FootprintHistogramImpl> histograms = new HashMap<>();
+      Map<String, HistogramDelta> deltas = new HashMap<>();
+      for (String mediapackageId : mediapackageIds) {
+        histograms.put(mediapackageId, lockHistogram(em, mediapackageId));
+        deltas.put(mediapackageId, new HistogramDelta());
+      }
+
+      Map<String, UserSession> sessions = new HashMap<>();
+      for (UserAction a : batch) {
+        UserSession userSession = sessions.computeIfAbsent(a.getSession().getSessionId(),
+            sessionId -> resolveSession(em, a.getSession()));
+        HistogramDelta histogram = deltas.get(a.getMediapackageId());
+        if (FOOTPRINT_KEY.equals(a.getType())) {
+          storeFootprint(em, a, userSession, histogram);
+        } else {
+          a.setSession(userSession);
+          countView(em, histogram, a);
+          em.persist(a);
+        }
+      }
+      // Re-encode each histogram only once per batch
+      deltas.forEach((mediapackageId, delta) -> delta.applyTo(histograms.get(mediapackageId)));
+      return sessions.keySet();
+    });
+    sessionIds.forEach(this::rememberSession);
+  }
+
   public UserActionList getUserActions(int offset, int limit) {
     UserActionList result = new UserActionListImpl();
 
@@ -524,38 +1009,28 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   }
 
   public FootprintList getFootprints(String mediapackageId, String userId) {
-    List<UserAction> userActions = db.exec(em -> {
-      TypedQuery<UserAction> q;
-      if (!logUser || StringUtils.trimToNull(userId) == null) {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC", UserAction.class);
-      } else {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC",
-                UserAction.class)
-            .setParameter("userid", userId);
-      }
-      q.setParameter("type", FOOTPRINT_KEY);
-      q.setParameter("mediapackageId", mediapackageId);
-      return q.getResultList();
-    });
-
-    int[] resultArray = new int[1];
-    boolean first = true;
-
-    for (UserAction a : userActions) {
-      if (first) {
-        // Get one more item than the known outpoint to append a footprint of 0 views at the end of the result set
-        resultArray = new int[a.getOutpoint() + 1];
-        first = false;
-      }
-      for (int i = a.getInpoint(); i < a.getOutpoint(); i++) {
-        resultArray[i]++;
-      }
+    int[] counts;
+    if (!logUser || StringUtils.trimToNull(userId) == null) {
+      counts = getHistogram(mediapackageId).getCounts();
+    } else {
+      counts = countViews(db.exec(em -> {
+        return em
+            .createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC", UserAction.class)
+            .setParameter("userid", userId)
+            .setParameter("type", FOOTPRINT_KEY)
+            .setParameter("mediapackageId", mediapackageId)
+            .getResultList()
+            .stream()
+            .map(a -> new int[] { a.getInpoint(), a.getOutpoint() })
+            .collect(Collectors.toList());
+      }));
     }
+
     FootprintList list = new FootprintsListImpl();
     int current = -1;
     int last = -1;
-    for (int i = 0; i < resultArray.length; i++) {
-      current = resultArray[i];
+    for (int i = 0; i < counts.length; i++) {
+      current = counts[i];
       if (last != current) {
         Footprint footprint = new FootprintImpl();
         footprint.setPosition(i);
@@ -592,4 +1067,57 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public boolean getUserTrackingEnabled() {
     return detailedTracking;
   }
+
+  /**
+   * Changes to the footprint histogram of a media package, recorded as the number of views starting and ending at each
+   * second, so that they can be applied to the stored histogram at once.
+   */
+  static final class HistogramDelta {
+    private int[] changes = new int[0];
+    private long views = 0L;
+
+    /** Adds the given number of views to each second from <code>from</code> (inclusive) to <code>to</code>. */
+    synchronized void add(int from, int to, int delta) {
+      from = Math.max(from, 0);
+      to = Math.min(to, FootprintHistogramImpl.MAX_LENGTH);
+      if (from >= to) {
+        return;
+      }
+      if (to >= changes.length) {
+        changes = Arrays.copyOf(changes, to + 1);
+      }
+      changes[from] += delta;
+      changes[to] -= delta;
+    }
+
+    synchronized void addView() {
+      views++;
+    }
+
+    /** Adds the changes of another delta to this one. */
+    synchronized HistogramDelta merge(HistogramDelta other) {
+      synchronized (other) {
+        if (other.changes.length > changes.length) {
+          changes = Arrays.copyOf(changes, other.changes.length);
+        }
+        for (int i = 0; i < other.changes.length; i++) {
+          changes[i] += other.changes[i];
+        }
+        views += other.views;
+      }
+      return this;
+    }
+
+    /** Applies the changes to a histogram. */
+    synchronized void applyTo(FootprintHistogramImpl histogram) {
+      int[] counts = new int[changes.length];
+      int current = 0;
+      for (int i = 0; i < changes.length; i++) {
+        current += changes[i];
+        counts[i] = current;
+      }
+      histogram.add(counts, views);
+    }
+  }
+
 }
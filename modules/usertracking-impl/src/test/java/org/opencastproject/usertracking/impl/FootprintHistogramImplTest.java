@@ -0,0 +1,67 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FootprintHistogramImplTest {
+
+  /**
+   * Ensures histograms survive encoding.
+   */
+  @Test
+  public void testEncoding() {
+    int[][] samples = {
+        { 0 },
+        { 0, 0, 3, 3, 3, 1, 0 },
+        { 5, 5, 0 },
+        { 0, 200, 100000, 100000, 2, 0 } };
+    for (int[] counts : samples) {
+      Assert.assertArrayEquals(counts, FootprintHistogramImpl.decode(FootprintHistogramImpl.encode(counts)));
+    }
+  }
+
+  /**
+   * Ensures views are added to and removed from ranges.
+   */
+  @Test
+  public void testAdd() {
+    FootprintHistogramImpl histogram = new FootprintHistogramImpl("mp", new int[1]);
+    histogram.add(2, 5, 1);
+    Assert.assertArrayEquals(new int[] { 0, 0, 1, 1, 1, 0 }, histogram.getCounts());
+    histogram.add(0, 3, 1);
+    histogram.add(4, 5, -1);
+    Assert.assertArrayEquals(new int[] { 1, 1, 2, 1, 0, 0 }, histogram.getCounts());
+
+    // The histogram is read from its encoded form when loaded from the database
+    FootprintHistogramImpl loaded = new FootprintHistogramImpl("mp", histogram.getCounts());
+    Assert.assertArrayEquals(histogram.getCounts(),
+        FootprintHistogramImpl.decode(FootprintHistogramImpl.encode(loaded.getCounts())));
+
+    // Positions are limited
+    histogram.add(-10, FootprintHistogramImpl.MAX_LENGTH + 10, 1);
+    Assert.assertEquals(FootprintHistogramImpl.MAX_LENGTH + 1, histogram.getCounts().length);
+    Assert.assertEquals(2, histogram.getCounts()[0]);
+  }
+
+}
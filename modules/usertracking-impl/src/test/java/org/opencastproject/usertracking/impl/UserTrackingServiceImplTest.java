@@ -37,9 +37,14 @@ import org.junit.Test;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class UserTrackingServiceImplTest {
   private UserTrackingServiceImpl service = null;
@@ -180,6 +185,137 @@ public class UserTrackingServiceImplTest {
     verifyFootprintViewsAndPositions(list, 2, 30, 0);
   }
 
+  /**
+   * Test buffering and merging of user actions
+   * @throws Exception
+   */
+  @Test
+  public void testAsyncIngestion() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(UserTrackingServiceImpl.ASYNC_INGESTION, "true");
+    props.setProperty(UserTrackingServiceImpl.FLUSH_INTERVAL, "3600");
+    service.updated(props);
+
+    addUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", 0, 10);
+    addUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", 10, 20);
+    addUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", 20, 30);
+    addUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session456", 0, 10);
+    UserAction play = addUserAction("PLAY", "session123", 30, 30);
+
+    // Nothing has been written yet
+    Assert.assertNull(play.getId());
+    Assert.assertEquals(0, service.getViews("mp"));
+
+    service.flush();
+    Assert.assertEquals(2, service.getViews("mp"));
+    Assert.assertEquals(1, service.getUserActionsByType("PLAY", 0, 0).getTotal());
+    UserActionList footprints = service.getUserActionsByTypeAndMediapackageId(
+        UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 0);
+    Assert.assertEquals(2, footprints.getTotal());
+
+    // Continued playback is merged with the footprint already written
+    addUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", 30, 40);
+    service.flush();
+    footprints = service.getUserActionsByTypeAndMediapackageId(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 0);
+    Assert.assertEquals(2, footprints.getTotal());
+    for (UserAction footprint : footprints.getUserActions()) {
+      if ("session123".equals(footprint.getSession().getSessionId())) {
+        Assert.assertEquals(0, footprint.getInpoint());
+        Assert.assertEquals(40, footprint.getOutpoint());
+      } else {
+        Assert.assertEquals(10, footprint.getOutpoint());
+      }
+    }
+
+    // Actions are written synchronously once the buffer is full
+    props.setProperty(UserTrackingServiceImpl.QUEUE_SIZE, "1");
+    service.updated(props);
+    Assert.assertNull(addUserAction("PAUSE", "session123", 40, 40).getId());
+    Assert.assertNotNull(addUserAction("PAUSE", "session456", 10, 10).getId());
+
+    // Buffered actions are written when disabling asynchronous ingestion
+    props.setProperty(UserTrackingServiceImpl.ASYNC_INGESTION, "false");
+    service.updated(props);
+    Assert.assertEquals(2, service.getUserActionsByType("PAUSE", 0, 0).getTotal());
+  }
+
+  /**
+   * Tests that the footprints of concurrent viewers of the same media package are all counted
+   * @throws Exception
+   */
+  @Test
+  public void testConcurrentFootprints() throws Exception {
+    int viewers = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(viewers);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < viewers; i++) {
+        String sessionId = "session" + i;
+        results.add(executor.submit(() -> {
+          for (int position = 0; position < 50; position += 10) {
+            addUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, sessionId, position, position + 10);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    // Histogram changes which have not been written yet are included
+    Assert.assertEquals(viewers, service.getViews("mp"));
+    FootprintList list = getFootprintList("mp", null, 2);
+    verifyFootprintViewsAndPositions(list, 0, 0, viewers);
+    verifyFootprintViewsAndPositions(list, 1, 50, 0);
+
+    service.flush();
+    Assert.assertEquals(viewers, service.getViews("mp"));
+    list = getFootprintList("mp", null, 2);
+    verifyFootprintViewsAndPositions(list, 0, 0, viewers);
+    verifyFootprintViewsAndPositions(list, 1, 50, 0);
+
+    // Continued playback is merged into a single footprint per session
+    Assert.assertEquals(viewers, service.getUserActionsByTypeAndMediapackageId(
+        UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 0, 0).getTotal());
+  }
+
+  @Test
+  public void testConcurrentFirstActionsOfSession() throws Exception {
+    // The session exists already
+    UserSession existing = createUserSession("shared", "me", "127.0.0.1");
+    service.addUserTrackingEvent(createUserAction("PLAY", "other", 0, 0, new Date(), existing), existing);
+
+    int actions = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(actions);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < actions; i++) {
+        results.add(executor.submit(() -> addUserAction("PLAY", "shared", 0, 0)));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    // The first actions of the session on the media package count as one view
+    service.flush();
+    Assert.assertEquals(1, service.getViews("mp"));
+  }
+
+  private UserAction addUserAction(String type, String sessionId, int inpoint, int outpoint) throws Exception {
+    UserSession userSession = createUserSession(sessionId, "me", "127.0.0.1");
+    UserAction userAction = createUserAction(type, "mp", inpoint, outpoint, new Date(), userSession);
+    if (UserTrackingServiceImpl.FOOTPRINT_KEY.equals(type)) {
+      return service.addUserFootprint(userAction, userSession);
+    }
+    return service.addUserTrackingEvent(userAction, userSession);
+  }
+
   /**
    * Tests basic user action lists and reports
    * @throws Exception
@@ -0,0 +1,133 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import org.opencastproject.videosegmenter.api.VideoSegmenterException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The scene change scores of all frames of a video, as computed by the FFmpeg select filter.
+ * <p>
+ * Extracting the scores once allows trying different changes thresholds without decoding the video again. Selecting
+ * the frames whose score exceeds a threshold yields the same scene changes as running FFmpeg with
+ * <code>select=gt(scene,threshold)</code>.
+ */
+public final class SceneScores {
+
+  /** Frame information printed by the FFmpeg metadata filter */
+  private static final Pattern FRAME = Pattern.compile("pts_time:(-?\\d+(\\.\\d+)?)");
+
+  /** Scene score printed by the FFmpeg metadata filter */
+  private static final Pattern SCORE = Pattern.compile("lavfi\\.scene_score=(\\d+(\\.\\d+)?)");
+
+  /** The presentation time of each frame in milliseconds */
+  private final long[] times;
+
+  /** The scene change score of each frame */
+  private final float[] scores;
+
+  private SceneScores(long[] times, float[] scores) {
+    this.times = times;
+    this.scores = scores;
+  }
+
+  /**
+   * Parses the output of the FFmpeg metadata filter printing the scene scores of the frames selected before, e.g.
+   * <code>select=gt(scene\,0),metadata=print</code>:
+   *
+   * <pre>
+   * [Parsed_metadata_1 @ 0x55d0c8a0f780] frame:41   pts:42000   pts_time:1.68
+   * [Parsed_metadata_1 @ 0x55d0c8a0f780] lavfi.scene_score=0.374207
+   * </pre>
+   *
+   * @param reader
+   *          the FFmpeg output
+   * @return the scene scores
+   * @throws IOException
+   *           if the output cannot be read
+   * @throws VideoSegmenterException
+   *           if the output cannot be parsed
+   */
+  public static SceneScores parse(BufferedReader reader) throws IOException, VideoSegmenterException {
+    long[] times = new long[1024];
+    float[] scores = new float[1024];
+    int size = 0;
+    long time = -1;
+    String line;
+    try {
+      while ((line = reader.readLine()) != null) {
+        if (!line.startsWith("[Parsed_metadata")) {
+          continue;
+        }
+        Matcher matcher = FRAME.matcher(line);
+        if (matcher.find()) {
+          time = Math.round(Float.parseFloat(matcher.group(1)) * 1000);
+          continue;
+        }
+        matcher = SCORE.matcher(line);
+        if (matcher.find() && time >= 0) {
+          if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+          }
+          times[size] = time;
+          scores[size] = Float.parseFloat(matcher.group(1));
+          size++;
+          time = -1;
+        }
+      }
+    } catch (NumberFormatException e) {
+      throw new VideoSegmenterException("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
+    }
+    return new SceneScores(Arrays.copyOf(times, size), Arrays.copyOf(scores, size));
+  }
+
+  /**
+   * Returns the times of the frames whose scene score is greater than the given threshold.
+   *
+   * @param threshold
+   *          the changes threshold
+   * @return the times of the scene changes in milliseconds
+   */
+  public List<Long> getChanges(float threshold) {
+    List<Long> changes = new ArrayList<>();
+    for (int i = 0; i < times.length; i++) {
+      if (scores[i] > threshold) {
+        changes.add(times[i]);
+      }
+    }
+    return changes;
+  }
+
+  /** Returns the number of frames with a scene score. */
+  public int size() {
+    return times.length;
+  }
+
+}
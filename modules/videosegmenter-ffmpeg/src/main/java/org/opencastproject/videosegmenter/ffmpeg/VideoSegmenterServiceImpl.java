@@ -183,6 +183,15 @@ public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
 
   private List<MimeType> useChapterMimeTypes = DEFAULT_USE_CHAPTER_MIME_TYPES;
 
+  /** Name of the constant used to retrieve whether the video is decoded only once during optimization */
+  public static final String OPT_SINGLE_PASS = "singlePass";
+
+  /** Default value for decoding the video only once during optimization */
+  public static final boolean DEFAULT_SINGLE_PASS = true;
+
+  /** Whether the scene scores are extracted once instead of running FFmpeg for each changes threshold */
+  protected boolean singlePass = DEFAULT_SINGLE_PASS;
+
   /** The load introduced on the system by a segmentation job */
   public static final float DEFAULT_SEGMENTER_JOB_LOAD = 0.3f;
 
@@ -361,6 +370,18 @@ public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
       }
     }
 
+    if (properties.get(OPT_SINGLE_PASS) != null) {
+      String value = (String) properties.get(OPT_SINGLE_PASS);
+      try {
+        singlePass = BooleanUtils.toBooleanObject(StringUtils.trimToNull(value));
+        logger.info("Single pass segmentation is set to {}", singlePass);
+      } catch (Exception e) {
+        throw new ConfigurationException(OPT_SINGLE_PASS,
+                String.format("Found illegal value '%s'", value)
+        );
+      }
+    }
+
     if (properties.get(OPT_USE_CHAPTER_IF_AVAILABLE) != null) {
       String value = (String) properties.get(OPT_USE_CHAPTER_IF_AVAILABLE);
       try {
@@ -797,6 +818,8 @@ public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
 
     logger.info("Starting video segmentation of {}", mediaUrl);
 
+    // decode the video only once and try all changes thresholds on the extracted scene scores
+    final SceneScores sceneScores = singlePass ? extractSceneScores(mediaFile) : null;
 
     // optimization loop to get a segmentation with a number of segments close
     // to the desired number of segments
@@ -807,8 +830,14 @@ public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
               contentTime, contentLocator);
 
 
-      // run the segmentation with FFmpeg
-      segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+      // run the segmentation with FFmpeg or on the scene scores extracted before
+      if (sceneScores != null) {
+        segments = createSegments(track, videoContent, sceneScores.getChanges(changesThresholdLocal));
+        logger.info("Segmentation with changes threshold {} yields {} segments", changesThresholdLocal,
+                segments.size());
+      } else {
+        segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+      }
 
 
       // calculate errors for "normal" and filtered segmentation
@@ -1021,55 +1050,27 @@ public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
     // fmt:rgb24 sar:0/1 s:320x240 i:P iskey:1 type:I checksum:8DF39EA9
     // plane_checksum:[8DF39EA9]
 
-    int segmentcount = 1;
-    LinkedList<Segment> segments = new LinkedList<>();
-
-    if (segmentsStrings.size() == 0) {
-      Segment s = videoContent.getTemporalDecomposition()
-          .createSegment("segment-" + segmentcount);
-      s.setMediaTime(new MediaRelTimeImpl(0, track.getDuration()));
-      segments.add(s);
-    } else {
-      long starttime = 0;
-      long endtime = 0;
-      Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
-      for (String seginfo : segmentsStrings) {
-        Matcher matcher = pattern.matcher(seginfo);
-        String time = "";
-        while (matcher.find()) {
-          time = matcher.group().substring(9);
-        }
-        if ("".equals(time)) {
-          // continue if the showinfo does not contain any time information. This may happen since the FFmpeg showinfo
-          // filter is used for multiple purposes.
-          continue;
-        }
-        try {
-          endtime = Math.round(Float.parseFloat(time) * 1000);
-        } catch (NumberFormatException e) {
-          logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
-          throw new VideoSegmenterException(e);
-        }
-        long segmentLength = endtime - starttime;
-        if (1000 * stabilityThresholdPrefilter < segmentLength) {
-          Segment segment = videoContent.getTemporalDecomposition()
-              .createSegment("segment-" + segmentcount);
-          segment.setMediaTime(new MediaRelTimeImpl(starttime,
-              endtime - starttime));
-          logger.debug("Created segment {} at start time {} with duration {}", segmentcount, starttime, endtime);
-          segments.add(segment);
-          segmentcount++;
-          starttime = endtime;
-        }
+    List<Long> changes = new LinkedList<>();
+    Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
+    for (String seginfo : segmentsStrings) {
+      Matcher matcher = pattern.matcher(seginfo);
+      String time = "";
+      while (matcher.find()) {
+        time = matcher.group().substring(9);
+      }
+      if ("".equals(time)) {
+        // continue if the showinfo does not contain any time information. This may happen since the FFmpeg showinfo
+        // filter is used for multiple purposes.
+        continue;
+      }
+      try {
+        changes.add((long) Math.round(Float.parseFloat(time) * 1000));
+      } catch (NumberFormatException e) {
+        logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
+        throw new VideoSegmenterException(e);
       }
-      // Add last segment
-      Segment s = videoContent.getTemporalDecomposition()
-          .createSegment("segment-" + segmentcount);
-      s.setMediaTime(new MediaRelTimeImpl(starttime, track.getDuration() - starttime));
-      logger.debug("Created segment {} at start time {} with duration {}", segmentcount, starttime,
-              track.getDuration() - endtime);
-      segments.add(s);
     }
+    LinkedList<Segment> segments = createSegments(track, videoContent, changes);
 
     logger.info("Segmentation of {} yields {} segments",
            mediaFile.toURI().toURL(), segments.size());
@@ -1077,6 +1078,78 @@ public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
     return segments;
   }
 
+  /**
+   * Extracts the scene scores of all frames with a single FFmpeg call.
+   *
+   * @param mediaFile the file of the track to analyze
+   * @return the scene scores
+   * @throws IOException
+   * @throws VideoSegmenterException
+   */
+  private SceneScores extractSceneScores(File mediaFile) throws IOException, VideoSegmenterException {
+
+    String[] command = new String[] {
+        binary,
+        "-nostats", "-nostdin",
+        "-i", mediaFile.getAbsolutePath(),
+        "-filter:v", "select=gt(scene\\,0),metadata=print",
+        "-f", "null",
+        "-"
+    };
+
+    logger.info("Extracting scene scores using command: {}", (Object) command);
+
+    Process process = new ProcessBuilder(command).start();
+    SceneScores sceneScores;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+      sceneScores = SceneScores.parse(reader);
+    }
+
+    logger.info("Extracted scene scores of {} frames of {}", sceneScores.size(), mediaFile.toURI().toURL());
+    return sceneScores;
+  }
+
+  /**
+   * Adds the segments between scene changes to the given videoContent of a catalog and returns a list with the
+   * resulting segments. Scene changes following the start of the current segment within the prefilter stability
+   * threshold are ignored.
+   *
+   * @param track the element to analyze
+   * @param videoContent the videoContent of the Mpeg7Catalog that the segments should be added to
+   * @param changes the times of the scene changes in milliseconds
+   * @return a list of the resulting segments
+   */
+  private LinkedList<Segment> createSegments(Track track, Video videoContent, List<Long> changes) {
+    int segmentcount = 1;
+    LinkedList<Segment> segments = new LinkedList<>();
+
+    long starttime = 0;
+    long endtime = 0;
+    for (long change : changes) {
+      endtime = change;
+      long segmentLength = endtime - starttime;
+      if (1000 * stabilityThresholdPrefilter < segmentLength) {
+        Segment segment = videoContent.getTemporalDecomposition()
+            .createSegment("segment-" + segmentcount);
+        segment.setMediaTime(new MediaRelTimeImpl(starttime,
+            endtime - starttime));
+        logger.debug("Created segment {} at start time {} with duration {}", segmentcount, starttime, endtime);
+        segments.add(segment);
+        segmentcount++;
+        starttime = endtime;
+      }
+    }
+    // Add last segment
+    Segment s = videoContent.getTemporalDecomposition()
+        .createSegment("segment-" + segmentcount);
+    s.setMediaTime(new MediaRelTimeImpl(starttime, track.getDuration() - starttime));
+    logger.debug("Created segment {} at start time {} with duration {}", segmentcount, starttime,
+            track.getDuration() - endtime);
+    segments.add(s);
+
+    return segments;
+  }
+
   /**
    * {@inheritDoc}
    *
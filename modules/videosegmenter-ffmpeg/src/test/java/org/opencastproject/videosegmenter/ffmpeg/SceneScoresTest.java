@@ -0,0 +1,62 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SceneScoresTest {
+
+  private static final String OUTPUT = String.join("\n",
+      "Input #0, mov,mp4,m4a,3gp,3g2,mj2, from 'test.mp4':",
+      "[Parsed_metadata_1 @ 0x55d0c8a0f780] frame:0    pts:1000    pts_time:0.04",
+      "[Parsed_metadata_1 @ 0x55d0c8a0f780] lavfi.scene_score=0.012000",
+      "[Parsed_metadata_1 @ 0x55d0c8a0f780] frame:1    pts:42000   pts_time:1.68",
+      "[Parsed_metadata_1 @ 0x55d0c8a0f780] lavfi.scene_score=0.374207",
+      "[Parsed_metadata_1 @ 0x55d0c8a0f780] frame:2    pts:125000  pts_time:5",
+      "[Parsed_metadata_1 @ 0x55d0c8a0f780] lavfi.scene_score=0.800000",
+      "frame=  120 fps=0.0 q=-0.0 Lsize=N/A time=00:00:05.00 bitrate=N/A speed= 100x");
+
+  @Test
+  public void testGetChanges() throws Exception {
+    SceneScores scores = SceneScores.parse(new BufferedReader(new StringReader(OUTPUT)));
+    assertEquals(3, scores.size());
+    assertEquals(Arrays.asList(40L, 1680L, 5000L), scores.getChanges(0));
+    assertEquals(Arrays.asList(1680L, 5000L), scores.getChanges(0.025f));
+    assertEquals(Collections.singletonList(5000L), scores.getChanges(0.374207f));
+    assertEquals(Collections.emptyList(), scores.getChanges(0.8f));
+  }
+
+  @Test
+  public void testEmptyOutput() throws Exception {
+    SceneScores scores = SceneScores.parse(new BufferedReader(new StringReader("")));
+    assertEquals(0, scores.size());
+    assertEquals(Collections.emptyList(), scores.getChanges(0));
+  }
+
+}
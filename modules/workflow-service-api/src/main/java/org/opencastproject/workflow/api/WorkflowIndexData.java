@@ -43,6 +43,13 @@ import javax.persistence.Table;
                 query = "SELECT id, state, mediapackage_id, organization_id FROM oc_workflow ORDER BY mediapackage_id, id DESC",
                 resultSetMapping = "DataResult"
         ),
+        @NamedNativeQuery(
+                name = "WorkflowIndexData.getAllAfter",
+                query = "SELECT id, state, mediapackage_id, organization_id FROM oc_workflow "
+                        + "WHERE mediapackage_id > ?1 OR (mediapackage_id = ?1 AND COALESCE(organization_id, '') > ?2) "
+                        + "ORDER BY mediapackage_id, COALESCE(organization_id, ''), id DESC",
+                resultSetMapping = "DataResult"
+        ),
 })
 @SqlResultSetMapping(
         name = "DataResult",
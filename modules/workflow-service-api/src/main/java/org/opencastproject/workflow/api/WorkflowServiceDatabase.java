@@ -105,6 +105,26 @@ public interface WorkflowServiceDatabase {
    */
   List<WorkflowIndexData> getWorkflowIndexData(int limit, int offset) throws WorkflowDatabaseException;
 
+  /**
+   * Gets workflow index data for the events following the given event in the order of the media package and
+   * organization identifiers. The data of the latest workflow of each event comes first. Media package identifiers
+   * may be equal across organizations, so the organization is part of the order. Unlike
+   * {@link #getWorkflowIndexData(int, int)}, this does not get slower the further the data is into the table.
+   *
+   * @param lastMediaPackageId
+   *          the media package identifier of the last event returned before, or an empty string to start with the
+   *          first event
+   * @param lastOrganizationId
+   *          the organization identifier of the last event returned before, or an empty string
+   * @param limit
+   *          max number of data objects to be returned
+   * @return list of {@link WorkflowIndexData}s
+   * @throws WorkflowDatabaseException
+   *           if there is a problem communicating with the underlying data store
+   */
+  List<WorkflowIndexData> getWorkflowIndexData(String lastMediaPackageId, String lastOrganizationId, int limit)
+          throws WorkflowDatabaseException;
+
   /**
    * Returns the number of events workflows have been run on.
    *
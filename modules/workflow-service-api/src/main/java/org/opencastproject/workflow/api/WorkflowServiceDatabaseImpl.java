@@ -216,6 +216,27 @@ public class WorkflowServiceDatabaseImpl implements WorkflowServiceDatabase {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see WorkflowServiceDatabase#getWorkflowIndexData(String lastMediaPackageId, String lastOrganizationId, int limit)
+   */
+  public List<WorkflowIndexData> getWorkflowIndexData(String lastMediaPackageId, String lastOrganizationId,
+          int limit) throws WorkflowDatabaseException {
+    try {
+      return db.exec(em -> {
+        return em
+            .createNamedQuery("WorkflowIndexData.getAllAfter", WorkflowIndexData.class)
+            .setParameter(1, lastMediaPackageId)
+            .setParameter(2, lastOrganizationId)
+            .setMaxResults(limit)
+            .getResultList();
+      });
+    } catch (Exception e) {
+      throw new WorkflowDatabaseException(e);
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -41,6 +41,7 @@ import org.opencastproject.elasticsearch.index.objects.event.Event;
 import org.opencastproject.elasticsearch.index.objects.event.EventSearchQuery;
 import org.opencastproject.elasticsearch.index.rebuild.AbstractIndexProducer;
 import org.opencastproject.elasticsearch.index.rebuild.IndexProducer;
+import org.opencastproject.elasticsearch.index.rebuild.IndexProducer.ProgressListener;
 import org.opencastproject.elasticsearch.index.rebuild.IndexRebuildException;
 import org.opencastproject.elasticsearch.index.rebuild.IndexRebuildService;
 import org.opencastproject.job.api.Job;
@@ -66,6 +67,7 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.UnauthorizedException;
 import org.opencastproject.security.api.User;
 import org.opencastproject.security.api.UserDirectoryService;
+import org.opencastproject.security.util.SecurityUtil;
 import org.opencastproject.series.api.SeriesException;
 import org.opencastproject.series.api.SeriesService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
@@ -105,6 +107,7 @@ import com.google.common.util.concurrent.Striped;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
@@ -136,7 +139,9 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
@@ -162,6 +167,24 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** Retry strategy property name */
   private static final String RETRY_STRATEGY = "retryStrategy";
 
+  /** Configuration key for the number of workflows to read from the database at once during an index rebuild */
+  static final String INDEX_REBUILD_PAGE_SIZE_KEY = "org.opencastproject.workflow.index.rebuild.page.size";
+
+  /** Configuration key for the number of events to update in the index at once during an index rebuild */
+  static final String INDEX_REBUILD_BATCH_SIZE_KEY = "org.opencastproject.workflow.index.rebuild.batch.size";
+
+  /** Configuration key for the number of threads updating the index during an index rebuild */
+  static final String INDEX_REBUILD_THREADS_KEY = "org.opencastproject.workflow.index.rebuild.threads";
+
+  /** Default number of workflows to read from the database at once during an index rebuild */
+  static final int DEFAULT_INDEX_REBUILD_PAGE_SIZE = 1000;
+
+  /** Default number of events to update in the index at once during an index rebuild */
+  static final int DEFAULT_INDEX_REBUILD_BATCH_SIZE = 100;
+
+  /** Default number of threads updating the index during an index rebuild */
+  static final int DEFAULT_INDEX_REBUILD_THREADS = 4;
+
   /** Logging facility */
   private static final Logger logger = LoggerFactory.getLogger(WorkflowServiceImpl.class);
 
@@ -197,6 +220,15 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** The thread pool to use for firing listeners and handling dispatched jobs */
   protected ThreadPoolExecutor executorService;
 
+  /** The number of workflows to read from the database at once during an index rebuild */
+  protected int indexRebuildPageSize = DEFAULT_INDEX_REBUILD_PAGE_SIZE;
+
+  /** The number of events to update in the index at once during an index rebuild */
+  protected int indexRebuildBatchSize = DEFAULT_INDEX_REBUILD_BATCH_SIZE;
+
+  /** The number of threads updating the index during an index rebuild */
+  protected int indexRebuildThreads = DEFAULT_INDEX_REBUILD_THREADS;
+
   /** The workspace */
   protected Workspace workspace = null;
 
@@ -252,9 +284,34 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   public void activate(ComponentContext componentContext) {
     this.componentContext = componentContext;
     executorService = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    if (componentContext != null) {
+      indexRebuildPageSize = getPositiveIntContextProperty(INDEX_REBUILD_PAGE_SIZE_KEY,
+              DEFAULT_INDEX_REBUILD_PAGE_SIZE);
+      indexRebuildBatchSize = getPositiveIntContextProperty(INDEX_REBUILD_BATCH_SIZE_KEY,
+              DEFAULT_INDEX_REBUILD_BATCH_SIZE);
+      indexRebuildThreads = getPositiveIntContextProperty(INDEX_REBUILD_THREADS_KEY, DEFAULT_INDEX_REBUILD_THREADS);
+    }
     logger.info("Activate Workflow service");
   }
 
+  /**
+   * Reads a positive integer from the bundle context.
+   *
+   * @param key
+   *          the property key
+   * @param defaultValue
+   *          the value to use if the property is missing or invalid
+   * @return the property value
+   */
+  private int getPositiveIntContextProperty(String key, int defaultValue) {
+    int value = NumberUtils.toInt(StringUtils.trimToNull(componentContext.getBundleContext().getProperty(key)), -1);
+    if (value > 0) {
+      logger.debug("{} set to {}", key, value);
+      return value;
+    }
+    return defaultValue;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -2175,89 +2232,162 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
 
   @Override
   public void repopulate() throws IndexRebuildException {
+    repopulate(null, (current, total, checkpoint) -> { });
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The workflows are read in pages ordered by media package and organization identifier, so the checkpoint is the
+   * organization and media package identifier of the last event which has been updated, separated by a slash. The
+   * events of each page are updated in batches by a pool of {@link #INDEX_REBUILD_THREADS_KEY} threads while the next
+   * page is read from the database.
+   */
+  @Override
+  public void repopulate(String checkpoint, ProgressListener progress) throws IndexRebuildException {
+    final int total;
     try {
-      final int total;
-      try {
-        total = persistence.countMediaPackages();
-      } catch (WorkflowDatabaseException e) {
-        logIndexRebuildError(logger, index.getIndexName(), e);
-        throw new IndexRebuildException(index.getIndexName(), getService(), e);
-      }
+      total = persistence.countMediaPackages();
+    } catch (WorkflowDatabaseException e) {
+      logIndexRebuildError(logger, index.getIndexName(), e);
+      throw new IndexRebuildException(index.getIndexName(), getService(), e);
+    }
+    if (total <= 0) {
+      return;
+    }
 
-      if (total > 0) {
-        logIndexRebuildBegin(logger, index.getIndexName(), total, "workflows");
-        int current = 0;
-        int n = 20;
-        List<WorkflowIndexData> workflowIndexData;
-
-        int limit = 1000;
-        int offset = 0;
-        String currentMediapackageId;
-        String lastMediapackageId = "";
-        var updatedWorkflowRange = new ArrayList<Event>();
-        do {
-          try {
-            workflowIndexData = persistence.getWorkflowIndexData(limit, offset);
-          } catch (WorkflowDatabaseException e) {
-            logIndexRebuildError(logger, index.getIndexName(), e);
-            throw new IndexRebuildException(index.getIndexName(), getService(), e);
+    logIndexRebuildBegin(logger, index.getIndexName(), total, "workflows");
+    final Organization organization = securityService.getOrganization();
+    final User user = securityService.getUser();
+    final ExecutorService rebuildExecutor = Executors.newFixedThreadPool(indexRebuildThreads);
+    try {
+      int current = 0;
+      // Organization identifiers never contain a slash, unlike media package identifiers
+      final String start = StringUtils.defaultString(checkpoint);
+      String lastOrganizationId = start.contains("/") ? StringUtils.substringBefore(start, "/") : "";
+      String lastMediaPackageId = start.contains("/") ? StringUtils.substringAfter(start, "/") : start;
+      List<WorkflowIndexData> page = getWorkflowIndexDataPage(lastMediaPackageId, lastOrganizationId);
+      while (!page.isEmpty()) {
+        // Only the latest workflow of each event matters, which comes first
+        List<WorkflowIndexData> latest = new ArrayList<>();
+        for (WorkflowIndexData indexData : page) {
+          final String organizationId = StringUtils.defaultString(indexData.getOrganizationId());
+          if (!indexData.getMediaPackageId().equals(lastMediaPackageId)
+                  || !organizationId.equals(lastOrganizationId)) {
+            latest.add(indexData);
+            lastMediaPackageId = indexData.getMediaPackageId();
+            lastOrganizationId = organizationId;
           }
-          if (!workflowIndexData.isEmpty()) {
-            offset += limit;
-            logger.debug("Got {} workflows for re-indexing", workflowIndexData.size());
-
-            for (WorkflowIndexData indexData : workflowIndexData) {
-              currentMediapackageId = indexData.getMediaPackageId();
-              if (currentMediapackageId.equals(lastMediapackageId)) {
-                continue;
-              }
-              current++;
-
-              if (!WorkflowUtil.isActive(WorkflowInstance.WorkflowState.values()[indexData.getState()].toString())) {
-                String orgid = indexData.getOrganizationId();
-                if (null == orgid) {
-                  String mpId = indexData.getMediaPackageId();
-                  //We're assuming here that mediapackages don't change orgs
-                  RichAResult results = assetManager.getSnapshotsById(mpId);
-                  if (results.getSize() == 0) {
-                    logger.debug("Dropping {} from the index since it is missing from the database", mpId);
-                    continue;
-                  }
-                  orgid = results.getSnapshots().stream().findFirst().get().getOrganizationId();
-                  //We try-catch here since it's possible for the WF to exist in the *index* but not in the *DB*
-                  // It probably shouldn't be, but that won't keep it from happening anyway.
-                  try {
-                    //NB: This version of getWorkflow takes the org id, which in this case is null
-                    // Using the normal version filters by org, and since this workflow has a NULL org it can't be found
-                    WorkflowInstance instance = persistence.getWorkflow(indexData.getId(), null);
-                    instance.setOrganizationId(orgid);
-                    persistence.updateInDatabase(instance);
-                  } catch (NotFoundException e) {
-                    //Technically this should never happen, but getWorkflow throws it.
-                  }
-                }
-                var updatedWorkflowData = index.getEvent(indexData.getMediaPackageId(), orgid, securityService.getUser());
-                updatedWorkflowData = getStateUpdateFunction(indexData).apply(updatedWorkflowData);
-                updatedWorkflowRange.add(updatedWorkflowData.get());
-
-                if (updatedWorkflowRange.size() >= n || current >= total) {
-                  index.bulkEventUpdate(updatedWorkflowRange);
-                  logIndexRebuildProgress(logger, index.getIndexName(), total, current, n);
-                  updatedWorkflowRange.clear();
-                }
-              }
-              else {
-                logger.info("Skipping. Workflow {} is currently active.", indexData.getId());
-              }
+        }
+        logger.debug("Got {} workflows of {} media packages for re-indexing", page.size(), latest.size());
+
+        List<Future<?>> batches = new ArrayList<>();
+        for (int i = 0; i < latest.size(); i += indexRebuildBatchSize) {
+          final List<WorkflowIndexData> batch = latest.subList(i, Math.min(i + indexRebuildBatchSize, latest.size()));
+          batches.add(rebuildExecutor.submit(() -> {
+            SecurityUtil.runAs(securityService, organization, user, () -> updateIndexBatch(batch, user));
+            return null;
+          }));
+        }
 
-              lastMediapackageId = currentMediapackageId;
-            }
-          }
-        } while (!workflowIndexData.isEmpty());
+        // Read the next page while the index is being updated
+        page = getWorkflowIndexDataPage(lastMediaPackageId, lastOrganizationId);
+
+        for (Future<?> batch : batches) {
+          batch.get();
+        }
+        current = Math.min(current + latest.size(), total);
+        logIndexRebuildProgress(logger, index.getIndexName(), total, current, latest.size());
+        progress.progress(current, total, lastOrganizationId + "/" + lastMediaPackageId);
       }
+    } catch (IndexRebuildException e) {
+      throw e;
     } catch (Exception e) {
       logIndexRebuildError(logger, index.getIndexName(), e);
       throw new IndexRebuildException(index.getIndexName(), getService(), e);
+    } finally {
+      rebuildExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Reads the next page of workflow index data for an index rebuild.
+   *
+   * @param lastMediaPackageId
+   *          the identifier of the last media package of the previous page or an empty string for the first page
+   * @param lastOrganizationId
+   *          the organization of the last media package of the previous page or an empty string for the first page
+   * @return the workflow index data
+   */
+  private List<WorkflowIndexData> getWorkflowIndexDataPage(String lastMediaPackageId, String lastOrganizationId)
+          throws IndexRebuildException {
+    try {
+      return persistence.getWorkflowIndexData(lastMediaPackageId, lastOrganizationId, indexRebuildPageSize);
+    } catch (WorkflowDatabaseException e) {
+      logIndexRebuildError(logger, index.getIndexName(), e);
+      throw new IndexRebuildException(index.getIndexName(), getService(), e);
+    }
+  }
+
+  /**
+   * Updates the workflow state of the events of a batch of media packages in the index. Events of active workflows are
+   * skipped.
+   *
+   * @param batch
+   *          the index data of the latest workflow of each media package
+   * @param user
+   *          the user rebuilding the index
+   */
+  private void updateIndexBatch(List<WorkflowIndexData> batch, User user) {
+    final Map<String, List<WorkflowIndexData>> byOrganization = new HashMap<>();
+    for (WorkflowIndexData indexData : batch) {
+      if (WorkflowUtil.isActive(WorkflowInstance.WorkflowState.values()[indexData.getState()].toString())) {
+        logger.info("Skipping. Workflow {} is currently active.", indexData.getId());
+        continue;
+      }
+      String orgid = indexData.getOrganizationId();
+      if (null == orgid) {
+        String mpId = indexData.getMediaPackageId();
+        //We're assuming here that mediapackages don't change orgs
+        RichAResult results = assetManager.getSnapshotsById(mpId);
+        if (results.getSize() == 0) {
+          logger.debug("Dropping {} from the index since it is missing from the database", mpId);
+          continue;
+        }
+        orgid = results.getSnapshots().stream().findFirst().get().getOrganizationId();
+        //We try-catch here since it's possible for the WF to exist in the *index* but not in the *DB*
+        // It probably shouldn't be, but that won't keep it from happening anyway.
+        try {
+          //NB: This version of getWorkflow takes the org id, which in this case is null
+          // Using the normal version filters by org, and since this workflow has a NULL org it can't be found
+          WorkflowInstance instance = persistence.getWorkflow(indexData.getId(), null);
+          instance.setOrganizationId(orgid);
+          persistence.updateInDatabase(instance);
+        } catch (NotFoundException e) {
+          //Technically this should never happen, but getWorkflow throws it.
+        } catch (WorkflowDatabaseException e) {
+          throw new IllegalStateException(e);
+        }
+        indexData = new WorkflowIndexData(indexData.getId(), indexData.getState(), mpId, orgid);
+      }
+      byOrganization.computeIfAbsent(orgid, org -> new ArrayList<>()).add(indexData);
+    }
+
+    for (Entry<String, List<WorkflowIndexData>> entry : byOrganization.entrySet()) {
+      final List<String> mediaPackageIds = entry.getValue().stream()
+              .map(WorkflowIndexData::getMediaPackageId)
+              .collect(Collectors.toList());
+      try {
+        final Map<String, Event> events = index.getEvents(mediaPackageIds, entry.getKey(), user);
+        final List<Event> updatedEvents = new ArrayList<>();
+        for (WorkflowIndexData indexData : entry.getValue()) {
+          Optional<Event> event = Optional.ofNullable(events.get(indexData.getMediaPackageId()));
+          updatedEvents.add(getStateUpdateFunction(indexData).apply(event).get());
+        }
+        index.bulkEventUpdate(updatedEvents);
+      } catch (SearchIndexException e) {
+        throw new IllegalStateException(e);
+      }
     }
   }
 
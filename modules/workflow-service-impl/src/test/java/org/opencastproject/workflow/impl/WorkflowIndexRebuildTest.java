@@ -0,0 +1,152 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.opencastproject.db.DBTestEnv.getDbSessionFactory;
+import static org.opencastproject.db.DBTestEnv.newEntityManagerFactory;
+
+import org.opencastproject.elasticsearch.index.ElasticsearchIndex;
+import org.opencastproject.elasticsearch.index.objects.event.Event;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.identifier.IdImpl;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.SecurityConstants;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
+import org.opencastproject.workflow.api.WorkflowInstance;
+import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
+import org.opencastproject.workflow.api.WorkflowServiceDatabaseImpl;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests rebuilding the index from the workflow service page by page.
+ */
+public class WorkflowIndexRebuildTest {
+
+  private WorkflowServiceImpl service;
+
+  /** The events written to the index as "organization/media package/workflow" */
+  private final List<String> updated = Collections.synchronizedList(new ArrayList<>());
+
+  /** The checkpoints reported by the rebuild */
+  private final List<String> checkpoints = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
+    User user = new JaxbUser("admin", "test", new DefaultOrganization(), new JaxbRole(
+            SecurityConstants.GLOBAL_ADMIN_ROLE, new DefaultOrganization()));
+    EasyMock.expect(securityService.getOrganization()).andReturn(new DefaultOrganization()).anyTimes();
+    EasyMock.expect(securityService.getUser()).andReturn(user).anyTimes();
+    EasyMock.replay(securityService);
+
+    WorkflowServiceDatabaseImpl persistence = new WorkflowServiceDatabaseImpl();
+    persistence.setEntityManagerFactory(newEntityManagerFactory(WorkflowServiceDatabaseImpl.PERSISTENCE_UNIT));
+    persistence.setDBSessionFactory(getDbSessionFactory());
+    persistence.setSecurityService(securityService);
+    persistence.activate(null);
+
+    // The same media package identifier exists in two organizations
+    addWorkflow(persistence, 1, "mp-a", "org1", WorkflowState.SUCCEEDED);
+    addWorkflow(persistence, 2, "mp-a", "org1", WorkflowState.FAILED);
+    addWorkflow(persistence, 3, "mp-a", "org2", WorkflowState.SUCCEEDED);
+    addWorkflow(persistence, 4, "mp-b", "org1", WorkflowState.STOPPED);
+    addWorkflow(persistence, 5, "mp-b", "org1", WorkflowState.SUCCEEDED);
+    addWorkflow(persistence, 6, "mp-c", "org2", WorkflowState.SUCCEEDED);
+
+    ElasticsearchIndex index = EasyMock.createNiceMock(ElasticsearchIndex.class);
+    EasyMock.expect(index.getIndexName()).andReturn("test").anyTimes();
+    // None of the events is in the index yet
+    EasyMock.expect(index.getEvents(EasyMock.anyObject(), EasyMock.anyString(), EasyMock.anyObject()))
+            .andAnswer(HashMap::new).anyTimes();
+    index.bulkEventUpdate(EasyMock.anyObject());
+    EasyMock.expectLastCall().andAnswer(() -> {
+      @SuppressWarnings("unchecked")
+      List<Event> events = (List<Event>) EasyMock.getCurrentArguments()[0];
+      for (Event event : events) {
+        updated.add(event.getOrganization() + "/" + event.getIdentifier() + "/" + event.getWorkflowId());
+      }
+      return null;
+    }).anyTimes();
+    EasyMock.replay(index);
+
+    service = new WorkflowServiceImpl();
+    service.setSecurityService(securityService);
+    service.setPersistence(persistence);
+    service.setIndex(index);
+    // Pages ending within the workflows of a media package and batches smaller than pages
+    service.indexRebuildPageSize = 2;
+    service.indexRebuildBatchSize = 1;
+    service.indexRebuildThreads = 2;
+  }
+
+  private static void addWorkflow(WorkflowServiceDatabaseImpl persistence, long id, String mediaPackageId,
+          String organizationId, WorkflowState state) throws Exception {
+    WorkflowInstance workflow = new WorkflowInstance();
+    workflow.setId(id);
+    workflow.setState(state);
+    workflow.setOrganizationId(organizationId);
+    workflow.setMediaPackage(MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder()
+            .createNew(new IdImpl(mediaPackageId)));
+    persistence.updateInDatabase(workflow);
+  }
+
+  private List<String> getUpdated() {
+    return updated.stream().sorted().collect(Collectors.toList());
+  }
+
+  @Test
+  public void testRepopulateAllPages() throws Exception {
+    service.repopulate(null, (current, total, checkpoint) -> checkpoints.add(checkpoint));
+
+    // Only the latest workflow of each event, and each event once
+    assertEquals(List.of("org1/mp-a/2", "org1/mp-b/5", "org2/mp-a/3", "org2/mp-c/6"), getUpdated());
+    assertEquals("org2/mp-c", checkpoints.get(checkpoints.size() - 1));
+  }
+
+  @Test
+  public void testResumeFromCheckpoint() throws Exception {
+    service.repopulate("org1/mp-a", (current, total, checkpoint) -> checkpoints.add(checkpoint));
+    assertEquals(List.of("org1/mp-b/5", "org2/mp-a/3", "org2/mp-c/6"), getUpdated());
+
+    updated.clear();
+    service.repopulate("org1/mp-b", (current, total, checkpoint) -> checkpoints.add(checkpoint));
+    assertEquals(List.of("org2/mp-c/6"), getUpdated());
+
+    updated.clear();
+    service.repopulate("org2/mp-c", (current, total, checkpoint) -> checkpoints.add(checkpoint));
+    assertEquals(List.of(), getUpdated());
+  }
+
+}
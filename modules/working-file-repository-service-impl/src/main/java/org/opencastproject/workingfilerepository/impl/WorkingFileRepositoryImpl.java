@@ -471,6 +471,32 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     }
   }
 
+  /**
+   * Copies the md5 hash of a source file to its copy, so that the content does not have to be hashed again. The hash is
+   * only created from the content if the source file has none.
+   *
+   * @param source
+   *         the source file
+   * @param copy
+   *         the copy of the source file
+   * @throws IOException
+   *         if the hash cannot be copied or created
+   */
+  protected File copyMd5(File source, File copy) throws IOException {
+    File sourceMd5 = getMd5File(source);
+    if (!sourceMd5.isFile()) {
+      return createMd5(copy);
+    }
+    File md5File = getMd5File(copy);
+    try {
+      FileUtils.copyFile(sourceMd5, md5File);
+      return md5File;
+    } catch (IOException e) {
+      FileUtils.deleteQuietly(md5File);
+      throw e;
+    }
+  }
+
   /**
    * Gets the file handle for an md5 associated with a content file. Calling this method and obtaining a File handle is
    * not a guarantee that the md5 file exists.
@@ -725,7 +751,7 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     try {
       destFile = new File(destDir, toSafeName(toFileName));
       FileSupport.link(source, destFile);
-      createMd5(destFile);
+      copyMd5(source, destFile);
     } catch (Exception e) {
       FileUtils.deleteDirectory(destDir);
     }
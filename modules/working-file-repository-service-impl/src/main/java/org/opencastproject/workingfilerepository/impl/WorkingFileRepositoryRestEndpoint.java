@@ -292,7 +292,7 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
     String md5 = null;
     try {
       md5 = getMediaPackageElementDigest(mediaPackageID, mediaPackageElementID);
-      if (StringUtils.isNotBlank(ifNoneMatch) && md5.equals(ifNoneMatch)) {
+      if (matches(ifNoneMatch, md5)) {
         return Response.notModified(md5).build();
       }
     } catch (IOException e) {
@@ -307,7 +307,8 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
         contentType = "application/octet-stream";
       }
       try {
-        return ok(get(mediaPackageID, mediaPackageElementID), contentType, some(file.length()), none(""));
+        return Response.fromResponse(ok(get(mediaPackageID, mediaPackageElementID), contentType,
+                some(file.length()), none(""))).tag(md5).build();
       } catch (IOException e) {
         throw new NotFoundException();
       }
@@ -334,7 +335,7 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
     // Check the If-None-Match header first
     try {
       md5 = getMediaPackageElementDigest(mediaPackageID, mediaPackageElementID);
-      if (StringUtils.isNotBlank(ifNoneMatch) && md5.equals(ifNoneMatch)) {
+      if (matches(ifNoneMatch, md5)) {
         return Response.notModified(md5).build();
       }
     } catch (IOException e) {
@@ -360,6 +361,23 @@ public class WorkingFileRepositoryRestEndpoint extends WorkingFileRepositoryImpl
     }
   }
 
+  /**
+   * Checks whether an <code>If-None-Match</code> header matches the md5 hash of a file. Clients may send the entity tag
+   * as returned by a previous response, which is quoted and may be marked as weak.
+   */
+  static boolean matches(String ifNoneMatch, String md5) {
+    if (StringUtils.isBlank(ifNoneMatch) || md5 == null) {
+      return false;
+    }
+    for (String tag : StringUtils.split(ifNoneMatch, ',')) {
+      tag = StringUtils.removeStart(tag.trim(), "W/");
+      if ("*".equals(tag) || md5.equals(StringUtils.strip(tag, "\""))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @GET
   @Path(WorkingFileRepository.COLLECTION_PATH_PREFIX + "{collectionId}/{fileName}")
   @RestQuery(name = "getFromCollection", description = "Gets the file from the working repository under /collectionId/filename", returnDescription = "The file", pathParameters = {
@@ -147,4 +147,25 @@ public class WorkingFileRepositoryRestEndpointTest {
     }
   }
 
+  @Test
+  public void testIfNoneMatch() throws Exception {
+    String mediaPackageId = "mp";
+    String dc = "element1";
+    try (InputStream in = getClass().getResourceAsStream("/dublincore.xml")) {
+      endpoint.put(mediaPackageId, dc, "dublincore.xml", in);
+    }
+
+    // The entity tag of a response can be used to revalidate the file
+    Response response = endpoint.restGet(mediaPackageId, dc, "dublincore.xml", null, null);
+    Assert.assertEquals(200, response.getStatus());
+    IOUtils.closeQuietly((InputStream) response.getEntity());
+    String etag = response.getMetadata().getFirst("ETag").toString();
+    Assert.assertEquals(304, endpoint.restGet(mediaPackageId, dc, "dublincore.xml", etag, null).getStatus());
+    Assert.assertEquals(304, endpoint.restGet(mediaPackageId, dc, "W/" + etag).getStatus());
+
+    response = endpoint.restGet(mediaPackageId, dc, "\"outdated\"");
+    Assert.assertEquals(200, response.getStatus());
+    IOUtils.closeQuietly((InputStream) response.getEntity());
+  }
+
 }
@@ -30,6 +30,7 @@ import org.opencastproject.systems.OpencastConstants;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.UrlSupport;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.easymock.EasyMock;
@@ -192,6 +193,9 @@ public class WorkingFileRepositoryTest {
       in = repo.get("copied-mediapackage", "copied-element");
       byte[] bytesFromCopy = IOUtils.toByteArray(in);
       Assert.assertTrue(Arrays.equals(bytesFromCollection, bytesFromCopy));
+      // The md5 hash is taken over from the source file
+      Assert.assertEquals(DigestUtils.md5Hex(bytesFromCollection),
+              repo.getMediaPackageElementDigest("copied-mediapackage", "copied-element"));
     } finally {
       IOUtils.closeQuietly(in);
     }
@@ -23,12 +23,14 @@ package org.opencastproject.workspace.api;
 
 import org.opencastproject.mediapackage.identifier.Id;
 import org.opencastproject.storage.StorageUsage;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.NotFoundException;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Optional;
 
 /**
  * Provides efficient access java.io.File objects from potentially remote URIs. This helper service prevents different
@@ -69,6 +71,18 @@ public interface Workspace extends StorageUsage {
    */
   File get(URI uri, boolean uniqueFilename) throws NotFoundException, IOException;
 
+  /**
+   * Returns the checksum of a file which has already been computed while storing or downloading it, so that the file
+   * does not have to be read again. Callers have to compute the checksum themselves if none is known.
+   *
+   * @param uri
+   *          URI identifying the resource
+   * @return The known checksum of the resource or none
+   */
+  default Optional<Checksum> getChecksum(URI uri) {
+    return Optional.empty();
+  }
+
   /**
    * Get the {@link File} for the given URI directly from the working file repository.
    * If shared storage is not available, then fall back to get(uri).
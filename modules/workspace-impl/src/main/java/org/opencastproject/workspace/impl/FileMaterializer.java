@@ -0,0 +1,264 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workspace.impl;
+
+import org.opencastproject.util.FileSupport;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materializes files from locally mounted storage (working file repository, asset manager) in the workspace.
+ * <p>
+ * The configured strategies are tried in order. The first one which works for a mount is remembered and used for all
+ * further files from that mount, so that unsupported strategies are only tried once. Copying is always the last
+ * resort.
+ * <p>
+ * Hard links are only used if the caller knows that they work, e.g. because the link test for the working file
+ * repository on start up succeeded.
+ */
+public class FileMaterializer {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(FileMaterializer.class);
+
+  /** The ways of making a file available in the workspace */
+  public enum Strategy {
+    /** Hard link, requires source and workspace to be on the same file system */
+    LINK,
+    /** Copy-on-write clone (e.g. Btrfs, XFS), requires GNU cp */
+    REFLINK,
+    /** Symbolic link, the workspace file vanishes if the source is removed */
+    SYMLINK,
+    /** Full copy of the data using file channels */
+    COPY
+  }
+
+  /** The default strategies */
+  public static final List<Strategy> DEFAULT_STRATEGIES = List.of(Strategy.LINK, Strategy.COPY);
+
+  private volatile List<Strategy> strategies = DEFAULT_STRATEGIES;
+
+  /** The strategy in use per mount */
+  private final Map<String, Strategy> mountStrategies = new ConcurrentHashMap<>();
+
+  private final Map<Strategy, AtomicLong> fileCounts = new EnumMap<>(Strategy.class);
+  private final Map<Strategy, AtomicLong> byteCounts = new EnumMap<>(Strategy.class);
+
+  public FileMaterializer() {
+    for (Strategy strategy : Strategy.values()) {
+      fileCounts.put(strategy, new AtomicLong());
+      byteCounts.put(strategy, new AtomicLong());
+    }
+  }
+
+  /**
+   * Parses a comma separated list of strategies like <code>link,reflink,copy</code>. Copying is appended if it is
+   * missing.
+   *
+   * @throws IllegalArgumentException
+   *           if the list contains an unknown strategy
+   */
+  public static List<Strategy> parseStrategies(String value) {
+    final List<Strategy> result = new ArrayList<>();
+    for (String name : StringUtils.split(StringUtils.trimToEmpty(value), ',')) {
+      final Strategy strategy = Strategy.valueOf(name.trim().toUpperCase(Locale.ROOT));
+      if (!result.contains(strategy)) {
+        result.add(strategy);
+      }
+    }
+    if (result.isEmpty()) {
+      return DEFAULT_STRATEGIES;
+    }
+    result.remove(Strategy.COPY);
+    result.add(Strategy.COPY);
+    return Collections.unmodifiableList(result);
+  }
+
+  /** Sets the strategies to try, in order of preference. Forgets the strategies chosen for mounts so far. */
+  public void setStrategies(List<Strategy> strategies) {
+    this.strategies = strategies;
+    mountStrategies.clear();
+  }
+
+  public List<Strategy> getStrategies() {
+    return strategies;
+  }
+
+  /** Returns the strategy in use for a mount if it has been determined yet. */
+  public Strategy getStrategy(String mount) {
+    return mountStrategies.get(mount);
+  }
+
+  /** Returns the number of files materialized using the given strategy. */
+  public long getFileCount(Strategy strategy) {
+    return fileCounts.get(strategy).get();
+  }
+
+  /** Returns the number of bytes materialized using the given strategy. */
+  public long getByteCount(Strategy strategy) {
+    return byteCounts.get(strategy).get();
+  }
+
+  /**
+   * Makes <code>src</code> available at <code>dst</code>, replacing any existing file.
+   *
+   * @param mount
+   *          the root directory of the storage <code>src</code> lives in
+   * @param src
+   *          the source file
+   * @param dst
+   *          the workspace file
+   * @return the strategy which has been used
+   * @throws IOException
+   *           if even copying the file failed
+   */
+  public Strategy materialize(String mount, File src, File dst) throws IOException {
+    return materialize(mount, src, dst, true);
+  }
+
+  /**
+   * Makes <code>src</code> available at <code>dst</code>, replacing any existing file.
+   *
+   * @param mount
+   *          the root directory of the storage <code>src</code> lives in
+   * @param src
+   *          the source file
+   * @param dst
+   *          the workspace file
+   * @param linkable
+   *          whether hard links between the mount and the workspace are known to work
+   * @return the strategy which has been used
+   * @throws IOException
+   *           if even copying the file failed
+   */
+  public Strategy materialize(String mount, File src, File dst, boolean linkable) throws IOException {
+    return materialize(mount, strategies, src, dst, linkable);
+  }
+
+  /**
+   * Makes <code>src</code> available at <code>dst</code> using one of the given strategies instead of the configured
+   * ones, replacing any existing file.
+   *
+   * @param mount
+   *          the root directory of the storage <code>src</code> lives in
+   * @param candidates
+   *          the strategies to try, in order of preference
+   * @param src
+   *          the source file
+   * @param dst
+   *          the workspace file
+   * @param linkable
+   *          whether hard links between the mount and the workspace are known to work
+   * @return the strategy which has been used
+   * @throws IOException
+   *           if even copying the file failed
+   */
+  public Strategy materialize(String mount, List<Strategy> candidates, File src, File dst, boolean linkable)
+          throws IOException {
+    final Strategy current = mountStrategies.get(mount);
+    final int first = current == null ? 0 : Math.max(0, candidates.indexOf(current));
+    for (Strategy strategy : candidates.subList(first, candidates.size())) {
+      if (strategy == Strategy.LINK && !linkable) {
+        continue;
+      }
+      if (apply(strategy, src, dst)) {
+        if (current != strategy) {
+          mountStrategies.put(mount, strategy);
+          logger.info("Materializing files from {} in the workspace using strategy {}", mount, strategy);
+        }
+        fileCounts.get(strategy).incrementAndGet();
+        byteCounts.get(strategy).addAndGet(src.length());
+        return strategy;
+      }
+    }
+    throw new IllegalStateException("No materialization strategy available");
+  }
+
+  private boolean apply(Strategy strategy, File src, File dst) throws IOException {
+    Files.deleteIfExists(dst.toPath());
+    switch (strategy) {
+      case LINK:
+        try {
+          Files.createLink(dst.toPath(), src.toPath());
+          return true;
+        } catch (IOException | UnsupportedOperationException e) {
+          logger.debug("Unable to create a hard link from {} to {}", src, dst, e);
+          return false;
+        }
+      case SYMLINK:
+        try {
+          Files.createSymbolicLink(dst.toPath(), src.getAbsoluteFile().toPath());
+          return true;
+        } catch (IOException | UnsupportedOperationException e) {
+          logger.debug("Unable to create a symbolic link from {} to {}", src, dst, e);
+          return false;
+        }
+      case REFLINK:
+        return reflink(src, dst);
+      case COPY:
+      default:
+        FileSupport.copy(src, dst);
+        return true;
+    }
+  }
+
+  /** Clones a file using <code>cp --reflink=always</code>, which fails if the file system does not support it. */
+  private boolean reflink(File src, File dst) throws IOException {
+    final Process process;
+    try {
+      process = new ProcessBuilder("cp", "--reflink=always", src.getAbsolutePath(), dst.getAbsolutePath())
+              .redirectErrorStream(true)
+              .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+              .start();
+    } catch (IOException e) {
+      logger.debug("Unable to run cp to create a reflink from {} to {}", src, dst, e);
+      return false;
+    }
+    try {
+      if (process.waitFor() == 0) {
+        return true;
+      }
+    } catch (InterruptedException e) {
+      process.destroy();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while cloning " + src, e);
+    }
+    logger.debug("Unable to create a reflink from {} to {}", src, dst);
+    Files.deleteIfExists(dst.toPath());
+    return false;
+  }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workspace.impl;
+
+import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.data.Function;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the files downloaded into the workspace.
+ * <p>
+ * For each file the validators of the remote resource are remembered, so that it can be revalidated using a
+ * conditional request, along with the checksum computed while downloading it. If a maximum size is set, the least
+ * recently used files are evicted once the downloaded files exceed it. Files used within the minimum age and files
+ * which are being read are never evicted. Files are only evicted while holding the same file lock the workspace holds
+ * while downloading or revalidating them.
+ */
+public class WorkspaceCache {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(WorkspaceCache.class);
+
+  /** A downloaded file */
+  public static final class Entry {
+    private final File file;
+    private final long size;
+    private final String md5;
+    private final String etag;
+    private final String lastModified;
+    private long lastAccess;
+    /** Whether the entry is still in the cache */
+    private boolean tracked = true;
+
+    Entry(File file, String md5, String etag, String lastModified, long now) {
+      this.file = file;
+      this.size = file.length();
+      this.md5 = md5;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.lastAccess = now;
+    }
+
+    /** The MD5 checksum of the downloaded file, computed while downloading it */
+    public String getMd5() {
+      return md5;
+    }
+
+    /** The entity tag of the remote resource or the MD5 checksum of the downloaded file */
+    public String getEtag() {
+      return etag;
+    }
+
+    /** The last modification date of the remote resource as sent by the server */
+    public String getLastModified() {
+      return lastModified;
+    }
+  }
+
+  /** Entries in access order, the least recently used first */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** The number of open readers per file */
+  private final Map<String, Integer> readers = new HashMap<>();
+
+  /** The overall size of all entries in bytes */
+  private long size = 0L;
+
+  /** The maximum size in bytes, no limit if not positive */
+  private volatile long maxSize = -1L;
+
+  /** The minimum time since the last access in milliseconds before a file may be evicted */
+  private volatile long minAge = 3600000L;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong evictedBytes = new AtomicLong();
+
+  public void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMinAge(long minAge) {
+    this.minAge = minAge;
+  }
+
+  /**
+   * Returns the entry of a downloaded file and marks it as used. Entries whose file has been removed or modified in the
+   * meantime are dropped.
+   */
+  public synchronized Entry get(File file) {
+    final Entry entry = entries.get(file.getAbsolutePath());
+    if (entry == null) {
+      return null;
+    }
+    if (!file.isFile() || file.length() != entry.size) {
+      remove(file);
+      return null;
+    }
+    entry.lastAccess = System.currentTimeMillis();
+    return entry;
+  }
+
+  /**
+   * Records that a cached file is still valid.
+   *
+   * @return whether the file is tracked
+   */
+  public synchronized boolean hit(File file) {
+    hits.incrementAndGet();
+    return get(file) != null;
+  }
+
+  /** Records a downloaded file and evicts older files if the cache exceeds its maximum size. */
+  public void put(File file, String md5, String etag, String lastModified) {
+    misses.incrementAndGet();
+    track(file, md5, etag, lastModified);
+  }
+
+  /**
+   * Starts tracking a file which has been downloaded before, e.g. prior to a restart, and has just been found to be
+   * still valid. Evicts older files if the cache exceeds its maximum size.
+   */
+  public void track(File file, String md5, String etag, String lastModified) {
+    synchronized (this) {
+      remove(file);
+      final Entry entry = new Entry(file.getAbsoluteFile(), md5, etag, lastModified, System.currentTimeMillis());
+      entries.put(entry.file.getPath(), entry);
+      size += entry.size;
+    }
+    evict(file.getAbsoluteFile());
+  }
+
+  /** Marks a file as being read, so that it is not evicted until {@link #release(File)} is called. */
+  public synchronized void acquire(File file) {
+    readers.merge(file.getAbsolutePath(), 1, Integer::sum);
+  }
+
+  /** Marks that a reader of a file has finished. */
+  public synchronized void release(File file) {
+    readers.computeIfPresent(file.getAbsolutePath(), (path, count) -> count > 1 ? count - 1 : null);
+  }
+
+  /** Stops tracking a file. */
+  public synchronized void remove(File file) {
+    final Entry entry = entries.remove(file.getAbsolutePath());
+    if (entry != null) {
+      entry.tracked = false;
+      size -= entry.size;
+    }
+  }
+
+  /** Drops all entries whose file does not exist anymore, e.g. after a cleanup of the workspace. */
+  public synchronized void purge() {
+    final Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      final Entry entry = it.next();
+      if (!entry.file.isFile()) {
+        entry.tracked = false;
+        size -= entry.size;
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Evicts the least recently used files until the cache does not exceed its maximum size anymore. Must not be called
+   * while holding the monitor of the cache, since the file lock is acquired first.
+   *
+   * @param current
+   *          the file just downloaded, which the caller holds the file lock of
+   */
+  private void evict(File current) {
+    if (maxSize <= 0) {
+      return;
+    }
+    for (final Entry entry : evictionCandidates(current)) {
+      if (!entry.file.isFile()) {
+        remove(entry.file);
+        continue;
+      }
+      try {
+        IoSupport.locked(entry.file, new Function.X<File, Void>() {
+          @Override
+          protected Void xapply(File file) {
+            evict(entry);
+            return null;
+          }
+        });
+      } catch (NotFoundException | IOException e) {
+        logger.debug("Unable to lock {} for eviction", entry.file, e);
+      }
+    }
+  }
+
+  /** Returns the least recently used entries which are not in use and would need to be evicted. */
+  private synchronized List<Entry> evictionCandidates(File current) {
+    final List<Entry> candidates = new ArrayList<>();
+    final long threshold = System.currentTimeMillis() - minAge;
+    long excess = size - maxSize;
+    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+      if (excess <= 0) {
+        break;
+      }
+      final Entry entry = e.getValue();
+      if (entry.lastAccess > threshold) {
+        // All remaining entries have been used more recently
+        break;
+      }
+      if (!readers.containsKey(e.getKey()) && !entry.file.equals(current)) {
+        candidates.add(entry);
+        excess -= entry.size;
+      }
+    }
+    if (excess > 0) {
+      logger.debug("Workspace cache exceeds its maximum size since all files are in use");
+    }
+    return candidates;
+  }
+
+  /** Evicts an entry unless it has been used, replaced or removed since it has been chosen. */
+  private synchronized void evict(Entry entry) {
+    final String path = entry.file.getPath();
+    if (!entry.tracked || readers.containsKey(path) || size <= maxSize
+            || entry.lastAccess > System.currentTimeMillis() - minAge) {
+      return;
+    }
+    entries.remove(path);
+    entry.tracked = false;
+    size -= entry.size;
+    if (FileUtils.deleteQuietly(entry.file)) {
+      evictions.incrementAndGet();
+      evictedBytes.addAndGet(entry.size);
+      logger.debug("Evicted {} from the workspace", entry.file);
+    }
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getEvictedBytes() {
+    return evictedBytes.get();
+  }
+
+}
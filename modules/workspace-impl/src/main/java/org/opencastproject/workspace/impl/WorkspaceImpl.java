@@ -42,6 +42,8 @@ import org.opencastproject.mediapackage.identifier.Id;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.TrustedHttpClient;
 import org.opencastproject.security.api.TrustedHttpClientException;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.FileSupport;
 import org.opencastproject.util.HttpUtil;
 import org.opencastproject.util.IoSupport;
@@ -58,12 +60,15 @@ import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 import org.opencastproject.workspace.api.Workspace;
 import org.opencastproject.workspace.impl.jmx.WorkspaceBean;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.TeeInputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
@@ -84,13 +89,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -105,8 +112,9 @@ import javax.ws.rs.core.UriBuilder;
  * singleton working file repository, you can save a lot of space if you
  * configure both root directories onto the same volume (that is, if your file
  * system supports hard links).
- *
- * TODO Implement cache invalidation using the caching headers, if provided, from the remote server.
+ * <p>
+ * Downloaded files are revalidated using conditional requests and, if a maximum cache size is configured, evicted in
+ * least recently used order. See {@link WorkspaceCache}.
  */
 @Component(
     property = {
@@ -127,15 +135,36 @@ public final class WorkspaceImpl implements Workspace {
   public static final String WORKSPACE_CLEANUP_PERIOD_KEY = "org.opencastproject.workspace.cleanup.period";
   /** Configuration key for garbage collection max age. */
   public static final String WORKSPACE_CLEANUP_MAX_AGE_KEY = "org.opencastproject.workspace.cleanup.max.age";
+  /** Configuration key for the strategies used to materialize files from a local working file repository */
+  public static final String WORKSPACE_MATERIALIZATION_KEY = "org.opencastproject.workspace.materialization.strategies";
+  /** Configuration key for the strategies used to materialize files from a local asset manager in the workspace */
+  public static final String WORKSPACE_ASSET_MATERIALIZATION_KEY =
+          "org.opencastproject.workspace.materialization.assetmanager.strategies";
+  /** Configuration key for the maximum size of downloaded files in bytes. */
+  public static final String WORKSPACE_CACHE_MAX_SIZE_KEY = "org.opencastproject.workspace.cache.max.size";
+  /** Configuration key for the minimum time since the last use before a downloaded file may be evicted. */
+  public static final String WORKSPACE_CACHE_MIN_AGE_KEY = "org.opencastproject.workspace.cache.min.age";
 
   /** Workspace JMX type */
   private static final String JMX_WORKSPACE_TYPE = "Workspace";
 
+  /** File extension of the md5 hashes stored by the working file repository along with each file */
+  private static final String WFR_MD5_EXTENSION = ".md5";
+
   /** Unknown file name string */
   private static final String UNKNOWN_FILENAME = "unknown";
 
+  /** Materializes files from the working file repository and the asset manager in the workspace */
+  private final FileMaterializer materializer = new FileMaterializer();
+
+  /** The strategies used for files from the asset manager, which are copied unless configured otherwise */
+  private List<FileMaterializer.Strategy> assetManagerStrategies = List.of(FileMaterializer.Strategy.COPY);
+
+  /** Keeps track of downloaded files */
+  private final WorkspaceCache cache = new WorkspaceCache();
+
   /** The JMX workspace bean */
-  private WorkspaceBean workspaceBean = new WorkspaceBean(this);
+  private WorkspaceBean workspaceBean = new WorkspaceBean(this, materializer, cache);
 
   /** The JMX bean object instance */
   private ObjectInstance registeredMXBean;
@@ -293,6 +322,52 @@ public final class WorkspaceImpl implements Workspace {
       }
     }
 
+    // Configure how local files are made available in the workspace
+    if (ensureContextProp(cc, WORKSPACE_MATERIALIZATION_KEY)) {
+      String strategies = cc.getBundleContext().getProperty(WORKSPACE_MATERIALIZATION_KEY);
+      try {
+        materializer.setStrategies(FileMaterializer.parseStrategies(strategies));
+      } catch (IllegalArgumentException e) {
+        logger.warn("Invalid configuration for workspace materialization strategies ({}={})",
+                WORKSPACE_MATERIALIZATION_KEY, strategies);
+      }
+    }
+    if (ensureContextProp(cc, WORKSPACE_ASSET_MATERIALIZATION_KEY)) {
+      String strategies = cc.getBundleContext().getProperty(WORKSPACE_ASSET_MATERIALIZATION_KEY);
+      try {
+        if (StringUtils.isNotBlank(strategies)) {
+          assetManagerStrategies = FileMaterializer.parseStrategies(strategies);
+        }
+      } catch (IllegalArgumentException e) {
+        logger.warn("Invalid configuration for workspace materialization strategies ({}={})",
+                WORKSPACE_ASSET_MATERIALIZATION_KEY, strategies);
+      }
+    }
+    logger.info("Materializing local files in the workspace using strategies {} (working file repository) and {} "
+            + "(asset manager)", materializer.getStrategies(), assetManagerStrategies);
+
+    // Configure the cache of downloaded files
+    if (ensureContextProp(cc, WORKSPACE_CACHE_MAX_SIZE_KEY)) {
+      String maxSize = cc.getBundleContext().getProperty(WORKSPACE_CACHE_MAX_SIZE_KEY);
+      try {
+        cache.setMaxSize(Long.parseLong(maxSize.trim()));
+      } catch (NumberFormatException e) {
+        logger.warn("Invalid configuration for workspace cache max size ({}={})",
+                WORKSPACE_CACHE_MAX_SIZE_KEY, maxSize);
+      }
+    }
+    if (ensureContextProp(cc, WORKSPACE_CACHE_MIN_AGE_KEY)) {
+      String minAge = cc.getBundleContext().getProperty(WORKSPACE_CACHE_MIN_AGE_KEY);
+      try {
+        cache.setMinAge(Long.parseLong(minAge.trim()) * 1000L);
+      } catch (NumberFormatException e) {
+        logger.warn("Invalid configuration for workspace cache min age ({}={})", WORKSPACE_CACHE_MIN_AGE_KEY, minAge);
+      }
+    }
+    if (cache.getMaxSize() > 0) {
+      logger.info("Limiting downloaded files in the workspace to {} bytes", cache.getMaxSize());
+    }
+
     registeredMXBean = JmxUtil.registerMXBean(workspaceBean, JMX_WORKSPACE_TYPE);
 
     // Start cleanup scheduler if we have sensible cleanup values:
@@ -393,13 +468,38 @@ public final class WorkspaceImpl implements Workspace {
     // Check if we can get the files directly from the asset manager
     final File asset = AssetPathUtils.getLocalFile(assetManagerPaths, securityService.getOrganization().getId(), uri);
     if (asset != null) {
-      logger.debug("Copy local file {} from asset manager to workspace", asset);
-      Files.copy(asset.toPath(), inWs.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      logger.debug("Materialize local file {} from asset manager in workspace", asset);
+      FileUtils.forceMkdirParent(inWs);
+      materializer.materialize(assetManagerMount(asset), assetManagerStrategies, asset, inWs, true);
       return new File(inWs.getAbsolutePath());
     }
 
     // do HTTP transfer
-    return locked(inWs, downloadIfNecessary(uri));
+    return locked(inWs, downloadIfNecessary(uri, !uniqueFilename));
+  }
+
+  @Override
+  public Optional<Checksum> getChecksum(final URI uri) {
+    String md5 = null;
+    try {
+      // The working file repository stores the hash computed while writing the file
+      if (pathMappable != null && StringUtils.isNotBlank(pathMappable.getUrlPrefix())
+              && uri.toString().startsWith(pathMappable.getUrlPrefix())) {
+        final File wfrCopy = workingFileRepositoryFile(uri.toString().substring(pathMappable.getUrlPrefix().length()));
+        final File md5File = new File(wfrCopy.getParentFile(), wfrCopy.getName() + WFR_MD5_EXTENSION);
+        if (wfrCopy.isFile() && md5File.isFile()) {
+          md5 = StringUtils.trimToNull(FileUtils.readFileToString(md5File, StandardCharsets.UTF_8));
+        }
+      }
+    } catch (IOException e) {
+      logger.debug("Unable to read the md5 hash of {} from the working file repository", uri, e);
+    }
+    // Downloaded files have been hashed while downloading them
+    if (md5 == null) {
+      final WorkspaceCache.Entry cached = cache.get(toWorkspaceFile(uri));
+      md5 = cached != null ? cached.getMd5() : null;
+    }
+    return Optional.ofNullable(md5).map(value -> Checksum.create(ChecksumType.DEFAULT_TYPE, value));
   }
 
   @Override
@@ -433,18 +533,37 @@ public final class WorkspaceImpl implements Workspace {
       return new FileInputStream(publishedFile);
     }
 
+    // Read a downloaded copy in the workspace, which must not be evicted while it is being read
+    final File inWs = toWorkspaceFile(uri);
+    if (cache.get(inWs) != null) {
+      cache.acquire(inWs);
+      try {
+        return new CachedFileInputStream(get(uri));
+      } catch (NotFoundException | IOException | RuntimeException e) {
+        cache.release(inWs);
+        throw e;
+      }
+    }
+
     // fall back to get() which should download the file into local workspace if necessary
     return new DeleteOnCloseFileInputStream(get(uri, true));
   }
 
-  /** Copy or link <code>src</code> to <code>dst</code>. */
+  /** Copy or link <code>src</code> from the working file repository to <code>dst</code>. */
   private void copyOrLink(final File src, final File dst) throws IOException {
-    if (linkingEnabled) {
-      FileUtils.deleteQuietly(dst);
-      FileSupport.link(src, dst);
-    } else {
-      FileSupport.copy(src, dst);
+    FileUtils.forceMkdirParent(dst);
+    materializer.materialize(pathMappable.getPathPrefix(), src, dst, linkingEnabled);
+  }
+
+  /** Returns the asset manager root directory which contains <code>asset</code>. */
+  private String assetManagerMount(final File asset) {
+    final String path = asset.getAbsolutePath();
+    for (String root : assetManagerPaths) {
+      if (root != null && path.startsWith(new File(root).getAbsolutePath() + File.separator)) {
+        return root;
+      }
     }
+    return asset.getParent();
   }
 
   /** {@link #copyOrLink(java.io.File, java.io.File)} as an effect. <code>src -> dst -> ()</code> */
@@ -464,8 +583,8 @@ public final class WorkspaceImpl implements Workspace {
    * @throws IOException
    *           in case of any IO related issues
    */
-  private Either<String, Option<File>> handleDownloadResponse(HttpResponse response, URI src, File dst)
-          throws IOException {
+  private Either<String, Option<File>> handleDownloadResponse(HttpResponse response, URI src, File dst,
+          boolean cached, Header validator) throws IOException {
     final String url = src.toString();
     final int status = response.getStatusLine().getStatusCode();
     switch (status) {
@@ -473,13 +592,26 @@ public final class WorkspaceImpl implements Workspace {
         return right(none(File.class));
       case HttpServletResponse.SC_NOT_MODIFIED:
         logger.debug("{} has not been modified.", url);
+        if (cached && !cache.hit(dst) && validator != null) {
+          // Downloaded before the workspace kept track of it, validated by its md5 hash
+          final Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+          cache.track(dst, validator.getValue(), validator.getValue(),
+                  lastModified != null ? lastModified.getValue() : null);
+        }
         return right(some(dst));
       case HttpServletResponse.SC_ACCEPTED:
         logger.debug("{} is not ready, try again later.", url);
         return left(response.getHeaders("token")[0].getValue());
       case HttpServletResponse.SC_OK:
         logger.debug("Downloading {} to {}", url, dst.getAbsolutePath());
-        return right(some(downloadTo(response, dst)));
+        final String md5 = downloadTo(response, dst);
+        if (cached) {
+          final Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+          final Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+          cache.put(dst, md5, etag != null ? etag.getValue() : md5,
+                  lastModified != null ? lastModified.getValue() : null);
+        }
+        return right(some(dst));
       default:
         logger.warn("Received unexpected response status {} while trying to download from {}", status, url);
         FileUtils.deleteQuietly(dst);
@@ -495,9 +627,15 @@ public final class WorkspaceImpl implements Workspace {
         builder.setParameter(param.getKey(), param.getValue());
       }
       final HttpGet get = new HttpGet(builder.build());
-      // if the destination file already exists add the If-None-Match header
-      if (dst.isFile() && dst.length() > 0) {
-        get.setHeader("If-None-Match", md5(dst));
+      // if the destination file already exists add the validators of the cached version
+      final WorkspaceCache.Entry cached = cache.get(dst);
+      if (cached != null) {
+        get.setHeader(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+        if (cached.getLastModified() != null) {
+          get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        }
+      } else if (dst.isFile() && dst.length() > 0) {
+        get.setHeader(HttpHeaders.IF_NONE_MATCH, md5(dst));
       }
       return get;
     } catch (URISyntaxException e) {
@@ -511,7 +649,8 @@ public final class WorkspaceImpl implements Workspace {
    *
    * @return the file
    */
-  private File downloadIfNecessary(final URI src, final File dst) throws IOException, NotFoundException {
+  private File downloadIfNecessary(final URI src, final File dst, final boolean cached)
+          throws IOException, NotFoundException {
     HttpGet get = createGetRequest(src, dst, Collections.emptyMap());
     while (true) {
       // run the http request and handle its response
@@ -520,7 +659,7 @@ public final class WorkspaceImpl implements Workspace {
         final Either<String, Option<File>> result;
         try {
           response = trustedHttpClient.execute(get);
-          result = handleDownloadResponse(response, src, dst);
+          result = handleDownloadResponse(response, src, dst, cached, get.getFirstHeader(HttpHeaders.IF_NONE_MATCH));
         } finally {
           if (response != null) {
             trustedHttpClient.close(response);
@@ -547,14 +686,14 @@ public final class WorkspaceImpl implements Workspace {
   }
 
   /**
-   * {@link #downloadIfNecessary(java.net.URI, java.io.File)} as a function.
+   * {@link #downloadIfNecessary(java.net.URI, java.io.File, boolean)} as a function.
    * <code>src_uri -&gt; dst_file -&gt; dst_file</code>
    */
-  private Function<File, File> downloadIfNecessary(final URI src) {
+  private Function<File, File> downloadIfNecessary(final URI src, final boolean cached) {
     return new Function.X<File, File>() {
       @Override
       public File xapply(final File dst) throws Exception {
-        return downloadIfNecessary(src, dst);
+        return downloadIfNecessary(src, dst, cached);
       }
     };
   }
@@ -562,17 +701,18 @@ public final class WorkspaceImpl implements Workspace {
   /**
    * Download content of an HTTP response to a file.
    *
-   * @return the destination file
+   * @return the md5 hash of the downloaded content
    */
-  private static File downloadTo(final HttpResponse response, final File dst) throws IOException {
+  private static String downloadTo(final HttpResponse response, final File dst) throws IOException {
     // ignore return value
     dst.createNewFile();
-    try (InputStream in = response.getEntity().getContent()) {
+    final MessageDigest md5 = DigestUtils.getMd5Digest();
+    try (InputStream in = new DigestInputStream(response.getEntity().getContent(), md5)) {
       try (OutputStream out = new FileOutputStream(dst)) {
         IOUtils.copyLarge(in, out);
       }
     }
-    return dst;
+    return Hex.encodeHexString(md5.digest());
   }
 
   /**
@@ -949,6 +1089,7 @@ public final class WorkspaceImpl implements Workspace {
 
     // Clean workspace root directly
     RecursiveDirectoryCleaner.cleanDirectory(Paths.get(wsRoot), Duration.ofSeconds(maxAgeInSeconds));
+    cache.purge();
   }
 
   @Override
@@ -969,6 +1110,7 @@ public final class WorkspaceImpl implements Workspace {
       logger.debug("Clean workspace media package directory {}", mediaPackageDir);
       FileUtils.deleteDirectory(mediaPackageDir);
     }
+    cache.purge();
   }
 
   @Override
@@ -976,6 +1118,28 @@ public final class WorkspaceImpl implements Workspace {
     return wsRoot;
   }
 
+  /** Reads a downloaded file, which is not evicted from the workspace until the stream is closed. */
+  private class CachedFileInputStream extends FileInputStream {
+    private File file;
+
+    CachedFileInputStream(File file) throws FileNotFoundException {
+      super(file);
+      this.file = file;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        if (file != null) {
+          cache.release(file);
+          file = null;
+        }
+      }
+    }
+  }
+
   private class DeleteOnCloseFileInputStream extends FileInputStream {
     private File file;
 
@@ -23,13 +23,22 @@ package org.opencastproject.workspace.impl.jmx;
 
 import org.opencastproject.util.data.Option.Match;
 import org.opencastproject.workspace.api.Workspace;
+import org.opencastproject.workspace.impl.FileMaterializer;
+import org.opencastproject.workspace.impl.FileMaterializer.Strategy;
+import org.opencastproject.workspace.impl.WorkspaceCache;
 
 public class WorkspaceBean implements WorkspaceMXBean {
 
   private final Workspace workspace;
 
-  public WorkspaceBean(Workspace workspace) {
+  private final FileMaterializer materializer;
+
+  private final WorkspaceCache cache;
+
+  public WorkspaceBean(Workspace workspace, FileMaterializer materializer, WorkspaceCache cache) {
     this.workspace = workspace;
+    this.materializer = materializer;
+    this.cache = cache;
   }
 
   /**
@@ -86,4 +95,84 @@ public class WorkspaceBean implements WorkspaceMXBean {
     });
   }
 
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getLinkedFiles()
+   */
+  @Override
+  public long getLinkedFiles() {
+    return materializer.getFileCount(Strategy.LINK);
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getReflinkedFiles()
+   */
+  @Override
+  public long getReflinkedFiles() {
+    return materializer.getFileCount(Strategy.REFLINK);
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getSymlinkedFiles()
+   */
+  @Override
+  public long getSymlinkedFiles() {
+    return materializer.getFileCount(Strategy.SYMLINK);
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getCopiedFiles()
+   */
+  @Override
+  public long getCopiedFiles() {
+    return materializer.getFileCount(Strategy.COPY);
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getCopiedBytes()
+   */
+  @Override
+  public long getCopiedBytes() {
+    return materializer.getByteCount(Strategy.COPY);
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getCacheSize()
+   */
+  @Override
+  public long getCacheSize() {
+    return cache.getSize();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getCacheHits()
+   */
+  @Override
+  public long getCacheHits() {
+    return cache.getHits();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getCacheMisses()
+   */
+  @Override
+  public long getCacheMisses() {
+    return cache.getMisses();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getCacheEvictions()
+   */
+  @Override
+  public long getCacheEvictions() {
+    return cache.getEvictions();
+  }
+
+  /**
+   * @see org.opencastproject.workspace.impl.jmx.WorkspaceMXBean#getCacheEvictedBytes()
+   */
+  @Override
+  public long getCacheEvictedBytes() {
+    return cache.getEvictedBytes();
+  }
+
 }
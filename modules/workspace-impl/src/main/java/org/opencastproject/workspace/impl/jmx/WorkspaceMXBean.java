@@ -47,4 +47,74 @@ public interface WorkspaceMXBean {
    */
   long getTotalSpace();
 
+  /**
+   * Gets the number of local files hard linked into the workspace
+   *
+   * @return number of files
+   */
+  long getLinkedFiles();
+
+  /**
+   * Gets the number of local files cloned into the workspace using reflinks
+   *
+   * @return number of files
+   */
+  long getReflinkedFiles();
+
+  /**
+   * Gets the number of local files symbolically linked into the workspace
+   *
+   * @return number of files
+   */
+  long getSymlinkedFiles();
+
+  /**
+   * Gets the number of local files copied into the workspace
+   *
+   * @return number of files
+   */
+  long getCopiedFiles();
+
+  /**
+   * Gets the number of bytes copied into the workspace from local files
+   *
+   * @return copied bytes
+   */
+  long getCopiedBytes();
+
+  /**
+   * Gets the size of the files downloaded into the workspace in bytes
+   *
+   * @return size in bytes
+   */
+  long getCacheSize();
+
+  /**
+   * Gets the number of downloads which were avoided since the workspace copy was still up to date
+   *
+   * @return number of cache hits
+   */
+  long getCacheHits();
+
+  /**
+   * Gets the number of files downloaded into the workspace
+   *
+   * @return number of cache misses
+   */
+  long getCacheMisses();
+
+  /**
+   * Gets the number of downloaded files evicted from the workspace to stay within its maximum size
+   *
+   * @return number of evicted files
+   */
+  long getCacheEvictions();
+
+  /**
+   * Gets the number of bytes evicted from the workspace to stay within its maximum size
+   *
+   * @return evicted bytes
+   */
+  long getCacheEvictedBytes();
+
 }
@@ -0,0 +1,107 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workspace.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.workspace.impl.FileMaterializer.Strategy;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class FileMaterializerTest {
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  @Test
+  public void testParseStrategies() {
+    assertEquals(FileMaterializer.DEFAULT_STRATEGIES, FileMaterializer.parseStrategies(""));
+    assertEquals(List.of(Strategy.REFLINK, Strategy.LINK, Strategy.COPY),
+            FileMaterializer.parseStrategies(" reflink, link "));
+    assertEquals(List.of(Strategy.SYMLINK, Strategy.COPY), FileMaterializer.parseStrategies("copy,symlink"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseInvalidStrategy() {
+    FileMaterializer.parseStrategies("link,teleport");
+  }
+
+  @Test
+  public void testMaterialize() throws Exception {
+    final File mount = testFolder.newFolder();
+    final File src = new File(mount, "source.txt");
+    FileUtils.writeStringToFile(src, "content", StandardCharsets.UTF_8);
+    final File dst = new File(testFolder.newFolder(), "target.txt");
+
+    final FileMaterializer materializer = new FileMaterializer();
+    materializer.setStrategies(List.of(Strategy.COPY));
+    assertEquals(Strategy.COPY, materializer.materialize(mount.getPath(), src, dst));
+    assertEquals("content", FileUtils.readFileToString(dst, StandardCharsets.UTF_8));
+    assertEquals(Strategy.COPY, materializer.getStrategy(mount.getPath()));
+    assertEquals(1, materializer.getFileCount(Strategy.COPY));
+    assertEquals(src.length(), materializer.getByteCount(Strategy.COPY));
+
+    // Existing files are replaced
+    FileUtils.writeStringToFile(src, "updated", StandardCharsets.UTF_8);
+    materializer.setStrategies(FileMaterializer.DEFAULT_STRATEGIES);
+    final Strategy strategy = materializer.materialize(mount.getPath(), src, dst);
+    assertEquals("updated", FileUtils.readFileToString(dst, StandardCharsets.UTF_8));
+    assertEquals(strategy, materializer.getStrategy(mount.getPath()));
+  }
+
+  @Test
+  public void testGivenStrategies() throws Exception {
+    final File mount = testFolder.newFolder();
+    final File src = new File(mount, "source.txt");
+    FileUtils.writeStringToFile(src, "content", StandardCharsets.UTF_8);
+    final File dst = new File(testFolder.newFolder(), "target.txt");
+
+    final FileMaterializer materializer = new FileMaterializer();
+    assertEquals(Strategy.COPY, materializer.materialize(mount.getPath(), List.of(Strategy.COPY), src, dst, true));
+    assertEquals(0, materializer.getFileCount(Strategy.LINK));
+
+    // Writing to the workspace file in place must not modify the source
+    FileUtils.writeStringToFile(dst, "modified", StandardCharsets.UTF_8);
+    assertEquals("content", FileUtils.readFileToString(src, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testLinkingDisabled() throws Exception {
+    final File mount = testFolder.newFolder();
+    final File src = new File(mount, "source.txt");
+    FileUtils.writeStringToFile(src, "content", StandardCharsets.UTF_8);
+    final File dst = new File(testFolder.newFolder(), "target.txt");
+
+    final FileMaterializer materializer = new FileMaterializer();
+    materializer.setStrategies(List.of(Strategy.LINK, Strategy.COPY));
+    assertEquals(Strategy.COPY, materializer.materialize(mount.getPath(), src, dst, false));
+    assertEquals(0, materializer.getFileCount(Strategy.LINK));
+  }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workspace.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.data.Function;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+public class WorkspaceCacheTest {
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  private File newFile(String name, int size) throws Exception {
+    final File file = testFolder.newFile(name);
+    FileUtils.writeStringToFile(file, "x".repeat(size), StandardCharsets.UTF_8);
+    return file;
+  }
+
+  @Test
+  public void testValidators() throws Exception {
+    final WorkspaceCache cache = new WorkspaceCache();
+    final File file = newFile("a", 10);
+    cache.put(file, "md5", "etag", "Thu, 01 Jan 2026 00:00:00 GMT");
+
+    final WorkspaceCache.Entry entry = cache.get(file);
+    assertNotNull(entry);
+    assertEquals("md5", entry.getMd5());
+    assertEquals("etag", entry.getEtag());
+    assertEquals("Thu, 01 Jan 2026 00:00:00 GMT", entry.getLastModified());
+    assertEquals(10L, cache.getSize());
+
+    // Modified files are not considered valid anymore
+    FileUtils.writeStringToFile(file, "modified", StandardCharsets.UTF_8);
+    assertNull(cache.get(file));
+    assertEquals(0L, cache.getSize());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    final WorkspaceCache cache = new WorkspaceCache();
+    cache.setMaxSize(25L);
+    cache.setMinAge(0L);
+    final File a = newFile("a", 10);
+    final File b = newFile("b", 10);
+    final File c = newFile("c", 10);
+    cache.put(a, "a", "a", null);
+    cache.put(b, "b", "b", null);
+    // Using a makes b the least recently used file
+    Thread.sleep(5L);
+    cache.hit(a);
+    Thread.sleep(5L);
+    cache.put(c, "c", "c", null);
+
+    assertTrue(a.isFile());
+    assertFalse(b.isFile());
+    assertTrue(c.isFile());
+    assertEquals(20L, cache.getSize());
+    assertEquals(1L, cache.getEvictions());
+    assertEquals(10L, cache.getEvictedBytes());
+    assertEquals(1L, cache.getHits());
+    assertEquals(3L, cache.getMisses());
+  }
+
+  @Test
+  public void testRecentlyUsedFilesAreKept() throws Exception {
+    final WorkspaceCache cache = new WorkspaceCache();
+    cache.setMaxSize(15L);
+    cache.setMinAge(3600000L);
+    final File a = newFile("a", 10);
+    final File b = newFile("b", 10);
+    cache.put(a, "a", "a", null);
+    cache.put(b, "b", "b", null);
+
+    assertTrue(a.isFile());
+    assertTrue(b.isFile());
+    assertEquals(0L, cache.getEvictions());
+  }
+
+  @Test
+  public void testFilesBeingReadAreKept() throws Exception {
+    final WorkspaceCache cache = new WorkspaceCache();
+    cache.setMaxSize(15L);
+    cache.setMinAge(0L);
+    final File a = newFile("a", 10);
+    final File b = newFile("b", 10);
+    final File c = newFile("c", 10);
+    cache.put(a, "a", "a", null);
+    cache.acquire(a);
+    cache.put(b, "b", "b", null);
+    assertTrue(a.isFile());
+    assertTrue(b.isFile());
+
+    cache.release(a);
+    cache.put(c, "c", "c", null);
+    assertFalse(a.isFile());
+    assertFalse(b.isFile());
+    assertTrue(c.isFile());
+    assertEquals(10L, cache.getSize());
+  }
+
+  @Test
+  public void testEvictionWaitsForFileLock() throws Exception {
+    final WorkspaceCache cache = new WorkspaceCache();
+    cache.setMaxSize(15L);
+    cache.setMinAge(0L);
+    final File a = newFile("a", 10);
+    final File b = newFile("b", 10);
+    cache.put(a, "a", "a", null);
+
+    // Another thread revalidates a
+    final CountDownLatch locked = new CountDownLatch(1);
+    final CountDownLatch revalidated = new CountDownLatch(1);
+    final Thread revalidation = new Thread(() -> {
+      try {
+        IoSupport.locked(a, new Function.X<File, Void>() {
+          @Override
+          protected Void xapply(File file) throws Exception {
+            locked.countDown();
+            revalidated.await();
+            return null;
+          }
+        });
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    revalidation.start();
+    locked.await();
+
+    final Thread download = new Thread(() -> cache.put(b, "b", "b", null));
+    download.start();
+    download.join(200L);
+    assertTrue(download.isAlive());
+    assertTrue(a.isFile());
+
+    revalidated.countDown();
+    revalidation.join();
+    download.join();
+    assertFalse(a.isFile());
+    assertTrue(b.isFile());
+  }
+
+  @Test
+  public void testTrack() throws Exception {
+    final WorkspaceCache cache = new WorkspaceCache();
+    final File a = newFile("a", 10);
+    cache.track(a, "md5", "md5", null);
+    assertTrue(cache.hit(a));
+    assertEquals(10L, cache.getSize());
+    assertEquals(0L, cache.getMisses());
+  }
+
+  @Test
+  public void testPurge() throws Exception {
+    final WorkspaceCache cache = new WorkspaceCache();
+    final File a = newFile("a", 10);
+    cache.put(a, "a", "a", null);
+    FileUtils.forceDelete(a);
+    cache.purge();
+    assertEquals(0L, cache.getSize());
+  }
+
+}
@@ -27,12 +27,15 @@ import static org.easymock.EasyMock.expect;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.TrustedHttpClient;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.UrlSupport;
 import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 
 import com.entwinemedia.fn.Prelude;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
@@ -267,6 +270,7 @@ public class WorkspaceImplTest {
         .andReturn(new BasicStatusLine(new ProtocolVersion("Http", 1, 1), 200, "Good to go"))
         .anyTimes();
     expect(response.getEntity()).andReturn(httpEntity);
+    expect(response.getFirstHeader(anyObject(String.class))).andReturn(null).anyTimes();
     TrustedHttpClient trustedHttpClient = EasyMock.createNiceMock(TrustedHttpClient.class);
     expect(trustedHttpClient.execute(anyObject(HttpUriRequest.class))).andReturn(response).anyTimes();
     EasyMock.replay(httpEntity, response, trustedHttpClient);
@@ -274,6 +278,10 @@ public class WorkspaceImplTest {
 
     File resultingFile = workspace.get(URI.create("http://foo.com/myaccount/videos/"));
     Assert.assertEquals(expectedFile, resultingFile);
+
+    // The checksum has been computed while downloading the file
+    Assert.assertEquals(Checksum.create(ChecksumType.DEFAULT_TYPE, DigestUtils.md5Hex("")),
+            workspace.getChecksum(URI.create("http://foo.com/myaccount/videos/")).get());
   }
 
   @Test